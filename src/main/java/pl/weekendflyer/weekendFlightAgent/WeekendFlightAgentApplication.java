@@ -2,13 +2,18 @@ package pl.weekendflyer.weekendFlightAgent;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.scheduling.annotation.EnableScheduling;
+import pl.weekendflyer.weekendFlightAgent.scheduler.OneShotCommands;
 
 @SpringBootApplication
 @EnableScheduling
 public class WeekendFlightAgentApplication {
 	public static void main(String[] args) {
-		SpringApplication.run(WeekendFlightAgentApplication.class, args);
+		ConfigurableApplicationContext context = SpringApplication.run(WeekendFlightAgentApplication.class, args);
+		if (OneShotCommands.requested(context.getEnvironment())) {
+			System.exit(SpringApplication.exit(context));
+		}
 	}
 
 }
@@ -16,7 +16,9 @@ public record AgentProperties(
         Baseline baseline,
         CandidateFilter candidateFilter,
         Alerts alerts,
-        Planner planner
+        Planner planner,
+        Scan scan,
+        Scheduler scheduler
 ) {
 
     public record Search(
@@ -57,13 +59,33 @@ public record AgentProperties(
     public record Alerts(
             String channel,
             int maxAlertsPerDay,
-            int maxAlertsPerDestinationPerWeek
+            int maxAlertsPerDestinationPerWeek,
+            int maxSendAttempts,
+            int senderThreads
     ) {}
 
     public record Planner(
             int maxWindowsPerDestinationPerDepartDate,
             int maxWindowsGlobal,
             int minRecheckIntervalHours,
-            int dailyBudgetPerProvider
+            int dailyBudgetPerProvider,
+            int maxRecheckIntervalHours,
+            double priceEwmaAlpha
     ) {}
+
+    public record Scan(
+            int checkpointBatchSize,
+            boolean resumeOnStartup,
+            int inFlightLeaseMinutes
+    ) {}
+
+    public record Scheduler(
+            Mode mode,
+            int tickMinutes
+    ) {
+        public enum Mode {
+            CRON,
+            CONTINUOUS
+        }
+    }
 }
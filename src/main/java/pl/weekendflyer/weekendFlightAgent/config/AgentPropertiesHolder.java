@@ -0,0 +1,115 @@
+package pl.weekendflyer.weekendFlightAgent.config;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+/**
+ * Aktualny, niemutowalny snapshot {@link AgentProperties}. Nowa wersja config.yaml jest najpierw
+ * wczytana i zwalidowana, a dopiero potem atomowo podmieniana - błędny plik zostawia poprzedni snapshot.
+ */
+@Slf4j
+public class AgentPropertiesHolder implements AutoCloseable {
+
+    /** Edytory zapisują plik kilkoma zdarzeniami (truncate + write, rename) - czekamy aż się uspokoi. */
+    private static final Duration DEBOUNCE = Duration.ofMillis(200);
+
+    @FunctionalInterface
+    public interface Source {
+        AgentProperties load() throws IOException;
+    }
+
+    private final Source source;
+    private final AtomicReference<AgentProperties> current;
+    private WatchService watchService;
+
+    public AgentPropertiesHolder(Source source) throws IOException {
+        this.source = source;
+        this.current = new AtomicReference<>(source.load());
+    }
+
+    public AgentProperties current() {
+        return current.get();
+    }
+
+    /**
+     * @return true gdy nowy snapshot został przyjęty (także gdy jest identyczny z obecnym)
+     */
+    public boolean reload() {
+        AgentProperties next;
+        try {
+            next = source.load();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Config reload rejected, keeping previous version: {}", e.getMessage());
+            return false;
+        }
+
+        AgentProperties previous = current.getAndSet(next);
+        if (next.equals(previous)) {
+            log.debug("Config reloaded - no changes");
+        } else {
+            log.info("Config reloaded - origins={}, destinations={}", next.origins(), next.destinations().size());
+        }
+        return true;
+    }
+
+    public synchronized void watch(Path file) throws IOException {
+        if (watchService != null) {
+            throw new IllegalStateException("Config file is already watched");
+        }
+
+        Path directory = file.toAbsolutePath().getParent();
+        Path fileName = file.getFileName();
+        watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+
+        WatchService service = watchService;
+        Thread watcher = new Thread(() -> watchLoop(service, fileName), "agent-config-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+
+        log.info("Watching {} for config changes", file.toAbsolutePath());
+    }
+
+    private void watchLoop(WatchService service, Path fileName) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean changed = key.pollEvents().stream().anyMatch(event -> fileName.equals(event.context()));
+                key.reset();
+                if (!changed) {
+                    continue;
+                }
+
+                Thread.sleep(DEBOUNCE.toMillis());
+                WatchKey pending;
+                while ((pending = service.poll()) != null) {
+                    pending.pollEvents();
+                    pending.reset();
+                }
+                reload();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            log.debug("Config watcher stopped");
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+            watchService = null;
+        }
+    }
+}
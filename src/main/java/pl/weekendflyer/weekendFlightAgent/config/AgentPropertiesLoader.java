@@ -1,8 +1,13 @@
 package pl.weekendflyer.weekendFlightAgent.config;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.util.ResourceUtils;
 import org.yaml.snakeyaml.Yaml;
 
 import java.io.IOException;
@@ -14,27 +19,117 @@ import java.util.Map;
 @Configuration
 public class AgentPropertiesLoader {
 
+    private static final String DEFAULT_CONFIG_PATH = "classpath:config.yaml";
+
+    private final String configPath;
+    private final ResourceLoader resourceLoader;
+
+    public AgentPropertiesLoader() {
+        this(DEFAULT_CONFIG_PATH, new DefaultResourceLoader());
+    }
+
+    @Autowired
+    public AgentPropertiesLoader(
+            @Value("${agent.configPath:" + DEFAULT_CONFIG_PATH + "}") String configPath,
+            ResourceLoader resourceLoader
+    ) {
+        this.configPath = configPath;
+        this.resourceLoader = resourceLoader;
+    }
+
+    /**
+     * Plik spoza classpath (np. {@code file:/etc/agent/config.yaml}) jest obserwowany i przeładowywany bez restartu.
+     */
+    @Bean(destroyMethod = "close")
+    public AgentPropertiesHolder agentPropertiesHolder() throws IOException {
+        AgentPropertiesHolder holder = new AgentPropertiesHolder(this::load);
+        if (!configPath.startsWith(ResourceUtils.CLASSPATH_URL_PREFIX)) {
+            Resource resource = resourceLoader.getResource(configPath);
+            if (resource.isFile()) {
+                holder.watch(resource.getFile().toPath());
+            }
+        }
+        return holder;
+    }
+
+    /**
+     * Snapshot z chwili startu - tylko dla ustawień wymagających restartu: timezone, alerts.channel
+     * i alerts.senderThreads.
+     * Logika wykonywana per przebieg czyta {@link AgentPropertiesHolder#current()}.
+     */
     @Bean
     public AgentProperties agentProperties() throws IOException {
+        return agentPropertiesHolder().current();
+    }
+
+    AgentProperties load() throws IOException {
         Yaml yaml = new Yaml();
-        try (InputStream inputStream = new ClassPathResource("config.yaml").getInputStream()) {
+        try (InputStream inputStream = resourceLoader.getResource(configPath).getInputStream()) {
             Map<String, Object> root = yaml.load(inputStream);
+            if (root == null || !(root.get("agent") instanceof Map<?, ?>)) {
+                throw new IllegalArgumentException("missing 'agent' section");
+            }
             @SuppressWarnings("unchecked")
             Map<String, Object> agent = (Map<String, Object>) root.get("agent");
-            return mapToAgentProperties(agent);
+            return validate(mapToAgentProperties(agent));
+        } catch (ClassCastException | NullPointerException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid " + configPath + ": " + e.getMessage(), e);
         }
     }
 
+    static AgentProperties validate(AgentProperties properties) {
+        require(properties.origins() != null && !properties.origins().isEmpty(), "origins must not be empty");
+        require(properties.destinations() != null && !properties.destinations().isEmpty(), "destinations must not be empty");
+        properties.origins().forEach(code -> require(isAirportCode(code), "invalid origin " + code));
+        properties.destinations().forEach(code -> require(isAirportCode(code), "invalid destination " + code));
+
+        require(properties.search().horizonDays() > 0, "search.horizonDays must be positive");
+        require(!properties.search().fullDaysAllowed().isEmpty(), "search.fullDaysAllowed must not be empty");
+
+        AgentProperties.Planner planner = properties.planner();
+        require(planner.maxWindowsPerDestinationPerDepartDate() > 0, "planner.maxWindowsPerDestinationPerDepartDate must be positive");
+        require(planner.maxWindowsGlobal() > 0, "planner.maxWindowsGlobal must be positive");
+        require(planner.dailyBudgetPerProvider() >= 0, "planner.dailyBudgetPerProvider must not be negative");
+        require(planner.minRecheckIntervalHours() > 0, "planner.minRecheckIntervalHours must be positive");
+        require(planner.maxRecheckIntervalHours() >= planner.minRecheckIntervalHours(),
+                "planner.maxRecheckIntervalHours must not be lower than minRecheckIntervalHours");
+        require(planner.priceEwmaAlpha() > 0 && planner.priceEwmaAlpha() <= 1, "planner.priceEwmaAlpha must be in (0, 1]");
+
+        require(properties.baseline().rollingDays() > 0, "baseline.rollingDays must be positive");
+        require(properties.alerts().maxSendAttempts() >= 1, "alerts.maxSendAttempts must be at least 1");
+        require(properties.scan().checkpointBatchSize() >= 1, "scan.checkpointBatchSize must be at least 1");
+        require(properties.scan().inFlightLeaseMinutes() > 0, "scan.inFlightLeaseMinutes must be positive");
+        return properties;
+    }
+
+    private static boolean isAirportCode(String code) {
+        return code != null && code.matches("[A-Z]{3}");
+    }
+
+    private static void require(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    /**
+     * Listy z SnakeYAML są mutowalne - snapshot dostaje kopie, żeby konsument nie mógł go zmienić.
+     * Brak listy zostaje null i zgłasza go {@link #validate}.
+     */
+    private static <T> List<T> immutable(List<T> values) {
+        return values != null ? List.copyOf(values) : null;
+    }
+
     @SuppressWarnings("unchecked")
     private AgentProperties mapToAgentProperties(Map<String, Object> agent) {
         String timezone = (String) agent.get("timezone");
-        List<String> origins = (List<String>) agent.get("origins");
-        List<String> destinations = (List<String>) agent.get("destinations");
+        List<String> origins = immutable((List<String>) agent.get("origins"));
+        List<String> destinations = immutable((List<String>) agent.get("destinations"));
 
         Map<String, Object> searchMap = (Map<String, Object>) agent.get("search");
         AgentProperties.Search search = new AgentProperties.Search(
                 (Integer) searchMap.get("horizonDays"),
-                (List<Integer>) searchMap.get("fullDaysAllowed")
+                immutable((List<Integer>) searchMap.get("fullDaysAllowed"))
         );
 
         Map<String, Object> saturdayRuleMap = (Map<String, Object>) agent.get("saturdayRule");
@@ -75,7 +170,9 @@ public class AgentPropertiesLoader {
         AgentProperties.Alerts alerts = new AgentProperties.Alerts(
                 (String) alertsMap.get("channel"),
                 (Integer) alertsMap.get("maxAlertsPerDay"),
-                (Integer) alertsMap.get("maxAlertsPerDestinationPerWeek")
+                (Integer) alertsMap.get("maxAlertsPerDestinationPerWeek"),
+                (Integer) alertsMap.getOrDefault("maxSendAttempts", 3),
+                (Integer) alertsMap.getOrDefault("senderThreads", 2)
         );
 
         Map<String, Object> plannerMap = (Map<String, Object>) agent.get("planner");
@@ -83,7 +180,22 @@ public class AgentPropertiesLoader {
                 (Integer) plannerMap.get("maxWindowsPerDestinationPerDepartDate"),
                 (Integer) plannerMap.get("maxWindowsGlobal"),
                 (Integer) plannerMap.get("minRecheckIntervalHours"),
-                (Integer) plannerMap.get("dailyBudgetPerProvider")
+                (Integer) plannerMap.get("dailyBudgetPerProvider"),
+                (Integer) plannerMap.getOrDefault("maxRecheckIntervalHours", plannerMap.get("minRecheckIntervalHours")),
+                ((Number) plannerMap.getOrDefault("priceEwmaAlpha", 0.3)).doubleValue()
+        );
+
+        Map<String, Object> scanMap = (Map<String, Object>) agent.getOrDefault("scan", Map.of());
+        AgentProperties.Scan scan = new AgentProperties.Scan(
+                (Integer) scanMap.getOrDefault("checkpointBatchSize", 20),
+                (Boolean) scanMap.getOrDefault("resumeOnStartup", true),
+                (Integer) scanMap.getOrDefault("inFlightLeaseMinutes", 30)
+        );
+
+        Map<String, Object> schedulerMap = (Map<String, Object>) agent.getOrDefault("scheduler", Map.of());
+        AgentProperties.Scheduler scheduler = new AgentProperties.Scheduler(
+                AgentProperties.Scheduler.Mode.valueOf(((String) schedulerMap.getOrDefault("mode", "CRON")).toUpperCase()),
+                (Integer) schedulerMap.getOrDefault("tickMinutes", 5)
         );
 
         return new AgentProperties(
@@ -96,7 +208,9 @@ public class AgentPropertiesLoader {
                 baseline,
                 candidateFilter,
                 alerts,
-                planner
+                planner,
+                scan,
+                scheduler
         );
     }
 }
@@ -0,0 +1,89 @@
+package pl.weekendflyer.weekendFlightAgent.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.weekendflyer.weekendFlightAgent.domain.alert.AlertChannel;
+import pl.weekendflyer.weekendFlightAgent.domain.alert.AlertDispatcher;
+import pl.weekendflyer.weekendFlightAgent.domain.alert.AlertRateLimiter;
+import pl.weekendflyer.weekendFlightAgent.domain.alert.LoggingAlertChannel;
+import pl.weekendflyer.weekendFlightAgent.domain.dedupe.OfferKeyFilter;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.DealOutboxRepository;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.DealRepository;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.NotificationLogRepository;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class AlertConfig {
+
+    private static final int DISPATCH_BATCH_SIZE = 50;
+    private static final Duration RETRY_BACKOFF = Duration.ofSeconds(2);
+    private static final Duration REDELIVERY_DELAY = Duration.ofMinutes(5);
+    private static final Duration CLAIM_LEASE = Duration.ofMinutes(10);
+
+    @Bean
+    @ConditionalOnMissingBean(AlertChannel.class)
+    public AlertChannel alertChannel(AgentProperties agentProperties) {
+        return new LoggingAlertChannel(agentProperties.alerts().channel());
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService alertSendExecutor(AgentProperties agentProperties) {
+        int threads = agentProperties.alerts().senderThreads();
+        return new ThreadPoolExecutor(
+                threads,
+                threads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(DISPATCH_BATCH_SIZE),
+                new CustomizableThreadFactory("alert-send-"),
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+    }
+
+    @Bean
+    public AlertDispatcher alertDispatcher(
+            Clock clock,
+            AgentPropertiesHolder agentPropertiesHolder,
+            AlertChannel alertChannel,
+            ExecutorService alertSendExecutor,
+            DealRepository dealRepository,
+            DealOutboxRepository dealOutboxRepository,
+            NotificationLogRepository notificationLogRepository,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${agent.dedupe.initial-capacity:100000}") long dedupeInitialCapacity,
+            @Value("${agent.dedupe.false-positive-rate:0.00001}") double dedupeFalsePositiveRate,
+            @Value("${agent.dedupe.lookback-days:30}") int dedupeLookbackDays
+    ) {
+        return new AlertDispatcher(
+                clock,
+                alertChannel,
+                new AlertRateLimiter(
+                        () -> agentPropertiesHolder.current().alerts().maxAlertsPerDay(),
+                        () -> agentPropertiesHolder.current().alerts().maxAlertsPerDestinationPerWeek()),
+                alertSendExecutor,
+                () -> agentPropertiesHolder.current().alerts().maxSendAttempts(),
+                RETRY_BACKOFF,
+                REDELIVERY_DELAY,
+                CLAIM_LEASE,
+                DISPATCH_BATCH_SIZE,
+                dealRepository,
+                dealOutboxRepository,
+                notificationLogRepository,
+                transactionTemplate,
+                new OfferKeyFilter("notification", dedupeInitialCapacity, dedupeFalsePositiveRate, meterRegistry),
+                Duration.ofDays(dedupeLookbackDays)
+        );
+    }
+}
@@ -1,17 +1,40 @@
 package pl.weekendflyer.weekendFlightAgent.config;
 
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import pl.weekendflyer.weekendFlightAgent.domain.provider.ProviderResponseLog;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.ZoneId;
+import java.util.Optional;
 
+@Slf4j
 @Configuration
 public class ClockConfig {
 
+    /**
+     * Przy odtwarzaniu nagrania zegar jest cofnięty do początku nagrania, żeby generator
+     * wyznaczył te same okna (te same window_key) co podczas zapisu.
+     */
     @Bean
-    public Clock clock(AgentProperties agentProperties) {
-        return Clock.system(ZoneId.of(agentProperties.timezone()));
+    public Clock clock(AgentProperties agentProperties, @Value("${agent.provider.replay:}") String replayPath) throws IOException {
+        Clock system = Clock.system(ZoneId.of(agentProperties.timezone()));
+        if (replayPath.isBlank()) {
+            return system;
+        }
+
+        Optional<Instant> recordedFrom = ProviderResponseLog.firstRecordedAt(Path.of(replayPath));
+        if (recordedFrom.isEmpty()) {
+            return system;
+        }
+
+        log.info("Replay clock starts at {}", recordedFrom.get());
+        return Clock.offset(system, Duration.between(system.instant(), recordedFrom.get()));
     }
 }
-
@@ -0,0 +1,96 @@
+package pl.weekendflyer.weekendFlightAgent.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.ReadReplicaRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Pula primary ze {@code spring.datasource.*}, a z {@code agent.datasource.replica.url} także osobna, mniejsza
+ * pula repliki dla transakcji read-only. Wybór w metodzie @Bean (jak w {@link PersistenceConfig}), żeby działał
+ * w buildzie AOT.
+ */
+@Slf4j
+@Configuration
+public class DataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    /**
+     * Bez repliki to po prostu pula primary. Użytkownik i hasło repliki domyślnie jak primary.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(
+            HikariDataSource primaryDataSource,
+            DataSourceProperties properties,
+            Clock clock,
+            MeterRegistry meterRegistry,
+            @Value("${agent.datasource.replica.url:}") String replicaUrl,
+            @Value("${agent.datasource.replica.username:}") String replicaUsername,
+            @Value("${agent.datasource.replica.password:}") String replicaPassword,
+            @Value("${agent.datasource.replica.maximum-pool-size:4}") int replicaPoolSize,
+            @Value("${agent.datasource.replica.connection-timeout-millis:2000}") long replicaConnectionTimeoutMillis,
+            @Value("${agent.datasource.replica.retry-after-seconds:30}") long replicaRetryAfterSeconds
+    ) {
+        if (replicaUrl.isBlank()) {
+            log.info("Read replica: none, read-only transactions use the primary pool");
+            return primaryDataSource;
+        }
+        HikariDataSource replica = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(replicaUrl)
+                .username(replicaUsername.isBlank() ? properties.determineUsername() : replicaUsername)
+                .password(replicaPassword.isBlank() ? properties.determinePassword() : replicaPassword)
+                .build();
+        replica.setPoolName("replica");
+        replica.setMaximumPoolSize(replicaPoolSize);
+        replica.setMinimumIdle(1);
+        replica.setReadOnly(true);
+        replica.setConnectionTimeout(replicaConnectionTimeoutMillis);
+        // Niedostępna replika nie blokuje startu - transakcje read-only pójdą wtedy na primary.
+        replica.setInitializationFailTimeout(-1);
+        replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        log.info("Read replica: {} (pool {}), read-only transactions are routed there", replicaUrl, replicaPoolSize);
+        return new ReadReplicaRoutingDataSource(primaryDataSource, replica, clock,
+                Duration.ofSeconds(replicaRetryAfterSeconds), meterRegistry);
+    }
+
+    /**
+     * Własny {@code readOnlyTransactionTemplate} wyłącza domyślny z autokonfiguracji, więc jest zdefiniowany tutaj.
+     */
+    @Bean
+    @Primary
+    public TransactionTemplate transactionTemplate(PlatformTransactionManager transactionManager) {
+        return new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Transakcje tylko do odczytu - przy skonfigurowanej replice wykonywane na niej.
+     */
+    @Bean
+    public TransactionTemplate readOnlyTransactionTemplate(PlatformTransactionManager transactionManager) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template;
+    }
+}
@@ -0,0 +1,68 @@
+package pl.weekendflyer.weekendFlightAgent.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.weekendflyer.weekendFlightAgent.domain.deal.BaselineRefresher;
+import pl.weekendflyer.weekendFlightAgent.domain.deal.DealDetector;
+import pl.weekendflyer.weekendFlightAgent.domain.deal.DealRecorder;
+import pl.weekendflyer.weekendFlightAgent.domain.dedupe.OfferKeyFilter;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.BaselineRepository;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.DealOutboxRepository;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.DealRepository;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.JdbcBaselineStore;
+
+import java.time.Clock;
+import java.time.Duration;
+
+@Configuration
+public class DealConfig {
+
+    private static final int BASELINE_BATCH_SIZE = 500;
+
+    @Bean
+    public DealDetector dealDetector(AgentPropertiesHolder agentPropertiesHolder, BaselineRepository baselineRepository) {
+        return new DealDetector(() -> agentPropertiesHolder.current().candidateFilter(), baselineRepository);
+    }
+
+    /**
+     * Filtr offer_key przed insertem deala; te same ustawienia {@code agent.dedupe.*} co filtr notification_log.
+     */
+    @Bean
+    public DealRecorder dealRecorder(
+            Clock clock,
+            DealRepository dealRepository,
+            DealOutboxRepository dealOutboxRepository,
+            MeterRegistry meterRegistry,
+            @Value("${agent.dedupe.initial-capacity:100000}") long dedupeInitialCapacity,
+            @Value("${agent.dedupe.false-positive-rate:0.00001}") double dedupeFalsePositiveRate,
+            @Value("${agent.dedupe.lookback-days:30}") int dedupeLookbackDays
+    ) {
+        return new DealRecorder(
+                clock,
+                Duration.ofDays(dedupeLookbackDays),
+                dealRepository,
+                dealOutboxRepository,
+                new OfferKeyFilter("deal", dedupeInitialCapacity, dedupeFalsePositiveRate, meterRegistry)
+        );
+    }
+
+    /**
+     * Agregacja w {@code readOnlyTransactionTemplate} (replika, jeśli jest), upsert segmentów na primary.
+     */
+    @Bean
+    public BaselineRefresher baselineRefresher(
+            Clock clock,
+            AgentPropertiesHolder agentPropertiesHolder,
+            JdbcTemplate jdbcTemplate,
+            @Qualifier("readOnlyTransactionTemplate") TransactionTemplate readOnlyTransactionTemplate,
+            TransactionTemplate transactionTemplate
+    ) {
+        return new BaselineRefresher(clock, () -> agentPropertiesHolder.current().baseline().rollingDays(),
+                new JdbcBaselineStore(jdbcTemplate, BASELINE_BATCH_SIZE), readOnlyTransactionTemplate, transactionTemplate);
+    }
+}
@@ -0,0 +1,72 @@
+package pl.weekendflyer.weekendFlightAgent.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.weekendflyer.weekendFlightAgent.domain.history.PriceHistoryExporter;
+import pl.weekendflyer.weekendFlightAgent.domain.history.PriceHistoryImporter;
+import pl.weekendflyer.weekendFlightAgent.domain.history.PriceObservationCompactor;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+@Slf4j
+@Configuration
+public class HistoryConfig {
+
+    /**
+     * Eksport tylko czyta - idzie na replikę, jeśli jest skonfigurowana.
+     */
+    @Bean
+    public PriceHistoryExporter priceHistoryExporter(
+            JdbcTemplate jdbcTemplate,
+            @Qualifier("readOnlyTransactionTemplate") TransactionTemplate readOnlyTransactionTemplate
+    ) {
+        return new PriceHistoryExporter(jdbcTemplate, readOnlyTransactionTemplate);
+    }
+
+    @Bean
+    public PriceHistoryImporter priceHistoryImporter(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        return new PriceHistoryImporter(jdbcTemplate, transactionTemplate);
+    }
+
+    /**
+     * Wiek zwijania nie schodzi poniżej okna baseline ani heartbeatu obserwacji - baseline i offer_last_seen
+     * potrzebują surowych wierszy.
+     */
+    @Bean
+    public PriceObservationCompactor priceObservationCompactor(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            Clock clock,
+            AgentPropertiesHolder agentPropertiesHolder,
+            @Value("${agent.observations.heartbeat-hours:24}") long heartbeatHours,
+            @Value("${agent.observations.compaction.min-age-days:90}") int minAgeDays,
+            @Value("${agent.observations.compaction.groups-per-batch:500}") int groupsPerBatch,
+            @Value("${agent.observations.compaction.max-batches-per-run:200}") int maxBatchesPerRun,
+            @Value("${agent.observations.compaction.pause-millis:200}") long pauseMillis
+    ) {
+        Duration minAge = compactionMinAge(minAgeDays, agentPropertiesHolder.current().baseline().rollingDays(), heartbeatHours);
+        if (minAge.toDays() != minAgeDays) {
+            log.warn("Price observation compaction age raised from {} to {} days (baseline window / heartbeat)",
+                    minAgeDays, minAge.toDays());
+        }
+        return new PriceObservationCompactor(jdbcTemplate, transactionTemplate, clock,
+                () -> compactionMinAge(minAgeDays, agentPropertiesHolder.current().baseline().rollingDays(), heartbeatHours),
+                groupsPerBatch, maxBatchesPerRun, Duration.ofMillis(pauseMillis));
+    }
+
+    private static Duration compactionMinAge(int minAgeDays, int rollingDays, long heartbeatHours) {
+        return Collections.max(List.of(
+                Duration.ofDays(minAgeDays),
+                Duration.ofDays(rollingDays + 1L),
+                Duration.ofHours(Math.max(heartbeatHours, 0)).plusDays(1)
+        ));
+    }
+}
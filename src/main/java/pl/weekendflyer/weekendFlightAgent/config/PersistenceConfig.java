@@ -0,0 +1,127 @@
+package pl.weekendflyer.weekendFlightAgent.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.ChangeOnlyPriceObservationStore;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.JdbcPriceObservationStore;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.JdbcWindowCheckStore;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.JpaPriceObservationStore;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.JpaWindowCheckStore;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.MappedWindowCheckStore;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.PriceObservationRepository;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.PriceObservationStore;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.ScanWorkQueueRepository;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.WindowCheckRepository;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.WindowCheckStore;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.WindowLatestPriceEndpoint;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.WindowLatestPriceStore;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Wybór ścieżki zapisu dla window_check i price_observation. Wybór w metodach @Bean, a nie przez
+ * {@code @ConditionalOnProperty}, żeby działał także w buildzie AOT (warunki są tam zamrażane).
+ */
+@Slf4j
+@Configuration
+public class PersistenceConfig {
+
+    private static final int JDBC_BATCH_SIZE = 500;
+
+    public enum Mode {
+        JPA, JDBC
+    }
+
+    private final Mode mode;
+
+    public PersistenceConfig(@Value("${agent.persistence:jpa}") String mode) {
+        this.mode = Mode.valueOf(mode.trim().toUpperCase());
+        log.info("Planner and observation persistence: {}", this.mode);
+    }
+
+    /**
+     * Z {@code agent.window-state.file} planer czyta i zapisuje lokalny plik mapowany do pamięci, a do
+     * {@code window_check} (zawsze JDBC) trafia on partiami z {@code WindowStateFlushJob}.
+     */
+    @Bean
+    public WindowCheckStore windowCheckStore(
+            WindowCheckRepository windowCheckRepository,
+            JdbcTemplate jdbcTemplate,
+            Clock clock,
+            AgentProperties agentProperties,
+            ScanWorkQueueRepository scanWorkQueueRepository,
+            @Value("${agent.cluster.node-id:}") String nodeId,
+            @Value("${agent.window-state.file:}") String windowStateFile,
+            @Value("${agent.window-state.initial-capacity:65536}") int windowStateCapacity
+    ) throws IOException {
+        if (!windowStateFile.isBlank()) {
+            requireSingleWriter(scanWorkQueueRepository, ScanConfig.nodeId(nodeId),
+                    Duration.ofMinutes(agentProperties.scan().inFlightLeaseMinutes()), clock);
+            log.info("Window check state: memory-mapped {} with write-behind to window_check", windowStateFile);
+            return MappedWindowCheckStore.open(Path.of(windowStateFile), windowStateCapacity,
+                    new JdbcWindowCheckStore(jdbcTemplate, JDBC_BATCH_SIZE), clock);
+        }
+        return mode == Mode.JDBC
+                ? new JdbcWindowCheckStore(jdbcTemplate, JDBC_BATCH_SIZE)
+                : new JpaWindowCheckStore(windowCheckRepository);
+    }
+
+    /**
+     * Plik jest kopią window_check tylko jednego węzła - inny węzeł skanujący równolegle czytałby i nadpisywał stan
+     * nieaktualny dla tej kopii. Start przerywa węzeł trzymający teraz okna IN_FLIGHT; ślady innych węzłów z ostatniej
+     * doby (np. poprzedni kontener z inną nazwą hosta) dają tylko ostrzeżenie.
+     */
+    static void requireSingleWriter(ScanWorkQueueRepository scanWorkQueueRepository, String nodeId,
+                                    Duration inFlightLease, Clock clock) {
+        Instant now = Instant.now(clock);
+        List<String> leasing = scanWorkQueueRepository.findOtherClaimers(nodeId, now.minus(inFlightLease), true);
+        if (!leasing.isEmpty()) {
+            throw new IllegalStateException("agent.window-state.file requires a single node writing window_check, but "
+                    + leasing + " currently hold scan windows; unset it for shared scans");
+        }
+        List<String> recent = scanWorkQueueRepository.findOtherClaimers(nodeId, now.minus(Duration.ofDays(1)), false);
+        if (!recent.isEmpty()) {
+            log.warn("agent.window-state.file is meant for a single node, but {} claimed scan windows in the last day; "
+                    + "set agent.cluster.node-id to a stable value or unset the file for shared scans", recent);
+        }
+    }
+
+    @Bean
+    public PriceObservationStore priceObservationStore(
+            PriceObservationRepository priceObservationRepository,
+            JdbcTemplate jdbcTemplate,
+            Clock clock,
+            @Value("${agent.observations.heartbeat-hours:24}") long heartbeatHours
+    ) {
+        PriceObservationStore store = mode == Mode.JDBC
+                ? new JdbcPriceObservationStore(jdbcTemplate, JDBC_BATCH_SIZE)
+                : new JpaPriceObservationStore(priceObservationRepository);
+        if (heartbeatHours <= 0) {
+            log.info("Price observations: every check is written");
+            return store;
+        }
+        log.info("Price observations: written on price change or every {}h", heartbeatHours);
+        return new ChangeOnlyPriceObservationStore(store, jdbcTemplate, clock, Duration.ofHours(heartbeatHours));
+    }
+
+    /**
+     * Zawsze JDBC - upsert z {@code unnest} i {@code RETURNING} niezależnie od {@code agent.persistence}.
+     */
+    @Bean
+    public WindowLatestPriceStore windowLatestPriceStore(JdbcTemplate jdbcTemplate, Clock clock) {
+        return new WindowLatestPriceStore(jdbcTemplate, clock);
+    }
+
+    @Bean
+    public WindowLatestPriceEndpoint windowLatestPriceEndpoint(WindowLatestPriceStore windowLatestPriceStore) {
+        return new WindowLatestPriceEndpoint(windowLatestPriceStore);
+    }
+}
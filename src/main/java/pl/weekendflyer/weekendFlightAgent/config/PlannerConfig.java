@@ -1,24 +1,53 @@
 package pl.weekendflyer.weekendFlightAgent.config;
 
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import pl.weekendflyer.weekendFlightAgent.domain.eval.TripEvaluator;
 import pl.weekendflyer.weekendFlightAgent.domain.planner.TripWindowGenerator;
 import pl.weekendflyer.weekendFlightAgent.domain.planner.WindowCheckPlanner;
-import pl.weekendflyer.weekendFlightAgent.domain.repository.WindowCheckRepository;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.WindowCheckStore;
+import pl.weekendflyer.weekendFlightAgent.domain.scan.ScanMetrics;
+import pl.weekendflyer.weekendFlightAgent.domain.timetable.ConnectionScanner;
+import pl.weekendflyer.weekendFlightAgent.domain.timetable.FlightTimetable;
+import pl.weekendflyer.weekendFlightAgent.domain.timetable.WeekendPrescreen;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.Clock;
+import java.time.Duration;
 
+@Slf4j
 @Configuration
 public class PlannerConfig {
 
     @Bean
-    public TripWindowGenerator tripWindowGenerator(Clock clock, AgentProperties agentProperties) {
-        return new TripWindowGenerator(clock, agentProperties.planner());
+    public TripWindowGenerator tripWindowGenerator(Clock clock, AgentPropertiesHolder agentPropertiesHolder) {
+        return new TripWindowGenerator(clock, () -> agentPropertiesHolder.current().planner());
     }
 
     @Bean
-    public WindowCheckPlanner windowCheckPlanner(Clock clock, AgentProperties agentProperties, WindowCheckRepository repository) {
-        return new WindowCheckPlanner(clock, agentProperties.planner(), repository);
+    public WindowCheckPlanner windowCheckPlanner(
+            Clock clock,
+            AgentPropertiesHolder agentPropertiesHolder,
+            WindowCheckStore repository,
+            ScanMetrics scanMetrics
+    ) {
+        return new WindowCheckPlanner(clock, () -> agentPropertiesHolder.current().planner(), repository, scanMetrics);
     }
-}
 
+    @Bean
+    public WeekendPrescreen weekendPrescreen(
+            TripEvaluator tripEvaluator,
+            @Value("${agent.timetable.file:}") String timetableFile,
+            @Value("${agent.timetable.min-connection-minutes:60}") int minConnectionMinutes
+    ) throws IOException {
+        FlightTimetable timetable = FlightTimetable.empty();
+        if (!timetableFile.isBlank()) {
+            timetable = FlightTimetable.load(Path.of(timetableFile));
+            log.info("Loaded timetable of {} flights from {}", timetable.size(), timetableFile);
+        }
+        return new WeekendPrescreen(timetable, new ConnectionScanner(tripEvaluator, Duration.ofMinutes(minConnectionMinutes)));
+    }
+}
@@ -0,0 +1,87 @@
+package pl.weekendflyer.weekendFlightAgent.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import pl.weekendflyer.weekendFlightAgent.domain.eval.ConstraintChain;
+import pl.weekendflyer.weekendFlightAgent.domain.eval.RoundTripCombiner;
+import pl.weekendflyer.weekendFlightAgent.domain.eval.TripEvaluator;
+import pl.weekendflyer.weekendFlightAgent.domain.provider.EmptyFlightProviderClient;
+import pl.weekendflyer.weekendFlightAgent.domain.provider.FlightOfferStreamDecoder;
+import pl.weekendflyer.weekendFlightAgent.domain.provider.FlightProviderClient;
+import pl.weekendflyer.weekendFlightAgent.domain.provider.FlightSearchService;
+import pl.weekendflyer.weekendFlightAgent.domain.provider.OneWayFareIndex;
+import pl.weekendflyer.weekendFlightAgent.domain.provider.OneWayFareSearch;
+import pl.weekendflyer.weekendFlightAgent.domain.provider.OneWayFlightProviderClient;
+import pl.weekendflyer.weekendFlightAgent.domain.provider.ProviderResponseLog;
+import pl.weekendflyer.weekendFlightAgent.domain.provider.RecordingFlightProviderClient;
+import pl.weekendflyer.weekendFlightAgent.domain.provider.ReplayFlightProviderClient;
+import pl.weekendflyer.weekendFlightAgent.domain.scan.ScanTrace;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+
+@Configuration
+public class ProviderConfig {
+
+    /**
+     * {@code agent.provider.replay} podmienia providera na odtwarzanie nagrania,
+     * {@code agent.provider.record} dopisuje każdą odpowiedź do pliku segmentu.
+     */
+    @Bean
+    @ConditionalOnMissingBean(FlightProviderClient.class)
+    public FlightProviderClient flightProviderClient(
+            @Value("${agent.provider.record:}") String recordPath,
+            @Value("${agent.provider.replay:}") String replayPath,
+            @Value("${agent.provider.replay-speed:1.0}") double replaySpeed
+    ) throws IOException {
+        FlightProviderClient client = replayPath.isBlank()
+                ? new EmptyFlightProviderClient()
+                : ReplayFlightProviderClient.open(Path.of(replayPath), replaySpeed);
+
+        if (recordPath.isBlank()) {
+            return client;
+        }
+        return new RecordingFlightProviderClient(client, ProviderResponseLog.openForAppend(Path.of(recordPath)), Clock.systemUTC());
+    }
+
+    /**
+     * {@code agent.provider.one-way} składa okna z taryf w jedną stronę; wymaga klienta {@link OneWayFlightProviderClient}.
+     * Oferty round-trip przechodzą {@link ConstraintChain} z metrykami {@code agent.eval.stage.*}.
+     */
+    @Bean
+    public FlightSearchService flightSearchService(
+            FlightProviderClient flightProviderClient,
+            FlightOfferStreamDecoder flightOfferStreamDecoder,
+            TripEvaluator tripEvaluator,
+            ScanTrace scanTrace,
+            MeterRegistry meterRegistry,
+            Clock clock,
+            @Value("${agent.provider.one-way:false}") boolean oneWay,
+            @Value("${agent.provider.one-way-fare-ttl-minutes:60}") long fareTtlMinutes,
+            @Value("${agent.provider.one-way-combinations:20}") int combinationsPerWindow
+    ) {
+        ConstraintChain constraintChain = new ConstraintChain(tripEvaluator, meterRegistry);
+        if (!oneWay) {
+            return new FlightSearchService(flightProviderClient, flightOfferStreamDecoder, constraintChain, scanTrace, null);
+        }
+        if (!(flightProviderClient instanceof OneWayFlightProviderClient oneWayClient)) {
+            throw new IllegalStateException("agent.provider.one-way requires a provider client with one-way search, got "
+                    + flightProviderClient.getClass().getSimpleName());
+        }
+        OneWayFareSearch oneWaySearch = new OneWayFareSearch(
+                oneWayClient,
+                flightOfferStreamDecoder,
+                new OneWayFareIndex(Duration.ofMinutes(fareTtlMinutes)),
+                new RoundTripCombiner(tripEvaluator),
+                clock,
+                combinationsPerWindow,
+                scanTrace
+        );
+        return new FlightSearchService(flightProviderClient, flightOfferStreamDecoder, constraintChain, scanTrace, oneWaySearch);
+    }
+}
@@ -0,0 +1,134 @@
+package pl.weekendflyer.weekendFlightAgent.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.weekendflyer.weekendFlightAgent.domain.deal.DealDetector;
+import pl.weekendflyer.weekendFlightAgent.domain.deal.DealRecorder;
+import pl.weekendflyer.weekendFlightAgent.domain.eval.TripConstraintsFactory;
+import pl.weekendflyer.weekendFlightAgent.domain.planner.WindowCheckPlanner;
+import pl.weekendflyer.weekendFlightAgent.domain.provider.FlightSearchService;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.PriceObservationStore;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.ProviderBudgetRepository;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.ScanRunRepository;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.ScanRunWindowRepository;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.ScanWorkQueueRepository;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.WindowLatestPriceStore;
+import pl.weekendflyer.weekendFlightAgent.domain.scan.ProviderBudgetGauges;
+import pl.weekendflyer.weekendFlightAgent.domain.scan.ScanMetrics;
+import pl.weekendflyer.weekendFlightAgent.domain.scan.ScanRunCoordinator;
+import pl.weekendflyer.weekendFlightAgent.domain.scan.ScanRunExecutor;
+import pl.weekendflyer.weekendFlightAgent.domain.scan.ScanTrace;
+import pl.weekendflyer.weekendFlightAgent.domain.subscription.SubscriptionMatcher;
+import pl.weekendflyer.weekendFlightAgent.domain.scan.ScanTraceEndpoint;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Path;
+import java.time.Clock;
+
+@Configuration
+public class ScanConfig {
+
+    /**
+     * {@code agent.trace.enabled=false} daje wyłączony trace bez buforów.
+     */
+    @Bean
+    public ScanTrace scanTrace(
+            @Value("${agent.trace.enabled:false}") boolean enabled,
+            @Value("${agent.trace.capacity:65536}") int capacity,
+            @Value("${agent.trace.file:}") String file
+    ) {
+        if (!enabled) {
+            return ScanTrace.disabled();
+        }
+        return new ScanTrace(capacity, file.isBlank() ? null : Path.of(file));
+    }
+
+    @Bean
+    public ScanTraceEndpoint scanTraceEndpoint(ScanTrace scanTrace) {
+        return new ScanTraceEndpoint(scanTrace);
+    }
+
+    @Bean
+    public ScanMetrics scanMetrics(MeterRegistry meterRegistry, ScanTrace scanTrace) {
+        return new ScanMetrics(meterRegistry, scanTrace);
+    }
+
+    @Bean
+    public ScanRunExecutor scanRunExecutor(
+            Clock clock,
+            AgentPropertiesHolder agentPropertiesHolder,
+            @Value("${agent.cluster.node-id:}") String nodeId,
+            ScanRunRepository scanRunRepository,
+            ScanRunWindowRepository scanRunWindowRepository,
+            ScanWorkQueueRepository scanWorkQueueRepository,
+            PriceObservationStore priceObservationStore,
+            WindowLatestPriceStore windowLatestPriceStore,
+            WindowCheckPlanner windowCheckPlanner,
+            FlightSearchService flightSearchService,
+            TripConstraintsFactory tripConstraintsFactory,
+            DealDetector dealDetector,
+            DealRecorder dealRecorder,
+            SubscriptionMatcher subscriptionMatcher,
+            TransactionTemplate transactionTemplate,
+            ScanMetrics scanMetrics
+    ) {
+        return new ScanRunExecutor(
+                clock,
+                () -> agentPropertiesHolder.current().scan(),
+                nodeId(nodeId),
+                scanRunRepository,
+                scanRunWindowRepository,
+                scanWorkQueueRepository,
+                priceObservationStore,
+                windowLatestPriceStore,
+                windowCheckPlanner,
+                flightSearchService,
+                tripConstraintsFactory,
+                dealDetector,
+                dealRecorder,
+                subscriptionMatcher,
+                transactionTemplate,
+                scanMetrics
+        );
+    }
+
+    @Bean
+    public ScanRunCoordinator scanRunCoordinator(
+            Clock clock,
+            WindowCheckPlanner windowCheckPlanner,
+            ScanRunExecutor scanRunExecutor,
+            ScanWorkQueueRepository scanWorkQueueRepository,
+            ProviderBudgetRepository providerBudgetRepository,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry
+    ) {
+        return new ScanRunCoordinator(
+                clock,
+                windowCheckPlanner::dailyBudgetPerProvider,
+                scanRunExecutor,
+                scanWorkQueueRepository,
+                providerBudgetRepository,
+                transactionTemplate,
+                new ProviderBudgetGauges(meterRegistry, windowCheckPlanner::dailyBudgetPerProvider)
+        );
+    }
+
+    /**
+     * Identyfikator węzła z {@code agent.cluster.node-id}, domyślnie nazwa hosta.
+     */
+    static String nodeId(String configured) {
+        return configured.isBlank() ? hostName() : configured;
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "localhost";
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package pl.weekendflyer.weekendFlightAgent.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import pl.weekendflyer.weekendFlightAgent.domain.eval.TripEvaluator;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.SubscriptionRepository;
+import pl.weekendflyer.weekendFlightAgent.domain.subscription.SubscriptionMatcher;
+
+@Configuration
+public class SubscriptionConfig {
+
+    @Bean
+    public SubscriptionMatcher subscriptionMatcher(SubscriptionRepository subscriptionRepository, TripEvaluator tripEvaluator) {
+        return new SubscriptionMatcher(subscriptionRepository, tripEvaluator);
+    }
+}
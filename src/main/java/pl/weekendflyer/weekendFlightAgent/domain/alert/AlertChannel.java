@@ -0,0 +1,12 @@
+package pl.weekendflyer.weekendFlightAgent.domain.alert;
+
+import pl.weekendflyer.weekendFlightAgent.domain.model.Deal;
+
+import java.io.IOException;
+
+public interface AlertChannel {
+
+    String name();
+
+    void send(Deal deal) throws IOException;
+}
@@ -0,0 +1,247 @@
+package pl.weekendflyer.weekendFlightAgent.domain.alert;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.weekendflyer.weekendFlightAgent.domain.dedupe.OfferKeyFilter;
+import pl.weekendflyer.weekendFlightAgent.domain.model.AlertDispatchSummary;
+import pl.weekendflyer.weekendFlightAgent.domain.model.Deal;
+import pl.weekendflyer.weekendFlightAgent.domain.model.DealStatus;
+import pl.weekendflyer.weekendFlightAgent.domain.model.NotificationLogEntry;
+import pl.weekendflyer.weekendFlightAgent.domain.model.OutboxMessage;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.DealOutboxRepository;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.DealRepository;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.NotificationLogRepository;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.IntSupplier;
+
+@Slf4j
+public class AlertDispatcher {
+
+    static final int MAX_DELIVERY_ROUNDS = 5;
+    private static final int MAX_ERROR_MESSAGE_LENGTH = 500;
+
+    private final Clock clock;
+    private final AlertChannel channel;
+    private final AlertRateLimiter rateLimiter;
+    private final Executor sendExecutor;
+    /** Czytany przy każdym wysłaniu - zmiana alerts.maxSendAttempts działa bez restartu. */
+    private final IntSupplier maxSendAttempts;
+    private final Duration retryBackoff;
+    private final Duration redeliveryDelay;
+    /** Czas dzierżawy pobranej partii - musi z zapasem pokryć wysyłkę z retry. */
+    private final Duration claimLease;
+    private final int dispatchBatchSize;
+    private final DealRepository dealRepository;
+    private final DealOutboxRepository dealOutboxRepository;
+    private final NotificationLogRepository notificationLogRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final OfferKeyFilter deliveredOffers;
+    private final Duration dedupeLookback;
+
+    private volatile boolean limiterLoaded;
+    private volatile boolean deliveredLoaded;
+
+    public AlertDispatcher(
+            Clock clock,
+            AlertChannel channel,
+            AlertRateLimiter rateLimiter,
+            Executor sendExecutor,
+            IntSupplier maxSendAttempts,
+            Duration retryBackoff,
+            Duration redeliveryDelay,
+            Duration claimLease,
+            int dispatchBatchSize,
+            DealRepository dealRepository,
+            DealOutboxRepository dealOutboxRepository,
+            NotificationLogRepository notificationLogRepository,
+            TransactionTemplate transactionTemplate,
+            OfferKeyFilter deliveredOffers,
+            Duration dedupeLookback
+    ) {
+        this.clock = clock;
+        this.channel = channel;
+        this.rateLimiter = rateLimiter;
+        this.sendExecutor = sendExecutor;
+        this.maxSendAttempts = maxSendAttempts;
+        this.retryBackoff = retryBackoff;
+        this.redeliveryDelay = redeliveryDelay;
+        this.claimLease = claimLease;
+        this.dispatchBatchSize = dispatchBatchSize;
+        this.dealRepository = dealRepository;
+        this.dealOutboxRepository = dealOutboxRepository;
+        this.notificationLogRepository = notificationLogRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.deliveredOffers = deliveredOffers;
+        this.dedupeLookback = dedupeLookback;
+    }
+
+    public void rebuildLimiter() {
+        Instant since = Instant.now(clock).minus(AlertRateLimiter.lookback());
+        List<NotificationLogEntry> sent = notificationLogRepository.findSuccessfulSince(since);
+        rateLimiter.rebuild(sent);
+        limiterLoaded = true;
+        log.info("AlertDispatcher: rate limiter rebuilt from {} notifications since {}", sent.size(), since);
+    }
+
+    public void rebuildDeliveredFilter() {
+        Instant since = Instant.now(clock).minus(dedupeLookback);
+        deliveredOffers.rebuild(notificationLogRepository.findDeliveredOfferKeysSince(channel.name(), since));
+        deliveredLoaded = true;
+    }
+
+    /**
+     * Relay outboxa w trzech krokach: krótka transakcja dzierżawi partię deal_outbox (FOR UPDATE SKIP LOCKED
+     * i available_at przesunięte o claimLease), wysyłka z retry idzie już bez transakcji i blokad, a wyniki zapisuje
+     * druga krótka transakcja. Dostarczenie jest at-least-once; duplikat odcina filtr dostarczonych offer_key
+     * odbudowywany z notification_log. Brak trafienia jest pewny, a trafienie (przy uq_deal_offer prawie zawsze
+     * fałszywe) jest potwierdzane w notification_log przed odrzuceniem - odrzucony deal dostaje SUPPRESSED.
+     */
+    public synchronized AlertDispatchSummary dispatchPending() {
+        if (!limiterLoaded) {
+            rebuildLimiter();
+        }
+        if (!deliveredLoaded) {
+            rebuildDeliveredFilter();
+        }
+
+        Instant claimedAt = Instant.now(clock);
+        List<OutboxMessage> messages = transactionTemplate.execute(status ->
+                dealOutboxRepository.claim(dispatchBatchSize, claimedAt, claimedAt.plus(claimLease)));
+        if (messages == null || messages.isEmpty()) {
+            return AlertDispatchSummary.empty();
+        }
+        return relayBatch(messages);
+    }
+
+    private AlertDispatchSummary relayBatch(List<OutboxMessage> messages) {
+        List<String> filterHits = messages.stream()
+                .map(message -> message.deal().getOfferKey())
+                .filter(deliveredOffers::seen)
+                .toList();
+        Set<String> delivered = filterHits.isEmpty()
+                ? Set.of()
+                : notificationLogRepository.findDeliveredOfferKeys(channel.name(), filterHits);
+
+        List<Long> finishedOutboxIds = new ArrayList<>();
+        List<Long> suppressed = new ArrayList<>();
+        Map<Long, OutboxMessage> sentMessages = new HashMap<>();
+        List<CompletableFuture<NotificationLogEntry>> sends = new ArrayList<>();
+
+        for (OutboxMessage message : messages) {
+            Deal deal = message.deal();
+            if (delivered.contains(deal.getOfferKey())) {
+                suppressed.add(deal.getId());
+                finishedOutboxIds.add(message.id());
+                continue;
+            }
+            Instant acquiredAt = Instant.now(clock);
+            if (rateLimiter.tryAcquire(deal.getDestination(), acquiredAt)) {
+                sentMessages.put(deal.getId(), message);
+                sends.add(CompletableFuture.supplyAsync(() -> sendWithRetries(deal, acquiredAt), sendExecutor));
+            } else {
+                suppressed.add(deal.getId());
+                finishedOutboxIds.add(message.id());
+            }
+        }
+
+        List<NotificationLogEntry> outcomes = sends.stream().map(CompletableFuture::join).toList();
+
+        List<NotificationLogEntry> toLog = new ArrayList<>();
+        List<Long> notified = new ArrayList<>();
+        List<Long> failed = new ArrayList<>();
+        List<Long> redeliver = new ArrayList<>();
+        for (NotificationLogEntry outcome : outcomes) {
+            OutboxMessage message = sentMessages.get(outcome.dealId());
+            if (outcome.success()) {
+                notified.add(outcome.dealId());
+                toLog.add(outcome);
+                finishedOutboxIds.add(message.id());
+                continue;
+            }
+            rateLimiter.release(outcome.destination(), outcome.sentAt());
+            if (message.attempts() + 1 >= MAX_DELIVERY_ROUNDS) {
+                failed.add(outcome.dealId());
+                toLog.add(outcome);
+                finishedOutboxIds.add(message.id());
+            } else {
+                redeliver.add(message.id());
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            rateLimiter.releaseOnRollback(toLog.stream().filter(NotificationLogEntry::success).toList());
+            notificationLogRepository.insertAll(toLog);
+            deliveredOffers.addAfterCommit(toLog.stream()
+                    .filter(NotificationLogEntry::success)
+                    .map(NotificationLogEntry::offerKey)
+                    .toList());
+            dealOutboxRepository.delete(finishedOutboxIds);
+            dealOutboxRepository.reschedule(redeliver, Instant.now(clock).plus(redeliveryDelay));
+            if (!notified.isEmpty()) {
+                dealRepository.updateStatus(notified, DealStatus.NOTIFIED);
+            }
+            if (!failed.isEmpty()) {
+                dealRepository.updateStatus(failed, DealStatus.FAILED);
+            }
+            if (!suppressed.isEmpty()) {
+                dealRepository.updateStatus(suppressed, DealStatus.SUPPRESSED);
+            }
+        });
+
+        AlertDispatchSummary summary = new AlertDispatchSummary(messages.size(), notified.size(), failed.size(), suppressed.size());
+        log.info("AlertDispatcher: channel={} claimed={}, sent={}, failed={}, suppressed={}, redeliver={}, alreadyDelivered={}",
+                channel.name(), summary.pending(), summary.sent(), summary.failed(), summary.suppressed(),
+                redeliver.size(), delivered.size());
+        return summary;
+    }
+
+    private NotificationLogEntry sendWithRetries(Deal deal, Instant acquiredAt) {
+        String lastError = null;
+        int maxAttempts = maxSendAttempts.getAsInt();
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                channel.send(deal);
+                return outcome(deal, acquiredAt, true, null);
+            } catch (Exception e) {
+                lastError = e.getMessage();
+                log.warn("AlertDispatcher: attempt {}/{} for deal {} failed: {}", attempt, maxAttempts, deal.getId(), lastError);
+                if (attempt < maxAttempts && !sleep(retryBackoff.multipliedBy(attempt))) {
+                    break;
+                }
+            }
+        }
+        return outcome(deal, acquiredAt, false, truncate(lastError));
+    }
+
+    private NotificationLogEntry outcome(Deal deal, Instant sentAt, boolean success, String errorMessage) {
+        return new NotificationLogEntry(sentAt, channel.name(), deal.getOfferKey(), deal.getId(),
+                deal.getDestination(), success, errorMessage);
+    }
+
+    private static boolean sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static String truncate(String message) {
+        if (message == null || message.length() <= MAX_ERROR_MESSAGE_LENGTH) {
+            return message;
+        }
+        return message.substring(0, MAX_ERROR_MESSAGE_LENGTH);
+    }
+}
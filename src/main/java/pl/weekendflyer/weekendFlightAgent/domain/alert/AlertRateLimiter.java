@@ -0,0 +1,104 @@
+package pl.weekendflyer.weekendFlightAgent.domain.alert;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pl.weekendflyer.weekendFlightAgent.domain.model.NotificationLogEntry;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntSupplier;
+
+/**
+ * Licznik z przesuwanym oknem dla limitów alertów: globalnie w ostatnich 24h
+ * i per destination w ostatnich 7 dniach. Stan odtwarzany z notification_log przy starcie,
+ * limity czytane przy każdym {@link #tryAcquire} (zmiana w config.yaml działa bez restartu).
+ */
+public class AlertRateLimiter {
+
+    static final Duration DAY = Duration.ofDays(1);
+    static final Duration WEEK = Duration.ofDays(7);
+
+    private final IntSupplier maxPerDay;
+    private final IntSupplier maxPerDestinationPerWeek;
+    private final Deque<Instant> sentLastDay = new ArrayDeque<>();
+    private final Map<String, Deque<Instant>> sentPerDestination = new HashMap<>();
+
+    public AlertRateLimiter(IntSupplier maxPerDay, IntSupplier maxPerDestinationPerWeek) {
+        this.maxPerDay = maxPerDay;
+        this.maxPerDestinationPerWeek = maxPerDestinationPerWeek;
+    }
+
+    public static Duration lookback() {
+        return WEEK;
+    }
+
+    public synchronized void rebuild(List<NotificationLogEntry> successful) {
+        sentLastDay.clear();
+        sentPerDestination.clear();
+        successful.stream()
+                .sorted(Comparator.comparing(NotificationLogEntry::sentAt))
+                .forEach(entry -> record(entry.destination(), entry.sentAt()));
+    }
+
+    public synchronized boolean tryAcquire(String destination, Instant now) {
+        evictBefore(sentLastDay, now.minus(DAY));
+        Deque<Instant> perDestination = sentPerDestination.computeIfAbsent(key(destination), k -> new ArrayDeque<>());
+        evictBefore(perDestination, now.minus(WEEK));
+
+        if (sentLastDay.size() >= maxPerDay.getAsInt() || perDestination.size() >= maxPerDestinationPerWeek.getAsInt()) {
+            return false;
+        }
+
+        record(destination, now);
+        return true;
+    }
+
+    public synchronized void release(String destination, Instant acquiredAt) {
+        sentLastDay.removeLastOccurrence(acquiredAt);
+        Deque<Instant> perDestination = sentPerDestination.get(key(destination));
+        if (perDestination != null) {
+            perDestination.removeLastOccurrence(acquiredAt);
+        }
+    }
+
+    /**
+     * Sloty wysłanych alertów, których wyniku nie udało się zapisać, wracają do puli po rollbacku - limiter
+     * ma odpowiadać notification_log, z którego jest odbudowywany, a wiersze outboxa i tak zostaną wysłane ponownie.
+     */
+    public void releaseOnRollback(Collection<NotificationLogEntry> acquired) {
+        if (acquired.isEmpty() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        List<NotificationLogEntry> entries = List.copyOf(acquired);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    entries.forEach(entry -> release(entry.destination(), entry.sentAt()));
+                }
+            }
+        });
+    }
+
+    private void record(String destination, Instant sentAt) {
+        sentLastDay.addLast(sentAt);
+        sentPerDestination.computeIfAbsent(key(destination), k -> new ArrayDeque<>()).addLast(sentAt);
+    }
+
+    private static void evictBefore(Deque<Instant> timestamps, Instant threshold) {
+        while (!timestamps.isEmpty() && timestamps.peekFirst().isBefore(threshold)) {
+            timestamps.pollFirst();
+        }
+    }
+
+    private static String key(String destination) {
+        return destination.trim();
+    }
+}
@@ -0,0 +1,35 @@
+package pl.weekendflyer.weekendFlightAgent.domain.alert;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import pl.weekendflyer.weekendFlightAgent.domain.model.Deal;
+
+/**
+ * Kanał zastępczy do czasu podpięcia klienta Telegram/e-mail: zapisuje alert w logu.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class LoggingAlertChannel implements AlertChannel {
+
+    private final String name;
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public void send(Deal deal) {
+        log.info("ALERT [{}] {}->{} {}..{} for {} PLN (saving {} PLN, {}% below median) {}",
+                name,
+                deal.getOrigin(),
+                deal.getDestination(),
+                deal.getDepartDate(),
+                deal.getReturnDate(),
+                deal.getPricePln(),
+                deal.getSavingPln(),
+                deal.getPercentBelowMedian(),
+                deal.getOfferKey()
+        );
+    }
+}
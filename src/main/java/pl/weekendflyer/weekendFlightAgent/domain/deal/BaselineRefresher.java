@@ -0,0 +1,38 @@
+package pl.weekendflyer.weekendFlightAgent.domain.deal;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.weekendflyer.weekendFlightAgent.domain.model.BaselineStats;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.JdbcBaselineStore;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.IntSupplier;
+
+/**
+ * Agregacja okna baseline w transakcji read-only (z repliką - na replice), zapis segmentów w osobnej na primary.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class BaselineRefresher {
+
+    private final Clock clock;
+    /** Czytany przy każdym odświeżeniu - zmiana baseline.rollingDays działa bez restartu. */
+    private final IntSupplier rollingDays;
+    private final JdbcBaselineStore baselineStore;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public int refresh() {
+        Instant now = Instant.now(clock);
+        int days = rollingDays.getAsInt();
+        List<BaselineStats> stats = readOnlyTransactionTemplate.execute(
+                status -> baselineStore.compute(now.minus(Duration.ofDays(days))));
+        int segments = transactionTemplate.execute(status -> baselineStore.upsert(stats, now));
+        log.info("BaselineRefresher: refreshed {} segments over last {} days", segments, days);
+        return segments;
+    }
+}
@@ -0,0 +1,70 @@
+package pl.weekendflyer.weekendFlightAgent.domain.deal;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import pl.weekendflyer.weekendFlightAgent.config.AgentProperties;
+import pl.weekendflyer.weekendFlightAgent.domain.model.Baseline;
+import pl.weekendflyer.weekendFlightAgent.domain.model.Deal;
+import pl.weekendflyer.weekendFlightAgent.domain.model.DealStatus;
+import pl.weekendflyer.weekendFlightAgent.domain.model.PriceObservation;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.BaselineRepository;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+@Slf4j
+@RequiredArgsConstructor
+public class DealDetector {
+
+    static final int MIN_BASELINE_SAMPLES = 5;
+
+    /** Czytany przy każdym wywołaniu - progi z config.yaml działają bez restartu. */
+    private final Supplier<AgentProperties.CandidateFilter> candidateFilter;
+    private final BaselineRepository baselineRepository;
+
+    public Optional<Deal> detect(PriceObservation cheapest) {
+        Optional<Baseline> baseline = baselineRepository.findByOriginAndDestinationAndFullDaysAndDepartureMonth(
+                cheapest.getOrigin(), cheapest.getDestination(), cheapest.getFullDays(), cheapest.getDepartureMonth());
+
+        if (baseline.isEmpty() || baseline.get().getMedian30Pln() == null
+                || baseline.get().getCount30() < MIN_BASELINE_SAMPLES) {
+            return Optional.empty();
+        }
+
+        AgentProperties.CandidateFilter filter = candidateFilter.get();
+        int median = baseline.get().getMedian30Pln();
+        int saving = median - cheapest.getPricePln();
+        if (median <= 0 || saving < filter.minAbsoluteSavingPLN()) {
+            return Optional.empty();
+        }
+
+        BigDecimal percentBelowMedian = BigDecimal.valueOf(saving * 100L)
+                .divide(BigDecimal.valueOf(median), 2, RoundingMode.HALF_UP);
+        if (percentBelowMedian.compareTo(BigDecimal.valueOf(filter.minPercentBelowMedian())) < 0) {
+            return Optional.empty();
+        }
+
+        log.info("DealDetector: {} at {} PLN is {}% below median {} PLN", cheapest.getWindowKey(),
+                cheapest.getPricePln(), percentBelowMedian, median);
+
+        Deal deal = new Deal();
+        deal.setCreatedAt(cheapest.getObservedAt());
+        deal.setStatus(DealStatus.NEW);
+        deal.setProvider(cheapest.getProvider());
+        deal.setOrigin(cheapest.getOrigin());
+        deal.setDestination(cheapest.getDestination());
+        deal.setDepartDate(cheapest.getDepartDate());
+        deal.setReturnDate(cheapest.getReturnDate());
+        deal.setFullDays(cheapest.getFullDays());
+        deal.setDepartureMonth(cheapest.getDepartureMonth());
+        deal.setWindowKey(cheapest.getWindowKey());
+        deal.setOfferKey(cheapest.getOfferKey());
+        deal.setPricePln(cheapest.getPricePln());
+        deal.setBaselineMedian30Pln(median);
+        deal.setPercentBelowMedian(percentBelowMedian);
+        deal.setSavingPln(saving);
+        return Optional.of(deal);
+    }
+}
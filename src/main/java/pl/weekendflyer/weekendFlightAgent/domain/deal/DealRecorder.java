@@ -0,0 +1,73 @@
+package pl.weekendflyer.weekendFlightAgent.domain.deal;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import pl.weekendflyer.weekendFlightAgent.domain.dedupe.OfferKeyFilter;
+import pl.weekendflyer.weekendFlightAgent.domain.model.Deal;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.DealOutboxRepository;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.DealRepository;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Zapisuje deal i wiersz deal_outbox w transakcji wywołującego - wysyłka alertu
+ * odbywa się później, w relayu, więc skan nie czeka na kanał.
+ * <p>
+ * Oferty znane z filtra offer_key (deale z ostatnich {@code lookback}) odpadają bez zapytania,
+ * pozostałe są sprawdzane w bazie jak wcześniej.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class DealRecorder {
+
+    private final Clock clock;
+    private final Duration lookback;
+    private final DealRepository dealRepository;
+    private final DealOutboxRepository dealOutboxRepository;
+    private final OfferKeyFilter knownOffers;
+
+    private volatile boolean filterLoaded;
+
+    public void rebuildFilter() {
+        Instant since = Instant.now(clock).minus(lookback);
+        knownOffers.rebuild(dealRepository.findOfferKeysCreatedSince(since));
+        filterLoaded = true;
+    }
+
+    public List<Deal> record(List<Deal> detected, Instant now) {
+        if (detected.isEmpty()) {
+            return List.of();
+        }
+        if (!filterLoaded) {
+            rebuildFilter();
+        }
+
+        List<Deal> unseen = detected.stream()
+                .filter(deal -> !knownOffers.seen(deal.getOfferKey()))
+                .toList();
+        if (unseen.isEmpty()) {
+            log.debug("DealRecorder: all {} deals already known in memory", detected.size());
+            return List.of();
+        }
+
+        Set<String> existing = new HashSet<>(dealRepository.findExistingOfferKeys(
+                unseen.stream().map(Deal::getOfferKey).toList()));
+        knownOffers.addAfterCommit(existing);
+        List<Deal> fresh = unseen.stream()
+                .filter(deal -> existing.add(deal.getOfferKey()))
+                .toList();
+
+        List<Deal> saved = dealRepository.saveAll(fresh);
+        dealOutboxRepository.enqueue(saved, now);
+        knownOffers.addAfterCommit(saved.stream().map(Deal::getOfferKey).toList());
+
+        log.debug("DealRecorder: recorded {} deals ({} known in memory, {} already in database)",
+                saved.size(), detected.size() - unseen.size(), unseen.size() - saved.size());
+        return saved;
+    }
+}
@@ -0,0 +1,99 @@
+package pl.weekendflyer.weekendFlightAgent.domain.dedupe;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pl.weekendflyer.weekendFlightAgent.domain.provider.OfferFingerprint;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Pamięciowy filtr offer_key przed deduplikacją w bazie. Trafienie oznacza "oferta już znana" i jest odrzucane
+ * bez zapytania - z prawdopodobieństwem {@code falsePositiveRate} dotyczy to oferty nowej. Brak trafienia
+ * jest pewny tylko dla kluczy tego węzła, dlatego wywołujący dalej sprawdza bazę.
+ * <p>
+ * Metryki: {@code agent.dedupe.filter.entries|bytes|fpp} oraz {@code agent.dedupe.filter.rejected}, tag {@code filter}.
+ */
+@Slf4j
+public class OfferKeyFilter {
+
+    private final String name;
+    private final long initialCapacity;
+    private final double falsePositiveRate;
+    private final Counter rejected;
+    private volatile ScalableBloomFilter filter;
+
+    public OfferKeyFilter(String name, long initialCapacity, double falsePositiveRate, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.initialCapacity = initialCapacity;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new ScalableBloomFilter(initialCapacity, falsePositiveRate);
+
+        Gauge.builder("agent.dedupe.filter.entries", this, f -> f.filter.size())
+                .description("Offer keys held by the in-memory dedupe filter")
+                .tag("filter", name)
+                .register(meterRegistry);
+        Gauge.builder("agent.dedupe.filter.bytes", this, f -> f.filter.memoryBytes())
+                .description("Memory used by the dedupe filter bit arrays")
+                .tag("filter", name)
+                .register(meterRegistry);
+        Gauge.builder("agent.dedupe.filter.fpp", this, f -> f.filter.expectedFalsePositiveRate())
+                .description("Estimated false-positive probability at the current fill")
+                .tag("filter", name)
+                .register(meterRegistry);
+        this.rejected = Counter.builder("agent.dedupe.filter.rejected")
+                .description("Offer keys rejected in memory as already known")
+                .tag("filter", name)
+                .register(meterRegistry);
+    }
+
+    public boolean seen(String offerKey) {
+        OfferFingerprint fingerprint = OfferFingerprint.ofKey(offerKey);
+        boolean seen = filter.mightContain(fingerprint.high(), fingerprint.low());
+        if (seen) {
+            rejected.increment();
+        }
+        return seen;
+    }
+
+    public void add(String offerKey) {
+        OfferFingerprint fingerprint = OfferFingerprint.ofKey(offerKey);
+        filter.put(fingerprint.high(), fingerprint.low());
+    }
+
+    /**
+     * W transakcji klucze trafiają do filtra dopiero po commicie - wycofany insert nie może blokować oferty.
+     */
+    public void addAfterCommit(Collection<String> offerKeys) {
+        if (offerKeys.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            offerKeys.forEach(this::add);
+            return;
+        }
+        List<String> keys = List.copyOf(offerKeys);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                keys.forEach(OfferKeyFilter.this::add);
+            }
+        });
+    }
+
+    public void rebuild(Collection<String> offerKeys) {
+        ScalableBloomFilter rebuilt = new ScalableBloomFilter(initialCapacity, falsePositiveRate);
+        for (String offerKey : offerKeys) {
+            OfferFingerprint fingerprint = OfferFingerprint.ofKey(offerKey);
+            rebuilt.put(fingerprint.high(), fingerprint.low());
+        }
+        this.filter = rebuilt;
+        log.info("OfferKeyFilter[{}]: rebuilt with {} keys, {} stage(s), {} KB, fpp={} (target {})",
+                name, rebuilt.size(), rebuilt.stages(), rebuilt.memoryBytes() / 1024,
+                String.format("%.2e", rebuilt.expectedFalsePositiveRate()), falsePositiveRate);
+    }
+}
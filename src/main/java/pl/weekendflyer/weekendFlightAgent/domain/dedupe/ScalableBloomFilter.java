@@ -0,0 +1,143 @@
+package pl.weekendflyer.weekendFlightAgent.domain.dedupe;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Skalowalny filtr Blooma (Almeida i in.): gdy bieżący filtr osiąga pojemność, dokładany jest kolejny
+ * o dwa razy większej pojemności i dwa razy niższym progu fałszywych trafień, więc łączny błąd
+ * nie przekracza zadanego {@code falsePositiveRate} bez względu na liczbę kluczy.
+ * Klucze to gotowe 128-bitowe hashe; pozycje bitów z podwójnego hashowania (Kirsch-Mitzenmacher).
+ */
+public class ScalableBloomFilter {
+
+    private static final double LN2 = Math.log(2);
+    private static final double TIGHTENING = 0.5;
+    private static final int GROWTH = 2;
+
+    private final long initialCapacity;
+    private final double falsePositiveRate;
+    private final List<Stage> stages = new ArrayList<>();
+    private long size;
+
+    public ScalableBloomFilter(long initialCapacity, double falsePositiveRate) {
+        if (initialCapacity < 1) {
+            throw new IllegalArgumentException("initialCapacity must be at least 1");
+        }
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("falsePositiveRate must be in (0, 1)");
+        }
+        this.initialCapacity = initialCapacity;
+        this.falsePositiveRate = falsePositiveRate;
+        addStage();
+    }
+
+    public synchronized boolean mightContain(long high, long low) {
+        for (Stage stage : stages) {
+            if (stage.contains(high, low)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return {@code false}, gdy klucz już był (albo trafił w fałszywy pozytyw)
+     */
+    public synchronized boolean put(long high, long low) {
+        if (mightContain(high, low)) {
+            return false;
+        }
+        Stage current = stages.get(stages.size() - 1);
+        if (current.count >= current.capacity) {
+            current = addStage();
+        }
+        current.set(high, low);
+        size++;
+        return true;
+    }
+
+    public synchronized long size() {
+        return size;
+    }
+
+    public synchronized int stages() {
+        return stages.size();
+    }
+
+    public synchronized long memoryBytes() {
+        long bytes = 0;
+        for (Stage stage : stages) {
+            bytes += (long) stage.bits.length * Long.BYTES;
+        }
+        return bytes;
+    }
+
+    /**
+     * Szacowany odsetek fałszywych trafień przy obecnym wypełnieniu wszystkich filtrów.
+     */
+    public synchronized double expectedFalsePositiveRate() {
+        double miss = 1.0;
+        for (Stage stage : stages) {
+            miss *= 1.0 - stage.falsePositiveRate();
+        }
+        return 1.0 - miss;
+    }
+
+    public double targetFalsePositiveRate() {
+        return falsePositiveRate;
+    }
+
+    private Stage addStage() {
+        int index = stages.size();
+        long capacity = initialCapacity * (long) Math.pow(GROWTH, index);
+        double rate = falsePositiveRate * (1 - TIGHTENING) * Math.pow(TIGHTENING, index);
+        Stage stage = new Stage(capacity, rate);
+        stages.add(stage);
+        return stage;
+    }
+
+    private static final class Stage {
+
+        private final long capacity;
+        private final long[] bits;
+        private final long bitCount;
+        private final int hashes;
+        private long count;
+
+        private Stage(long capacity, double rate) {
+            long optimalBits = (long) Math.ceil(-capacity * Math.log(rate) / (LN2 * LN2));
+            int words = (int) Math.min(Integer.MAX_VALUE - 8, (optimalBits + 63) / 64);
+            this.capacity = capacity;
+            this.bits = new long[words];
+            this.bitCount = (long) words * 64;
+            this.hashes = Math.max(1, (int) Math.round((double) bitCount / capacity * LN2));
+        }
+
+        private boolean contains(long high, long low) {
+            long combined = high;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Long.remainderUnsigned(combined, bitCount);
+                if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                    return false;
+                }
+                combined += low;
+            }
+            return true;
+        }
+
+        private void set(long high, long low) {
+            long combined = high;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Long.remainderUnsigned(combined, bitCount);
+                bits[(int) (bit >>> 6)] |= 1L << bit;
+                combined += low;
+            }
+            count++;
+        }
+
+        private double falsePositiveRate() {
+            return Math.pow(1 - Math.exp(-hashes * (double) count / bitCount), hashes);
+        }
+    }
+}
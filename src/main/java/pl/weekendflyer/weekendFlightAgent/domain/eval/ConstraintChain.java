@@ -0,0 +1,226 @@
+package pl.weekendflyer.weekendFlightAgent.domain.eval;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import pl.weekendflyer.weekendFlightAgent.domain.model.FlightOffer;
+import pl.weekendflyer.weekendFlightAgent.domain.model.TripConstraints;
+
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+import static pl.weekendflyer.weekendFlightAgent.domain.eval.TripEvaluator.INBOUND;
+import static pl.weekendflyer.weekendFlightAgent.domain.eval.TripEvaluator.OUTBOUND;
+
+/**
+ * {@link TripEvaluator#meetsHardConstraints} i {@link TripEvaluator#isSaturdayFull} razem, jako tablica etapów
+ * skompilowana z {@link TripConstraints} (wyłączone reguły nie mają etapu). Wynik nie zależy od kolejności etapów,
+ * więc jest ona dobierana w trakcie działania: co {@link #REORDER_EVERY} ofert etapy są sortowane rosnąco po
+ * koszcie / odsetku odrzuceń (EWMA z ostatniego okna), żeby najpierw szły tanie i najczęściej odrzucające.
+ * Koszt etapu jest mierzony na co 64. ofercie.
+ * <p>
+ * Kolejność i odsetki odrzuceń są w metrykach {@code agent.eval.stage.*}.
+ */
+@Slf4j
+public class ConstraintChain {
+
+    static final int REORDER_EVERY = 1024;
+
+    private static final int TIMING_SAMPLE_MASK = 63;
+    private static final double EWMA_ALPHA = 0.3;
+
+    public enum Stage {
+        PRICE("price"),
+        STOPS("stops"),
+        DURATION("duration"),
+        SATURDAY_FLIGHT("saturday_flight"),
+        FRIDAY_ARRIVAL("friday_arrival"),
+        SUNDAY_DEPARTURE("sunday_departure");
+
+        private final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    /**
+     * Oferta z policzoną raz strefą miejsca docelowego, wspólną dla etapów soboty.
+     */
+    private record OfferView(FlightOffer offer, ZoneId destZone) {
+    }
+
+    private record Compiled(TripConstraints constraints, Predicate<OfferView>[] stages) {
+    }
+
+    private static final Stage[] STAGES = Stage.values();
+
+    private final TripEvaluator evaluator;
+    private final LongAdder[] evaluated = adders();
+    private final LongAdder[] rejected = adders();
+    private final LongAdder[] sampledNanos = adders();
+    private final LongAdder[] sampled = adders();
+    private final long[][] lastSnapshot = new long[STAGES.length][4];
+    private final double[] rejectionRate = new double[STAGES.length];
+    private final double[] costNanos = new double[STAGES.length];
+    private final AtomicLong offers = new AtomicLong();
+
+    private volatile Stage[] order = STAGES.clone();
+    private volatile Compiled compiled;
+
+    public ConstraintChain(TripEvaluator evaluator) {
+        this.evaluator = evaluator;
+        Arrays.fill(rejectionRate, 0.5);
+        Arrays.fill(costNanos, 1.0);
+    }
+
+    public ConstraintChain(TripEvaluator evaluator, MeterRegistry meterRegistry) {
+        this(evaluator);
+        for (Stage stage : STAGES) {
+            int i = stage.ordinal();
+            Gauge.builder("agent.eval.stage.rejection.rate", this, chain -> chain.rejectionRate(stage))
+                    .description("Recent share of offers rejected by the stage among those that reached it")
+                    .tag("stage", stage.tag)
+                    .register(meterRegistry);
+            Gauge.builder("agent.eval.stage.position", this, chain -> chain.order().indexOf(stage))
+                    .description("Current position of the stage in the constraint chain (0 = first)")
+                    .tag("stage", stage.tag)
+                    .register(meterRegistry);
+            Gauge.builder("agent.eval.stage.cost", this, chain -> chain.costNanos(stage))
+                    .description("Recent mean time of a single stage check")
+                    .tag("stage", stage.tag)
+                    .baseUnit("nanoseconds")
+                    .register(meterRegistry);
+            FunctionCounter.builder("agent.eval.stage.rejected", rejected[i], LongAdder::sum)
+                    .description("Offers rejected by the stage")
+                    .tag("stage", stage.tag)
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Ten sam wynik co {@code meetsHardConstraints(offer, constraints) && isSaturdayFull(offer, constraints)}.
+     */
+    public boolean test(FlightOffer offer, TripConstraints constraints) {
+        if (offer == null || constraints == null || !evaluator.hasRequiredSegments(offer)) {
+            return false;
+        }
+        Predicate<OfferView>[] stages = compile(constraints).stages();
+        OfferView view = new OfferView(offer, evaluator.destinationZone(offer));
+        long count = offers.incrementAndGet();
+        boolean timed = (count & TIMING_SAMPLE_MASK) == 0;
+
+        boolean accepted = true;
+        for (Stage stage : order) {
+            Predicate<OfferView> check = stages[stage.ordinal()];
+            if (check == null) {
+                continue;
+            }
+            int i = stage.ordinal();
+            long start = timed ? System.nanoTime() : 0L;
+            boolean passed = check.test(view);
+            if (timed) {
+                sampledNanos[i].add(System.nanoTime() - start);
+                sampled[i].increment();
+            }
+            evaluated[i].increment();
+            if (!passed) {
+                rejected[i].increment();
+                accepted = false;
+                break;
+            }
+        }
+
+        if (count % REORDER_EVERY == 0) {
+            reorder();
+        }
+        return accepted;
+    }
+
+    public List<Stage> order() {
+        return List.of(order);
+    }
+
+    public double rejectionRate(Stage stage) {
+        return rejectionRate[stage.ordinal()];
+    }
+
+    public double costNanos(Stage stage) {
+        return costNanos[stage.ordinal()];
+    }
+
+    /**
+     * Przelicza statystyki z okna od ostatniego wywołania i ustawia nową kolejność etapów.
+     */
+    synchronized void reorder() {
+        for (Stage stage : STAGES) {
+            int i = stage.ordinal();
+            long[] now = {evaluated[i].sum(), rejected[i].sum(), sampledNanos[i].sum(), sampled[i].sum()};
+            long[] last = lastSnapshot[i];
+            long windowEvaluated = now[0] - last[0];
+            long windowSampled = now[3] - last[3];
+            if (windowEvaluated > 0) {
+                double rate = (double) (now[1] - last[1]) / windowEvaluated;
+                rejectionRate[i] += EWMA_ALPHA * (rate - rejectionRate[i]);
+            }
+            if (windowSampled > 0) {
+                double cost = (double) (now[2] - last[2]) / windowSampled;
+                costNanos[i] += EWMA_ALPHA * (cost - costNanos[i]);
+            }
+            lastSnapshot[i] = now;
+        }
+
+        Stage[] reordered = STAGES.clone();
+        Arrays.sort(reordered, Comparator.comparingDouble(
+                (Stage stage) -> Math.max(costNanos[stage.ordinal()], 1.0) / Math.max(rejectionRate[stage.ordinal()], 1e-6)));
+        if (!Arrays.equals(reordered, order)) {
+            log.debug("ConstraintChain: stage order {}", Arrays.toString(reordered));
+        }
+        order = reordered;
+    }
+
+    private Compiled compile(TripConstraints constraints) {
+        Compiled current = compiled;
+        if (current != null && current.constraints().equals(constraints)) {
+            return current;
+        }
+        Compiled fresh = new Compiled(constraints, stages(constraints));
+        compiled = fresh;
+        return fresh;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Predicate<OfferView>[] stages(TripConstraints c) {
+        Predicate<OfferView>[] stages = new Predicate[STAGES.length];
+        Integer cap = c.hardCapPricePln();
+        stages[Stage.PRICE.ordinal()] = view -> view.offer().pricePln() != null
+                && evaluator.withinPriceCap(view.offer().pricePln(), cap);
+        stages[Stage.STOPS.ordinal()] = view -> evaluator.withinStops(view.offer().outboundSegments(), c.maxStops(), OUTBOUND)
+                && evaluator.withinStops(view.offer().inboundSegments(), c.maxStops(), INBOUND);
+        stages[Stage.DURATION.ordinal()] = view ->
+                evaluator.withinDuration(view.offer().outboundSegments(), c.maxTotalDurationMinutesOneWay(), OUTBOUND)
+                && evaluator.withinDuration(view.offer().inboundSegments(), c.maxTotalDurationMinutesOneWay(), INBOUND);
+        if (c.requireNoFlightOnSaturday()) {
+            stages[Stage.SATURDAY_FLIGHT.ordinal()] = view -> !evaluator.hasAnyFlightOnSaturday(view.offer(), view.destZone());
+        }
+        stages[Stage.FRIDAY_ARRIVAL.ordinal()] = view -> evaluator.isFridayBeforeOrAt(
+                view.offer().outboundArrivalTime(), c.latestArrivalOnFridayLocal(), view.destZone());
+        stages[Stage.SUNDAY_DEPARTURE.ordinal()] = view -> evaluator.isSundayAtOrAfter(
+                view.offer().inboundSegments().get(0).departureTime(), c.earliestDepartureOnSundayLocal(), view.destZone());
+        return stages;
+    }
+
+    private static LongAdder[] adders() {
+        LongAdder[] adders = new LongAdder[STAGES.length];
+        for (int i = 0; i < adders.length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+}
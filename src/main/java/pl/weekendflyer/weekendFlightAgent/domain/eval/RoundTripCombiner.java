@@ -0,0 +1,114 @@
+package pl.weekendflyer.weekendFlightAgent.domain.eval;
+
+import lombok.RequiredArgsConstructor;
+import pl.weekendflyer.weekendFlightAgent.domain.model.CandidateWindow;
+import pl.weekendflyer.weekendFlightAgent.domain.model.FlightOffer;
+import pl.weekendflyer.weekendFlightAgent.domain.model.OneWayFare;
+import pl.weekendflyer.weekendFlightAgent.domain.model.TripConstraints;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Składa pary wylot + powrót z taryf w jedną stronę. Reguły {@link TripEvaluator} są rozdzielne per odcinek,
+ * więc najpierw odpadają pojedyncze taryfy ({@link #outboundLegs}, {@link #inboundLegs}), a pary powstają
+ * w kolejności rosnącej ceny (k najmniejszych sum dwóch posortowanych list) do {@code limit} albo limitu ceny.
+ * Każda para przechodzi jeszcze pełną ocenę oferty.
+ */
+@RequiredArgsConstructor
+public class RoundTripCombiner {
+
+    private static final Comparator<OneWayFare> BY_PRICE = Comparator.comparingInt(OneWayFare::pricePln);
+
+    private final TripEvaluator evaluator;
+
+    /**
+     * Wyloty spełniające reguły odcinka, od najtańszego.
+     */
+    public List<OneWayFare> outboundLegs(List<OneWayFare> fares, TripConstraints constraints) {
+        return fares.stream()
+                .filter(fare -> evaluator.acceptsOutbound(fare, constraints))
+                .sorted(BY_PRICE)
+                .toList();
+    }
+
+    /**
+     * Powroty spełniające reguły odcinka, od najtańszego.
+     */
+    public List<OneWayFare> inboundLegs(List<OneWayFare> fares, TripConstraints constraints) {
+        return fares.stream()
+                .filter(fare -> evaluator.acceptsInbound(fare, constraints))
+                .sorted(BY_PRICE)
+                .toList();
+    }
+
+    /**
+     * Czy w dniu powrotu okna może być jakikolwiek ważny powrót - jeśli nie, taryf nie warto pobierać.
+     */
+    public boolean acceptsReturnDate(LocalDate returnDate) {
+        return evaluator.acceptsInboundDate(returnDate);
+    }
+
+    /**
+     * @param outboundLegs wynik {@link #outboundLegs}
+     * @param inboundLegs  wynik {@link #inboundLegs}
+     */
+    public List<FlightOffer> combine(
+            CandidateWindow window,
+            List<OneWayFare> outboundLegs,
+            List<OneWayFare> inboundLegs,
+            TripConstraints constraints,
+            int limit
+    ) {
+        if (outboundLegs.isEmpty() || inboundLegs.isEmpty() || limit < 1) {
+            return List.of();
+        }
+
+        Integer priceCap = constraints.hardCapPricePln();
+        PriorityQueue<int[]> frontier = new PriorityQueue<>(Comparator.comparingInt(
+                (int[] pair) -> outboundLegs.get(pair[0]).pricePln() + inboundLegs.get(pair[1]).pricePln()));
+        frontier.add(new int[]{0, 0});
+
+        List<FlightOffer> offers = new ArrayList<>(Math.min(limit, outboundLegs.size() * inboundLegs.size()));
+        while (!frontier.isEmpty() && offers.size() < limit) {
+            int[] pair = frontier.poll();
+            OneWayFare out = outboundLegs.get(pair[0]);
+            OneWayFare in = inboundLegs.get(pair[1]);
+            if (priceCap != null && out.pricePln() + in.pricePln() > priceCap) {
+                break;
+            }
+
+            FlightOffer offer = pair(window, out, in);
+            if (evaluator.meetsHardConstraints(offer, constraints) && evaluator.isSaturdayFull(offer, constraints)) {
+                offers.add(offer);
+            }
+
+            // każda para trafia do kolejki dokładnie raz: (i, j+1) zawsze, (i+1, 0) tylko z pierwszej kolumny
+            if (pair[1] + 1 < inboundLegs.size()) {
+                frontier.add(new int[]{pair[0], pair[1] + 1});
+            }
+            if (pair[1] == 0 && pair[0] + 1 < outboundLegs.size()) {
+                frontier.add(new int[]{pair[0] + 1, 0});
+            }
+        }
+        return offers;
+    }
+
+    /**
+     * Dwa osobne bilety - deepLink to oba linki rozdzielone {@code " | "}.
+     */
+    private static FlightOffer pair(CandidateWindow window, OneWayFare outbound, OneWayFare inbound) {
+        return new FlightOffer(
+                window.origin(),
+                window.destination(),
+                outbound.segments(),
+                inbound.segments(),
+                outbound.pricePln() + inbound.pricePln(),
+                outbound.provider(),
+                outbound.deepLink() + " | " + inbound.deepLink()
+        );
+    }
+}
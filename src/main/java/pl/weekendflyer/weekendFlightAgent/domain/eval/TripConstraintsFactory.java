@@ -3,15 +3,17 @@ package pl.weekendflyer.weekendFlightAgent.domain.eval;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import pl.weekendflyer.weekendFlightAgent.config.AgentProperties;
+import pl.weekendflyer.weekendFlightAgent.config.AgentPropertiesHolder;
 import pl.weekendflyer.weekendFlightAgent.domain.model.TripConstraints;
 
 @Component
 @RequiredArgsConstructor
 public class TripConstraintsFactory {
 
-    private final AgentProperties agentProperties;
+    private final AgentPropertiesHolder agentPropertiesHolder;
 
     public TripConstraints current() {
+        AgentProperties agentProperties = agentPropertiesHolder.current();
         return new TripConstraints(
                 agentProperties.constraints().maxStops(),
                 agentProperties.constraints().maxTotalDurationMinutesOneWay(),
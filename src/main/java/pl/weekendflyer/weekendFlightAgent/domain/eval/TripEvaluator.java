@@ -4,6 +4,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import pl.weekendflyer.weekendFlightAgent.domain.model.FlightOffer;
 import pl.weekendflyer.weekendFlightAgent.domain.model.FlightSegment;
+import pl.weekendflyer.weekendFlightAgent.domain.model.OneWayFare;
 import pl.weekendflyer.weekendFlightAgent.domain.model.TripConstraints;
 
 import java.time.DayOfWeek;
@@ -18,8 +19,8 @@ import java.util.List;
 @Component
 public class TripEvaluator {
 
-    private static final String OUTBOUND = "outbound";
-    private static final String INBOUND = "inbound";
+    static final String OUTBOUND = "outbound";
+    static final String INBOUND = "inbound";
 
     public int fullDaysOnSite(FlightOffer offer) {
         if (!hasRequiredSegments(offer)) {
@@ -101,7 +102,67 @@ public class TripEvaluator {
         return true;
     }
 
-    private boolean hasRequiredSegments(FlightOffer offer) {
+    /**
+     * Reguły {@link #meetsHardConstraints} i {@link #isSaturdayFull} dotyczące samego wylotu (przesiadki, czas,
+     * cena, piątkowy przylot, brak lotu w sobotę) - pozwalają odrzucić taryfę przed złożeniem pary.
+     */
+    public boolean acceptsOutbound(OneWayFare fare, TripConstraints constraints) {
+        return fare != null && constraints != null
+                && withinPriceCap(fare.pricePln(), constraints.hardCapPricePln())
+                && acceptsOutboundRoute(fare.segments(), constraints);
+    }
+
+    /**
+     * Jak {@link #acceptsOutbound}, dla powrotu: wylot w niedzielę nie wcześniej niż {@code earliestDepartureOnSundayLocal}.
+     */
+    public boolean acceptsInbound(OneWayFare fare, TripConstraints constraints) {
+        return fare != null && constraints != null
+                && withinPriceCap(fare.pricePln(), constraints.hardCapPricePln())
+                && acceptsInboundRoute(fare.segments(), constraints);
+    }
+
+    /**
+     * Reguły wylotu bez ceny - dla połączeń z rozkładu, zanim provider poda cenę.
+     */
+    public boolean acceptsOutboundRoute(List<FlightSegment> segments, TripConstraints constraints) {
+        if (segments == null || segments.isEmpty() || constraints == null) {
+            return false;
+        }
+        ZonedDateTime arrival = segments.get(segments.size() - 1).arrivalTime();
+        ZoneId destZone = arrival.getZone();
+        return acceptsRoute(segments, constraints, destZone, OUTBOUND)
+                && isFridayBeforeOrAt(arrival, constraints.latestArrivalOnFridayLocal(), destZone);
+    }
+
+    /**
+     * Reguły powrotu bez ceny - dla połączeń z rozkładu, zanim provider poda cenę.
+     */
+    public boolean acceptsInboundRoute(List<FlightSegment> segments, TripConstraints constraints) {
+        if (segments == null || segments.isEmpty() || constraints == null) {
+            return false;
+        }
+        ZonedDateTime departure = segments.get(0).departureTime();
+        ZoneId destZone = departure.getZone();
+        return acceptsRoute(segments, constraints, destZone, INBOUND)
+                && isSundayAtOrAfter(departure, constraints.earliestDepartureOnSundayLocal(), destZone);
+    }
+
+    /**
+     * Powrót musi wylecieć w niedzielę czasu miejsca docelowego, więc taryfy z innego dnia nie trzeba pobierać.
+     */
+    public boolean acceptsInboundDate(LocalDate date) {
+        return date != null && date.getDayOfWeek() == DayOfWeek.SUNDAY;
+    }
+
+    private boolean acceptsRoute(List<FlightSegment> segments, TripConstraints constraints, ZoneId destZone, String direction) {
+        if (!withinStops(segments, constraints.maxStops(), direction)
+                || !withinDuration(segments, constraints.maxTotalDurationMinutesOneWay(), direction)) {
+            return false;
+        }
+        return !(constraints.requireNoFlightOnSaturday() && hasAnyFlightOnSaturday(segments, destZone));
+    }
+
+    boolean hasRequiredSegments(FlightOffer offer) {
         return offer != null && !offer.outboundSegments().isEmpty() && !offer.inboundSegments().isEmpty();
     }
 
@@ -114,7 +175,7 @@ public class TripEvaluator {
         return Duration.between(start, end).toMinutes();
     }
 
-    private ZoneId destinationZone(FlightOffer offer) {
+    ZoneId destinationZone(FlightOffer offer) {
         return offer.outboundArrivalTime().getZone();
     }
 
@@ -126,13 +187,13 @@ public class TripEvaluator {
         return toDestZone(time, destZone).getDayOfWeek() == DayOfWeek.SATURDAY;
     }
 
-    private boolean isFridayBeforeOrAt(ZonedDateTime arrival, LocalTime latestFriday, ZoneId destZone) {
+    boolean isFridayBeforeOrAt(ZonedDateTime arrival, LocalTime latestFriday, ZoneId destZone) {
         ZonedDateTime localArrival = toDestZone(arrival, destZone);
         return localArrival.getDayOfWeek() == DayOfWeek.FRIDAY &&
                !localArrival.toLocalTime().isAfter(latestFriday);
     }
 
-    private boolean isSundayAtOrAfter(ZonedDateTime departure, LocalTime earliestSunday, ZoneId destZone) {
+    boolean isSundayAtOrAfter(ZonedDateTime departure, LocalTime earliestSunday, ZoneId destZone) {
         ZonedDateTime localDeparture = toDestZone(departure, destZone);
         return localDeparture.getDayOfWeek() == DayOfWeek.SUNDAY &&
                !localDeparture.toLocalTime().isBefore(earliestSunday);
@@ -142,7 +203,7 @@ public class TripEvaluator {
         return Math.max(0, segments.size() - 1);
     }
 
-    private boolean withinStops(List<FlightSegment> segments, int maxStops, String direction) {
+    boolean withinStops(List<FlightSegment> segments, int maxStops, String direction) {
         int actualStops = stops(segments);
         if (actualStops > maxStops) {
             log.debug("meetsHardConstraints: za dużo przesiadek {} ({} > {})", direction, actualStops, maxStops);
@@ -151,7 +212,7 @@ public class TripEvaluator {
         return true;
     }
 
-    private boolean withinDuration(List<FlightSegment> segments, int maxDurationMinutes, String direction) {
+    boolean withinDuration(List<FlightSegment> segments, int maxDurationMinutes, String direction) {
         long actualDuration = durationMinutes(segments);
         if (actualDuration > maxDurationMinutes) {
             log.debug("meetsHardConstraints: za długi czas {} ({} > {} min)", direction, actualDuration, maxDurationMinutes);
@@ -160,7 +221,7 @@ public class TripEvaluator {
         return true;
     }
 
-    private boolean withinPriceCap(Integer pricePln, Integer hardCapPricePln) {
+    boolean withinPriceCap(Integer pricePln, Integer hardCapPricePln) {
         if (hardCapPricePln != null && pricePln > hardCapPricePln) {
             log.debug("meetsHardConstraints: cena za wysoka ({} > {})", pricePln, hardCapPricePln);
             return false;
@@ -168,20 +229,18 @@ public class TripEvaluator {
         return true;
     }
 
-    private boolean hasAnyFlightOnSaturday(FlightOffer offer, ZoneId destinationZone) {
-        for (FlightSegment segment : offer.outboundSegments()) {
-            if (isSaturday(segment.departureTime(), destinationZone) ||
-                isSaturday(segment.arrivalTime(), destinationZone)) {
-                return true;
-            }
-        }
-        for (FlightSegment segment : offer.inboundSegments()) {
+    boolean hasAnyFlightOnSaturday(FlightOffer offer, ZoneId destinationZone) {
+        return hasAnyFlightOnSaturday(offer.outboundSegments(), destinationZone)
+                || hasAnyFlightOnSaturday(offer.inboundSegments(), destinationZone);
+    }
+
+    private boolean hasAnyFlightOnSaturday(List<FlightSegment> segments, ZoneId destinationZone) {
+        for (FlightSegment segment : segments) {
             if (isSaturday(segment.departureTime(), destinationZone) ||
                 isSaturday(segment.arrivalTime(), destinationZone)) {
                 return true;
             }
         }
-
         return false;
     }
 }
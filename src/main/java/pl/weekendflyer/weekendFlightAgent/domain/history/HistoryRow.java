@@ -0,0 +1,23 @@
+package pl.weekendflyer.weekendFlightAgent.domain.history;
+
+import java.time.LocalDate;
+
+/**
+ * Wiersz price_observation w eksporcie; observedAt w mikrosekundach epoki (precyzja TIMESTAMPTZ),
+ * checks - liczba sprawdzeń, które wiersz reprezentuje (waga baseline).
+ */
+public record HistoryRow(
+        long observedAtMicros,
+        String provider,
+        String origin,
+        String destination,
+        LocalDate departDate,
+        LocalDate returnDate,
+        short fullDays,
+        LocalDate departureMonth,
+        String windowKey,
+        String offerKey,
+        int pricePln,
+        int checks
+) {
+}
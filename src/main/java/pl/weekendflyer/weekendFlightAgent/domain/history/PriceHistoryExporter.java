@@ -0,0 +1,115 @@
+package pl.weekendflyer.weekendFlightAgent.domain.history;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+
+import static pl.weekendflyer.weekendFlightAgent.domain.history.PriceHistoryFormat.MAGIC;
+import static pl.weekendflyer.weekendFlightAgent.domain.history.PriceHistoryFormat.VERSION;
+
+/**
+ * Eksport price_observation do formatu {@link PriceHistoryFormat}. Wiersze czytane kursorem po stronie serwera
+ * (fetchSize w transakcji), więc w pamięci jest co najwyżej jeden blok.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class PriceHistoryExporter {
+
+    private static final int FETCH_SIZE = 10_000;
+
+    private static final String SELECT_SQL = """
+            SELECT observed_at, provider, origin, destination, depart_date, return_date, full_days,
+                   departure_month, window_key, offer_key, price_pln, checks
+            FROM price_observation
+            WHERE observed_at >= ?
+            ORDER BY id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * @return liczba wyeksportowanych wierszy
+     */
+    public long export(Path file, Instant since) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+
+            PriceHistoryFormat.BlockEncoder encoder = new PriceHistoryFormat.BlockEncoder();
+            PriceHistoryFormat.Output buffer = new PriceHistoryFormat.Output();
+            long[] rows = {0};
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+                    PreparedStatement statement = con.prepareStatement(SELECT_SQL);
+                    statement.setFetchSize(FETCH_SIZE);
+                    statement.setTimestamp(1, Timestamp.from(since));
+                    return statement;
+                }, rs -> {
+                    encoder.add(toRow(rs));
+                    rows[0]++;
+                    if (encoder.isFull()) {
+                        writeBlock(out, encoder, buffer);
+                    }
+                }));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            if (encoder.size() > 0) {
+                writeBlock(out, encoder, buffer);
+            }
+            out.writeInt(0);
+            out.writeInt(0);
+
+            log.info("Exported {} price observations since {} to {} ({} bytes)", rows[0], since, file, out.size());
+            return rows[0];
+        }
+    }
+
+    private static void writeBlock(DataOutputStream out, PriceHistoryFormat.BlockEncoder encoder, PriceHistoryFormat.Output buffer) {
+        try {
+            buffer.reset();
+            encoder.encode(buffer);
+            out.writeInt(encoder.size());
+            out.writeInt(buffer.length());
+            out.write(buffer.bytes(), 0, buffer.length());
+            encoder.clear();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static HistoryRow toRow(ResultSet rs) throws SQLException {
+        Instant observedAt = rs.getTimestamp("observed_at").toInstant();
+        return new HistoryRow(
+                observedAt.getEpochSecond() * 1_000_000L + observedAt.getNano() / 1_000,
+                rs.getString("provider"),
+                rs.getString("origin"),
+                rs.getString("destination"),
+                rs.getObject("depart_date", LocalDate.class),
+                rs.getObject("return_date", LocalDate.class),
+                rs.getShort("full_days"),
+                rs.getObject("departure_month", LocalDate.class),
+                rs.getString("window_key"),
+                rs.getString("offer_key"),
+                rs.getInt("price_pln"),
+                rs.getInt("checks")
+        );
+    }
+}
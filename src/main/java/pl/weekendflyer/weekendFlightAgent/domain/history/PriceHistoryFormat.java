@@ -0,0 +1,366 @@
+package pl.weekendflyer.weekendFlightAgent.domain.history;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Kolumnowy format eksportu historii cen. Plik: nagłówek {@code MAGIC, VERSION}, potem bloki
+ * {@code [int rowCount][int payloadBytes][payload]} zakończone blokiem z rowCount = 0.
+ * <p>
+ * Payload bloku (do {@link #BLOCK_ROWS} wierszy): słowniki providerów, okien i offer_key,
+ * a potem kolumny: observed_at (delta), indeks providera, indeks okna, indeks oferty, cena (delta), checks (serie długość + wartość).
+ * Wersja 1 nie miała kolumny checks - importer ją odrzuca, bo wczytanie z wagą 1 przekłamałoby baseline.
+ * Liczby jako varint (zigzag dla delt), napisy w słownikach jako wspólny prefiks z poprzednim wpisem + reszta
+ * (offer_key i window_key mają długie wspólne początki). Słowniki są per blok, więc pamięć nie rośnie z rozmiarem pliku.
+ */
+final class PriceHistoryFormat {
+
+    static final int MAGIC = 0x50574831; // "PWH1"
+    static final int VERSION = 2;
+    static final int BLOCK_ROWS = 65_536;
+
+    private PriceHistoryFormat() {
+    }
+
+    /**
+     * Okno jest kluczem słownika razem z polami od niego zależnymi - origin/destination/daty nie są powtarzane per wiersz.
+     */
+    private record WindowEntry(
+            String windowKey,
+            String origin,
+            String destination,
+            LocalDate departDate,
+            LocalDate returnDate,
+            short fullDays,
+            LocalDate departureMonth
+    ) {
+    }
+
+    static final class BlockEncoder {
+
+        private final Map<String, Integer> providers = new HashMap<>();
+        private final Map<WindowEntry, Integer> windows = new HashMap<>();
+        private final Map<String, Integer> offers = new HashMap<>();
+        private final List<String> providerList = new ArrayList<>();
+        private final List<WindowEntry> windowList = new ArrayList<>();
+        private final List<String> offerList = new ArrayList<>();
+
+        private final long[] observedAt = new long[BLOCK_ROWS];
+        private final int[] providerIds = new int[BLOCK_ROWS];
+        private final int[] windowIds = new int[BLOCK_ROWS];
+        private final int[] offerIds = new int[BLOCK_ROWS];
+        private final int[] prices = new int[BLOCK_ROWS];
+        private final int[] checks = new int[BLOCK_ROWS];
+        private int size;
+
+        boolean isFull() {
+            return size == BLOCK_ROWS;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void add(HistoryRow row) {
+            WindowEntry window = new WindowEntry(row.windowKey(), row.origin(), row.destination(),
+                    row.departDate(), row.returnDate(), row.fullDays(), row.departureMonth());
+
+            observedAt[size] = row.observedAtMicros();
+            providerIds[size] = index(providers, providerList, row.provider());
+            windowIds[size] = index(windows, windowList, window);
+            offerIds[size] = index(offers, offerList, row.offerKey());
+            prices[size] = row.pricePln();
+            checks[size] = row.checks();
+            size++;
+        }
+
+        void encode(Output out) {
+            int[] providerRank = writeDictionary(out, providerList);
+
+            // słowniki zapisywane posortowane - sąsiednie klucze mają wtedy najdłuższe wspólne prefiksy
+            Integer[] windowOrder = sortedOrder(windowList.size(), (a, b) ->
+                    windowList.get(a).windowKey().compareTo(windowList.get(b).windowKey()));
+            int[] windowRank = new int[windowOrder.length];
+            out.varint(windowOrder.length);
+            long previousDepart = 0;
+            String previousKey = "";
+            for (int position = 0; position < windowOrder.length; position++) {
+                WindowEntry window = windowList.get(windowOrder[position]);
+                windowRank[windowOrder[position]] = position;
+                long depart = window.departDate().toEpochDay();
+                out.prefixed(window.windowKey(), previousKey);
+                out.string(window.origin());
+                out.string(window.destination());
+                out.zigzag(depart - previousDepart);
+                out.zigzag(window.returnDate().toEpochDay() - depart);
+                out.varint(window.fullDays());
+                out.zigzag(window.departureMonth().toEpochDay() - depart);
+                previousDepart = depart;
+                previousKey = window.windowKey();
+            }
+
+            int[] offerRank = writeDictionary(out, offerList);
+
+            long previousObservedAt = 0;
+            for (int i = 0; i < size; i++) {
+                out.zigzag(observedAt[i] - previousObservedAt);
+                previousObservedAt = observedAt[i];
+            }
+            for (int i = 0; i < size; i++) {
+                out.varint(providerRank[providerIds[i]]);
+            }
+            for (int i = 0; i < size; i++) {
+                out.varint(windowRank[windowIds[i]]);
+            }
+            for (int i = 0; i < size; i++) {
+                out.varint(offerRank[offerIds[i]]);
+            }
+            long previousPrice = 0;
+            for (int i = 0; i < size; i++) {
+                out.zigzag(prices[i] - previousPrice);
+                previousPrice = prices[i];
+            }
+            // checks prawie zawsze = 1 - serie (długość, wartość) zamiast bajtu na wiersz
+            for (int i = 0; i < size; ) {
+                int run = 1;
+                while (i + run < size && checks[i + run] == checks[i]) {
+                    run++;
+                }
+                out.varint(run);
+                out.varint(checks[i]);
+                i += run;
+            }
+        }
+
+        void clear() {
+            providers.clear();
+            windows.clear();
+            offers.clear();
+            providerList.clear();
+            windowList.clear();
+            offerList.clear();
+            size = 0;
+        }
+
+        /**
+         * @return pozycja w zapisanym (posortowanym) słowniku dla każdego indeksu z kolejności wstawiania
+         */
+        private static int[] writeDictionary(Output out, List<String> entries) {
+            Integer[] order = sortedOrder(entries.size(), (a, b) -> entries.get(a).compareTo(entries.get(b)));
+            int[] rank = new int[order.length];
+            out.varint(order.length);
+            String previous = "";
+            for (int position = 0; position < order.length; position++) {
+                String entry = entries.get(order[position]);
+                rank[order[position]] = position;
+                out.prefixed(entry, previous);
+                previous = entry;
+            }
+            return rank;
+        }
+
+        private static Integer[] sortedOrder(int size, Comparator<Integer> comparator) {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, comparator);
+            return order;
+        }
+
+        private static <T> int index(Map<T, Integer> dictionary, List<T> entries, T value) {
+            Integer existing = dictionary.get(value);
+            if (existing != null) {
+                return existing;
+            }
+            int created = entries.size();
+            dictionary.put(value, created);
+            entries.add(value);
+            return created;
+        }
+    }
+
+    static void decodeBlock(ByteBuffer payload, int rowCount, Consumer<HistoryRow> consumer) {
+        String[] providerDictionary = readDictionary(payload);
+
+        WindowEntry[] windowDictionary = new WindowEntry[readVarint(payload)];
+        long previousDepart = 0;
+        String previousKey = "";
+        for (int i = 0; i < windowDictionary.length; i++) {
+            String windowKey = readPrefixed(payload, previousKey);
+            String origin = readString(payload);
+            String destination = readString(payload);
+            long depart = previousDepart + readZigzag(payload);
+            long returnDay = depart + readZigzag(payload);
+            short fullDays = (short) readVarint(payload);
+            long departureMonth = depart + readZigzag(payload);
+            windowDictionary[i] = new WindowEntry(windowKey, origin, destination, LocalDate.ofEpochDay(depart),
+                    LocalDate.ofEpochDay(returnDay), fullDays, LocalDate.ofEpochDay(departureMonth));
+            previousDepart = depart;
+            previousKey = windowKey;
+        }
+
+        String[] offerDictionary = readDictionary(payload);
+
+        long[] observedAt = new long[rowCount];
+        long previousObservedAt = 0;
+        for (int i = 0; i < rowCount; i++) {
+            previousObservedAt += readZigzag(payload);
+            observedAt[i] = previousObservedAt;
+        }
+        int[] providerIds = readVarints(payload, rowCount);
+        int[] windowIds = readVarints(payload, rowCount);
+        int[] offerIds = readVarints(payload, rowCount);
+
+        int[] prices = new int[rowCount];
+        long previousPrice = 0;
+        for (int i = 0; i < rowCount; i++) {
+            previousPrice += readZigzag(payload);
+            prices[i] = (int) previousPrice;
+        }
+        int[] checks = new int[rowCount];
+        for (int i = 0; i < rowCount; ) {
+            int run = readVarint(payload);
+            Arrays.fill(checks, i, i + run, readVarint(payload));
+            i += run;
+        }
+
+        for (int i = 0; i < rowCount; i++) {
+            WindowEntry window = windowDictionary[windowIds[i]];
+            consumer.accept(new HistoryRow(
+                    observedAt[i],
+                    providerDictionary[providerIds[i]],
+                    window.origin(),
+                    window.destination(),
+                    window.departDate(),
+                    window.returnDate(),
+                    window.fullDays(),
+                    window.departureMonth(),
+                    window.windowKey(),
+                    offerDictionary[offerIds[i]],
+                    prices[i],
+                    checks[i]
+            ));
+        }
+    }
+
+    /**
+     * Bufor bajtów bloku z zapisem varint; rośnie do rozmiaru największego bloku i jest używany ponownie.
+     */
+    static final class Output {
+
+        private byte[] bytes = new byte[1 << 20];
+        private int length;
+
+        void varint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[length++] = (byte) value;
+        }
+
+        void zigzag(long value) {
+            varint((value << 1) ^ (value >> 63));
+        }
+
+        void string(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            varint(utf8.length);
+            ensure(utf8.length);
+            System.arraycopy(utf8, 0, bytes, length, utf8.length);
+            length += utf8.length;
+        }
+
+        void prefixed(String value, String previous) {
+            int shared = 0;
+            int max = Math.min(value.length(), previous.length());
+            while (shared < max && value.charAt(shared) == previous.charAt(shared)) {
+                shared++;
+            }
+            if (shared > 0 && Character.isHighSurrogate(value.charAt(shared - 1))) {
+                shared--;
+            }
+            varint(shared);
+            string(value.substring(shared));
+        }
+
+        byte[] bytes() {
+            return bytes;
+        }
+
+        int length() {
+            return length;
+        }
+
+        void reset() {
+            length = 0;
+        }
+
+        private void ensure(int extra) {
+            if (length + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+            }
+        }
+    }
+
+    private static int[] readVarints(ByteBuffer buffer, int count) {
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = readVarint(buffer);
+        }
+        return values;
+    }
+
+    static int readVarint(ByteBuffer buffer) {
+        return (int) readLong(buffer);
+    }
+
+    static long readZigzag(ByteBuffer buffer) {
+        long raw = readLong(buffer);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    private static long readLong(ByteBuffer buffer) {
+        long result = 0;
+        int shift = 0;
+        byte current;
+        do {
+            current = buffer.get();
+            result |= (long) (current & 0x7F) << shift;
+            shift += 7;
+        } while ((current & 0x80) != 0);
+        return result;
+    }
+
+    private static String[] readDictionary(ByteBuffer buffer) {
+        String[] entries = new String[readVarint(buffer)];
+        String previous = "";
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = readPrefixed(buffer, previous);
+            previous = entries[i];
+        }
+        return entries;
+    }
+
+    private static String readPrefixed(ByteBuffer buffer, String previous) {
+        int shared = readVarint(buffer);
+        String suffix = readString(buffer);
+        return shared == 0 ? suffix : previous.substring(0, shared) + suffix;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] utf8 = new byte[readVarint(buffer)];
+        buffer.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
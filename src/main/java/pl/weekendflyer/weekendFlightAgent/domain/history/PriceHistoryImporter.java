@@ -0,0 +1,167 @@
+package pl.weekendflyer.weekendFlightAgent.domain.history;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+import static pl.weekendflyer.weekendFlightAgent.domain.history.PriceHistoryFormat.MAGIC;
+import static pl.weekendflyer.weekendFlightAgent.domain.history.PriceHistoryFormat.VERSION;
+
+/**
+ * Import pliku {@link PriceHistoryFormat}: bloki czytane przez memory-mapped I/O (mapowany jest pojedynczy blok,
+ * więc rozmiar pliku nie jest ograniczony do 2 GB) i ładowane jednym {@code COPY ... FROM STDIN}.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class PriceHistoryImporter {
+
+    private static final String COPY_SQL = """
+            COPY price_observation (observed_at, provider, origin, destination, depart_date, return_date,
+                                    full_days, departure_month, window_key, offer_key, price_pln, checks)
+            FROM STDIN (FORMAT text)
+            """;
+    private static final int FLUSH_CHARS = 1 << 20;
+
+    /**
+     * Importowana historia może być starsza niż kursor kompakcji - cofamy go, żeby te dni też zostały zwinięte.
+     */
+    private static final String REWIND_COMPACTION_SQL = """
+            UPDATE price_observation_compaction SET next_day = ?, updated_at = now() WHERE id = 1 AND next_day > ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * @return liczba zaimportowanych wierszy
+     */
+    public long importFile(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, 8);
+            if (header.getInt() != MAGIC) {
+                throw new IOException(file + " is not a price history file");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException(file + " has price history version " + version + ", expected " + VERSION
+                        + " - re-export it, older versions carry no checks weights");
+            }
+
+            Long rows;
+            try {
+                long[] oldestMicros = {Long.MAX_VALUE};
+                rows = transactionTemplate.execute(status -> {
+                    Long copied = jdbcTemplate.execute((ConnectionCallback<Long>) con ->
+                            copyBlocks(channel, con.unwrap(PGConnection.class), oldestMicros));
+                    if (oldestMicros[0] != Long.MAX_VALUE) {
+                        Date oldestDay = Date.valueOf(LocalDate.ofInstant(instant(oldestMicros[0]), ZoneOffset.UTC));
+                        jdbcTemplate.update(REWIND_COMPACTION_SQL, oldestDay, oldestDay);
+                    }
+                    return copied;
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            log.info("Imported {} price observations from {}", rows, file);
+            return rows != null ? rows : 0;
+        }
+    }
+
+    private long copyBlocks(FileChannel channel, PGConnection connection, long[] oldestMicros) throws SQLException {
+        CopyIn copyIn = connection.getCopyAPI().copyIn(COPY_SQL);
+        try {
+            StringBuilder lines = new StringBuilder(FLUSH_CHARS + 4096);
+            long position = 8;
+            while (true) {
+                ByteBuffer blockHeader = channel.map(FileChannel.MapMode.READ_ONLY, position, 8);
+                int rowCount = blockHeader.getInt();
+                int payloadBytes = blockHeader.getInt();
+                if (rowCount == 0) {
+                    break;
+                }
+
+                ByteBuffer payload = channel.map(FileChannel.MapMode.READ_ONLY, position + 8, payloadBytes);
+                PriceHistoryFormat.decodeBlock(payload, rowCount, row -> {
+                    oldestMicros[0] = Math.min(oldestMicros[0], row.observedAtMicros());
+                    appendLine(lines, row);
+                    if (lines.length() >= FLUSH_CHARS) {
+                        flush(copyIn, lines);
+                    }
+                });
+                position += 8L + payloadBytes;
+            }
+            flush(copyIn, lines);
+            return copyIn.endCopy();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    private static void flush(CopyIn copyIn, StringBuilder lines) {
+        if (lines.isEmpty()) {
+            return;
+        }
+        byte[] bytes = lines.toString().getBytes(StandardCharsets.UTF_8);
+        try {
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+        } catch (SQLException e) {
+            throw new IllegalStateException("COPY into price_observation failed: " + e.getMessage(), e);
+        }
+        lines.setLength(0);
+    }
+
+    private static void appendLine(StringBuilder lines, HistoryRow row) {
+        lines.append(instant(row.observedAtMicros())).append('\t');
+        appendText(lines, row.provider()).append('\t');
+        appendText(lines, row.origin()).append('\t');
+        appendText(lines, row.destination()).append('\t');
+        lines.append(row.departDate()).append('\t');
+        lines.append(row.returnDate()).append('\t');
+        lines.append(row.fullDays()).append('\t');
+        lines.append(row.departureMonth()).append('\t');
+        appendText(lines, row.windowKey()).append('\t');
+        appendText(lines, row.offerKey()).append('\t');
+        lines.append(row.pricePln()).append('\t');
+        lines.append(row.checks()).append('\n');
+    }
+
+    private static Instant instant(long micros) {
+        return Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1_000L);
+    }
+
+    private static StringBuilder appendText(StringBuilder lines, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> lines.append("\\\\");
+                case '\t' -> lines.append("\\t");
+                case '\n' -> lines.append("\\n");
+                case '\r' -> lines.append("\\r");
+                default -> lines.append(c);
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,197 @@
+package pl.weekendflyer.weekendFlightAgent.domain.history;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Zwija wiersze price_observation starsze niż {@code minAge} do {@code price_observation_daily} (min, max, mediana
+ * ważona {@code checks}, liczba sprawdzeń per window_key i dzień UTC) i usuwa je z gorącej tabeli.
+ * <p>
+ * Partia to do {@code groupsPerBatch} okien jednego dnia: DELETE ... RETURNING i upsert agregatów w jednym
+ * zapytaniu i jednej transakcji, więc przerwany przebieg niczego nie gubi ani nie liczy podwójnie. Kursor dnia
+ * ({@code price_observation_compaction}) jest blokowany {@code FOR UPDATE SKIP LOCKED} - inny węzeł w tym czasie
+ * po prostu kończy przebieg. Liczba partii na przebieg i przerwa między nimi ograniczają obciążenie IO.
+ */
+@Slf4j
+public class PriceObservationCompactor {
+
+    private static final String LOCK_CURSOR_SQL = """
+            SELECT next_day FROM price_observation_compaction WHERE id = 1 FOR UPDATE SKIP LOCKED
+            """;
+
+    private static final String ADVANCE_CURSOR_SQL = """
+            UPDATE price_observation_compaction SET next_day = ?, updated_at = now() WHERE id = 1
+            """;
+
+    private static final String COMPACT_SQL = """
+            WITH batch AS (
+              SELECT DISTINCT window_key
+              FROM price_observation
+              WHERE observed_at >= ? AND observed_at < ?
+              ORDER BY window_key
+              LIMIT ?
+            ),
+            gone AS (
+              DELETE FROM price_observation o
+              USING batch b
+              WHERE o.window_key = b.window_key AND o.observed_at >= ? AND o.observed_at < ?
+              RETURNING o.window_key, o.origin, o.destination, o.full_days, o.departure_month, o.price_pln, o.checks
+            ),
+            samples AS (
+              SELECT window_key, origin, destination, full_days, departure_month, price_pln,
+                     SUM(checks) AS weight, COUNT(*) AS row_count
+              FROM gone
+              GROUP BY window_key, origin, destination, full_days, departure_month, price_pln
+            ),
+            ranked AS (
+              SELECT window_key, origin, destination, full_days, departure_month, price_pln, weight, row_count,
+                     SUM(weight) OVER (PARTITION BY window_key ORDER BY price_pln)::bigint AS running,
+                     SUM(weight) OVER (PARTITION BY window_key)::bigint AS total
+              FROM samples
+            ),
+            daily AS (
+              INSERT INTO price_observation_daily AS d (window_key, observed_day, origin, destination, full_days,
+                                                        departure_month, min_price_pln, max_price_pln,
+                                                        median_price_pln, checks, observations)
+              SELECT window_key, ?, origin, destination, full_days, departure_month,
+                     MIN(price_pln), MAX(price_pln),
+                     ROUND(((MIN(price_pln) FILTER (WHERE running >= (total + 1) / 2)
+                           + MIN(price_pln) FILTER (WHERE running >= total / 2 + 1)) / 2.0)::float8)::int,
+                     SUM(weight), SUM(row_count)
+              FROM ranked
+              GROUP BY window_key, origin, destination, full_days, departure_month
+              ON CONFLICT (window_key, observed_day) DO UPDATE SET
+                min_price_pln = LEAST(d.min_price_pln, EXCLUDED.min_price_pln),
+                max_price_pln = GREATEST(d.max_price_pln, EXCLUDED.max_price_pln),
+                median_price_pln = CASE WHEN EXCLUDED.checks > d.checks THEN EXCLUDED.median_price_pln
+                                        ELSE d.median_price_pln END,
+                checks = d.checks + EXCLUDED.checks,
+                observations = d.observations + EXCLUDED.observations
+              RETURNING 1
+            )
+            SELECT (SELECT COUNT(*) FROM daily) AS groups, (SELECT COUNT(*) FROM gone) AS rows
+            """;
+
+    /**
+     * @param groups  zwinięte pary (window_key, dzień)
+     * @param rows    usunięte wiersze price_observation
+     * @param nextDay pierwszy dzień, który nie jest jeszcze zwinięty
+     */
+    public record Result(long groups, long rows, LocalDate nextDay) {
+    }
+
+    private record Step(long groups, long rows, LocalDate nextDay, boolean finished) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+    /** Czytany przy każdym przebiegu - zależy od baseline.rollingDays z config.yaml. */
+    private final Supplier<Duration> minAge;
+    private final int groupsPerBatch;
+    private final int maxBatchesPerRun;
+    private final Duration pause;
+
+    public PriceObservationCompactor(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            Clock clock,
+            Supplier<Duration> minAge,
+            int groupsPerBatch,
+            int maxBatchesPerRun,
+            Duration pause
+    ) {
+        if (groupsPerBatch <= 0 || maxBatchesPerRun <= 0) {
+            throw new IllegalArgumentException("groupsPerBatch and maxBatchesPerRun must be positive");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.clock = clock;
+        this.minAge = minAge;
+        this.groupsPerBatch = groupsPerBatch;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.pause = pause;
+    }
+
+    /**
+     * Zwija kolejne dni aż do granicy wieku albo limitu partii; następny przebieg kontynuuje od kursora.
+     */
+    public Result compact() {
+        LocalDate cutoffDay = LocalDate.ofInstant(Instant.now(clock).minus(minAge.get()), ZoneOffset.UTC);
+        long groups = 0;
+        long rows = 0;
+        LocalDate nextDay = null;
+        int batches = 0;
+
+        while (batches < maxBatchesPerRun && !Thread.currentThread().isInterrupted()) {
+            Step step = transactionTemplate.execute(status -> step(cutoffDay));
+            if (step == null) {
+                log.info("PriceObservationCompactor: cursor locked by another node, skipping");
+                break;
+            }
+            nextDay = step.nextDay();
+            if (step.finished()) {
+                break;
+            }
+            if (step.groups() > 0) {
+                groups += step.groups();
+                rows += step.rows();
+                batches++;
+                pause();
+            }
+        }
+
+        log.info("PriceObservationCompactor: rolled up {} window days ({} rows) older than {}, next day {}",
+                groups, rows, cutoffDay, nextDay);
+        return new Result(groups, rows, nextDay);
+    }
+
+    /**
+     * Jedna partia w transakcji: null gdy kursor trzyma inny węzeł.
+     */
+    private Step step(LocalDate cutoffDay) {
+        List<LocalDate> cursor = jdbcTemplate.query(LOCK_CURSOR_SQL, (rs, rowNum) -> rs.getDate("next_day").toLocalDate());
+        if (cursor.isEmpty()) {
+            return null;
+        }
+        LocalDate day = cursor.get(0);
+        if (!day.isBefore(cutoffDay)) {
+            return new Step(0, 0, day, true);
+        }
+
+        Timestamp from = Timestamp.from(day.atStartOfDay(ZoneOffset.UTC).toInstant());
+        Timestamp to = Timestamp.from(day.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant());
+        Step step = jdbcTemplate.queryForObject(COMPACT_SQL, (rs, rowNum) ->
+                        new Step(rs.getLong("groups"), rs.getLong("rows"), day, false),
+                from, to, groupsPerBatch, from, to, Date.valueOf(day));
+
+        if (step.groups() == 0) {
+            LocalDate next = day.plusDays(1);
+            jdbcTemplate.update(ADVANCE_CURSOR_SQL, Date.valueOf(next));
+            return new Step(0, 0, next, false);
+        }
+        return step;
+    }
+
+    private void pause() {
+        if (pause.isZero()) {
+            return;
+        }
+        try {
+            Thread.sleep(pause.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
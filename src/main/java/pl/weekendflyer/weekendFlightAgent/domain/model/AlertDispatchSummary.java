@@ -0,0 +1,12 @@
+package pl.weekendflyer.weekendFlightAgent.domain.model;
+
+public record AlertDispatchSummary(
+        int pending,
+        int sent,
+        int failed,
+        int suppressed
+) {
+    public static AlertDispatchSummary empty() {
+        return new AlertDispatchSummary(0, 0, 0, 0);
+    }
+}
@@ -0,0 +1,54 @@
+package pl.weekendflyer.weekendFlightAgent.domain.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "baseline")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class Baseline {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "origin", nullable = false, columnDefinition = "bpchar(3)")
+    private String origin;
+
+    @Column(name = "destination", nullable = false, columnDefinition = "bpchar(3)")
+    private String destination;
+
+    @Column(name = "full_days", nullable = false)
+    private Short fullDays;
+
+    @Column(name = "departure_month", nullable = false)
+    private LocalDate departureMonth;
+
+    @Column(name = "median30_pln")
+    private Integer median30Pln;
+
+    @Column(name = "mean30_pln")
+    private Integer mean30Pln;
+
+    @Column(name = "std30_pln")
+    private Integer std30Pln;
+
+    @Column(name = "min30_pln")
+    private Integer min30Pln;
+
+    @Column(name = "count30", nullable = false)
+    private Integer count30;
+
+    @Column(name = "computed_at", nullable = false)
+    private Instant computedAt;
+}
@@ -0,0 +1,19 @@
+package pl.weekendflyer.weekendFlightAgent.domain.model;
+
+import java.time.LocalDate;
+
+/**
+ * Statystyki cen segmentu (trasa, długość pobytu, miesiąc wylotu) z okna baseline, przed zapisem do {@code baseline}.
+ */
+public record BaselineStats(
+        String origin,
+        String destination,
+        short fullDays,
+        LocalDate departureMonth,
+        int medianPln,
+        int meanPln,
+        int stdPln,
+        int minPln,
+        int count
+) {
+}
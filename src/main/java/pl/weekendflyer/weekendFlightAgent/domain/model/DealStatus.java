@@ -0,0 +1,8 @@
+package pl.weekendflyer.weekendFlightAgent.domain.model;
+
+public enum DealStatus {
+    NEW,
+    NOTIFIED,
+    SUPPRESSED,
+    FAILED
+}
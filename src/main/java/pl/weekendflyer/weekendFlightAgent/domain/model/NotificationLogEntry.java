@@ -0,0 +1,13 @@
+package pl.weekendflyer.weekendFlightAgent.domain.model;
+
+import java.time.Instant;
+
+public record NotificationLogEntry(
+        Instant sentAt,
+        String channel,
+        String offerKey,
+        Long dealId,
+        String destination,
+        boolean success,
+        String errorMessage
+) {}
@@ -0,0 +1,31 @@
+package pl.weekendflyer.weekendFlightAgent.domain.model;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+
+/**
+ * Pojedynczy lot w jedną stronę (jeden lub więcej segmentów) z taryfą liczoną niezależnie od powrotu.
+ */
+public record OneWayFare(
+        String originIata,
+        String destinationIata,
+        List<FlightSegment> segments,
+        int pricePln,
+        String provider,
+        String deepLink
+) {
+
+    public OneWayFare {
+        if (segments == null || segments.isEmpty()) {
+            throw new IllegalArgumentException("One-way fare needs at least one segment");
+        }
+    }
+
+    public ZonedDateTime departureTime() {
+        return segments.get(0).departureTime();
+    }
+
+    public ZonedDateTime arrivalTime() {
+        return segments.get(segments.size() - 1).arrivalTime();
+    }
+}
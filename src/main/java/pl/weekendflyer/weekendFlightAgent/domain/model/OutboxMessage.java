@@ -0,0 +1,7 @@
+package pl.weekendflyer.weekendFlightAgent.domain.model;
+
+public record OutboxMessage(
+        Long id,
+        int attempts,
+        Deal deal
+) {}
@@ -54,4 +54,8 @@ public class PriceObservation {
 
     @Column(name = "price_pln", nullable = false)
     private Integer pricePln;
+
+    /** Liczba sprawdzeń, które reprezentuje wiersz; nowy wiersz to jedno sprawdzenie. */
+    @Column(name = "checks", nullable = false)
+    private Integer checks = 1;
 }
@@ -0,0 +1,44 @@
+package pl.weekendflyer.weekendFlightAgent.domain.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "scan_run")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScanRun {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "provider", nullable = false)
+    private String provider;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private ScanRunStatus status;
+
+    @Column(name = "planned_count", nullable = false)
+    private Integer plannedCount;
+
+    @Column(name = "started_at", nullable = false)
+    private Instant startedAt;
+
+    @Column(name = "finished_at")
+    private Instant finishedAt;
+
+    public void markCompleted(Instant finishedAtNow) {
+        this.status = ScanRunStatus.COMPLETED;
+        this.finishedAt = finishedAtNow;
+    }
+}
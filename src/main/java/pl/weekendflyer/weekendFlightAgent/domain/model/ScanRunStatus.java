@@ -0,0 +1,6 @@
+package pl.weekendflyer.weekendFlightAgent.domain.model;
+
+public enum ScanRunStatus {
+    RUNNING,
+    COMPLETED
+}
@@ -0,0 +1,11 @@
+package pl.weekendflyer.weekendFlightAgent.domain.model;
+
+public record ScanRunSummary(
+        Long scanRunId,
+        int processed,
+        int done,
+        int failed,
+        int observationsRecorded,
+        boolean completed
+) {
+}
@@ -0,0 +1,77 @@
+package pl.weekendflyer.weekendFlightAgent.domain.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "scan_run_window")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScanRunWindow {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "scan_run_window_seq")
+    @SequenceGenerator(name = "scan_run_window_seq", sequenceName = "scan_run_window_id_seq", allocationSize = 50)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "scan_run_id", nullable = false)
+    private Long scanRunId;
+
+    @Column(name = "origin", nullable = false, columnDefinition = "bpchar(3)")
+    private String origin;
+
+    @Column(name = "destination", nullable = false, columnDefinition = "bpchar(3)")
+    private String destination;
+
+    @Column(name = "depart_date", nullable = false)
+    private LocalDate departDate;
+
+    @Column(name = "return_date", nullable = false)
+    private LocalDate returnDate;
+
+    @Column(name = "window_key", nullable = false)
+    private String windowKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private WindowScanStatus status;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts;
+
+    @Column(name = "claimed_by")
+    private String claimedBy;
+
+    @Column(name = "error_message")
+    private String errorMessage;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    public static ScanRunWindow planned(Long scanRunId, CandidateWindow window, Instant now) {
+        ScanRunWindow runWindow = new ScanRunWindow();
+        runWindow.setScanRunId(scanRunId);
+        runWindow.setOrigin(window.origin());
+        runWindow.setDestination(window.destination());
+        runWindow.setDepartDate(window.departDate());
+        runWindow.setReturnDate(window.returnDate());
+        runWindow.setWindowKey(window.windowKey());
+        runWindow.setStatus(WindowScanStatus.PLANNED);
+        runWindow.setAttempts(0);
+        runWindow.setUpdatedAt(now);
+        return runWindow;
+    }
+
+    public CandidateWindow toCandidateWindow() {
+        return new CandidateWindow(origin, destination, departDate, returnDate);
+    }
+}
@@ -0,0 +1,40 @@
+package pl.weekendflyer.weekendFlightAgent.domain.model;
+
+import java.time.LocalTime;
+import java.util.Set;
+
+/**
+ * Watchlista użytkownika: kierunki, dozwolone fullDays, własny limit ceny i reguła soboty.
+ * Przesiadki i czas podróży pozostają wspólne ({@code agent.constraints}), a {@code maxPricePln} może tylko
+ * zaostrzyć {@code hardCapPricePLN} - wyszukiwanie u providera jest jedno dla wszystkich.
+ */
+public record Subscription(
+        long id,
+        String userId,
+        Set<String> destinations,
+        Set<Integer> fullDays,
+        Integer maxPricePln,
+        boolean requireNoFlightOnSaturday,
+        LocalTime latestArrivalOnFridayLocal,
+        LocalTime earliestDepartureOnSundayLocal
+) {
+
+    public Subscription {
+        destinations = Set.copyOf(destinations);
+        fullDays = Set.copyOf(fullDays);
+    }
+
+    public TripConstraints constraints(TripConstraints shared) {
+        Integer cap = maxPricePln == null ? shared.hardCapPricePln()
+                : shared.hardCapPricePln() == null ? maxPricePln
+                : Integer.valueOf(Math.min(maxPricePln, shared.hardCapPricePln()));
+        return new TripConstraints(
+                shared.maxStops(),
+                shared.maxTotalDurationMinutesOneWay(),
+                cap,
+                latestArrivalOnFridayLocal,
+                earliestDepartureOnSundayLocal,
+                requireNoFlightOnSaturday
+        );
+    }
+}
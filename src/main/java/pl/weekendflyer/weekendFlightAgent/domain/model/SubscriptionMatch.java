@@ -0,0 +1,13 @@
+package pl.weekendflyer.weekendFlightAgent.domain.model;
+
+/**
+ * Najtańsza oferta okna spełniająca warunki subskrypcji.
+ */
+public record SubscriptionMatch(
+        long subscriptionId,
+        String userId,
+        String windowKey,
+        String offerKey,
+        int pricePln
+) {
+}
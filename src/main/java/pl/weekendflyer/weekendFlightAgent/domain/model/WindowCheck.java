@@ -1,20 +1,19 @@
 package pl.weekendflyer.weekendFlightAgent.domain.model;
 
 import jakarta.persistence.*;
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.time.Instant;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 
 @Entity
 @Table(name = "window_check")
 @Getter
 @Setter
 @NoArgsConstructor
-@AllArgsConstructor
 public class WindowCheck {
 
     @Id
@@ -46,6 +45,21 @@ public class WindowCheck {
     @Column(name = "check_count", nullable = false)
     private Integer checkCount;
 
+    @Column(name = "price_ewma")
+    private Double priceEwma;
+
+    @Column(name = "price_ewm_var")
+    private Double priceEwmVar;
+
+    @Column(name = "price_samples", nullable = false)
+    private Integer priceSamples = 0;
+
+    @Column(name = "recheck_interval_hours")
+    private Integer recheckIntervalHours;
+
+    @Column(name = "next_check_at")
+    private Instant nextCheckAt;
+
     @Column(name = "created_at", nullable = false)
     private Instant createdAt;
 
@@ -57,5 +71,24 @@ public class WindowCheck {
         this.checkCount = (this.checkCount != null ? this.checkCount : 0) + 1;
         this.updatedAt = updatedAtNow;
     }
+
+    public void recordPrice(int pricePln, double alpha) {
+        int samples = priceSamples != null ? priceSamples : 0;
+        if (samples == 0 || priceEwma == null) {
+            this.priceEwma = (double) pricePln;
+            this.priceEwmVar = 0.0;
+        } else {
+            double diff = pricePln - priceEwma;
+            double increment = alpha * diff;
+            this.priceEwma = priceEwma + increment;
+            this.priceEwmVar = (1 - alpha) * ((priceEwmVar != null ? priceEwmVar : 0.0) + diff * increment);
+        }
+        this.priceSamples = samples + 1;
+    }
+
+    public void scheduleNextCheck(Instant checkedAt, int intervalHours) {
+        this.recheckIntervalHours = intervalHours;
+        this.nextCheckAt = checkedAt.plus(intervalHours, ChronoUnit.HOURS);
+    }
 }
 
@@ -0,0 +1,23 @@
+package pl.weekendflyer.weekendFlightAgent.domain.model;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Wiersz {@code window_latest_price}: najtańsza oferta okna z ostatniego sprawdzenia danego providera.
+ * {@code previousPricePln} to cena sprzed ostatniej zmiany ({@code null}, dopóki cena się nie zmieniła).
+ */
+public record WindowLatestPrice(
+        String provider,
+        String windowKey,
+        String origin,
+        String destination,
+        LocalDate departDate,
+        LocalDate returnDate,
+        String offerKey,
+        int pricePln,
+        Integer previousPricePln,
+        Instant firstObservedAt,
+        Instant lastObservedAt
+) {
+}
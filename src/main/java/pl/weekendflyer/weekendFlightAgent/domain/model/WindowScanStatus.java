@@ -0,0 +1,8 @@
+package pl.weekendflyer.weekendFlightAgent.domain.model;
+
+public enum WindowScanStatus {
+    PLANNED,
+    IN_FLIGHT,
+    DONE,
+    FAILED
+}
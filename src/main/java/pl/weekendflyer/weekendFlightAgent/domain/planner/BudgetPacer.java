@@ -0,0 +1,29 @@
+package pl.weekendflyer.weekendFlightAgent.domain.planner;
+
+import java.time.Duration;
+import java.time.LocalTime;
+
+/**
+ * Rozkłada dzienny budżet providera równomiernie na dobę: wynik to łączna liczba zapytań,
+ * którą wolno zużyć do końca bieżącego ticka.
+ */
+public class BudgetPacer {
+
+    private static final long SECONDS_PER_DAY = Duration.ofDays(1).toSeconds();
+
+    private final int dailyBudget;
+    private final long tickSeconds;
+
+    public BudgetPacer(int dailyBudget, Duration tick) {
+        if (tick.isNegative() || tick.isZero()) {
+            throw new IllegalArgumentException("tick must be positive");
+        }
+        this.dailyBudget = dailyBudget;
+        this.tickSeconds = tick.toSeconds();
+    }
+
+    public int pacedTarget(LocalTime now) {
+        long horizon = Math.min(SECONDS_PER_DAY, now.toSecondOfDay() + tickSeconds);
+        return (int) ((dailyBudget * horizon + SECONDS_PER_DAY - 1) / SECONDS_PER_DAY);
+    }
+}
@@ -0,0 +1,61 @@
+package pl.weekendflyer.weekendFlightAgent.domain.planner;
+
+import pl.weekendflyer.weekendFlightAgent.domain.model.WindowCheck;
+
+/**
+ * Wylicza interwał ponownego sprawdzenia okna z jego zmienności cenowej (współczynnik zmienności
+ * z EWMA najtańszej ceny) i liczby dni do wylotu: stabilne i odległe okna sprawdzamy rzadko,
+ * zmienne i bliskie - często.
+ */
+public class RecheckIntervalPolicy {
+
+    static final int MIN_SAMPLES = 3;
+    private static final double REFERENCE_VOLATILITY = 0.05;
+    private static final double FULL_HORIZON_DAYS = 30.0;
+    private static final double MIN_DEPARTURE_FACTOR = 0.25;
+
+    private final int minIntervalHours;
+    private final int maxIntervalHours;
+
+    public RecheckIntervalPolicy(int minIntervalHours, int maxIntervalHours) {
+        if (maxIntervalHours < minIntervalHours) {
+            throw new IllegalArgumentException("maxIntervalHours must not be lower than minIntervalHours");
+        }
+        this.minIntervalHours = minIntervalHours;
+        this.maxIntervalHours = maxIntervalHours;
+    }
+
+    public static RecheckIntervalPolicy fixed(int intervalHours) {
+        return new RecheckIntervalPolicy(intervalHours, intervalHours);
+    }
+
+    public int minIntervalHours() {
+        return minIntervalHours;
+    }
+
+    public int intervalHours(WindowCheck check, long daysToDeparture) {
+        if (check.getPriceSamples() == null || check.getPriceSamples() < MIN_SAMPLES) {
+            return minIntervalHours;
+        }
+
+        double stabilityFactor = 1.0 / (1.0 + volatility(check) / REFERENCE_VOLATILITY);
+        double departureFactor = Math.max(MIN_DEPARTURE_FACTOR, Math.min(1.0, daysToDeparture / FULL_HORIZON_DAYS));
+        long hours = Math.round(maxIntervalHours * stabilityFactor * departureFactor);
+
+        return (int) Math.max(minIntervalHours, Math.min(maxIntervalHours, hours));
+    }
+
+    /**
+     * Współczynnik zmienności ceny okna; poniżej {@link #MIN_SAMPLES} próbek wariancja EWMA to szum,
+     * więc traktujemy okno jako neutralne (0).
+     */
+    public static double volatility(WindowCheck check) {
+        if (check.getPriceSamples() == null || check.getPriceSamples() < MIN_SAMPLES) {
+            return 0.0;
+        }
+        if (check.getPriceEwma() == null || check.getPriceEwmVar() == null || check.getPriceEwma() <= 0) {
+            return 0.0;
+        }
+        return Math.sqrt(check.getPriceEwmVar()) / check.getPriceEwma();
+    }
+}
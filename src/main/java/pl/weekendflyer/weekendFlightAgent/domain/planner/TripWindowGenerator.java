@@ -13,23 +13,37 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Slf4j
 public class TripWindowGenerator {
 
     private final Clock clock;
-    private final int maxWindowsPerDestinationPerDepartDate;
-    private final int maxWindowsGlobal;
+    private final Supplier<Limits> limits;
+
+    private record Limits(int maxWindowsPerDestinationPerDepartDate, int maxWindowsGlobal) {
+    }
 
     public TripWindowGenerator(Clock clock, AgentProperties.Planner plannerConfig) {
         this(clock, plannerConfig.maxWindowsPerDestinationPerDepartDate(), plannerConfig.maxWindowsGlobal());
     }
 
     public TripWindowGenerator(Clock clock, int maxWindowsPerDestinationPerDepartDate, int maxWindowsGlobal) {
+        Limits fixed = new Limits(maxWindowsPerDestinationPerDepartDate, maxWindowsGlobal);
+        this.clock = clock;
+        this.limits = () -> fixed;
+    }
+
+    /**
+     * Limity czytane przy każdym {@link #generate}, więc zmiana config.yaml działa od następnego przebiegu.
+     */
+    public TripWindowGenerator(Clock clock, Supplier<AgentProperties.Planner> plannerConfig) {
         this.clock = clock;
-        this.maxWindowsPerDestinationPerDepartDate = maxWindowsPerDestinationPerDepartDate;
-        this.maxWindowsGlobal = maxWindowsGlobal;
+        this.limits = () -> {
+            AgentProperties.Planner planner = plannerConfig.get();
+            return new Limits(planner.maxWindowsPerDestinationPerDepartDate(), planner.maxWindowsGlobal());
+        };
     }
 
     public List<CandidateWindow> generate(
@@ -38,6 +52,9 @@ public class TripWindowGenerator {
             int horizonDays,
             List<Integer> fullDaysAllowed
     ) {
+        Limits current = limits.get();
+        int maxWindowsPerDestinationPerDepartDate = current.maxWindowsPerDestinationPerDepartDate();
+        int maxWindowsGlobal = current.maxWindowsGlobal();
         LocalDate today = LocalDate.now(clock);
         LocalDate horizonEnd = today.plusDays(horizonDays);
 
@@ -1,12 +1,12 @@
 package pl.weekendflyer.weekendFlightAgent.domain.planner;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import pl.weekendflyer.weekendFlightAgent.config.AgentProperties;
 import pl.weekendflyer.weekendFlightAgent.domain.model.CandidateWindow;
 import pl.weekendflyer.weekendFlightAgent.domain.model.PlannerResult;
 import pl.weekendflyer.weekendFlightAgent.domain.model.WindowCheck;
-import pl.weekendflyer.weekendFlightAgent.domain.repository.WindowCheckRepository;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.WindowCheckStore;
+import pl.weekendflyer.weekendFlightAgent.domain.scan.ScanMetrics;
 
 import java.time.Clock;
 import java.time.Instant;
@@ -17,36 +17,64 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Slf4j
-@RequiredArgsConstructor
 public class WindowCheckPlanner {
 
     private final Clock clock;
-    private final int minRecheckIntervalHours;
-    private final int dailyBudgetPerProvider;
-    private final WindowCheckRepository repository;
+    private final Supplier<AgentProperties.Planner> plannerConfig;
+    private final WindowCheckStore repository;
+    private final ScanMetrics metrics;
+    private volatile Settings settings;
+
+    private record Settings(
+            AgentProperties.Planner source,
+            RecheckIntervalPolicy recheckIntervalPolicy,
+            int dailyBudgetPerProvider,
+            double priceEwmaAlpha
+    ) {
+
+        static Settings of(AgentProperties.Planner plannerConfig) {
+            return new Settings(
+                    plannerConfig,
+                    new RecheckIntervalPolicy(plannerConfig.minRecheckIntervalHours(), plannerConfig.maxRecheckIntervalHours()),
+                    plannerConfig.dailyBudgetPerProvider(),
+                    plannerConfig.priceEwmaAlpha()
+            );
+        }
+    }
 
-    public WindowCheckPlanner(Clock clock, AgentProperties.Planner plannerConfig, WindowCheckRepository repository) {
-        this(clock, plannerConfig.minRecheckIntervalHours(), plannerConfig.dailyBudgetPerProvider(), repository);
+    /**
+     * Budżet, interwały i alpha czytane przy każdym wywołaniu, więc zmiana config.yaml działa od następnego przebiegu.
+     */
+    public WindowCheckPlanner(
+            Clock clock,
+            Supplier<AgentProperties.Planner> plannerConfig,
+            WindowCheckStore repository,
+            ScanMetrics metrics
+    ) {
+        this.clock = clock;
+        this.plannerConfig = plannerConfig;
+        this.repository = repository;
+        this.metrics = metrics;
     }
 
     public PlannerResult plan(String provider, List<CandidateWindow> candidates) {
+        return plan(provider, candidates, dailyBudgetPerProvider());
+    }
+
+    public PlannerResult plan(String provider, List<CandidateWindow> candidates, int budget) {
         if (candidates.isEmpty()) {
             return PlannerResult.empty();
         }
 
+        RecheckIntervalPolicy recheckIntervalPolicy = settings().recheckIntervalPolicy();
         Instant now = Instant.now(clock);
         LocalDate today = LocalDate.now(clock);
 
-        List<String> windowKeys = candidates.stream()
-                .map(CandidateWindow::windowKey)
-                .toList();
-
-        List<WindowCheck> existingChecks = repository.findByProviderAndWindowKeyIn(provider, windowKeys);
-        Map<String, WindowCheck> checksByKey = existingChecks.stream()
-                .collect(Collectors.toMap(WindowCheck::getWindowKey, Function.identity()));
+        Map<String, WindowCheck> checksByKey = loadChecks(provider, candidates);
 
         int skippedRecentlyChecked = 0;
         List<CandidateWindow> eligibleCandidates = new ArrayList<>();
@@ -54,26 +82,57 @@ public class WindowCheckPlanner {
         for (CandidateWindow candidate : candidates) {
             WindowCheck existing = checksByKey.get(candidate.windowKey());
 
-            if (existing != null && existing.getLastCheckedAt() != null) {
-                Instant recheckThreshold = existing.getLastCheckedAt().plus(minRecheckIntervalHours, ChronoUnit.HOURS);
-                if (recheckThreshold.isAfter(now)) {
-                    skippedRecentlyChecked++;
-                    continue;
-                }
+            Instant dueAt = existing != null ? dueAt(existing, recheckIntervalPolicy) : null;
+            if (dueAt != null && dueAt.isAfter(now)) {
+                skippedRecentlyChecked++;
+                continue;
             }
 
             eligibleCandidates.add(candidate);
         }
 
-        eligibleCandidates.sort(buildPriorityComparator(checksByKey, today));
+        metrics.time(ScanMetrics.Stage.PLAN_SORT, () -> eligibleCandidates.sort(buildPriorityComparator(checksByKey, today)));
 
-        int selectedCount = Math.min(eligibleCandidates.size(), dailyBudgetPerProvider);
-        int skippedBudget = Math.max(0, eligibleCandidates.size() - dailyBudgetPerProvider);
+        int selectedCount = Math.min(eligibleCandidates.size(), Math.max(0, budget));
+        int skippedBudget = eligibleCandidates.size() - selectedCount;
 
         List<CandidateWindow> selected = eligibleCandidates.subList(0, selectedCount);
 
+        log.info("WindowCheckPlanner: provider={}, candidates={}, eligible={}, selected={}, skippedRecent={}, skippedBudget={}",
+                provider, candidates.size(), eligibleCandidates.size(), selectedCount, skippedRecentlyChecked, skippedBudget);
+
+        return new PlannerResult(
+                selected,
+                candidates.size(),
+                skippedRecentlyChecked,
+                skippedBudget,
+                selectedCount
+        );
+    }
+
+    public int dailyBudgetPerProvider() {
+        return settings().dailyBudgetPerProvider();
+    }
+
+    public void recordChecked(String provider, List<CandidateWindow> checked) {
+        recordChecked(provider, checked, Map.of());
+    }
+
+    /**
+     * @param cheapestPrices najtańsza zaakceptowana cena per windowKey z tego sprawdzenia (brak wpisu = brak ofert)
+     */
+    public void recordChecked(String provider, List<CandidateWindow> checked, Map<String, Integer> cheapestPrices) {
+        if (checked.isEmpty()) {
+            return;
+        }
+
+        Settings current = settings();
+        Instant now = Instant.now(clock);
+        LocalDate today = LocalDate.now(clock);
+        Map<String, WindowCheck> checksByKey = loadChecks(provider, checked);
+
         List<WindowCheck> toSave = new ArrayList<>();
-        for (CandidateWindow candidate : selected) {
+        for (CandidateWindow candidate : checked) {
             WindowCheck check = checksByKey.get(candidate.windowKey());
 
             if (check == null) {
@@ -82,23 +141,40 @@ public class WindowCheckPlanner {
                 check.markChecked(now, now);
             }
 
+            Integer cheapestPrice = cheapestPrices.get(candidate.windowKey());
+            if (cheapestPrice != null) {
+                check.recordPrice(cheapestPrice, current.priceEwmaAlpha());
+            }
+            long daysToDeparture = ChronoUnit.DAYS.between(today, candidate.departDate());
+            check.scheduleNextCheck(now, current.recheckIntervalPolicy().intervalHours(check, daysToDeparture));
+
             toSave.add(check);
         }
 
-        if (!toSave.isEmpty()) {
-            repository.saveAll(toSave);
+        metrics.time(ScanMetrics.Stage.WINDOW_CHECK_SAVE, () -> repository.saveAll(toSave));
+
+        log.debug("WindowCheckPlanner: provider={}, recorded {} checked windows", provider, toSave.size());
+    }
+
+    private static Instant dueAt(WindowCheck check, RecheckIntervalPolicy recheckIntervalPolicy) {
+        if (check.getNextCheckAt() != null) {
+            return check.getNextCheckAt();
+        }
+        if (check.getLastCheckedAt() != null) {
+            return check.getLastCheckedAt().plus(recheckIntervalPolicy.minIntervalHours(), ChronoUnit.HOURS);
         }
+        return null;
+    }
 
-        log.info("WindowCheckPlanner: provider={}, candidates={}, eligible={}, selected={}, skippedRecent={}, skippedBudget={}",
-                provider, candidates.size(), eligibleCandidates.size(), selectedCount, skippedRecentlyChecked, skippedBudget);
+    private Map<String, WindowCheck> loadChecks(String provider, List<CandidateWindow> windows) {
+        List<String> windowKeys = windows.stream()
+                .map(CandidateWindow::windowKey)
+                .toList();
 
-        return new PlannerResult(
-                selected,
-                candidates.size(),
-                skippedRecentlyChecked,
-                skippedBudget,
-                selectedCount
-        );
+        List<WindowCheck> checks = metrics.time(ScanMetrics.Stage.PLAN_LOOKUP,
+                () -> repository.findByProviderAndWindowKeyIn(provider, windowKeys));
+        return checks.stream()
+                .collect(Collectors.toMap(WindowCheck::getWindowKey, Function.identity()));
     }
 
     private Comparator<CandidateWindow> buildPriorityComparator(Map<String, WindowCheck> checksByKey, LocalDate today) {
@@ -107,6 +183,10 @@ public class WindowCheckPlanner {
                     WindowCheck check = checksByKey.get(c.windowKey());
                     return check != null && check.getLastCheckedAt() != null ? 1 : 0;
                 })
+                .thenComparing(c -> {
+                    WindowCheck check = checksByKey.get(c.windowKey());
+                    return check != null ? -RecheckIntervalPolicy.volatility(check) : 0.0;
+                })
                 .thenComparing(c -> ChronoUnit.DAYS.between(today, c.departDate()))
                 .thenComparing(c -> {
                     WindowCheck check = checksByKey.get(c.windowKey());
@@ -125,9 +205,23 @@ public class WindowCheckPlanner {
         check.setWindowKey(candidate.windowKey());
         check.setLastCheckedAt(now);
         check.setCheckCount(1);
+        check.setPriceSamples(0);
         check.setCreatedAt(now);
         check.setUpdatedAt(now);
         return check;
     }
-}
 
+    /**
+     * Settings przeliczane tylko gdy holder podmieni snapshot konfiguracji (porównanie po referencji).
+     */
+    private Settings settings() {
+        AgentProperties.Planner current = plannerConfig.get();
+        Settings cached = settings;
+        if (cached != null && cached.source() == current) {
+            return cached;
+        }
+        Settings fresh = Settings.of(current);
+        settings = fresh;
+        return fresh;
+    }
+}
@@ -0,0 +1,14 @@
+package pl.weekendflyer.weekendFlightAgent.domain.provider;
+
+public record DecodeResult(
+        int offersRead,
+        int offersEmitted,
+        int rejectedIncomplete,
+        int rejectedStops,
+        int rejectedPrice
+) {
+
+    public int offersRejected() {
+        return rejectedIncomplete + rejectedStops + rejectedPrice;
+    }
+}
@@ -0,0 +1,24 @@
+package pl.weekendflyer.weekendFlightAgent.domain.provider;
+
+import pl.weekendflyer.weekendFlightAgent.domain.model.CandidateWindow;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+public class EmptyFlightProviderClient implements FlightProviderClient {
+
+    public static final String NAME = "default";
+
+    private static final byte[] EMPTY_RESPONSE = "{\"offers\":[]}".getBytes(StandardCharsets.UTF_8);
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public InputStream search(CandidateWindow window) {
+        return new ByteArrayInputStream(EMPTY_RESPONSE);
+    }
+}
@@ -0,0 +1,380 @@
+package pl.weekendflyer.weekendFlightAgent.domain.provider;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import pl.weekendflyer.weekendFlightAgent.domain.model.CandidateWindow;
+import pl.weekendflyer.weekendFlightAgent.domain.model.FlightOffer;
+import pl.weekendflyer.weekendFlightAgent.domain.model.FlightSegment;
+import pl.weekendflyer.weekendFlightAgent.domain.model.OneWayFare;
+import pl.weekendflyer.weekendFlightAgent.domain.model.TripConstraints;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.core.ObjectReadContext;
+import tools.jackson.core.json.JsonFactory;
+
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Token-level decoder for provider payloads of the form
+ * {@code {"offers":[{"price":..,"deepLink":..,"outbound":[segment..],"inbound":[segment..]}]}},
+ * where a segment is {@code {"from":..,"to":..,"departure":..,"arrival":..}} with ISO zoned timestamps.
+ * <p>
+ * Offers are emitted one at a time. The cheap hard constraints (missing segments, missing price,
+ * stops, price cap) are applied while reading, so rejected itineraries are skipped at token level
+ * and never materialised as {@link FlightOffer}.
+ * <p>
+ * A price must be a non-negative JSON number: decimal prices are compared with the cap exactly and then
+ * rounded half-up to whole PLN. A non-numeric price or a segment without valid times rejects only that offer.
+ */
+@Slf4j
+@Component
+public class FlightOfferStreamDecoder {
+
+    private static final String OFFERS = "offers";
+    private static final String PRICE = "price";
+    private static final String DEEP_LINK = "deepLink";
+    private static final String OUTBOUND = "outbound";
+    private static final String INBOUND = "inbound";
+    private static final String FROM = "from";
+    private static final String TO = "to";
+    private static final String DEPARTURE = "departure";
+    private static final String ARRIVAL = "arrival";
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public DecodeResult decode(
+            InputStream payload,
+            String provider,
+            CandidateWindow window,
+            TripConstraints constraints,
+            Consumer<FlightOffer> sink
+    ) {
+        if (payload == null || provider == null || window == null || constraints == null || sink == null) {
+            throw new IllegalArgumentException("All parameters must be non-null");
+        }
+        return decode(payload, new DecodeState(provider, window.origin(), window.destination(), window.windowKey(),
+                false, constraints, sink));
+    }
+
+    /**
+     * Decodes a one-way payload in the same envelope: an offer without {@code inbound} is complete and its
+     * {@code outbound} segments become a {@link OneWayFare}. Stops and price cap are applied as for round trips.
+     */
+    public DecodeResult decodeOneWay(
+            InputStream payload,
+            String provider,
+            String origin,
+            String destination,
+            LocalDate date,
+            TripConstraints constraints,
+            Consumer<OneWayFare> sink
+    ) {
+        if (payload == null || provider == null || origin == null || destination == null || date == null
+                || constraints == null || sink == null) {
+            throw new IllegalArgumentException("All parameters must be non-null");
+        }
+        Consumer<FlightOffer> fareSink = offer -> sink.accept(new OneWayFare(offer.originIata(), offer.destinationIata(),
+                offer.outboundSegments(), offer.pricePln(), offer.provider(), offer.deepLink()));
+        return decode(payload, new DecodeState(provider, origin, destination, origin + "-" + destination + "-" + date,
+                true, constraints, fareSink));
+    }
+
+    private DecodeResult decode(InputStream payload, DecodeState state) {
+        try (JsonParser parser = jsonFactory.createParser(ObjectReadContext.empty(), payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Provider payload must be a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (OFFERS.equals(field) && value == JsonToken.START_ARRAY) {
+                    readOffers(parser, state);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (JacksonException e) {
+            throw new IllegalArgumentException("Malformed payload from provider " + state.provider, e);
+        }
+
+        DecodeResult result = state.result();
+        log.debug("FlightOfferStreamDecoder: provider={}, window={}, read={}, emitted={}, rejected={}",
+                state.provider, state.label, result.offersRead(), result.offersEmitted(), result.offersRejected());
+        return result;
+    }
+
+    private void readOffers(JsonParser parser, DecodeState state) {
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == JsonToken.START_OBJECT) {
+                readOffer(parser, state);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private void readOffer(JsonParser parser, DecodeState state) {
+        OfferScratch offer = state.scratch;
+        offer.reset();
+        state.offersRead++;
+
+        int maxSegments = state.constraints.maxStops() + 1;
+        Integer priceCap = state.constraints.hardCapPricePln();
+
+        while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+
+            if (offer.rejection != Rejection.NONE) {
+                parser.skipChildren();
+                continue;
+            }
+
+            switch (field) {
+                case PRICE -> readPrice(parser, value, priceCap, offer);
+                case DEEP_LINK -> offer.deepLink = value == JsonToken.VALUE_NULL ? null : parser.getString();
+                case OUTBOUND -> readSegments(parser, value, offer.outbound, maxSegments, offer);
+                case INBOUND -> readSegments(parser, value, offer.inbound, maxSegments, offer);
+                default -> parser.skipChildren();
+            }
+        }
+
+        if (offer.rejection == Rejection.NONE
+                && (!offer.hasPrice || offer.outbound.size == 0 || (offer.inbound.size == 0 && !state.oneWay))) {
+            offer.rejection = Rejection.INCOMPLETE;
+        }
+
+        FlightOffer materialized = null;
+        if (offer.rejection == Rejection.NONE) {
+            materialized = offer.materialize(state.provider, state.origin, state.destination);
+            if (materialized == null) {
+                offer.rejection = Rejection.INCOMPLETE;
+            }
+        }
+
+        switch (offer.rejection) {
+            case NONE -> {
+                state.sink.accept(materialized);
+                state.offersEmitted++;
+            }
+            case INCOMPLETE -> state.rejectedIncomplete++;
+            case STOPS -> state.rejectedStops++;
+            case PRICE -> state.rejectedPrice++;
+        }
+    }
+
+    private static void readPrice(JsonParser parser, JsonToken value, Integer priceCap, OfferScratch offer) {
+        double exact;
+        if (value == JsonToken.VALUE_NUMBER_INT && parser.getNumberType() == JsonParser.NumberType.INT) {
+            exact = parser.getIntValue();
+        } else if (value == JsonToken.VALUE_NUMBER_FLOAT) {
+            exact = parser.getDoubleValue();
+        } else {
+            parser.skipChildren();
+            offer.rejection = Rejection.INCOMPLETE;
+            return;
+        }
+        if (!(exact >= 0 && exact <= Integer.MAX_VALUE)) {
+            offer.rejection = Rejection.INCOMPLETE;
+            return;
+        }
+        offer.hasPrice = true;
+        if (priceCap != null && exact > priceCap) {
+            offer.rejection = Rejection.PRICE;
+            return;
+        }
+        offer.price = (int) Math.round(exact);
+    }
+
+    private void readSegments(JsonParser parser, JsonToken value, SegmentColumns columns, int maxSegments, OfferScratch offer) {
+        if (value != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.START_OBJECT || offer.rejection != Rejection.NONE) {
+                parser.skipChildren();
+                continue;
+            }
+            if (columns.size >= maxSegments) {
+                offer.rejection = Rejection.STOPS;
+                parser.skipChildren();
+                continue;
+            }
+            readSegment(parser, columns);
+        }
+    }
+
+    private void readSegment(JsonParser parser, SegmentColumns columns) {
+        int index = columns.append();
+        while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (value != JsonToken.VALUE_STRING) {
+                parser.skipChildren();
+                continue;
+            }
+            switch (field) {
+                case FROM -> columns.from[index] = parser.getString();
+                case TO -> columns.to[index] = parser.getString();
+                case DEPARTURE -> columns.departure[index] = parser.getString();
+                case ARRIVAL -> columns.arrival[index] = parser.getString();
+                default -> {
+                }
+            }
+        }
+    }
+
+    private enum Rejection {
+        NONE, INCOMPLETE, STOPS, PRICE
+    }
+
+    private static final class DecodeState {
+
+        private final String provider;
+        private final String origin;
+        private final String destination;
+        private final String label;
+        private final boolean oneWay;
+        private final TripConstraints constraints;
+        private final Consumer<FlightOffer> sink;
+        private final OfferScratch scratch;
+
+        private int offersRead;
+        private int offersEmitted;
+        private int rejectedIncomplete;
+        private int rejectedStops;
+        private int rejectedPrice;
+
+        private DecodeState(String provider, String origin, String destination, String label, boolean oneWay,
+                            TripConstraints constraints, Consumer<FlightOffer> sink) {
+            this.provider = provider;
+            this.origin = origin;
+            this.destination = destination;
+            this.label = label;
+            this.oneWay = oneWay;
+            this.constraints = constraints;
+            this.sink = sink;
+            this.scratch = new OfferScratch(constraints.maxStops() + 1);
+        }
+
+        private DecodeResult result() {
+            return new DecodeResult(offersRead, offersEmitted, rejectedIncomplete, rejectedStops, rejectedPrice);
+        }
+    }
+
+    private static final class OfferScratch {
+
+        private final SegmentColumns outbound;
+        private final SegmentColumns inbound;
+        private int price;
+        private boolean hasPrice;
+        private String deepLink;
+        private Rejection rejection;
+
+        private OfferScratch(int segmentCapacity) {
+            this.outbound = new SegmentColumns(segmentCapacity);
+            this.inbound = new SegmentColumns(segmentCapacity);
+        }
+
+        private void reset() {
+            outbound.clear();
+            inbound.clear();
+            price = 0;
+            hasPrice = false;
+            deepLink = null;
+            rejection = Rejection.NONE;
+        }
+
+        /**
+         * @return null when a segment has a missing or unparseable time
+         */
+        private FlightOffer materialize(String provider, String origin, String destination) {
+            if (!outbound.hasTimes() || !inbound.hasTimes()) {
+                return null;
+            }
+            try {
+                return new FlightOffer(
+                        origin,
+                        destination,
+                        outbound.toSegments(),
+                        inbound.toSegments(),
+                        price,
+                        provider,
+                        deepLink
+                );
+            } catch (DateTimeParseException e) {
+                return null;
+            }
+        }
+    }
+
+    private static final class SegmentColumns {
+
+        private String[] from;
+        private String[] to;
+        private String[] departure;
+        private String[] arrival;
+        private int size;
+
+        private SegmentColumns(int capacity) {
+            int initial = Math.max(1, capacity);
+            this.from = new String[initial];
+            this.to = new String[initial];
+            this.departure = new String[initial];
+            this.arrival = new String[initial];
+        }
+
+        private int append() {
+            if (size == from.length) {
+                int grown = size * 2;
+                from = Arrays.copyOf(from, grown);
+                to = Arrays.copyOf(to, grown);
+                departure = Arrays.copyOf(departure, grown);
+                arrival = Arrays.copyOf(arrival, grown);
+            }
+            from[size] = null;
+            to[size] = null;
+            departure[size] = null;
+            arrival[size] = null;
+            return size++;
+        }
+
+        private void clear() {
+            size = 0;
+        }
+
+        private boolean hasTimes() {
+            for (int i = 0; i < size; i++) {
+                if (departure[i] == null || arrival[i] == null) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private List<FlightSegment> toSegments() {
+            List<FlightSegment> segments = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                segments.add(new FlightSegment(
+                        from[i],
+                        to[i],
+                        ZonedDateTime.parse(departure[i]),
+                        ZonedDateTime.parse(arrival[i])
+                ));
+            }
+            return List.copyOf(segments);
+        }
+    }
+}
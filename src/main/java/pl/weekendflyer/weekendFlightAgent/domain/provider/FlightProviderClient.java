@@ -0,0 +1,13 @@
+package pl.weekendflyer.weekendFlightAgent.domain.provider;
+
+import pl.weekendflyer.weekendFlightAgent.domain.model.CandidateWindow;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface FlightProviderClient {
+
+    String name();
+
+    InputStream search(CandidateWindow window) throws IOException;
+}
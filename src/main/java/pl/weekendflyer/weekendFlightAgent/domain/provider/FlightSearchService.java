@@ -0,0 +1,131 @@
+package pl.weekendflyer.weekendFlightAgent.domain.provider;
+
+import lombok.extern.slf4j.Slf4j;
+import pl.weekendflyer.weekendFlightAgent.domain.eval.ConstraintChain;
+import pl.weekendflyer.weekendFlightAgent.domain.eval.TripEvaluator;
+import pl.weekendflyer.weekendFlightAgent.domain.model.CandidateWindow;
+import pl.weekendflyer.weekendFlightAgent.domain.model.FlightOffer;
+import pl.weekendflyer.weekendFlightAgent.domain.model.TripConstraints;
+import pl.weekendflyer.weekendFlightAgent.domain.scan.ScanTrace;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+@Slf4j
+public class FlightSearchService {
+
+    private static final String PROVIDER_SPAN = "provider.fetch";
+
+    private final FlightProviderClient client;
+    private final FlightOfferStreamDecoder decoder;
+    private final ConstraintChain constraintChain;
+    private final ScanTrace trace;
+    private final OneWayFareSearch oneWay;
+
+    public FlightSearchService(FlightProviderClient client, FlightOfferStreamDecoder decoder, TripEvaluator evaluator) {
+        this(client, decoder, evaluator, ScanTrace.disabled());
+    }
+
+    public FlightSearchService(FlightProviderClient client, FlightOfferStreamDecoder decoder, TripEvaluator evaluator, ScanTrace trace) {
+        this(client, decoder, new ConstraintChain(evaluator), trace, null);
+    }
+
+    /**
+     * @param oneWay gdy różne od {@code null}, okna są składane z taryf w jedną stronę zamiast zapytań o parę
+     */
+    public FlightSearchService(
+            FlightProviderClient client,
+            FlightOfferStreamDecoder decoder,
+            ConstraintChain constraintChain,
+            ScanTrace trace,
+            OneWayFareSearch oneWay
+    ) {
+        this.client = client;
+        this.decoder = decoder;
+        this.constraintChain = constraintChain;
+        this.trace = trace;
+        this.oneWay = oneWay;
+    }
+
+    public String provider() {
+        return client.name();
+    }
+
+    public List<FlightOffer> search(CandidateWindow window, TripConstraints constraints) throws IOException {
+        if (oneWay != null) {
+            return oneWay.search(window, constraints);
+        }
+        if (!trace.enabled()) {
+            try (InputStream payload = client.search(window)) {
+                return decode(payload, window, constraints);
+            }
+        }
+
+        // span obejmuje pobranie i dekodowanie - odpowiedź jest czytana strumieniowo
+        long start = System.nanoTime();
+        try (CountingInputStream payload = new CountingInputStream(client.search(window))) {
+            List<FlightOffer> accepted = decode(payload, window, constraints);
+            trace.span(PROVIDER_SPAN, start, window.windowKey(), client.name(), "ok", payload.count());
+            return accepted;
+        } catch (IOException | RuntimeException e) {
+            trace.span(PROVIDER_SPAN, start, window.windowKey(), client.name(), e.getClass().getSimpleName(), -1);
+            throw e;
+        }
+    }
+
+    private List<FlightOffer> decode(InputStream payload, CandidateWindow window, TripConstraints constraints) {
+        List<FlightOffer> accepted = new ArrayList<>();
+
+        DecodeResult result = decoder.decode(payload, client.name(), window, constraints, offer -> {
+            if (constraintChain.test(offer, constraints)) {
+                accepted.add(offer);
+            }
+        });
+
+        log.debug("FlightSearchService: provider={}, window={}, read={}, decoded={}, accepted={}",
+                client.name(), window.windowKey(), result.offersRead(), result.offersEmitted(), accepted.size());
+
+        return accepted;
+    }
+
+    static final class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        long count() {
+            return count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
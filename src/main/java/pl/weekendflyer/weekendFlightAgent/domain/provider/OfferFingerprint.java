@@ -0,0 +1,156 @@
+package pl.weekendflyer.weekendFlightAgent.domain.provider;
+
+import pl.weekendflyer.weekendFlightAgent.domain.model.FlightOffer;
+import pl.weekendflyer.weekendFlightAgent.domain.model.FlightSegment;
+
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * 128-bitowy odcisk oferty: MurmurHash3 x64_128 liczony strumieniowo po providerze, lotniskach
+ * i czasach (UTC) wszystkich segmentów - bez składania pośredniego klucza tekstowego.
+ * Model oferty nie niesie klasy kabiny, więc nie wchodzi ona do odcisku.
+ */
+public record OfferFingerprint(long high, long low) {
+
+    private static final HexFormat HEX = HexFormat.of();
+    private static final int HEX_LENGTH = 32;
+
+    public static OfferFingerprint of(FlightOffer offer) {
+        if (offer == null || offer.provider() == null) {
+            throw new IllegalArgumentException("Offer and provider must be non-null");
+        }
+        Murmur3 hash = new Murmur3();
+        hash.putString(offer.provider());
+        putSegments(hash, offer.outboundSegments());
+        putSegments(hash, offer.inboundSegments());
+        return hash.finish();
+    }
+
+    /**
+     * Odcisk z zapisanego offer_key: klucz w formacie {@link #hex()} jest parsowany, każdy inny
+     * (np. wiersze sprzed odcisków) jest hashowany jako tekst.
+     */
+    public static OfferFingerprint ofKey(String offerKey) {
+        if (offerKey.length() == HEX_LENGTH && isHex(offerKey)) {
+            return new OfferFingerprint(
+                    Long.parseUnsignedLong(offerKey, 0, 16, 16),
+                    Long.parseUnsignedLong(offerKey, 16, HEX_LENGTH, 16));
+        }
+        Murmur3 hash = new Murmur3();
+        hash.putString(offerKey);
+        return hash.finish();
+    }
+
+    public String hex() {
+        return HEX.toHexDigits(high) + HEX.toHexDigits(low);
+    }
+
+    private static void putSegments(Murmur3 hash, List<FlightSegment> segments) {
+        hash.putLong(segments.size());
+        for (FlightSegment segment : segments) {
+            hash.putString(segment.departureAirport());
+            hash.putString(segment.arrivalAirport());
+            hash.putLong(segment.departureTime().toEpochSecond());
+            hash.putLong(segment.arrivalTime().toEpochSecond());
+        }
+    }
+
+    private static boolean isHex(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (Character.digit(value.charAt(i), 16) < 0 || Character.isUpperCase(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * MurmurHash3 x64_128 po strumieniu 64-bitowych słów (little-endian); tekst jako długość + po 4 znaki na słowo.
+     */
+    private static final class Murmur3 {
+
+        private static final long C1 = 0x87c37b91114253d5L;
+        private static final long C2 = 0x4cf5ad432745937fL;
+
+        private long h1;
+        private long h2;
+        private long pending;
+        private boolean hasPending;
+        private long length;
+
+        void putString(String value) {
+            putLong(value.length());
+            long word = 0;
+            int shift = 0;
+            for (int i = 0; i < value.length(); i++) {
+                word |= (long) value.charAt(i) << shift;
+                shift += 16;
+                if (shift == 64) {
+                    putLong(word);
+                    word = 0;
+                    shift = 0;
+                }
+            }
+            if (shift > 0) {
+                putLong(word);
+            }
+        }
+
+        void putLong(long word) {
+            length += 8;
+            if (!hasPending) {
+                pending = word;
+                hasPending = true;
+                return;
+            }
+            hasPending = false;
+            mixBlock(pending, word);
+        }
+
+        OfferFingerprint finish() {
+            if (hasPending) {
+                h1 ^= mixK1(pending);
+            }
+            h1 ^= length;
+            h2 ^= length;
+            h1 += h2;
+            h2 += h1;
+            h1 = fmix(h1);
+            h2 = fmix(h2);
+            h1 += h2;
+            h2 += h1;
+            return new OfferFingerprint(h1, h2);
+        }
+
+        private void mixBlock(long k1, long k2) {
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            k2 *= C2;
+            k2 = Long.rotateLeft(k2, 33);
+            k2 *= C1;
+            h2 ^= k2;
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        private static long mixK1(long k1) {
+            k1 *= C1;
+            k1 = Long.rotateLeft(k1, 31);
+            return k1 * C2;
+        }
+
+        private static long fmix(long k) {
+            k ^= k >>> 33;
+            k *= 0xff51afd7ed558ccdL;
+            k ^= k >>> 33;
+            k *= 0xc4ceb9fe1a85ec53L;
+            k ^= k >>> 33;
+            return k;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package pl.weekendflyer.weekendFlightAgent.domain.provider;
+
+import pl.weekendflyer.weekendFlightAgent.domain.model.FlightOffer;
+
+/**
+ * offer_key to 32 znaki hex {@link OfferFingerprint} - stała długość niezależnie od liczby segmentów.
+ */
+public final class OfferKeyGenerator {
+
+    private OfferKeyGenerator() {
+    }
+
+    public static String generate(FlightOffer offer) {
+        return OfferFingerprint.of(offer).hex();
+    }
+}
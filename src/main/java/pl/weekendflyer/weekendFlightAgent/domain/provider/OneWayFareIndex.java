@@ -0,0 +1,63 @@
+package pl.weekendflyer.weekendFlightAgent.domain.provider;
+
+import pl.weekendflyer.weekendFlightAgent.domain.model.OneWayFare;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Taryfy w jedną stronę per trasa (kierunkowo), posortowane po dacie i godzinie wylotu. Dzień pobrany
+ * wcześniej niż {@code ttl} temu jest traktowany jak brak i pobierany ponownie; przeterminowane dni trasy
+ * są usuwane przy każdym zapisie.
+ */
+public class OneWayFareIndex {
+
+    private static final Comparator<OneWayFare> BY_DEPARTURE = Comparator.comparing(fare -> fare.departureTime().toInstant());
+
+    private final Duration ttl;
+    private final Map<Route, NavigableMap<LocalDate, DayFares>> routes = new HashMap<>();
+
+    public OneWayFareIndex(Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    public synchronized Optional<List<OneWayFare>> fares(String origin, String destination, LocalDate date, Instant now) {
+        NavigableMap<LocalDate, DayFares> days = routes.get(new Route(origin, destination));
+        DayFares day = days == null ? null : days.get(date);
+        if (day == null || isExpired(day, now)) {
+            return Optional.empty();
+        }
+        return Optional.of(day.fares());
+    }
+
+    public synchronized void put(String origin, String destination, LocalDate date, List<OneWayFare> fares, Instant fetchedAt) {
+        NavigableMap<LocalDate, DayFares> days = routes.computeIfAbsent(new Route(origin, destination), route -> new TreeMap<>());
+        days.values().removeIf(day -> isExpired(day, fetchedAt));
+        days.put(date, new DayFares(fares.stream().sorted(BY_DEPARTURE).toList(), fetchedAt));
+    }
+
+    public synchronized int size() {
+        return routes.values().stream()
+                .flatMap(days -> days.values().stream())
+                .mapToInt(day -> day.fares().size())
+                .sum();
+    }
+
+    private boolean isExpired(DayFares day, Instant now) {
+        return day.fetchedAt().plus(ttl).isBefore(now);
+    }
+
+    private record Route(String origin, String destination) {
+    }
+
+    private record DayFares(List<OneWayFare> fares, Instant fetchedAt) {
+    }
+}
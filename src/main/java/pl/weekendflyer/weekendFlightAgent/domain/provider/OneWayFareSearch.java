@@ -0,0 +1,88 @@
+package pl.weekendflyer.weekendFlightAgent.domain.provider;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import pl.weekendflyer.weekendFlightAgent.domain.eval.RoundTripCombiner;
+import pl.weekendflyer.weekendFlightAgent.domain.model.CandidateWindow;
+import pl.weekendflyer.weekendFlightAgent.domain.model.FlightOffer;
+import pl.weekendflyer.weekendFlightAgent.domain.model.OneWayFare;
+import pl.weekendflyer.weekendFlightAgent.domain.model.TripConstraints;
+import pl.weekendflyer.weekendFlightAgent.domain.scan.ScanTrace;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Wyszukiwanie okna z taryf w jedną stronę: wylot (origin -> destination, departDate) i powrót
+ * (destination -> origin, returnDate) są pobierane raz na dzień i trasę, a okna z tym samym dniem wylotu
+ * lub powrotu korzystają z {@link OneWayFareIndex}. Zapytań na trasę jest O(dni), a nie O(dni × fullDays).
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class OneWayFareSearch {
+
+    private static final String PROVIDER_SPAN = "provider.fetch.oneway";
+
+    private final OneWayFlightProviderClient client;
+    private final FlightOfferStreamDecoder decoder;
+    private final OneWayFareIndex index;
+    private final RoundTripCombiner combiner;
+    private final Clock clock;
+    private final int maxCombinationsPerWindow;
+    private final ScanTrace trace;
+
+    public List<FlightOffer> search(CandidateWindow window, TripConstraints constraints) throws IOException {
+        List<OneWayFare> outbound = combiner.outboundLegs(
+                fares(window.origin(), window.destination(), window.departDate(), constraints), constraints);
+        if (outbound.isEmpty() || !combiner.acceptsReturnDate(window.returnDate())) {
+            // para i tak nie powstanie - dzień powrotu nie jest pobierany
+            return List.of();
+        }
+        List<OneWayFare> inbound = combiner.inboundLegs(
+                fares(window.destination(), window.origin(), window.returnDate(), constraints), constraints);
+        List<FlightOffer> offers = combiner.combine(window, outbound, inbound, constraints, maxCombinationsPerWindow);
+
+        log.debug("OneWayFareSearch: window={}, outbound={}, inbound={}, combined={}",
+                window.windowKey(), outbound.size(), inbound.size(), offers.size());
+        return offers;
+    }
+
+    private List<OneWayFare> fares(String origin, String destination, LocalDate date, TripConstraints constraints) throws IOException {
+        Instant now = Instant.now(clock);
+        Optional<List<OneWayFare>> cached = index.fares(origin, destination, date, now);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        List<OneWayFare> fetched = fetch(origin, destination, date, constraints);
+        index.put(origin, destination, date, fetched, now);
+        return fetched;
+    }
+
+    private List<OneWayFare> fetch(String origin, String destination, LocalDate date, TripConstraints constraints) throws IOException {
+        List<OneWayFare> fares = new ArrayList<>();
+        if (!trace.enabled()) {
+            try (InputStream payload = client.searchOneWay(origin, destination, date)) {
+                decoder.decodeOneWay(payload, client.name(), origin, destination, date, constraints, fares::add);
+            }
+            return fares;
+        }
+
+        String key = origin + "-" + destination + "-" + date;
+        long start = System.nanoTime();
+        try (FlightSearchService.CountingInputStream payload =
+                     new FlightSearchService.CountingInputStream(client.searchOneWay(origin, destination, date))) {
+            decoder.decodeOneWay(payload, client.name(), origin, destination, date, constraints, fares::add);
+            trace.span(PROVIDER_SPAN, start, key, client.name(), "ok", payload.count());
+            return fares;
+        } catch (IOException | RuntimeException e) {
+            trace.span(PROVIDER_SPAN, start, key, client.name(), e.getClass().getSimpleName(), -1);
+            throw e;
+        }
+    }
+}
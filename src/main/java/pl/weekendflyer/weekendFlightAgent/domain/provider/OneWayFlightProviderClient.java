@@ -0,0 +1,14 @@
+package pl.weekendflyer.weekendFlightAgent.domain.provider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+
+/**
+ * Provider wyceniający loty w jedną stronę osobno. Odpowiedź ma format {@link FlightOfferStreamDecoder}
+ * z samymi segmentami {@code outbound}.
+ */
+public interface OneWayFlightProviderClient extends FlightProviderClient {
+
+    InputStream searchOneWay(String origin, String destination, LocalDate date) throws IOException;
+}
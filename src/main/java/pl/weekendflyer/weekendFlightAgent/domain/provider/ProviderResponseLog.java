@@ -0,0 +1,198 @@
+package pl.weekendflyer.weekendFlightAgent.domain.provider;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Plik segmentu z surowymi odpowiedziami providera, tylko dopisywany. Każdy rekord to jeden zapis
+ * (długość, treść, CRC32), więc przerwany zapis zostawia co najwyżej uszkodzony ogon, który odczyt pomija.
+ * <pre>
+ * plik:   MAGIC:int VERSION:int rekord*
+ * rekord: length:int [recordedAtMillis:long latencyNanos:long provider:UTF windowKey:UTF payloadLength:int payload] crc32:int
+ * </pre>
+ */
+@Slf4j
+public class ProviderResponseLog implements AutoCloseable {
+
+    static final int MAGIC = 0x50525231; // "PRR1"
+    static final int VERSION = 1;
+
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+
+    private final Path file;
+    private final FileChannel channel;
+
+    private ProviderResponseLog(Path file, FileChannel channel) {
+        this.file = file;
+        this.channel = channel;
+    }
+
+    public static ProviderResponseLog openForAppend(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        FileChannel channel = FileChannel.open(file, CREATE, WRITE, APPEND);
+        try {
+            if (channel.size() == 0) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION).flip();
+                writeFully(channel, header);
+            } else {
+                checkHeader(file);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+
+        log.info("Recording provider responses to {}", file.toAbsolutePath());
+        return new ProviderResponseLog(file, channel);
+    }
+
+    public synchronized void append(RecordedResponse response) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(response.payload().length + 128);
+        DataOutputStream body = new DataOutputStream(bytes);
+        body.writeLong(response.recordedAt().toEpochMilli());
+        body.writeLong(response.latency().toNanos());
+        body.writeUTF(response.provider());
+        body.writeUTF(response.windowKey());
+        body.writeInt(response.payload().length);
+        body.write(response.payload());
+        body.flush();
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+
+        ByteBuffer record = ByteBuffer.allocate(Integer.BYTES + bytes.size() + Integer.BYTES)
+                .putInt(bytes.size())
+                .put(bytes.toByteArray())
+                .putInt((int) crc.getValue())
+                .flip();
+        writeFully(channel, record);
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    public static List<RecordedResponse> readAll(Path file) throws IOException {
+        List<RecordedResponse> responses = new ArrayList<>();
+        read(file, responses::add);
+        return responses;
+    }
+
+    public static Optional<Instant> firstRecordedAt(Path file) throws IOException {
+        Instant[] first = new Instant[1];
+        read(file, response -> {
+            if (first[0] == null || response.recordedAt().isBefore(first[0])) {
+                first[0] = response.recordedAt();
+            }
+        });
+        return Optional.ofNullable(first[0]);
+    }
+
+    private static void read(Path file, Consumer<RecordedResponse> sink) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            readHeader(in, file);
+
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException end) {
+                    return;
+                }
+
+                byte[] body;
+                int storedCrc;
+                try {
+                    if (length <= 0) {
+                        throw new EOFException("Invalid record length " + length);
+                    }
+                    body = in.readNBytes(length);
+                    if (body.length < length) {
+                        throw new EOFException("Record body cut short");
+                    }
+                    storedCrc = in.readInt();
+                } catch (EOFException truncated) {
+                    log.warn("Provider response log {} ends with an incomplete record - ignoring the tail", file);
+                    return;
+                }
+
+                CRC32 crc = new CRC32();
+                crc.update(body);
+                if ((int) crc.getValue() != storedCrc) {
+                    log.warn("Provider response log {} has a corrupted record - ignoring the rest of the file", file);
+                    return;
+                }
+
+                sink.accept(decode(body));
+            }
+        }
+    }
+
+    private static RecordedResponse decode(byte[] body) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        Instant recordedAt = Instant.ofEpochMilli(in.readLong());
+        Duration latency = Duration.ofNanos(in.readLong());
+        String provider = in.readUTF();
+        String windowKey = in.readUTF();
+        byte[] payload = new byte[in.readInt()];
+        in.readFully(payload);
+        return new RecordedResponse(recordedAt, latency, provider, windowKey, payload);
+    }
+
+    private static void checkHeader(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            readHeader(in, file);
+        }
+    }
+
+    private static void readHeader(DataInputStream in, Path file) throws IOException {
+        try {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a provider response log: " + file);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported provider response log version " + version + ": " + file);
+            }
+        } catch (EOFException e) {
+            throw new IOException("Not a provider response log: " + file, e);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
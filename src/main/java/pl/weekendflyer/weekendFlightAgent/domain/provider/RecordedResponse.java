@@ -0,0 +1,19 @@
+package pl.weekendflyer.weekendFlightAgent.domain.provider;
+
+import java.time.Duration;
+import java.time.Instant;
+
+public record RecordedResponse(
+        Instant recordedAt,
+        Duration latency,
+        String provider,
+        String windowKey,
+        byte[] payload
+) {
+
+    public RecordedResponse {
+        if (recordedAt == null || latency == null || provider == null || windowKey == null || payload == null) {
+            throw new IllegalArgumentException("All parameters must be non-null");
+        }
+    }
+}
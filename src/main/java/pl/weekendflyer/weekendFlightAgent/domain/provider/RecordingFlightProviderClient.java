@@ -0,0 +1,57 @@
+package pl.weekendflyer.weekendFlightAgent.domain.provider;
+
+import lombok.extern.slf4j.Slf4j;
+import pl.weekendflyer.weekendFlightAgent.domain.model.CandidateWindow;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Dekorator zapisujący każdą odpowiedź providera do {@link ProviderResponseLog}. Odpowiedź jest
+ * czytana w całości (czas odczytu wlicza się do zapisanego opóźnienia), a dekoder dostaje kopię z pamięci.
+ * Błędy providera nie są zapisywane.
+ */
+@Slf4j
+public class RecordingFlightProviderClient implements FlightProviderClient, AutoCloseable {
+
+    private final FlightProviderClient delegate;
+    private final ProviderResponseLog responseLog;
+    private final Clock clock;
+
+    public RecordingFlightProviderClient(FlightProviderClient delegate, ProviderResponseLog responseLog, Clock clock) {
+        this.delegate = delegate;
+        this.responseLog = responseLog;
+        this.clock = clock;
+    }
+
+    @Override
+    public String name() {
+        return delegate.name();
+    }
+
+    @Override
+    public InputStream search(CandidateWindow window) throws IOException {
+        long start = System.nanoTime();
+        byte[] payload;
+        try (InputStream response = delegate.search(window)) {
+            payload = response.readAllBytes();
+        }
+        Duration latency = Duration.ofNanos(System.nanoTime() - start);
+
+        try {
+            responseLog.append(new RecordedResponse(clock.instant(), latency, delegate.name(), window.windowKey(), payload));
+        } catch (IOException e) {
+            log.warn("Failed to record provider response for window {}: {}", window.windowKey(), e.getMessage());
+        }
+
+        return new ByteArrayInputStream(payload);
+    }
+
+    @Override
+    public void close() throws IOException {
+        responseLog.close();
+    }
+}
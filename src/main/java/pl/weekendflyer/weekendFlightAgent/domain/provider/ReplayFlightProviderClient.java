@@ -0,0 +1,120 @@
+package pl.weekendflyer.weekendFlightAgent.domain.provider;
+
+import lombok.extern.slf4j.Slf4j;
+import pl.weekendflyer.weekendFlightAgent.domain.model.CandidateWindow;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Provider odtwarzający odpowiedzi z {@link ProviderResponseLog} zamiast odpytywać prawdziwe API.
+ * Kolejne zapytania o to samo okno dostają kolejne nagrania (ostatnie jest powtarzane), okno bez nagrania
+ * dostaje pustą listę ofert. Zapisane opóźnienie jest odtwarzane podzielone przez {@code speed};
+ * {@code speed = 0} wyłącza opóźnienia.
+ */
+@Slf4j
+public class ReplayFlightProviderClient implements FlightProviderClient {
+
+    private static final byte[] EMPTY_RESPONSE = "{\"offers\":[]}".getBytes(StandardCharsets.UTF_8);
+
+    private final String provider;
+    private final Map<String, List<RecordedResponse>> responsesByWindow;
+    private final Map<String, AtomicInteger> cursors;
+    private final double speed;
+    private final Instant recordedFrom;
+    private final AtomicLong served = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public ReplayFlightProviderClient(List<RecordedResponse> responses, double speed) {
+        if (responses.isEmpty()) {
+            throw new IllegalArgumentException("Nothing to replay - no recorded responses");
+        }
+        if (speed < 0 || Double.isNaN(speed)) {
+            throw new IllegalArgumentException("speed must be >= 0");
+        }
+
+        this.provider = responses.get(0).provider();
+        this.speed = speed;
+        this.responsesByWindow = responses.stream()
+                .filter(response -> provider.equals(response.provider()))
+                .sorted(Comparator.comparing(RecordedResponse::recordedAt))
+                .collect(Collectors.groupingBy(RecordedResponse::windowKey, Collectors.toUnmodifiableList()));
+        this.cursors = responsesByWindow.keySet().stream()
+                .collect(Collectors.toUnmodifiableMap(key -> key, key -> new AtomicInteger()));
+        this.recordedFrom = responses.stream()
+                .map(RecordedResponse::recordedAt)
+                .min(Comparator.naturalOrder())
+                .orElseThrow();
+
+        long ignored = responses.size() - responsesByWindow.values().stream().mapToLong(List::size).sum();
+        if (ignored > 0) {
+            log.warn("Replay serves provider {} only - ignoring {} responses recorded for other providers", provider, ignored);
+        }
+    }
+
+    public static ReplayFlightProviderClient open(Path file, double speed) throws IOException {
+        ReplayFlightProviderClient client = new ReplayFlightProviderClient(ProviderResponseLog.readAll(file), speed);
+        log.info("Replaying provider {} from {} - windows={}, recordedFrom={}, speed={}",
+                client.provider, file.toAbsolutePath(), client.responsesByWindow.size(), client.recordedFrom, speed);
+        return client;
+    }
+
+    @Override
+    public String name() {
+        return provider;
+    }
+
+    @Override
+    public InputStream search(CandidateWindow window) throws IOException {
+        String windowKey = window.windowKey();
+        List<RecordedResponse> recorded = responsesByWindow.get(windowKey);
+        if (recorded == null) {
+            misses.incrementAndGet();
+            log.debug("Replay miss: provider={}, window={}", provider, windowKey);
+            return new ByteArrayInputStream(EMPTY_RESPONSE);
+        }
+
+        int index = Math.min(cursors.get(windowKey).getAndIncrement(), recorded.size() - 1);
+        RecordedResponse response = recorded.get(index);
+        pause(response.latency());
+        served.incrementAndGet();
+        return new ByteArrayInputStream(response.payload());
+    }
+
+    public Instant recordedFrom() {
+        return recordedFrom;
+    }
+
+    public long served() {
+        return served.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    private void pause(Duration latency) throws InterruptedIOException {
+        if (speed == 0) {
+            return;
+        }
+        long nanos = (long) (latency.toNanos() / speed);
+        try {
+            Thread.sleep(nanos / 1_000_000, (int) (nanos % 1_000_000));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Replay interrupted");
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package pl.weekendflyer.weekendFlightAgent.domain.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import pl.weekendflyer.weekendFlightAgent.domain.model.Baseline;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+@Repository
+public interface BaselineRepository extends JpaRepository<Baseline, Long> {
+
+    Optional<Baseline> findByOriginAndDestinationAndFullDaysAndDepartureMonth(
+            String origin, String destination, Short fullDays, LocalDate departureMonth);
+}
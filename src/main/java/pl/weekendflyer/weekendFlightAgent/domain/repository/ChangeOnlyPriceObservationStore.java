@@ -0,0 +1,186 @@
+package pl.weekendflyer.weekendFlightAgent.domain.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import pl.weekendflyer.weekendFlightAgent.domain.model.PriceObservation;
+import pl.weekendflyer.weekendFlightAgent.domain.provider.OfferFingerprint;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Etap wykrywania zmian przed {@code price_observation}: nowy wiersz tylko gdy cena oferty się zmieniła
+ * albo od ostatniego wiersza minął {@code heartbeat}. Niezmieniony recheck to jedynie
+ * {@code last_seen_at} i {@code pending_checks} w {@code offer_last_seen}; przy następnym wierszu oferty
+ * licznik jest doliczany do {@code checks} poprzedniego, więc baseline waży ceny liczbą sprawdzeń jak wcześniej.
+ * <p>
+ * Ostatnie ceny trzyma {@link LastPriceTable} (zasilana przy starcie z {@code offer_last_seen}), ale rozstrzyga
+ * warunkowy UPDATE w {@code offer_last_seen} - gdy inny węzeł zapisał w międzyczasie inną cenę, obserwacja
+ * trafia do tabeli normalnie. Oferty niewidziane dłużej niż heartbeat są usuwane z obu miejsc.
+ */
+@Slf4j
+public class ChangeOnlyPriceObservationStore implements PriceObservationStore {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String SEED_SQL = """
+            SELECT offer_key, observed_at, price_pln FROM offer_last_seen WHERE observed_at >= ?
+            """;
+
+    private static final String TOUCH_SQL = """
+            UPDATE offer_last_seen SET last_seen_at = ?, pending_checks = pending_checks + 1
+            WHERE offer_key = ? AND price_pln = ? AND observed_at > ?
+            """;
+
+    private static final String FOLD_SQL = """
+            UPDATE price_observation p SET checks = p.checks + s.pending_checks
+            FROM offer_last_seen s
+            WHERE s.offer_key = ? AND s.pending_checks > 0
+              AND p.offer_key = s.offer_key AND p.observed_at = s.observed_at
+            """;
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO offer_last_seen (offer_key, price_pln, observed_at, last_seen_at, pending_checks)
+            VALUES (?, ?, ?, ?, 0)
+            ON CONFLICT (offer_key) DO UPDATE SET
+              price_pln = EXCLUDED.price_pln,
+              observed_at = EXCLUDED.observed_at,
+              last_seen_at = EXCLUDED.last_seen_at,
+              pending_checks = 0
+            """;
+
+    private static final String EXPIRE_SQL = """
+            WITH gone AS (
+              DELETE FROM offer_last_seen WHERE last_seen_at < ?
+              RETURNING offer_key, observed_at, pending_checks
+            )
+            UPDATE price_observation p SET checks = p.checks + g.pending_checks
+            FROM gone g
+            WHERE g.pending_checks > 0 AND p.offer_key = g.offer_key AND p.observed_at = g.observed_at
+            """;
+
+    private final PriceObservationStore delegate;
+    private final JdbcTemplate jdbcTemplate;
+    private final Clock clock;
+    private final Duration heartbeat;
+    private final LastPriceTable lastPrices = new LastPriceTable(1 << 16);
+
+    private boolean seeded;
+    private Instant lastSweep;
+
+    public ChangeOnlyPriceObservationStore(PriceObservationStore delegate, JdbcTemplate jdbcTemplate, Clock clock, Duration heartbeat) {
+        if (heartbeat.isZero() || heartbeat.isNegative()) {
+            throw new IllegalArgumentException("heartbeat must be positive");
+        }
+        this.delegate = delegate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.clock = clock;
+        this.heartbeat = heartbeat;
+    }
+
+    @Override
+    public synchronized void saveAll(List<PriceObservation> observations) {
+        if (observations.isEmpty()) {
+            return;
+        }
+        prepareTable();
+
+        Map<String, PriceObservation> perOffer = new LinkedHashMap<>();
+        for (PriceObservation observation : observations) {
+            perOffer.putIfAbsent(observation.getOfferKey(), observation);
+        }
+
+        List<PriceObservation> maybeUnchanged = new ArrayList<>();
+        List<PriceObservation> changed = new ArrayList<>();
+        for (PriceObservation observation : perOffer.values()) {
+            (isUnchanged(observation) ? maybeUnchanged : changed).add(observation);
+        }
+
+        int unchanged = touch(maybeUnchanged, changed);
+        if (!changed.isEmpty()) {
+            jdbcTemplate.batchUpdate(FOLD_SQL, changed, BATCH_SIZE,
+                    (statement, observation) -> statement.setString(1, observation.getOfferKey()));
+            delegate.saveAll(changed);
+            jdbcTemplate.batchUpdate(UPSERT_SQL, changed, BATCH_SIZE, (statement, observation) -> {
+                Timestamp observedAt = Timestamp.from(observation.getObservedAt());
+                statement.setString(1, observation.getOfferKey());
+                statement.setInt(2, observation.getPricePln());
+                statement.setTimestamp(3, observedAt);
+                statement.setTimestamp(4, observedAt);
+            });
+            for (PriceObservation observation : changed) {
+                OfferFingerprint fingerprint = OfferFingerprint.ofKey(observation.getOfferKey());
+                lastPrices.put(fingerprint.high(), fingerprint.low(), observation.getPricePln(),
+                        observation.getObservedAt().getEpochSecond());
+            }
+        }
+
+        log.debug("ChangeOnlyPriceObservationStore: {} observations, {} written, {} unchanged",
+                observations.size(), changed.size(), unchanged);
+    }
+
+    private boolean isUnchanged(PriceObservation observation) {
+        OfferFingerprint fingerprint = OfferFingerprint.ofKey(observation.getOfferKey());
+        int slot = lastPrices.find(fingerprint.high(), fingerprint.low());
+        return slot != LastPriceTable.MISSING
+                && lastPrices.priceAt(slot) == observation.getPricePln()
+                && lastPrices.writtenAtAt(slot) > observation.getObservedAt().minus(heartbeat).getEpochSecond();
+    }
+
+    /**
+     * Warunkowy UPDATE per kandydat; te, których {@code offer_last_seen} nie potwierdza, przechodzą do {@code changed}.
+     */
+    private int touch(List<PriceObservation> maybeUnchanged, List<PriceObservation> changed) {
+        if (maybeUnchanged.isEmpty()) {
+            return 0;
+        }
+        int[][] counts = jdbcTemplate.batchUpdate(TOUCH_SQL, maybeUnchanged, BATCH_SIZE, (statement, observation) -> {
+            statement.setTimestamp(1, Timestamp.from(observation.getObservedAt()));
+            statement.setString(2, observation.getOfferKey());
+            statement.setInt(3, observation.getPricePln());
+            statement.setTimestamp(4, Timestamp.from(observation.getObservedAt().minus(heartbeat)));
+        });
+
+        int unchanged = 0;
+        int index = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count > 0) {
+                    unchanged++;
+                } else {
+                    changed.add(maybeUnchanged.get(index));
+                }
+                index++;
+            }
+        }
+        return unchanged;
+    }
+
+    private void prepareTable() {
+        Instant now = Instant.now(clock);
+        if (!seeded) {
+            jdbcTemplate.query(SEED_SQL, rs -> {
+                OfferFingerprint fingerprint = OfferFingerprint.ofKey(rs.getString("offer_key"));
+                lastPrices.put(fingerprint.high(), fingerprint.low(), rs.getInt("price_pln"),
+                        rs.getTimestamp("observed_at").toInstant().getEpochSecond());
+            }, Timestamp.from(now.minus(heartbeat)));
+            seeded = true;
+            lastSweep = now;
+            log.info("ChangeOnlyPriceObservationStore: seeded last prices of {} offers (heartbeat {})", lastPrices.size(), heartbeat);
+            return;
+        }
+        if (lastSweep.plus(heartbeat).isBefore(now)) {
+            Instant cutoff = now.minus(heartbeat);
+            int removed = lastPrices.removeWrittenBefore(cutoff.getEpochSecond());
+            jdbcTemplate.update(EXPIRE_SQL, Timestamp.from(cutoff));
+            lastSweep = now;
+            log.debug("ChangeOnlyPriceObservationStore: dropped {} offers past heartbeat, {} left", removed, lastPrices.size());
+        }
+    }
+}
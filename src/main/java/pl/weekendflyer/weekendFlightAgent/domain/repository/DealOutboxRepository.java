@@ -0,0 +1,117 @@
+package pl.weekendflyer.weekendFlightAgent.domain.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import pl.weekendflyer.weekendFlightAgent.domain.model.Deal;
+import pl.weekendflyer.weekendFlightAgent.domain.model.DealStatus;
+import pl.weekendflyer.weekendFlightAgent.domain.model.OutboxMessage;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class DealOutboxRepository {
+
+    private static final String CLAIM_SQL = """
+            WITH claimed AS (
+                SELECT id
+                FROM deal_outbox
+                WHERE available_at <= ?
+                ORDER BY id
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+            )
+            UPDATE deal_outbox o
+            SET available_at = ?
+            FROM claimed c, deal d
+            WHERE o.id = c.id AND d.id = o.deal_id
+            RETURNING o.id AS outbox_id, o.attempts,
+                   d.id, d.created_at, d.status, d.provider, d.origin, d.destination, d.depart_date, d.return_date,
+                   d.full_days, d.departure_month, d.window_key, d.offer_key, d.price_pln,
+                   d.baseline_median30_pln, d.percent_below_median, d.saving_pln
+            """;
+
+    private static final RowMapper<OutboxMessage> ROW_MAPPER = (rs, rowNum) -> new OutboxMessage(
+            rs.getLong("outbox_id"),
+            rs.getInt("attempts"),
+            new Deal(
+                    rs.getLong("id"),
+                    rs.getTimestamp("created_at").toInstant(),
+                    DealStatus.valueOf(rs.getString("status")),
+                    rs.getString("provider"),
+                    rs.getString("origin"),
+                    rs.getString("destination"),
+                    rs.getDate("depart_date").toLocalDate(),
+                    rs.getDate("return_date").toLocalDate(),
+                    rs.getShort("full_days"),
+                    rs.getDate("departure_month").toLocalDate(),
+                    rs.getString("window_key"),
+                    rs.getString("offer_key"),
+                    rs.getInt("price_pln"),
+                    rs.getObject("baseline_median30_pln", Integer.class),
+                    rs.getBigDecimal("percent_below_median"),
+                    rs.getObject("saving_pln", Integer.class)
+            )
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(List<Deal> deals, Instant now) {
+        if (deals.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO deal_outbox (deal_id, offer_key, available_at, created_at) VALUES (?, ?, ?, ?)",
+                deals,
+                deals.size(),
+                (ps, deal) -> {
+                    ps.setLong(1, deal.getId());
+                    ps.setString(2, deal.getOfferKey());
+                    ps.setTimestamp(3, Timestamp.from(now));
+                    ps.setTimestamp(4, Timestamp.from(now));
+                });
+    }
+
+    /**
+     * Dzierżawi pobrane wiersze przesuwając available_at na lockedUntil - po commicie inne węzły ich nie widzą
+     * aż do wygaśnięcia dzierżawy, więc wysyłka może trwać poza transakcją. Wiersz porzucony przez padnięty
+     * węzeł wraca do kolejki sam, bez zwiększania attempts.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<OutboxMessage> claim(int limit, Instant now, Instant lockedUntil) {
+        List<OutboxMessage> claimed = jdbcTemplate.query(CLAIM_SQL, ROW_MAPPER,
+                Timestamp.from(now), limit, Timestamp.from(lockedUntil));
+        return claimed.stream().sorted(Comparator.comparing(OutboxMessage::id)).toList();
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void delete(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("DELETE FROM deal_outbox WHERE id = ?", ids, ids.size(),
+                (ps, id) -> ps.setLong(1, id));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reschedule(Collection<Long> ids, Instant availableAt) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("UPDATE deal_outbox SET attempts = attempts + 1, available_at = ? WHERE id = ?",
+                ids, ids.size(),
+                (ps, id) -> {
+                    ps.setTimestamp(1, Timestamp.from(availableAt));
+                    ps.setLong(2, id);
+                });
+    }
+}
@@ -0,0 +1,29 @@
+package pl.weekendflyer.weekendFlightAgent.domain.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import pl.weekendflyer.weekendFlightAgent.domain.model.Deal;
+import pl.weekendflyer.weekendFlightAgent.domain.model.DealStatus;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface DealRepository extends JpaRepository<Deal, Long> {
+
+    @Query("SELECT d.offerKey FROM Deal d WHERE d.offerKey IN :offerKeys")
+    List<String> findExistingOfferKeys(@Param("offerKeys") Collection<String> offerKeys);
+
+    @Query("SELECT d.offerKey FROM Deal d WHERE d.createdAt >= :since")
+    List<String> findOfferKeysCreatedSince(@Param("since") Instant since);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Deal d SET d.status = :status WHERE d.id IN :ids")
+    int updateStatus(@Param("ids") Collection<Long> ids, @Param("status") DealStatus status);
+}
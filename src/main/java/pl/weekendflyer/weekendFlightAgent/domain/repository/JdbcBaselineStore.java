@@ -0,0 +1,105 @@
+package pl.weekendflyer.weekendFlightAgent.domain.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import pl.weekendflyer.weekendFlightAgent.domain.model.BaselineStats;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Przeliczenie {@code baseline} w dwóch krokach: {@link #compute} tylko czyta price_observation (może iść na
+ * replikę w transakcji read-only), {@link #upsert} zapisuje wynik batchem na primary.
+ */
+public class JdbcBaselineStore {
+
+    /**
+     * Każdy wiersz price_observation waży tyle, ile sprawdzeń reprezentuje ({@code checks} plus niedoliczone
+     * {@code pending_checks} z offer_last_seen), więc statystyki są takie same jak przy wierszu per sprawdzenie.
+     * Mediana ważona liczona jak {@code percentile_cont(0.5)}: średnia elementów na pozycjach (N+1)/2 i N/2+1.
+     * Sumy wag są rzutowane na bigint - SUM po numeric dałby dzielenie bez obcięcia i złe pozycje dla parzystego N.
+     */
+    private static final String COMPUTE_SQL = """
+            WITH samples AS (
+              SELECT o.origin, o.destination, o.full_days, o.departure_month, o.price_pln,
+                     SUM(o.checks + COALESCE(s.pending_checks, 0)) AS weight
+              FROM price_observation o
+              LEFT JOIN offer_last_seen s ON s.offer_key = o.offer_key AND s.observed_at = o.observed_at
+              WHERE o.observed_at >= ?
+              GROUP BY o.origin, o.destination, o.full_days, o.departure_month, o.price_pln
+            ),
+            ranked AS (
+              SELECT origin, destination, full_days, departure_month, price_pln, weight,
+                     SUM(weight) OVER (PARTITION BY origin, destination, full_days, departure_month
+                                       ORDER BY price_pln)::bigint AS running,
+                     SUM(weight) OVER (PARTITION BY origin, destination, full_days, departure_month)::bigint AS total
+              FROM samples
+            )
+            SELECT origin, destination, full_days, departure_month,
+                   ROUND(((MIN(price_pln) FILTER (WHERE running >= (total + 1) / 2)
+                         + MIN(price_pln) FILTER (WHERE running >= total / 2 + 1)) / 2.0)::float8)::int AS median_pln,
+                   ROUND(SUM(weight * price_pln) / SUM(weight))::int AS mean_pln,
+                   ROUND(SQRT(GREATEST(SUM(weight * price_pln * price_pln) / SUM(weight)
+                                       - POWER(SUM(weight * price_pln) / SUM(weight), 2), 0)))::int AS std_pln,
+                   MIN(price_pln) AS min_pln,
+                   SUM(weight)::int AS count
+            FROM ranked
+            GROUP BY origin, destination, full_days, departure_month
+            """;
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO baseline (origin, destination, full_days, departure_month,
+                                  median30_pln, mean30_pln, std30_pln, min30_pln, count30, computed_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (origin, destination, full_days, departure_month) DO UPDATE SET
+              median30_pln = EXCLUDED.median30_pln,
+              mean30_pln = EXCLUDED.mean30_pln,
+              std30_pln = EXCLUDED.std30_pln,
+              min30_pln = EXCLUDED.min30_pln,
+              count30 = EXCLUDED.count30,
+              computed_at = EXCLUDED.computed_at
+            """;
+
+    private static final RowMapper<BaselineStats> ROW_MAPPER = (rs, rowNum) -> new BaselineStats(
+            rs.getString("origin"),
+            rs.getString("destination"),
+            rs.getShort("full_days"),
+            rs.getDate("departure_month").toLocalDate(),
+            rs.getInt("median_pln"),
+            rs.getInt("mean_pln"),
+            rs.getInt("std_pln"),
+            rs.getInt("min_pln"),
+            rs.getInt("count")
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public JdbcBaselineStore(JdbcTemplate jdbcTemplate, int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    public List<BaselineStats> compute(Instant since) {
+        return jdbcTemplate.query(COMPUTE_SQL, ROW_MAPPER, Timestamp.from(since));
+    }
+
+    public int upsert(List<BaselineStats> stats, Instant computedAt) {
+        Timestamp at = Timestamp.from(computedAt);
+        jdbcTemplate.batchUpdate(UPSERT_SQL, stats, batchSize, (ps, s) -> {
+            ps.setString(1, s.origin());
+            ps.setString(2, s.destination());
+            ps.setShort(3, s.fullDays());
+            ps.setDate(4, Date.valueOf(s.departureMonth()));
+            ps.setInt(5, s.medianPln());
+            ps.setInt(6, s.meanPln());
+            ps.setInt(7, s.stdPln());
+            ps.setInt(8, s.minPln());
+            ps.setInt(9, s.count());
+            ps.setTimestamp(10, at);
+        });
+        return stats.size();
+    }
+}
@@ -0,0 +1,49 @@
+package pl.weekendflyer.weekendFlightAgent.domain.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import pl.weekendflyer.weekendFlightAgent.domain.model.PriceObservation;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * {@code price_observation} jako czysty append: batch INSERT bez pobierania wygenerowanych id.
+ */
+public class JdbcPriceObservationStore implements PriceObservationStore {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO price_observation (observed_at, provider, origin, destination, depart_date, return_date,
+                                           full_days, departure_month, window_key, offer_key, price_pln, checks)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public JdbcPriceObservationStore(JdbcTemplate jdbcTemplate, int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void saveAll(List<PriceObservation> observations) {
+        if (observations.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, observations, batchSize, (statement, observation) -> {
+            statement.setTimestamp(1, Timestamp.from(observation.getObservedAt()));
+            statement.setString(2, observation.getProvider());
+            statement.setString(3, observation.getOrigin());
+            statement.setString(4, observation.getDestination());
+            statement.setDate(5, Date.valueOf(observation.getDepartDate()));
+            statement.setDate(6, Date.valueOf(observation.getReturnDate()));
+            statement.setShort(7, observation.getFullDays());
+            statement.setDate(8, Date.valueOf(observation.getDepartureMonth()));
+            statement.setString(9, observation.getWindowKey());
+            statement.setString(10, observation.getOfferKey());
+            statement.setInt(11, observation.getPricePln());
+            statement.setInt(12, observation.getChecks());
+        });
+    }
+}
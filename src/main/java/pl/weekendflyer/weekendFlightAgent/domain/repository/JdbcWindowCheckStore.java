@@ -0,0 +1,164 @@
+package pl.weekendflyer.weekendFlightAgent.domain.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import pl.weekendflyer.weekendFlightAgent.domain.model.WindowCheck;
+
+import java.math.BigInteger;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * {@code window_check} bez persistence contextu: odczyt jednym zapytaniem z {@code = ANY(?)}
+ * strumieniowany przez fetchSize, zapis jako batch upsert po (provider, window_key).
+ */
+public class JdbcWindowCheckStore implements WindowCheckStore {
+
+    private static final String SELECT_SQL = """
+            SELECT id, provider, origin, destination, depart_date, return_date, window_key, last_checked_at,
+                   check_count, price_ewma, price_ewm_var, price_samples, recheck_interval_hours, next_check_at,
+                   created_at, updated_at
+            FROM window_check
+            WHERE provider = ? AND window_key = ANY(?)
+            """;
+
+    private static final String SELECT_RETURNING_FROM_SQL = """
+            SELECT id, provider, origin, destination, depart_date, return_date, window_key, last_checked_at,
+                   check_count, price_ewma, price_ewm_var, price_samples, recheck_interval_hours, next_check_at,
+                   created_at, updated_at
+            FROM window_check
+            WHERE return_date >= ?
+            """;
+
+    private static final String SNAPSHOT_SQL = """
+            SELECT count(*) AS row_count,
+                   coalesce(sum(floor(extract(epoch FROM updated_at) * 1000000)), 0) AS updated_at_micros_sum
+            FROM window_check
+            WHERE return_date >= ?
+            """;
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO window_check (provider, origin, destination, depart_date, return_date, window_key,
+                                      last_checked_at, check_count, price_ewma, price_ewm_var, price_samples,
+                                      recheck_interval_hours, next_check_at, created_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (provider, window_key) DO UPDATE SET
+              last_checked_at = EXCLUDED.last_checked_at,
+              check_count = EXCLUDED.check_count,
+              price_ewma = EXCLUDED.price_ewma,
+              price_ewm_var = EXCLUDED.price_ewm_var,
+              price_samples = EXCLUDED.price_samples,
+              recheck_interval_hours = EXCLUDED.recheck_interval_hours,
+              next_check_at = EXCLUDED.next_check_at,
+              updated_at = EXCLUDED.updated_at
+            """;
+
+    private static final RowMapper<WindowCheck> ROW_MAPPER = (rs, rowNum) -> {
+        WindowCheck check = new WindowCheck();
+        check.setId(rs.getLong("id"));
+        check.setProvider(rs.getString("provider"));
+        check.setOrigin(rs.getString("origin"));
+        check.setDestination(rs.getString("destination"));
+        check.setDepartDate(rs.getDate("depart_date").toLocalDate());
+        check.setReturnDate(rs.getDate("return_date").toLocalDate());
+        check.setWindowKey(rs.getString("window_key"));
+        check.setLastCheckedAt(instant(rs, "last_checked_at"));
+        check.setCheckCount(rs.getInt("check_count"));
+        check.setPriceEwma(rs.getObject("price_ewma", Double.class));
+        check.setPriceEwmVar(rs.getObject("price_ewm_var", Double.class));
+        check.setPriceSamples(rs.getInt("price_samples"));
+        check.setRecheckIntervalHours(rs.getObject("recheck_interval_hours", Integer.class));
+        check.setNextCheckAt(instant(rs, "next_check_at"));
+        check.setCreatedAt(instant(rs, "created_at"));
+        check.setUpdatedAt(instant(rs, "updated_at"));
+        return check;
+    };
+
+    /**
+     * Liczba wierszy i suma {@code updated_at} w mikrosekundach - tani odcisk stanu do porównania z kopią lokalną
+     * (każdy upsert ustawia {@code updated_at}).
+     */
+    public record Snapshot(long rows, BigInteger updatedAtMicrosSum) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public JdbcWindowCheckStore(JdbcTemplate jdbcTemplate, int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public List<WindowCheck> findByProviderAndWindowKeyIn(String provider, List<String> windowKeys) {
+        if (windowKeys.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(con -> {
+            PreparedStatement statement = con.prepareStatement(SELECT_SQL);
+            statement.setFetchSize(batchSize);
+            statement.setString(1, provider);
+            statement.setArray(2, con.createArrayOf("text", windowKeys.toArray()));
+            return statement;
+        }, ROW_MAPPER);
+    }
+
+    /**
+     * Strumieniuje wszystkie okna z powrotem od {@code from} (włącznie), bez zbierania ich w liście.
+     */
+    public void forEachReturningFrom(LocalDate from, Consumer<WindowCheck> consumer) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement statement = con.prepareStatement(SELECT_RETURNING_FROM_SQL);
+            statement.setFetchSize(batchSize);
+            statement.setDate(1, Date.valueOf(from));
+            return statement;
+        }, (RowCallbackHandler) rs -> consumer.accept(ROW_MAPPER.mapRow(rs, 0)));
+    }
+
+    public Snapshot snapshotReturningFrom(LocalDate from) {
+        return jdbcTemplate.queryForObject(SNAPSHOT_SQL, (rs, rowNum) ->
+                new Snapshot(rs.getLong("row_count"), rs.getBigDecimal("updated_at_micros_sum").toBigIntegerExact()), Date.valueOf(from));
+    }
+
+    @Override
+    public void saveAll(List<WindowCheck> checks) {
+        if (checks.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPSERT_SQL, checks, batchSize, (statement, check) -> {
+            statement.setString(1, check.getProvider());
+            statement.setString(2, check.getOrigin());
+            statement.setString(3, check.getDestination());
+            statement.setDate(4, Date.valueOf(check.getDepartDate()));
+            statement.setDate(5, Date.valueOf(check.getReturnDate()));
+            statement.setString(6, check.getWindowKey());
+            setTimestamp(statement, 7, check.getLastCheckedAt());
+            statement.setInt(8, check.getCheckCount() != null ? check.getCheckCount() : 0);
+            statement.setObject(9, check.getPriceEwma(), Types.DOUBLE);
+            statement.setObject(10, check.getPriceEwmVar(), Types.DOUBLE);
+            statement.setInt(11, check.getPriceSamples() != null ? check.getPriceSamples() : 0);
+            statement.setObject(12, check.getRecheckIntervalHours(), Types.INTEGER);
+            setTimestamp(statement, 13, check.getNextCheckAt());
+            setTimestamp(statement, 14, check.getCreatedAt());
+            setTimestamp(statement, 15, check.getUpdatedAt());
+        });
+    }
+
+    private static Instant instant(ResultSet rs, String column) throws SQLException {
+        Timestamp timestamp = rs.getTimestamp(column);
+        return timestamp != null ? timestamp.toInstant() : null;
+    }
+
+    private static void setTimestamp(PreparedStatement statement, int index, Instant value) throws SQLException {
+        statement.setTimestamp(index, value != null ? Timestamp.from(value) : null);
+    }
+}
@@ -0,0 +1,17 @@
+package pl.weekendflyer.weekendFlightAgent.domain.repository;
+
+import lombok.RequiredArgsConstructor;
+import pl.weekendflyer.weekendFlightAgent.domain.model.PriceObservation;
+
+import java.util.List;
+
+@RequiredArgsConstructor
+public class JpaPriceObservationStore implements PriceObservationStore {
+
+    private final PriceObservationRepository repository;
+
+    @Override
+    public void saveAll(List<PriceObservation> observations) {
+        repository.saveAll(observations);
+    }
+}
@@ -0,0 +1,22 @@
+package pl.weekendflyer.weekendFlightAgent.domain.repository;
+
+import lombok.RequiredArgsConstructor;
+import pl.weekendflyer.weekendFlightAgent.domain.model.WindowCheck;
+
+import java.util.List;
+
+@RequiredArgsConstructor
+public class JpaWindowCheckStore implements WindowCheckStore {
+
+    private final WindowCheckRepository repository;
+
+    @Override
+    public List<WindowCheck> findByProviderAndWindowKeyIn(String provider, List<String> windowKeys) {
+        return repository.findByProviderAndWindowKeyIn(provider, windowKeys);
+    }
+
+    @Override
+    public void saveAll(List<WindowCheck> checks) {
+        repository.saveAll(checks);
+    }
+}
@@ -0,0 +1,118 @@
+package pl.weekendflyer.weekendFlightAgent.domain.repository;
+
+import java.util.Arrays;
+
+/**
+ * Ostatnia zapisana cena per oferta, kluczowana 128-bitowym odciskiem offer_key. Otwarte adresowanie
+ * na tablicach prymitywów - ok. 28 B na wpis zamiast kilkuset dla {@code HashMap<String, ...>}.
+ * Bez synchronizacji, dostęp pilnuje {@link ChangeOnlyPriceObservationStore}.
+ */
+final class LastPriceTable {
+
+    static final int MISSING = -1;
+
+    private static final double MAX_LOAD = 0.7;
+
+    private long[] highs;
+    private long[] lows;
+    private int[] prices;
+    private long[] writtenAt;
+    private int size;
+
+    LastPriceTable(int expectedEntries) {
+        allocate(tableSize(expectedEntries));
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return indeks wpisu albo {@link #MISSING}
+     */
+    int find(long high, long low) {
+        int mask = prices.length - 1;
+        for (int slot = (int) high & mask; ; slot = (slot + 1) & mask) {
+            if (prices[slot] == MISSING) {
+                return MISSING;
+            }
+            if (highs[slot] == high && lows[slot] == low) {
+                return slot;
+            }
+        }
+    }
+
+    int priceAt(int slot) {
+        return prices[slot];
+    }
+
+    long writtenAtAt(int slot) {
+        return writtenAt[slot];
+    }
+
+    void put(long high, long low, int price, long writtenAtEpochSecond) {
+        int slot = find(high, low);
+        if (slot == MISSING) {
+            if (size + 1 > prices.length * MAX_LOAD) {
+                rehash(prices.length * 2, Long.MIN_VALUE);
+            }
+            slot = insertSlot(high);
+            highs[slot] = high;
+            lows[slot] = low;
+            size++;
+        }
+        prices[slot] = price;
+        writtenAt[slot] = writtenAtEpochSecond;
+    }
+
+    /**
+     * Usuwa wpisy zapisane przed {@code epochSecond} - i tak wymagają nowego wiersza (heartbeat).
+     */
+    int removeWrittenBefore(long epochSecond) {
+        int before = size;
+        rehash(prices.length, epochSecond);
+        return before - size;
+    }
+
+    private int insertSlot(long high) {
+        int mask = prices.length - 1;
+        int slot = (int) high & mask;
+        while (prices[slot] != MISSING) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(int newLength, long keepFrom) {
+        long[] oldHighs = highs;
+        long[] oldLows = lows;
+        int[] oldPrices = prices;
+        long[] oldWrittenAt = writtenAt;
+
+        allocate(newLength);
+        size = 0;
+        for (int i = 0; i < oldPrices.length; i++) {
+            if (oldPrices[i] != MISSING && oldWrittenAt[i] >= keepFrom) {
+                int slot = insertSlot(oldHighs[i]);
+                highs[slot] = oldHighs[i];
+                lows[slot] = oldLows[i];
+                prices[slot] = oldPrices[i];
+                writtenAt[slot] = oldWrittenAt[i];
+                size++;
+            }
+        }
+    }
+
+    private void allocate(int length) {
+        highs = new long[length];
+        lows = new long[length];
+        prices = new int[length];
+        writtenAt = new long[length];
+        Arrays.fill(prices, MISSING);
+    }
+
+    private static int tableSize(int expectedEntries) {
+        int needed = (int) Math.ceil(Math.max(16, expectedEntries) / MAX_LOAD);
+        return Integer.highestOneBit(needed - 1) << 1;
+    }
+}
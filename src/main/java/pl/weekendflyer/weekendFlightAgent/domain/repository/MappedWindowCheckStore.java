@@ -0,0 +1,555 @@
+package pl.weekendflyer.weekendFlightAgent.domain.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pl.weekendflyer.weekendFlightAgent.domain.model.WindowCheck;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Lokalna kopia {@code window_check} w pliku mapowanym do pamięci: rekordy stałej szerokości ułożone jako tablica
+ * z adresowaniem otwartym po (provider, window_key), więc wyszukanie okna to sondowanie bufora bez zapytania
+ * i bez alokacji. Zapis trafia tylko do pliku z flagą dirty; {@link #flush()} (cyklicznie i przy zamknięciu)
+ * wysyła brudne rekordy partiami do {@code window_check} przez {@link JdbcWindowCheckStore}.
+ * <p>
+ * Przy otwarciu brudne rekordy z poprzedniego działania idą najpierw do bazy, potem liczba okien i suma
+ * {@code updated_at} są porównywane z bazą - przy różnicy albo nieznanym formacie pliku kopia jest budowana
+ * od nowa. Okna z powrotem w przeszłości są przy tym usuwane. Zakłada, że {@code window_check} zmienia tylko ten węzeł.
+ * <pre>
+ * nagłówek: MAGIC:int VERSION:int RECORD_BYTES:int capacity:int size:int (64 B)
+ * rekord:   used:byte dirty:byte providerLength:byte keyLength:byte keyHash:int provider[48] windowKey[32]
+ *           origin[4] destination[4] departEpochDay:int returnEpochDay:int lastCheckedAt:long nextCheckAt:long
+ *           createdAt:long updatedAt:long priceEwma:double priceEwmVar:double checkCount:int priceSamples:int
+ *           recheckIntervalHours:int (czasy w mikrosekundach epoki, brak wartości = MIN_VALUE / NaN)
+ * </pre>
+ */
+@Slf4j
+public class MappedWindowCheckStore implements WindowCheckStore, AutoCloseable {
+
+    static final int MAGIC = 0x57435331; // "WCS1"
+    static final int VERSION = 1;
+    static final int RECORD_BYTES = 168;
+
+    private static final int HEADER_BYTES = 64;
+    private static final int HEADER_CAPACITY = 12;
+    private static final int HEADER_SIZE = 16;
+
+    private static final int USED = 0;
+    private static final int DIRTY = 1;
+    private static final int PROVIDER_LENGTH = 2;
+    private static final int KEY_LENGTH = 3;
+    private static final int KEY_HASH = 4;
+    private static final int PROVIDER = 8;
+    private static final int WINDOW_KEY = 56;
+    private static final int ORIGIN = 88;
+    private static final int DESTINATION = 92;
+    private static final int DEPART_DATE = 96;
+    private static final int RETURN_DATE = 100;
+    private static final int LAST_CHECKED_AT = 104;
+    private static final int NEXT_CHECK_AT = 112;
+    private static final int CREATED_AT = 120;
+    private static final int UPDATED_AT = 128;
+    private static final int PRICE_EWMA = 136;
+    private static final int PRICE_EWM_VAR = 144;
+    private static final int CHECK_COUNT = 152;
+    private static final int PRICE_SAMPLES = 156;
+    private static final int RECHECK_INTERVAL = 160;
+
+    private static final int MAX_PROVIDER_CHARS = 48;
+    private static final int MAX_KEY_CHARS = 32;
+    private static final int MAX_AIRPORT_CHARS = 4;
+    private static final long NULL_TIME = Long.MIN_VALUE;
+    private static final int NULL_INT = Integer.MIN_VALUE;
+    private static final int MISSING = -1;
+    private static final double MAX_LOAD = 0.7;
+    private static final int FLUSH_BATCH = 500;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final JdbcWindowCheckStore database;
+    private final Clock clock;
+    private final Object flushLock = new Object();
+
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private int size;
+    private int dirty;
+    private boolean rebuilt;
+
+    private MappedWindowCheckStore(Path file, FileChannel channel, JdbcWindowCheckStore database, Clock clock) {
+        this.file = file;
+        this.channel = channel;
+        this.database = database;
+        this.clock = clock;
+    }
+
+    /**
+     * Otwiera (albo tworzy) plik i uzgadnia go z {@code window_check}.
+     */
+    public static MappedWindowCheckStore open(Path file, int initialCapacity, JdbcWindowCheckStore database, Clock clock)
+            throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        FileChannel channel = FileChannel.open(file, CREATE, READ, WRITE);
+        MappedWindowCheckStore store = new MappedWindowCheckStore(file, channel, database, clock);
+        try {
+            store.synchronize(initialCapacity);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return store;
+    }
+
+    @Override
+    public synchronized List<WindowCheck> findByProviderAndWindowKeyIn(String provider, List<String> windowKeys) {
+        List<WindowCheck> found = new ArrayList<>();
+        for (String windowKey : windowKeys) {
+            int slot = find(provider, windowKey);
+            if (slot != MISSING) {
+                found.add(decode(offset(slot)));
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Zapis do pliku; w transakcji dopiero po commicie, żeby wycofany skan nie oznaczył okien jako sprawdzonych.
+     */
+    @Override
+    public void saveAll(List<WindowCheck> checks) {
+        if (checks.isEmpty()) {
+            return;
+        }
+        List<WindowCheck> toWrite = List.copyOf(checks);
+        toWrite.forEach(this::checkFits);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            write(toWrite);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                write(toWrite);
+            }
+        });
+    }
+
+    /**
+     * Wysyła brudne rekordy do {@code window_check}. Przy błędzie bazy rekordy zostają brudne do następnej próby.
+     */
+    @Override
+    public void flush() {
+        int flushed = flushDirty();
+        if (flushed > 0) {
+            log.debug("MappedWindowCheckStore: flushed {} windows to window_check", flushed);
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    synchronized int dirtyCount() {
+        return dirty;
+    }
+
+    boolean rebuiltOnOpen() {
+        return rebuilt;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flushDirty();
+        } catch (RuntimeException e) {
+            log.warn("MappedWindowCheckStore: {} windows left dirty in {}, will be flushed on next start: {}",
+                    dirtyCount(), file, e.getMessage());
+        }
+        synchronized (this) {
+            buffer.force();
+            channel.close();
+        }
+    }
+
+    private void synchronize(int initialCapacity) throws IOException {
+        LocalDate today = LocalDate.now(clock);
+        if (!mapExisting()) {
+            rebuild(tableSize(initialCapacity), today, "new or unreadable file");
+            return;
+        }
+
+        int flushed = flushDirty();
+        long todayEpochDay = today.toEpochDay();
+        long liveRows = 0;
+        BigInteger updatedAtMicrosSum = BigInteger.ZERO;
+        for (int slot = 0; slot < capacity; slot++) {
+            int at = offset(slot);
+            if (buffer.get(at + USED) != 0 && buffer.getInt(at + RETURN_DATE) >= todayEpochDay) {
+                liveRows++;
+                updatedAtMicrosSum = updatedAtMicrosSum.add(BigInteger.valueOf(buffer.getLong(at + UPDATED_AT)));
+            }
+        }
+
+        JdbcWindowCheckStore.Snapshot remote = database.snapshotReturningFrom(today);
+        if (remote.rows() != liveRows || !remote.updatedAtMicrosSum().equals(updatedAtMicrosSum)) {
+            rebuild(tableSize((int) Math.max(initialCapacity, remote.rows())), today,
+                    "local " + liveRows + " windows, window_check " + remote.rows());
+            return;
+        }
+        if (liveRows < size) {
+            rehash(capacity, todayEpochDay);
+            buffer.force();
+        }
+        log.info("MappedWindowCheckStore: validated {} windows in {} against window_check ({} flushed on open)",
+                size, file.toAbsolutePath(), flushed);
+    }
+
+    private boolean mapExisting() throws IOException {
+        if (channel.size() < HEADER_BYTES) {
+            return false;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        channel.read(header, 0);
+        int storedCapacity = header.getInt(HEADER_CAPACITY);
+        boolean known = header.getInt(0) == MAGIC
+                && header.getInt(4) == VERSION
+                && header.getInt(8) == RECORD_BYTES
+                && storedCapacity > 0
+                && Integer.bitCount(storedCapacity) == 1
+                && channel.size() >= fileBytes(storedCapacity);
+        if (!known) {
+            return false;
+        }
+
+        map(storedCapacity);
+        size = 0;
+        dirty = 0;
+        for (int slot = 0; slot < capacity; slot++) {
+            int at = offset(slot);
+            if (buffer.get(at + USED) != 0) {
+                size++;
+                dirty += buffer.get(at + DIRTY);
+            }
+        }
+        return true;
+    }
+
+    private void rebuild(int tableSize, LocalDate today, String reason) throws IOException {
+        synchronized (this) {
+            map(tableSize);
+            clear();
+            database.forEachReturningFrom(today, check -> put(check, false));
+            buffer.force();
+        }
+        rebuilt = true;
+        log.info("MappedWindowCheckStore: rebuilt {} windows in {} from window_check ({})", size, file.toAbsolutePath(), reason);
+    }
+
+    private synchronized void write(List<WindowCheck> checks) {
+        for (WindowCheck check : checks) {
+            put(check, true);
+        }
+    }
+
+    private int flushDirty() {
+        synchronized (flushLock) {
+            List<WindowCheck> pending = new ArrayList<>();
+            synchronized (this) {
+                if (dirty == 0) {
+                    return 0;
+                }
+                for (int slot = 0; slot < capacity; slot++) {
+                    int at = offset(slot);
+                    if (buffer.get(at + USED) != 0 && buffer.get(at + DIRTY) != 0) {
+                        pending.add(decode(at));
+                        buffer.put(at + DIRTY, (byte) 0);
+                    }
+                }
+                dirty = 0;
+            }
+
+            int sent = 0;
+            try {
+                while (sent < pending.size()) {
+                    int end = Math.min(sent + FLUSH_BATCH, pending.size());
+                    database.saveAll(pending.subList(sent, end));
+                    sent = end;
+                }
+            } catch (RuntimeException e) {
+                markDirty(pending.subList(sent, pending.size()));
+                throw e;
+            }
+
+            synchronized (this) {
+                buffer.force();
+            }
+            return pending.size();
+        }
+    }
+
+    private synchronized void markDirty(List<WindowCheck> checks) {
+        for (WindowCheck check : checks) {
+            int slot = find(check.getProvider(), check.getWindowKey());
+            if (slot != MISSING && buffer.get(offset(slot) + DIRTY) == 0) {
+                buffer.put(offset(slot) + DIRTY, (byte) 1);
+                dirty++;
+            }
+        }
+    }
+
+    private int find(String provider, String windowKey) {
+        int hash = hash(provider, windowKey);
+        int mask = capacity - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int at = offset(slot);
+            if (buffer.get(at + USED) == 0) {
+                return MISSING;
+            }
+            if (buffer.getInt(at + KEY_HASH) == hash
+                    && textEquals(at + PROVIDER_LENGTH, at + PROVIDER, provider)
+                    && textEquals(at + KEY_LENGTH, at + WINDOW_KEY, windowKey)) {
+                return slot;
+            }
+        }
+    }
+
+    private void checkFits(WindowCheck check) {
+        checkText(check.getProvider(), MAX_PROVIDER_CHARS, "provider");
+        checkText(check.getWindowKey(), MAX_KEY_CHARS, "window_key");
+        checkText(check.getOrigin(), MAX_AIRPORT_CHARS, "origin");
+        checkText(check.getDestination(), MAX_AIRPORT_CHARS, "destination");
+    }
+
+    private void put(WindowCheck check, boolean markDirty) {
+        checkFits(check);
+        String provider = check.getProvider();
+        String windowKey = check.getWindowKey();
+        int slot = find(provider, windowKey);
+        if (slot == MISSING) {
+            if (size + 1 > capacity * MAX_LOAD) {
+                rehash(capacity * 2, Long.MIN_VALUE);
+            }
+            int hash = hash(provider, windowKey);
+            slot = insertSlot(hash);
+            int at = offset(slot);
+            buffer.put(at + USED, (byte) 1);
+            buffer.putInt(at + KEY_HASH, hash);
+            putText(at + PROVIDER_LENGTH, at + PROVIDER, provider);
+            putText(at + KEY_LENGTH, at + WINDOW_KEY, windowKey);
+            size++;
+            buffer.putInt(HEADER_SIZE, size);
+        }
+
+        int at = offset(slot);
+        putAirport(at + ORIGIN, check.getOrigin());
+        putAirport(at + DESTINATION, check.getDestination());
+        buffer.putInt(at + DEPART_DATE, (int) check.getDepartDate().toEpochDay());
+        buffer.putInt(at + RETURN_DATE, (int) check.getReturnDate().toEpochDay());
+        buffer.putLong(at + LAST_CHECKED_AT, micros(check.getLastCheckedAt()));
+        buffer.putLong(at + NEXT_CHECK_AT, micros(check.getNextCheckAt()));
+        buffer.putLong(at + CREATED_AT, micros(check.getCreatedAt()));
+        buffer.putLong(at + UPDATED_AT, micros(check.getUpdatedAt()));
+        buffer.putDouble(at + PRICE_EWMA, check.getPriceEwma() != null ? check.getPriceEwma() : Double.NaN);
+        buffer.putDouble(at + PRICE_EWM_VAR, check.getPriceEwmVar() != null ? check.getPriceEwmVar() : Double.NaN);
+        buffer.putInt(at + CHECK_COUNT, check.getCheckCount() != null ? check.getCheckCount() : 0);
+        buffer.putInt(at + PRICE_SAMPLES, check.getPriceSamples() != null ? check.getPriceSamples() : 0);
+        buffer.putInt(at + RECHECK_INTERVAL, check.getRecheckIntervalHours() != null ? check.getRecheckIntervalHours() : NULL_INT);
+        if (markDirty && buffer.get(at + DIRTY) == 0) {
+            buffer.put(at + DIRTY, (byte) 1);
+            dirty++;
+        }
+    }
+
+    private WindowCheck decode(int at) {
+        double priceEwma = buffer.getDouble(at + PRICE_EWMA);
+        double priceEwmVar = buffer.getDouble(at + PRICE_EWM_VAR);
+        int recheckInterval = buffer.getInt(at + RECHECK_INTERVAL);
+        WindowCheck check = new WindowCheck();
+        check.setProvider(getText(at + PROVIDER_LENGTH, at + PROVIDER));
+        check.setOrigin(getAirport(at + ORIGIN));
+        check.setDestination(getAirport(at + DESTINATION));
+        check.setDepartDate(LocalDate.ofEpochDay(buffer.getInt(at + DEPART_DATE)));
+        check.setReturnDate(LocalDate.ofEpochDay(buffer.getInt(at + RETURN_DATE)));
+        check.setWindowKey(getText(at + KEY_LENGTH, at + WINDOW_KEY));
+        check.setLastCheckedAt(instant(buffer.getLong(at + LAST_CHECKED_AT)));
+        check.setCheckCount(buffer.getInt(at + CHECK_COUNT));
+        check.setPriceEwma(Double.isNaN(priceEwma) ? null : priceEwma);
+        check.setPriceEwmVar(Double.isNaN(priceEwmVar) ? null : priceEwmVar);
+        check.setPriceSamples(buffer.getInt(at + PRICE_SAMPLES));
+        check.setRecheckIntervalHours(recheckInterval == NULL_INT ? null : recheckInterval);
+        check.setNextCheckAt(instant(buffer.getLong(at + NEXT_CHECK_AT)));
+        check.setCreatedAt(instant(buffer.getLong(at + CREATED_AT)));
+        check.setUpdatedAt(instant(buffer.getLong(at + UPDATED_AT)));
+        return check;
+    }
+
+    /**
+     * Przenosi rekordy do tablicy o {@code newCapacity} slotach; czyste okna z powrotem przed
+     * {@code keepFromEpochDay} są pomijane.
+     */
+    private void rehash(int newCapacity, long keepFromEpochDay) {
+        int oldCapacity = capacity;
+        byte[] old = new byte[oldCapacity * RECORD_BYTES];
+        buffer.get(HEADER_BYTES, old);
+        ByteBuffer records = ByteBuffer.wrap(old);
+
+        try {
+            map(newCapacity);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot grow " + file + " to " + newCapacity + " windows", e);
+        }
+        clear();
+        for (int i = 0; i < oldCapacity; i++) {
+            int base = i * RECORD_BYTES;
+            boolean recordDirty = old[base + DIRTY] != 0;
+            if (old[base + USED] == 0 || (!recordDirty && records.getInt(base + RETURN_DATE) < keepFromEpochDay)) {
+                continue;
+            }
+            int slot = insertSlot(records.getInt(base + KEY_HASH));
+            buffer.put(offset(slot), old, base, RECORD_BYTES);
+            size++;
+            dirty += recordDirty ? 1 : 0;
+        }
+        buffer.putInt(HEADER_SIZE, size);
+    }
+
+    private int insertSlot(int hash) {
+        int mask = capacity - 1;
+        int slot = hash & mask;
+        while (buffer.get(offset(slot) + USED) != 0) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void map(int newCapacity) throws IOException {
+        long bytes = fileBytes(newCapacity);
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Window state of " + newCapacity + " slots does not fit a single mapping");
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+        capacity = newCapacity;
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(8, RECORD_BYTES);
+        buffer.putInt(HEADER_CAPACITY, capacity);
+    }
+
+    private void clear() {
+        for (int slot = 0; slot < capacity; slot++) {
+            buffer.put(offset(slot) + USED, (byte) 0);
+            buffer.put(offset(slot) + DIRTY, (byte) 0);
+        }
+        size = 0;
+        dirty = 0;
+        buffer.putInt(HEADER_SIZE, 0);
+    }
+
+    private static int offset(int slot) {
+        return HEADER_BYTES + slot * RECORD_BYTES;
+    }
+
+    private static long fileBytes(int capacity) {
+        return HEADER_BYTES + (long) capacity * RECORD_BYTES;
+    }
+
+    private static int tableSize(int expectedEntries) {
+        int needed = (int) Math.ceil(Math.max(16, expectedEntries) / MAX_LOAD);
+        return Integer.highestOneBit(needed - 1) << 1;
+    }
+
+    private static int hash(String provider, String windowKey) {
+        int h = provider.hashCode() * 31 + windowKey.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        return h ^ (h >>> 16);
+    }
+
+    private boolean textEquals(int lengthAt, int textAt, String value) {
+        int length = buffer.get(lengthAt);
+        if (length != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(textAt + i) != (byte) value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void putText(int lengthAt, int textAt, String value) {
+        buffer.put(lengthAt, (byte) value.length());
+        for (int i = 0; i < value.length(); i++) {
+            buffer.put(textAt + i, (byte) value.charAt(i));
+        }
+    }
+
+    private String getText(int lengthAt, int textAt) {
+        byte[] bytes = new byte[buffer.get(lengthAt)];
+        buffer.get(textAt, bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    private void putAirport(int at, String code) {
+        for (int i = 0; i < MAX_AIRPORT_CHARS; i++) {
+            buffer.put(at + i, i < code.length() ? (byte) code.charAt(i) : 0);
+        }
+    }
+
+    private String getAirport(int at) {
+        StringBuilder code = new StringBuilder(MAX_AIRPORT_CHARS);
+        for (int i = 0; i < MAX_AIRPORT_CHARS && buffer.get(at + i) != 0; i++) {
+            code.append((char) buffer.get(at + i));
+        }
+        return code.toString();
+    }
+
+    private void checkText(String value, int maxChars, String column) {
+        boolean fits = value.length() <= maxChars;
+        for (int i = 0; fits && i < value.length(); i++) {
+            fits = value.charAt(i) < 0x80;
+        }
+        if (!fits) {
+            throw new IllegalArgumentException(
+                    "window_check." + column + " '" + value + "' does not fit " + maxChars + " ASCII chars of " + file);
+        }
+    }
+
+    private static long micros(Instant instant) {
+        if (instant == null) {
+            return NULL_TIME;
+        }
+        return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000L), instant.getNano() / 1_000);
+    }
+
+    private static Instant instant(long micros) {
+        if (micros == NULL_TIME) {
+            return null;
+        }
+        return Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1_000L);
+    }
+}
@@ -0,0 +1,77 @@
+package pl.weekendflyer.weekendFlightAgent.domain.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import pl.weekendflyer.weekendFlightAgent.domain.model.NotificationLogEntry;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Repository
+@RequiredArgsConstructor
+public class NotificationLogRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insertAll(List<NotificationLogEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO notification_log (sent_at, channel, offer_key, deal_id, destination, success, error_message) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?) ON CONFLICT (channel, offer_key) DO NOTHING",
+                entries,
+                entries.size(),
+                (ps, entry) -> {
+                    ps.setTimestamp(1, Timestamp.from(entry.sentAt()));
+                    ps.setString(2, entry.channel());
+                    ps.setString(3, entry.offerKey());
+                    if (entry.dealId() != null) {
+                        ps.setLong(4, entry.dealId());
+                    } else {
+                        ps.setNull(4, Types.BIGINT);
+                    }
+                    ps.setString(5, entry.destination());
+                    ps.setBoolean(6, entry.success());
+                    ps.setString(7, entry.errorMessage());
+                });
+    }
+
+    public Set<String> findDeliveredOfferKeys(String channel, Collection<String> offerKeys) {
+        if (offerKeys.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT offer_key FROM notification_log WHERE channel = ? AND success AND offer_key = ANY (?)",
+                String.class, channel, offerKeys.toArray(String[]::new)));
+    }
+
+    public List<String> findDeliveredOfferKeysSince(String channel, Instant since) {
+        return jdbcTemplate.queryForList(
+                "SELECT offer_key FROM notification_log WHERE channel = ? AND success AND sent_at >= ?",
+                String.class, channel, Timestamp.from(since));
+    }
+
+    public List<NotificationLogEntry> findSuccessfulSince(Instant since) {
+        return jdbcTemplate.query(
+                "SELECT sent_at, channel, offer_key, deal_id, destination, success, error_message " +
+                "FROM notification_log WHERE success AND sent_at >= ? ORDER BY sent_at",
+                (rs, rowNum) -> new NotificationLogEntry(
+                        rs.getTimestamp("sent_at").toInstant(),
+                        rs.getString("channel"),
+                        rs.getString("offer_key"),
+                        rs.getObject("deal_id", Long.class),
+                        rs.getString("destination"),
+                        rs.getBoolean("success"),
+                        rs.getString("error_message")
+                ),
+                Timestamp.from(since));
+    }
+}
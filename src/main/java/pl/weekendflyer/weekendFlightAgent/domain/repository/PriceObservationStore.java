@@ -0,0 +1,14 @@
+package pl.weekendflyer.weekendFlightAgent.domain.repository;
+
+import pl.weekendflyer.weekendFlightAgent.domain.model.PriceObservation;
+
+import java.util.List;
+
+/**
+ * Dopisywanie {@code price_observation} z partii skanu. Implementacja (JPA albo JDBC)
+ * wybierana przez {@code agent.persistence}.
+ */
+public interface PriceObservationStore {
+
+    void saveAll(List<PriceObservation> observations);
+}
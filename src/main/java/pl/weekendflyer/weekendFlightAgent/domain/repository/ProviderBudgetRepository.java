@@ -0,0 +1,43 @@
+package pl.weekendflyer.weekendFlightAgent.domain.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class ProviderBudgetRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public int used(String provider, LocalDate budgetDate) {
+        List<Integer> used = jdbcTemplate.queryForList(
+                "SELECT used FROM provider_budget WHERE provider = ? AND budget_date = ?",
+                Integer.class, provider, budgetDate);
+        return used.isEmpty() ? 0 : used.get(0);
+    }
+
+    @Transactional
+    public int consume(String provider, LocalDate budgetDate, int requested, int limit) {
+        jdbcTemplate.update(
+                "INSERT INTO provider_budget (provider, budget_date, used) VALUES (?, ?, 0) " +
+                "ON CONFLICT (provider, budget_date) DO NOTHING",
+                provider, budgetDate);
+
+        Integer used = jdbcTemplate.queryForObject(
+                "SELECT used FROM provider_budget WHERE provider = ? AND budget_date = ? FOR UPDATE",
+                Integer.class, provider, budgetDate);
+
+        int granted = Math.max(0, Math.min(requested, limit - (used != null ? used : 0)));
+        if (granted > 0) {
+            jdbcTemplate.update(
+                    "UPDATE provider_budget SET used = used + ?, updated_at = now() WHERE provider = ? AND budget_date = ?",
+                    granted, provider, budgetDate);
+        }
+        return granted;
+    }
+}
@@ -0,0 +1,81 @@
+package pl.weekendflyer.weekendFlightAgent.domain.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Transakcje read-only (baseline, eksport historii) dostają połączenie z puli repliki, reszta z primary.
+ * Połączenie jest pobierane leniwie przy pierwszym zapytaniu, gdy flaga read-only jest już znana.
+ * <p>
+ * Gdy pula repliki nie da połączenia, transakcja idzie na primary, a replika nie jest pytana przez
+ * {@code retryAfter} - jedna awaria nie kosztuje timeoutu połączenia w każdej transakcji.
+ */
+@Slf4j
+public class ReadReplicaRoutingDataSource extends LazyConnectionDataSourceProxy implements AutoCloseable {
+
+    private final DataSource primary;
+    private final HikariDataSource replica;
+    private final Clock clock;
+    private final Duration retryAfter;
+    private final Counter fallbacks;
+    private volatile long replicaDownUntilMillis;
+
+    public ReadReplicaRoutingDataSource(DataSource primary, HikariDataSource replica, Clock clock,
+                                        Duration retryAfter, MeterRegistry meterRegistry) {
+        super(primary);
+        this.primary = primary;
+        this.replica = replica;
+        this.clock = clock;
+        this.retryAfter = retryAfter;
+        this.fallbacks = Counter.builder("agent.datasource.replica.fallback")
+                .description("Read-only connections served by the primary because the replica was unavailable")
+                .register(meterRegistry);
+        setReadOnlyDataSource(new ReplicaWithFallback(replica));
+    }
+
+    public boolean replicaAvailable() {
+        return clock.millis() >= replicaDownUntilMillis;
+    }
+
+    @Override
+    public void close() {
+        replica.close();
+    }
+
+    private Connection replicaOrPrimary() throws SQLException {
+        long now = clock.millis();
+        if (now >= replicaDownUntilMillis) {
+            try {
+                return replica.getConnection();
+            } catch (SQLException e) {
+                replicaDownUntilMillis = now + retryAfter.toMillis();
+                log.warn("Read replica unavailable, read-only transactions go to primary for {}s: {}",
+                        retryAfter.toSeconds(), e.getMessage());
+            }
+        }
+        fallbacks.increment();
+        return primary.getConnection();
+    }
+
+    private class ReplicaWithFallback extends DelegatingDataSource {
+
+        ReplicaWithFallback(DataSource replica) {
+            super(replica);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return replicaOrPrimary();
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package pl.weekendflyer.weekendFlightAgent.domain.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import pl.weekendflyer.weekendFlightAgent.domain.model.ScanRun;
+import pl.weekendflyer.weekendFlightAgent.domain.model.ScanRunStatus;
+
+import java.util.Optional;
+
+@Repository
+public interface ScanRunRepository extends JpaRepository<ScanRun, Long> {
+
+    Optional<ScanRun> findFirstByProviderAndStatusOrderByStartedAtAsc(String provider, ScanRunStatus status);
+}
@@ -0,0 +1,32 @@
+package pl.weekendflyer.weekendFlightAgent.domain.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import pl.weekendflyer.weekendFlightAgent.domain.model.ScanRunWindow;
+import pl.weekendflyer.weekendFlightAgent.domain.model.WindowScanStatus;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ScanRunWindowRepository extends JpaRepository<ScanRunWindow, Long> {
+
+    long countByScanRunIdAndStatusIn(Long scanRunId, Collection<WindowScanStatus> statuses);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ScanRunWindow w SET w.status = pl.weekendflyer.weekendFlightAgent.domain.model.WindowScanStatus.DONE, " +
+           "w.errorMessage = null, w.updatedAt = :now WHERE w.id IN :ids")
+    int markDone(@Param("ids") Collection<Long> ids, @Param("now") Instant now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ScanRunWindow w SET w.status = pl.weekendflyer.weekendFlightAgent.domain.model.WindowScanStatus.FAILED, " +
+           "w.errorMessage = :errorMessage, w.updatedAt = :now WHERE w.id = :id")
+    int markFailed(@Param("id") Long id, @Param("errorMessage") String errorMessage, @Param("now") Instant now);
+}
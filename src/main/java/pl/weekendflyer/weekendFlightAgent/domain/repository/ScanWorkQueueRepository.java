@@ -0,0 +1,87 @@
+package pl.weekendflyer.weekendFlightAgent.domain.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import pl.weekendflyer.weekendFlightAgent.domain.model.ScanRunWindow;
+import pl.weekendflyer.weekendFlightAgent.domain.model.WindowScanStatus;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class ScanWorkQueueRepository {
+
+    private static final String CLAIM_SQL = """
+            UPDATE scan_run_window w
+            SET status = 'IN_FLIGHT', attempts = w.attempts + 1, claimed_by = ?, updated_at = ?
+            WHERE w.id IN (
+              SELECT id FROM scan_run_window
+              WHERE scan_run_id = ?
+                AND (status = 'PLANNED'
+                     OR (status = 'IN_FLIGHT' AND (claimed_by IS NULL OR updated_at < ?
+                                                   OR (claimed_by = ? AND updated_at < ?))))
+              ORDER BY id
+              LIMIT ?
+              FOR UPDATE SKIP LOCKED)
+            RETURNING w.id, w.scan_run_id, w.origin, w.destination, w.depart_date, w.return_date,
+                      w.window_key, w.status, w.attempts, w.claimed_by, w.error_message, w.updated_at
+            """;
+
+    private static final RowMapper<ScanRunWindow> ROW_MAPPER = (rs, rowNum) -> new ScanRunWindow(
+            rs.getLong("id"),
+            rs.getLong("scan_run_id"),
+            rs.getString("origin"),
+            rs.getString("destination"),
+            rs.getDate("depart_date").toLocalDate(),
+            rs.getDate("return_date").toLocalDate(),
+            rs.getString("window_key"),
+            WindowScanStatus.valueOf(rs.getString("status")),
+            rs.getInt("attempts"),
+            rs.getString("claimed_by"),
+            rs.getString("error_message"),
+            rs.getTimestamp("updated_at").toInstant()
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Własne okna IN_FLIGHT z aktywną dzierżawą są pobierane tylko sprzed {@code ownClaimedBefore} (okna porzucone
+     * przez poprzedni proces tego węzła); w zwykłym przebiegu {@code ownClaimedBefore = leaseExpiredBefore},
+     * więc drugi executor na tym samym węźle nie pobierze okna, które właśnie jest sprawdzane.
+     */
+    @Transactional
+    public List<ScanRunWindow> claim(Long scanRunId, String nodeId, int limit, Instant now, Instant leaseExpiredBefore,
+                                     Instant ownClaimedBefore) {
+        List<ScanRunWindow> claimed = jdbcTemplate.query(CLAIM_SQL, ROW_MAPPER,
+                nodeId, Timestamp.from(now), scanRunId, Timestamp.from(leaseExpiredBefore),
+                nodeId, Timestamp.from(ownClaimedBefore), limit);
+        claimed.sort(Comparator.comparing(ScanRunWindow::getId));
+        return claimed;
+    }
+
+    /**
+     * Inne węzły, które pobrały okna z kolejki po {@code since}; z {@code inFlightOnly} tylko te, które nadal
+     * trzymają dzierżawę (IN_FLIGHT).
+     */
+    public List<String> findOtherClaimers(String nodeId, Instant since, boolean inFlightOnly) {
+        return jdbcTemplate.queryForList("""
+                SELECT DISTINCT claimed_by FROM scan_run_window
+                WHERE claimed_by IS NOT NULL AND claimed_by <> ? AND updated_at >= ?
+                  AND (NOT ? OR status = 'IN_FLIGHT')
+                ORDER BY claimed_by
+                """, String.class, nodeId, Timestamp.from(since), inFlightOnly);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void acquirePlanningLock(String provider) {
+        jdbcTemplate.query("SELECT pg_advisory_xact_lock(hashtext(?))", rs -> {
+        }, "scan-plan:" + provider);
+    }
+}
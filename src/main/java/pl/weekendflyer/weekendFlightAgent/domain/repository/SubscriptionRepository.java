@@ -0,0 +1,74 @@
+package pl.weekendflyer.weekendFlightAgent.domain.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import pl.weekendflyer.weekendFlightAgent.domain.model.Subscription;
+import pl.weekendflyer.weekendFlightAgent.domain.model.SubscriptionMatch;
+
+import java.sql.Array;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Repository
+@RequiredArgsConstructor
+public class SubscriptionRepository {
+
+    private static final String FIND_ACTIVE_SQL = """
+            SELECT id, user_id, destinations, full_days, max_price_pln, require_no_flight_on_saturday,
+                   latest_arrival_on_friday_local, earliest_departure_on_sunday_local
+            FROM subscription
+            WHERE active
+            ORDER BY id
+            """;
+
+    private static final String INSERT_MATCH_SQL = """
+            INSERT INTO subscription_match (subscription_id, window_key, offer_key, price_pln, matched_at)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT (subscription_id, offer_key) DO NOTHING
+            """;
+
+    private static final RowMapper<Subscription> ROW_MAPPER = (rs, rowNum) -> new Subscription(
+            rs.getLong("id"),
+            rs.getString("user_id"),
+            Set.of((String[]) rs.getArray("destinations").getArray()),
+            integers(rs.getArray("full_days")),
+            rs.getObject("max_price_pln", Integer.class),
+            rs.getBoolean("require_no_flight_on_saturday"),
+            rs.getTime("latest_arrival_on_friday_local").toLocalTime(),
+            rs.getTime("earliest_departure_on_sunday_local").toLocalTime()
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public List<Subscription> findActive() {
+        return jdbcTemplate.query(FIND_ACTIVE_SQL, ROW_MAPPER);
+    }
+
+    /**
+     * Oferta już dopasowana do subskrypcji nie jest zapisywana ponownie.
+     */
+    public void recordMatches(List<SubscriptionMatch> matches, Instant matchedAt) {
+        if (matches.isEmpty()) {
+            return;
+        }
+        Timestamp timestamp = Timestamp.from(matchedAt);
+        jdbcTemplate.batchUpdate(INSERT_MATCH_SQL, matches, 500, (statement, match) -> {
+            statement.setLong(1, match.subscriptionId());
+            statement.setString(2, match.windowKey());
+            statement.setString(3, match.offerKey());
+            statement.setInt(4, match.pricePln());
+            statement.setTimestamp(5, timestamp);
+        });
+    }
+
+    private static Set<Integer> integers(Array array) throws SQLException {
+        return Arrays.stream((Integer[]) array.getArray()).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,22 @@
+package pl.weekendflyer.weekendFlightAgent.domain.repository;
+
+import pl.weekendflyer.weekendFlightAgent.domain.model.WindowCheck;
+
+import java.util.List;
+
+/**
+ * Odczyt i zapis {@code window_check} na gorącej ścieżce planera. Implementacja (JPA albo JDBC)
+ * wybierana przez {@code agent.persistence}, opcjonalnie z lokalną kopią w pliku ({@code agent.window-state.file}).
+ */
+public interface WindowCheckStore {
+
+    List<WindowCheck> findByProviderAndWindowKeyIn(String provider, List<String> windowKeys);
+
+    void saveAll(List<WindowCheck> checks);
+
+    /**
+     * Zapis zmian odłożonych przez implementację write-behind; pozostałe zapisują od razu w {@link #saveAll}.
+     */
+    default void flush() {
+    }
+}
@@ -0,0 +1,25 @@
+package pl.weekendflyer.weekendFlightAgent.domain.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import pl.weekendflyer.weekendFlightAgent.domain.model.WindowLatestPrice;
+
+import java.util.List;
+
+/**
+ * {@code GET /actuator/latestprice/{windowKey}} - bieżące najtańsze oferty okna u każdego providera, z lustra
+ * {@link WindowLatestPriceStore} (bez zapytania do bazy).
+ */
+@Endpoint(id = "latestprice")
+@RequiredArgsConstructor
+public class WindowLatestPriceEndpoint {
+
+    private final WindowLatestPriceStore windowLatestPriceStore;
+
+    @ReadOperation
+    public List<WindowLatestPrice> window(@Selector String windowKey) {
+        return windowLatestPriceStore.findAll(windowKey);
+    }
+}
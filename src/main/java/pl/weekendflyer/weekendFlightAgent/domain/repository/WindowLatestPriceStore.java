@@ -0,0 +1,223 @@
+package pl.weekendflyer.weekendFlightAgent.domain.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pl.weekendflyer.weekendFlightAgent.domain.model.PriceObservation;
+import pl.weekendflyer.weekendFlightAgent.domain.model.WindowLatestPrice;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Model odczytu {@code window_latest_price}: najtańsza bieżąca oferta per (provider, okno), aktualizowana
+ * upsertem przy zapisie partii skanu zamiast {@code DISTINCT ON (window_key)} po całej historii.
+ * <p>
+ * Lustro w pamięci (okno -> wiersze providerów) jest wczytywane leniwie z przyszłych okien i po commicie
+ * podmieniane wierszami zwróconymi przez upsert. Zmiany innych węzłów dociąga {@link #refresh()} zapytaniem
+ * o wiersze z {@code last_observed_at} nowszym niż poprzednie odświeżenie (z zakładką na partie commitowane
+ * z opóźnieniem); to samo wywołanie usuwa okna z wylotem przed dziś.
+ */
+@Slf4j
+public class WindowLatestPriceStore {
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO window_latest_price AS w (provider, window_key, origin, destination, depart_date, return_date,
+                                                  offer_key, price_pln, first_observed_at, last_observed_at)
+            SELECT u.provider, u.window_key, u.origin, u.destination, u.depart_date, u.return_date,
+                   u.offer_key, u.price_pln, u.observed_at, u.observed_at
+            FROM unnest(?::text[], ?::text[], ?::text[], ?::text[], ?::date[], ?::date[], ?::text[], ?::int[], ?::timestamptz[])
+                 AS u(provider, window_key, origin, destination, depart_date, return_date, offer_key, price_pln, observed_at)
+            ON CONFLICT (provider, window_key) DO UPDATE SET
+              previous_price_pln = CASE WHEN w.price_pln <> EXCLUDED.price_pln THEN w.price_pln ELSE w.previous_price_pln END,
+              offer_key = EXCLUDED.offer_key,
+              price_pln = EXCLUDED.price_pln,
+              last_observed_at = EXCLUDED.last_observed_at
+            WHERE w.last_observed_at <= EXCLUDED.last_observed_at
+            RETURNING w.*
+            """;
+
+    private static final String LOAD_SQL = "SELECT * FROM window_latest_price WHERE depart_date >= ?";
+    private static final String DELTA_SQL = "SELECT * FROM window_latest_price WHERE last_observed_at > ? AND depart_date >= ?";
+
+    /** Obserwacja partii skanu jest starsza niż jej commit - delta sięga tyle przed poprzednie odświeżenie. */
+    static final Duration REFRESH_OVERLAP = Duration.ofMinutes(30);
+
+    private static final RowMapper<WindowLatestPrice> ROW_MAPPER = (rs, rowNum) -> new WindowLatestPrice(
+            rs.getString("provider"),
+            rs.getString("window_key"),
+            rs.getString("origin"),
+            rs.getString("destination"),
+            rs.getDate("depart_date").toLocalDate(),
+            rs.getDate("return_date").toLocalDate(),
+            rs.getString("offer_key"),
+            rs.getInt("price_pln"),
+            rs.getObject("previous_price_pln", Integer.class),
+            rs.getTimestamp("first_observed_at").toInstant(),
+            rs.getTimestamp("last_observed_at").toInstant()
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Clock clock;
+    private final Map<String, List<WindowLatestPrice>> mirror = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+    private Instant refreshedAt;
+
+    public WindowLatestPriceStore(JdbcTemplate jdbcTemplate, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clock = clock;
+    }
+
+    /**
+     * Upsert najtańszej obserwacji każdego okna; w transakcji lustro jest aktualizowane dopiero po commicie.
+     */
+    public void record(Collection<PriceObservation> cheapest) {
+        if (cheapest.isEmpty()) {
+            return;
+        }
+        ensureLoaded();
+        List<PriceObservation> rows = cheapestPerProviderWindow(cheapest);
+        List<WindowLatestPrice> written = jdbcTemplate.query(con -> upsertStatement(con, rows), ROW_MAPPER);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            written.forEach(this::mirror);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                written.forEach(WindowLatestPriceStore.this::mirror);
+            }
+        });
+    }
+
+    public Optional<WindowLatestPrice> find(String provider, String windowKey) {
+        return findAll(windowKey).stream()
+                .filter(latest -> latest.provider().equals(provider))
+                .findFirst();
+    }
+
+    /**
+     * Najtańsza bieżąca cena okna u wszystkich providerów.
+     */
+    public Optional<WindowLatestPrice> cheapest(String windowKey) {
+        return findAll(windowKey).stream()
+                .min(Comparator.comparingInt(WindowLatestPrice::pricePln));
+    }
+
+    public List<WindowLatestPrice> findAll(String windowKey) {
+        ensureLoaded();
+        return mirror.getOrDefault(windowKey, List.of());
+    }
+
+    public int size() {
+        return mirror.values().stream().mapToInt(List::size).sum();
+    }
+
+    /**
+     * Dociąga wiersze zapisane od poprzedniego odświeżenia (także przez inne węzły) i usuwa okna z wylotem
+     * przed dziś. Przed pierwszym użyciem lustra nic nie robi - pełne wczytanie i tak nastąpi leniwie.
+     */
+    public synchronized void refresh() {
+        if (!loaded) {
+            return;
+        }
+        LocalDate today = LocalDate.now(clock);
+        Instant startedAt = Instant.now(clock);
+        List<WindowLatestPrice> changed = jdbcTemplate.query(DELTA_SQL, ROW_MAPPER,
+                Timestamp.from(refreshedAt.minus(REFRESH_OVERLAP)), java.sql.Date.valueOf(today));
+        changed.forEach(this::mirror);
+        refreshedAt = startedAt;
+
+        int before = mirror.size();
+        mirror.values().removeIf(rows -> rows.stream().allMatch(row -> row.departDate().isBefore(today)));
+        log.debug("WindowLatestPriceStore: refreshed {} provider windows, evicted {} departed windows",
+                changed.size(), before - mirror.size());
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            LocalDate today = LocalDate.now(clock);
+            refreshedAt = Instant.now(clock);
+            jdbcTemplate.query(LOAD_SQL, ROW_MAPPER, java.sql.Date.valueOf(today)).forEach(this::mirror);
+            loaded = true;
+            log.info("WindowLatestPriceStore: loaded latest prices of {} provider windows departing from {}", size(), today);
+        }
+    }
+
+    /**
+     * Jak upsert w bazie: wiersz z wcześniejszym last_observed_at nie nadpisuje nowszego (delta może przynieść
+     * wiersz, który lokalny commit już zastąpił).
+     */
+    private void mirror(WindowLatestPrice latest) {
+        mirror.compute(latest.windowKey(), (windowKey, current) -> {
+            List<WindowLatestPrice> updated = new ArrayList<>(current == null ? List.of() : current);
+            boolean newer = updated.stream()
+                    .filter(existing -> existing.provider().equals(latest.provider()))
+                    .allMatch(existing -> !existing.lastObservedAt().isAfter(latest.lastObservedAt()));
+            if (!newer) {
+                return current;
+            }
+            updated.removeIf(existing -> existing.provider().equals(latest.provider()));
+            updated.add(latest);
+            return List.copyOf(updated);
+        });
+    }
+
+    /**
+     * Jeden upsert nie może dotknąć tego samego wiersza dwa razy, więc duplikaty (provider, okno) są zwijane.
+     */
+    private static List<PriceObservation> cheapestPerProviderWindow(Collection<PriceObservation> observations) {
+        Map<String, PriceObservation> perKey = new LinkedHashMap<>();
+        for (PriceObservation observation : observations) {
+            perKey.merge(observation.getProvider() + "|" + observation.getWindowKey(), observation,
+                    (a, b) -> b.getPricePln() < a.getPricePln() ? b : a);
+        }
+        return List.copyOf(perKey.values());
+    }
+
+    private static PreparedStatement upsertStatement(Connection con, List<PriceObservation> rows) throws SQLException {
+        PreparedStatement statement = con.prepareStatement(UPSERT_SQL);
+        statement.setArray(1, textArray(con, rows, PriceObservation::getProvider));
+        statement.setArray(2, textArray(con, rows, PriceObservation::getWindowKey));
+        statement.setArray(3, textArray(con, rows, PriceObservation::getOrigin));
+        statement.setArray(4, textArray(con, rows, PriceObservation::getDestination));
+        statement.setArray(5, textArray(con, rows, o -> o.getDepartDate().toString()));
+        statement.setArray(6, textArray(con, rows, o -> o.getReturnDate().toString()));
+        statement.setArray(7, textArray(con, rows, PriceObservation::getOfferKey));
+        statement.setArray(8, textArray(con, rows, o -> Integer.toString(o.getPricePln())));
+        statement.setArray(9, textArray(con, rows, o -> o.getObservedAt().toString()));
+        return statement;
+    }
+
+    /**
+     * Wszystkie kolumny jako text[] z rzutowaniem w SQL - daty i instanty w ISO-8601 nie zależą od strefy sesji.
+     */
+    private static java.sql.Array textArray(Connection con, List<PriceObservation> rows,
+                                            Function<PriceObservation, String> column) throws SQLException {
+        return con.createArrayOf("text", rows.stream().map(column).toArray());
+    }
+}
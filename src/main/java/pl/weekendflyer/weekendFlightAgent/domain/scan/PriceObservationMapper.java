@@ -0,0 +1,30 @@
+package pl.weekendflyer.weekendFlightAgent.domain.scan;
+
+import pl.weekendflyer.weekendFlightAgent.domain.model.CandidateWindow;
+import pl.weekendflyer.weekendFlightAgent.domain.model.FlightOffer;
+import pl.weekendflyer.weekendFlightAgent.domain.model.PriceObservation;
+import pl.weekendflyer.weekendFlightAgent.domain.provider.OfferKeyGenerator;
+
+import java.time.Instant;
+
+public final class PriceObservationMapper {
+
+    private PriceObservationMapper() {
+    }
+
+    public static PriceObservation toObservation(CandidateWindow window, FlightOffer offer, Instant observedAt) {
+        PriceObservation observation = new PriceObservation();
+        observation.setObservedAt(observedAt);
+        observation.setProvider(offer.provider());
+        observation.setOrigin(window.origin());
+        observation.setDestination(window.destination());
+        observation.setDepartDate(window.departDate());
+        observation.setReturnDate(window.returnDate());
+        observation.setFullDays((short) window.fullDays());
+        observation.setDepartureMonth(window.departDate().withDayOfMonth(1));
+        observation.setWindowKey(window.windowKey());
+        observation.setOfferKey(OfferKeyGenerator.generate(offer));
+        observation.setPricePln(offer.pricePln());
+        return observation;
+    }
+}
@@ -0,0 +1,44 @@
+package pl.weekendflyer.weekendFlightAgent.domain.scan;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+@RequiredArgsConstructor
+public class ProviderBudgetGauges {
+
+    private final MeterRegistry meterRegistry;
+    private final IntSupplier dailyBudgetPerProvider;
+    private final Map<String, BudgetState> states = new ConcurrentHashMap<>();
+
+    public void record(String provider, int used, int pacedTarget) {
+        BudgetState state = states.computeIfAbsent(provider, this::register);
+        state.used().set(used);
+        state.pacedTarget().set(pacedTarget);
+    }
+
+    private BudgetState register(String provider) {
+        BudgetState state = new BudgetState(new AtomicInteger(), new AtomicInteger());
+        Gauge.builder("agent.provider.budget.used", state, s -> s.used().get())
+                .description("Provider requests consumed today")
+                .tag("provider", provider)
+                .register(meterRegistry);
+        Gauge.builder("agent.provider.budget.remaining", state, s -> Math.max(0, dailyBudgetPerProvider.getAsInt() - s.used().get()))
+                .description("Provider requests left in today's budget")
+                .tag("provider", provider)
+                .register(meterRegistry);
+        Gauge.builder("agent.provider.budget.paced.target", state, s -> s.pacedTarget().get())
+                .description("Requests allowed to be consumed by the end of the current tick")
+                .tag("provider", provider)
+                .register(meterRegistry);
+        return state;
+    }
+
+    private record BudgetState(AtomicInteger used, AtomicInteger pacedTarget) {
+    }
+}
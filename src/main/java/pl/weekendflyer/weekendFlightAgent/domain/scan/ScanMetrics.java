@@ -0,0 +1,137 @@
+package pl.weekendflyer.weekendFlightAgent.domain.scan;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import pl.weekendflyer.weekendFlightAgent.domain.model.CandidateWindow;
+import pl.weekendflyer.weekendFlightAgent.domain.model.PlannerResult;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Czasy i liczniki etapów skanu: {@code agent.scan.stage{stage=..}} (histogram, więc p99 liczy Prometheus)
+ * oraz przepływ okien przez generator i planer. Każdy mierzony etap trafia też jako span do {@link ScanTrace}.
+ */
+public class ScanMetrics {
+
+    public enum Stage {
+        CYCLE("cycle"),
+        GENERATE("generate"),
+        PRESCREEN("prescreen"),
+        PLAN("plan"),
+        PLAN_LOOKUP("plan.lookup"),
+        PLAN_SORT("plan.sort"),
+        PROVIDER_SEARCH("provider.search"),
+        DEAL_DETECT("deal.detect"),
+        SUBSCRIPTION_MATCH("subscription.match"),
+        OBSERVATION_SAVE("observation.save"),
+        WINDOW_CHECK_SAVE("window_check.save");
+
+        private final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    public enum SkipReason {
+        NO_CONNECTION("no_connection"),
+        RECENTLY_CHECKED("recently_checked"),
+        BUDGET("budget");
+
+        private final String tag;
+
+        SkipReason(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final ScanTrace trace;
+    private final Map<Stage, Timer> timers = new EnumMap<>(Stage.class);
+    private final Map<SkipReason, Counter> skipped = new EnumMap<>(SkipReason.class);
+    private final Counter candidatesGenerated;
+
+    public ScanMetrics(MeterRegistry meterRegistry) {
+        this(meterRegistry, ScanTrace.disabled());
+    }
+
+    public ScanMetrics(MeterRegistry meterRegistry, ScanTrace trace) {
+        this.meterRegistry = meterRegistry;
+        this.trace = trace;
+        for (Stage stage : Stage.values()) {
+            timers.put(stage, Timer.builder("agent.scan.stage")
+                    .description("Duration of a single scan stage")
+                    .tag("stage", stage.tag)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+        for (SkipReason reason : SkipReason.values()) {
+            skipped.put(reason, Counter.builder("agent.scan.windows.skipped")
+                    .description("Candidate windows not selected by the planner")
+                    .tag("reason", reason.tag)
+                    .register(meterRegistry));
+        }
+        this.candidatesGenerated = Counter.builder("agent.scan.candidates.generated")
+                .description("Candidate windows produced by the generator")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Bez rejestru - liczniki i czasy nigdzie nie trafiają (testy, konstruktory bez metryk).
+     */
+    public static ScanMetrics noop() {
+        return new ScanMetrics(new CompositeMeterRegistry());
+    }
+
+    public void time(Stage stage, Runnable action) {
+        long start = System.nanoTime();
+        try {
+            action.run();
+        } finally {
+            finished(stage, start);
+        }
+    }
+
+    public <T> T time(Stage stage, Supplier<T> action) {
+        long start = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            finished(stage, start);
+        }
+    }
+
+    /**
+     * Domyka etap rozpoczęty w {@code startNanos} ({@link System#nanoTime()}) - dla etapów z wyjątkami sprawdzanymi.
+     */
+    public void finished(Stage stage, long startNanos) {
+        timers.get(stage).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        trace.stage(stage.tag, startNanos);
+    }
+
+    public void candidatesGenerated(int count) {
+        candidatesGenerated.increment(count);
+    }
+
+    public void prescreened(int generated, int feasible) {
+        skipped.get(SkipReason.NO_CONNECTION).increment(generated - feasible);
+    }
+
+    public void planned(PlannerResult result) {
+        skipped.get(SkipReason.RECENTLY_CHECKED).increment(result.skippedRecentlyChecked());
+        skipped.get(SkipReason.BUDGET).increment(result.skippedBudget());
+        selected(result.selected());
+    }
+
+    private void selected(List<CandidateWindow> windows) {
+        for (CandidateWindow window : windows) {
+            meterRegistry.counter("agent.scan.windows.selected", "destination", window.destination()).increment();
+        }
+    }
+}
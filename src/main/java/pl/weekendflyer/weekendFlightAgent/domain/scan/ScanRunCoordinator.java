@@ -0,0 +1,75 @@
+package pl.weekendflyer.weekendFlightAgent.domain.scan;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.weekendflyer.weekendFlightAgent.domain.model.CandidateWindow;
+import pl.weekendflyer.weekendFlightAgent.domain.model.ScanRun;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.ProviderBudgetRepository;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.ScanWorkQueueRepository;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.IntFunction;
+import java.util.function.IntSupplier;
+
+/**
+ * Decyduje, który węzeł planuje dzienny scan: planowanie odbywa się pod blokadą doradczą
+ * (pg_advisory_xact_lock) per provider, pozostałe węzły po zwolnieniu blokady dołączają
+ * do już zaplanowanego scan_run i pobierają okna z tej samej kolejki.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ScanRunCoordinator {
+
+    private final Clock clock;
+    /** Czytany przy każdym planowaniu - zmiana dailyBudgetPerProvider w config.yaml działa bez restartu. */
+    private final IntSupplier dailyBudgetPerProvider;
+    private final ScanRunExecutor scanRunExecutor;
+    private final ScanWorkQueueRepository scanWorkQueueRepository;
+    private final ProviderBudgetRepository providerBudgetRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ProviderBudgetGauges providerBudgetGauges;
+
+    public Optional<ScanRun> joinOrPlan(String provider, IntFunction<List<CandidateWindow>> planWithinBudget) {
+        return joinOrPlan(provider, dailyBudgetPerProvider.getAsInt(), planWithinBudget);
+    }
+
+    /**
+     * @param budgetLimit łączna liczba zapytań, którą wolno dziś zużyć (w trybie ciągłym cel z {@code BudgetPacer})
+     */
+    public Optional<ScanRun> joinOrPlan(String provider, int budgetLimit, IntFunction<List<CandidateWindow>> planWithinBudget) {
+        int limit = Math.min(budgetLimit, dailyBudgetPerProvider.getAsInt());
+
+        return transactionTemplate.execute(status -> {
+            scanWorkQueueRepository.acquirePlanningLock(provider);
+
+            Optional<ScanRun> unfinished = scanRunExecutor.findUnfinished(provider);
+            if (unfinished.isPresent()) {
+                log.info("ScanRunCoordinator: joining scanRun={} started at {}",
+                        unfinished.get().getId(), unfinished.get().getStartedAt());
+                return unfinished;
+            }
+
+            LocalDate today = LocalDate.now(clock);
+            int used = providerBudgetRepository.used(provider, today);
+            int remainingBudget = Math.max(0, limit - used);
+
+            List<CandidateWindow> selected = planWithinBudget.apply(remainingBudget);
+            if (selected.isEmpty()) {
+                log.info("ScanRunCoordinator: nothing to scan for provider={}, remainingBudget={}", provider, remainingBudget);
+                providerBudgetGauges.record(provider, used, limit);
+                return Optional.empty();
+            }
+
+            int granted = providerBudgetRepository.consume(provider, today, selected.size(), limit);
+            providerBudgetGauges.record(provider, used + granted, limit);
+            if (granted == 0) {
+                return Optional.empty();
+            }
+            return Optional.of(scanRunExecutor.start(provider, selected.subList(0, granted)));
+        });
+    }
+}
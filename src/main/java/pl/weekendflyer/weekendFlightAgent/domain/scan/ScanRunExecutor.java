@@ -0,0 +1,270 @@
+package pl.weekendflyer.weekendFlightAgent.domain.scan;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.weekendflyer.weekendFlightAgent.config.AgentProperties;
+import pl.weekendflyer.weekendFlightAgent.domain.deal.DealDetector;
+import pl.weekendflyer.weekendFlightAgent.domain.deal.DealRecorder;
+import pl.weekendflyer.weekendFlightAgent.domain.eval.TripConstraintsFactory;
+import pl.weekendflyer.weekendFlightAgent.domain.model.CandidateWindow;
+import pl.weekendflyer.weekendFlightAgent.domain.model.Deal;
+import pl.weekendflyer.weekendFlightAgent.domain.model.FlightOffer;
+import pl.weekendflyer.weekendFlightAgent.domain.model.PriceObservation;
+import pl.weekendflyer.weekendFlightAgent.domain.model.ScanRun;
+import pl.weekendflyer.weekendFlightAgent.domain.model.ScanRunStatus;
+import pl.weekendflyer.weekendFlightAgent.domain.model.ScanRunSummary;
+import pl.weekendflyer.weekendFlightAgent.domain.model.ScanRunWindow;
+import pl.weekendflyer.weekendFlightAgent.domain.model.SubscriptionMatch;
+import pl.weekendflyer.weekendFlightAgent.domain.model.TripConstraints;
+import pl.weekendflyer.weekendFlightAgent.domain.model.WindowScanStatus;
+import pl.weekendflyer.weekendFlightAgent.domain.planner.WindowCheckPlanner;
+import pl.weekendflyer.weekendFlightAgent.domain.provider.FlightSearchService;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.PriceObservationStore;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.ScanRunRepository;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.ScanRunWindowRepository;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.ScanWorkQueueRepository;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.WindowLatestPriceStore;
+import pl.weekendflyer.weekendFlightAgent.domain.subscription.SubscriptionMatcher;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+@Slf4j
+public class ScanRunExecutor {
+
+    private static final Set<WindowScanStatus> PENDING = EnumSet.of(WindowScanStatus.PLANNED, WindowScanStatus.IN_FLIGHT);
+    private static final int MAX_ERROR_MESSAGE_LENGTH = 500;
+
+    private final Clock clock;
+    /** checkpointBatchSize i inFlightLeaseMinutes czytane na początku każdego przebiegu. */
+    private final Supplier<AgentProperties.Scan> scanConfig;
+    private final String nodeId;
+    private final ScanRunRepository scanRunRepository;
+    private final ScanRunWindowRepository scanRunWindowRepository;
+    private final ScanWorkQueueRepository scanWorkQueueRepository;
+    private final PriceObservationStore priceObservationStore;
+    private final WindowLatestPriceStore windowLatestPriceStore;
+    private final WindowCheckPlanner windowCheckPlanner;
+    private final FlightSearchService flightSearchService;
+    private final TripConstraintsFactory tripConstraintsFactory;
+    private final DealDetector dealDetector;
+    private final DealRecorder dealRecorder;
+    private final SubscriptionMatcher subscriptionMatcher;
+    private final TransactionTemplate transactionTemplate;
+    private final ScanMetrics metrics;
+    /** Okna tego węzła pobrane przed tym momentem należą do poprzedniego procesu. */
+    private final Instant processStartedAt;
+
+    public ScanRunExecutor(
+            Clock clock,
+            Supplier<AgentProperties.Scan> scanConfig,
+            String nodeId,
+            ScanRunRepository scanRunRepository,
+            ScanRunWindowRepository scanRunWindowRepository,
+            ScanWorkQueueRepository scanWorkQueueRepository,
+            PriceObservationStore priceObservationStore,
+            WindowLatestPriceStore windowLatestPriceStore,
+            WindowCheckPlanner windowCheckPlanner,
+            FlightSearchService flightSearchService,
+            TripConstraintsFactory tripConstraintsFactory,
+            DealDetector dealDetector,
+            DealRecorder dealRecorder,
+            SubscriptionMatcher subscriptionMatcher,
+            TransactionTemplate transactionTemplate,
+            ScanMetrics metrics
+    ) {
+        this.clock = clock;
+        this.scanConfig = scanConfig;
+        this.nodeId = nodeId;
+        this.scanRunRepository = scanRunRepository;
+        this.scanRunWindowRepository = scanRunWindowRepository;
+        this.scanWorkQueueRepository = scanWorkQueueRepository;
+        this.priceObservationStore = priceObservationStore;
+        this.windowLatestPriceStore = windowLatestPriceStore;
+        this.windowCheckPlanner = windowCheckPlanner;
+        this.flightSearchService = flightSearchService;
+        this.tripConstraintsFactory = tripConstraintsFactory;
+        this.dealDetector = dealDetector;
+        this.dealRecorder = dealRecorder;
+        this.subscriptionMatcher = subscriptionMatcher;
+        this.transactionTemplate = transactionTemplate;
+        this.metrics = metrics;
+        this.processStartedAt = Instant.now(clock);
+    }
+
+    public Optional<ScanRun> findUnfinished(String provider) {
+        return scanRunRepository.findFirstByProviderAndStatusOrderByStartedAtAsc(provider, ScanRunStatus.RUNNING);
+    }
+
+    public ScanRun start(String provider, List<CandidateWindow> selected) {
+        Instant now = Instant.now(clock);
+
+        return transactionTemplate.execute(status -> {
+            ScanRun run = new ScanRun();
+            run.setProvider(provider);
+            run.setStatus(ScanRunStatus.RUNNING);
+            run.setPlannedCount(selected.size());
+            run.setStartedAt(now);
+            scanRunRepository.save(run);
+
+            List<ScanRunWindow> planned = selected.stream()
+                    .map(window -> ScanRunWindow.planned(run.getId(), window, now))
+                    .toList();
+            scanRunWindowRepository.saveAll(planned);
+
+            log.info("ScanRunExecutor: started scanRun={} provider={} planned={}", run.getId(), provider, planned.size());
+            return run;
+        });
+    }
+
+    public ScanRunSummary execute(ScanRun run) {
+        return execute(run, false);
+    }
+
+    /**
+     * Wznowienie po restarcie: oprócz zwykłej kolejki przejmuje od razu okna IN_FLIGHT, które ten węzeł pobrał
+     * przed startem procesu, zamiast czekać na wygaśnięcie dzierżawy.
+     */
+    public ScanRunSummary recover(ScanRun run) {
+        return execute(run, true);
+    }
+
+    private ScanRunSummary execute(ScanRun run, boolean recoverOwnClaims) {
+        TripConstraints constraints = tripConstraintsFactory.current();
+        AgentProperties.Scan scan = scanConfig.get();
+        Duration inFlightLease = Duration.ofMinutes(scan.inFlightLeaseMinutes());
+
+        log.info("ScanRunExecutor: node={} joins scanRun={} provider={}", nodeId, run.getId(), run.getProvider());
+
+        int processed = 0;
+        int done = 0;
+        int failed = 0;
+        int observationsRecorded = 0;
+
+        List<ScanRunWindow> batch;
+        while (!(batch = claimBatch(run, scan.checkpointBatchSize(), inFlightLease, recoverOwnClaims)).isEmpty()) {
+            BatchOutcome outcome = executeBatch(run, batch, constraints);
+
+            processed += batch.size();
+            done += outcome.doneIds().size();
+            failed += outcome.failures().size();
+            observationsRecorded += outcome.observations().size();
+        }
+
+        boolean completed = completeIfFinished(run);
+
+        ScanRunSummary summary = new ScanRunSummary(run.getId(), processed, done, failed, observationsRecorded, completed);
+        log.info("ScanRunExecutor: node={} scanRun={} processed={}, done={}, failed={}, observations={}, completed={}",
+                nodeId, run.getId(), processed, done, failed, observationsRecorded, completed);
+        return summary;
+    }
+
+    private List<ScanRunWindow> claimBatch(ScanRun run, int checkpointBatchSize, Duration inFlightLease, boolean recoverOwnClaims) {
+        Instant now = Instant.now(clock);
+        Instant leaseExpiredBefore = now.minus(inFlightLease);
+        Instant ownClaimedBefore = recoverOwnClaims ? processStartedAt : leaseExpiredBefore;
+        return scanWorkQueueRepository.claim(run.getId(), nodeId, checkpointBatchSize, now, leaseExpiredBefore, ownClaimedBefore);
+    }
+
+    private BatchOutcome executeBatch(ScanRun run, List<ScanRunWindow> batch, TripConstraints constraints) {
+        List<Long> doneIds = new ArrayList<>();
+        List<CandidateWindow> doneWindows = new ArrayList<>();
+        List<WindowFailure> failures = new ArrayList<>();
+        List<PriceObservation> observations = new ArrayList<>();
+        List<SubscriptionMatch> subscriptionMatches = new ArrayList<>();
+
+        for (ScanRunWindow runWindow : batch) {
+            CandidateWindow window = runWindow.toCandidateWindow();
+            long searchStart = System.nanoTime();
+            try {
+                List<FlightOffer> offers = flightSearchService.search(window, constraints);
+                metrics.finished(ScanMetrics.Stage.PROVIDER_SEARCH, searchStart);
+                Instant observedAt = Instant.now(clock);
+                for (FlightOffer offer : offers) {
+                    observations.add(PriceObservationMapper.toObservation(window, offer, observedAt));
+                }
+                subscriptionMatches.addAll(metrics.time(ScanMetrics.Stage.SUBSCRIPTION_MATCH,
+                        () -> subscriptionMatcher.match(window, offers, constraints)));
+                doneIds.add(runWindow.getId());
+                doneWindows.add(window);
+            } catch (IOException | RuntimeException e) {
+                log.warn("ScanRunExecutor: window {} failed: {}", runWindow.getWindowKey(), e.getMessage());
+                failures.add(new WindowFailure(runWindow.getId(), truncate(e.getMessage())));
+            }
+        }
+
+        Map<String, PriceObservation> cheapest = cheapestPerWindow(observations);
+        List<Deal> deals = metrics.time(ScanMetrics.Stage.DEAL_DETECT, () -> cheapest.values().stream()
+                .map(dealDetector::detect)
+                .flatMap(Optional::stream)
+                .toList());
+
+        Instant now = Instant.now(clock);
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!observations.isEmpty()) {
+                metrics.time(ScanMetrics.Stage.OBSERVATION_SAVE, () -> {
+                    priceObservationStore.saveAll(observations);
+                    windowLatestPriceStore.record(cheapest.values());
+                });
+            }
+            dealRecorder.record(deals, now);
+            subscriptionMatcher.record(subscriptionMatches, now);
+            if (!doneIds.isEmpty()) {
+                scanRunWindowRepository.markDone(doneIds, now);
+            }
+            for (WindowFailure failure : failures) {
+                scanRunWindowRepository.markFailed(failure.id(), failure.message(), now);
+            }
+            windowCheckPlanner.recordChecked(run.getProvider(), doneWindows, cheapestPrices(cheapest));
+        });
+
+        return new BatchOutcome(doneIds, failures, observations);
+    }
+
+    private Map<String, PriceObservation> cheapestPerWindow(List<PriceObservation> observations) {
+        return observations.stream()
+                .collect(Collectors.toMap(PriceObservation::getWindowKey, Function.identity(),
+                        BinaryOperator.minBy(Comparator.comparing(PriceObservation::getPricePln))));
+    }
+
+    private Map<String, Integer> cheapestPrices(Map<String, PriceObservation> cheapest) {
+        return cheapest.values().stream()
+                .collect(Collectors.toMap(PriceObservation::getWindowKey, PriceObservation::getPricePln));
+    }
+
+    private boolean completeIfFinished(ScanRun run) {
+        long remaining = scanRunWindowRepository.countByScanRunIdAndStatusIn(run.getId(), PENDING);
+        if (remaining > 0) {
+            return false;
+        }
+        run.markCompleted(Instant.now(clock));
+        scanRunRepository.save(run);
+        return true;
+    }
+
+    private String truncate(String message) {
+        if (message == null || message.length() <= MAX_ERROR_MESSAGE_LENGTH) {
+            return message;
+        }
+        return message.substring(0, MAX_ERROR_MESSAGE_LENGTH);
+    }
+
+    private record WindowFailure(Long id, String message) {
+    }
+
+    private record BatchOutcome(List<Long> doneIds, List<WindowFailure> failures, List<PriceObservation> observations) {
+    }
+}
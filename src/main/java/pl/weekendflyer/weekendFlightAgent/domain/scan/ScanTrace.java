@@ -0,0 +1,214 @@
+package pl.weekendflyer.weekendFlightAgent.domain.scan;
+
+import lombok.extern.slf4j.Slf4j;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.ObjectWriteContext;
+import tools.jackson.core.json.JsonFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Oś czasu skanu: span per etap i per wywołanie providera (okno, provider, status, bajty) w buforze cyklicznym
+ * o stałym rozmiarze - przy przepełnieniu nadpisywane są najstarsze spany. Tablice alokowane raz w konstruktorze,
+ * wyłączony trace ({@link #disabled()}) nie zapisuje i nie alokuje niczego.
+ * <p>
+ * Zrzut w formacie Chrome trace-event (chrome://tracing, Perfetto): do pliku po każdym cyklu
+ * ({@code agent.trace.file}) albo przez {@code /actuator/scantrace}.
+ */
+@Slf4j
+public class ScanTrace {
+
+    private static final ScanTrace DISABLED = new ScanTrace(0, null);
+
+    private final int mask;
+    private final Path file;
+    private final long originNanos = System.nanoTime();
+    private final long originEpochMicros = ChronoUnit.MICROS.between(Instant.EPOCH, Instant.now());
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    private final String[] names;
+    private final String[] threads;
+    private final String[] windowKeys;
+    private final String[] providers;
+    private final String[] statuses;
+    private final long[] starts;
+    private final long[] durations;
+    private final long[] bytes;
+    private long written;
+
+    /**
+     * @param capacity liczba pamiętanych spanów, zaokrąglana w górę do potęgi dwójki; 0 wyłącza trace
+     * @param file     plik nadpisywany po każdym cyklu skanu, {@code null} = tylko endpoint
+     */
+    public ScanTrace(int capacity, Path file) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must not be negative");
+        }
+        int size = capacity <= 1 ? capacity : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = size - 1;
+        this.file = file;
+        this.names = new String[size];
+        this.threads = new String[size];
+        this.windowKeys = new String[size];
+        this.providers = new String[size];
+        this.statuses = new String[size];
+        this.starts = new long[size];
+        this.durations = new long[size];
+        this.bytes = new long[size];
+    }
+
+    public static ScanTrace disabled() {
+        return DISABLED;
+    }
+
+    public boolean enabled() {
+        return mask >= 0;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Span etapu, który zaczął się w {@code startNanos} ({@link System#nanoTime()}) i kończy się teraz.
+     */
+    public void stage(String name, long startNanos) {
+        span(name, startNanos, null, null, null, -1);
+    }
+
+    /**
+     * @param windowKey okno albo {@code null} dla etapów wsadowych
+     * @param bytes     rozmiar odpowiedzi, -1 gdy nie dotyczy
+     */
+    public void span(String name, long startNanos, String windowKey, String provider, String status, long bytes) {
+        if (mask < 0) {
+            return;
+        }
+        long end = System.nanoTime();
+        String thread = Thread.currentThread().getName();
+        synchronized (this) {
+            int slot = (int) (written & mask);
+            names[slot] = name;
+            threads[slot] = thread;
+            windowKeys[slot] = windowKey;
+            providers[slot] = provider;
+            statuses[slot] = status;
+            starts[slot] = startNanos;
+            durations[slot] = end - startNanos;
+            this.bytes[slot] = bytes;
+            written++;
+        }
+    }
+
+    public synchronized int size() {
+        return (int) Math.min(written, capacity());
+    }
+
+    /**
+     * Spany nadpisane od startu aplikacji, bo bufor był za mały.
+     */
+    public synchronized long dropped() {
+        return Math.max(0, written - capacity());
+    }
+
+    /**
+     * Po cyklu skanu - nadpisuje {@code agent.trace.file}, jeśli skonfigurowany. Błąd zapisu nie przerywa skanu.
+     */
+    public void cycleFinished() {
+        if (file == null || mask < 0) {
+            return;
+        }
+        try {
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                writeChromeTrace(out);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | JacksonException e) {
+            log.warn("ScanTrace: cannot write {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Spany od najstarszego do najnowszego jako {@code {"traceEvents":[...]}}; {@code ts}/{@code dur} w mikrosekundach.
+     */
+    public void writeChromeTrace(OutputStream out) {
+        Snapshot snapshot = snapshot();
+        Map<String, Integer> threadIds = new LinkedHashMap<>();
+
+        try (JsonGenerator json = jsonFactory.createGenerator(ObjectWriteContext.empty(), out)) {
+            json.writeStartObject();
+            json.writeName("traceEvents");
+            json.writeStartArray();
+            for (int i = 0; i < snapshot.count(); i++) {
+                Integer tid = threadIds.computeIfAbsent(snapshot.threads()[i], thread -> threadIds.size() + 1);
+                json.writeStartObject();
+                json.writeStringProperty("name", snapshot.names()[i]);
+                json.writeStringProperty("cat", snapshot.windowKeys()[i] == null ? "stage" : "provider");
+                json.writeStringProperty("ph", "X");
+                json.writeNumberProperty("ts", originEpochMicros + (snapshot.starts()[i] - originNanos) / 1_000);
+                json.writeNumberProperty("dur", snapshot.durations()[i] / 1_000);
+                json.writeNumberProperty("pid", 1);
+                json.writeNumberProperty("tid", tid);
+                if (snapshot.windowKeys()[i] != null) {
+                    json.writeName("args");
+                    json.writeStartObject();
+                    json.writeStringProperty("window", snapshot.windowKeys()[i]);
+                    json.writeStringProperty("provider", snapshot.providers()[i]);
+                    json.writeStringProperty("status", snapshot.statuses()[i]);
+                    json.writeNumberProperty("bytes", snapshot.bytes()[i]);
+                    json.writeEndObject();
+                }
+                json.writeEndObject();
+            }
+            for (Map.Entry<String, Integer> thread : threadIds.entrySet()) {
+                json.writeStartObject();
+                json.writeStringProperty("name", "thread_name");
+                json.writeStringProperty("ph", "M");
+                json.writeNumberProperty("pid", 1);
+                json.writeNumberProperty("tid", thread.getValue());
+                json.writeName("args");
+                json.writeStartObject();
+                json.writeStringProperty("name", thread.getKey());
+                json.writeEndObject();
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeNumberProperty("droppedSpans", snapshot.dropped());
+            json.writeEndObject();
+        }
+    }
+
+    private synchronized Snapshot snapshot() {
+        int count = size();
+        long first = written - count;
+        Snapshot snapshot = new Snapshot(count, first,
+                new String[count], new String[count], new String[count], new String[count], new String[count],
+                new long[count], new long[count], new long[count]);
+        for (int i = 0; i < count; i++) {
+            int slot = (int) ((first + i) & mask);
+            snapshot.names()[i] = names[slot];
+            snapshot.threads()[i] = threads[slot];
+            snapshot.windowKeys()[i] = windowKeys[slot];
+            snapshot.providers()[i] = providers[slot];
+            snapshot.statuses()[i] = statuses[slot];
+            snapshot.starts()[i] = starts[slot];
+            snapshot.durations()[i] = durations[slot];
+            snapshot.bytes()[i] = bytes[slot];
+        }
+        return snapshot;
+    }
+
+    private record Snapshot(int count, long dropped, String[] names, String[] threads, String[] windowKeys,
+                            String[] providers, String[] statuses, long[] starts, long[] durations, long[] bytes) {
+    }
+}
@@ -0,0 +1,27 @@
+package pl.weekendflyer.weekendFlightAgent.domain.scan;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * {@code GET /actuator/scantrace} - bieżąca zawartość {@link ScanTrace} jako Chrome trace-event JSON,
+ * do otwarcia w chrome://tracing albo ui.perfetto.dev.
+ */
+@Endpoint(id = "scantrace")
+@RequiredArgsConstructor
+public class ScanTraceEndpoint {
+
+    private final ScanTrace scanTrace;
+
+    @ReadOperation(produces = "application/json")
+    public Resource trace() {
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        scanTrace.writeChromeTrace(json);
+        return new ByteArrayResource(json.toByteArray());
+    }
+}
@@ -0,0 +1,101 @@
+package pl.weekendflyer.weekendFlightAgent.domain.subscription;
+
+import pl.weekendflyer.weekendFlightAgent.domain.model.Subscription;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Niemutowalny indeks subskrypcji. Numer subskrypcji to jej pozycja po rosnącym limicie ceny (bez limitu na końcu),
+ * więc subskrypcje z limitem {@code >= cena} to zawsze przedział {@code [k, n)} - jedno wyszukiwanie binarne
+ * po progach. Kierunki i fullDays to bitsety subskrypcji per wartość; kandydaci dla okna to ich iloczyn.
+ */
+public final class SubscriptionIndex {
+
+    private static final SubscriptionIndex EMPTY = new SubscriptionIndex(List.of());
+
+    private final Subscription[] subscriptions;
+    private final int[] caps;
+    private final Map<String, BitSet> byDestination = new HashMap<>();
+    private final Map<Integer, BitSet> byFullDays = new HashMap<>();
+
+    private SubscriptionIndex(List<Subscription> subscriptions) {
+        this.subscriptions = subscriptions.stream()
+                .sorted(Comparator.comparingInt(SubscriptionIndex::cap))
+                .toArray(Subscription[]::new);
+        this.caps = Arrays.stream(this.subscriptions).mapToInt(SubscriptionIndex::cap).toArray();
+        for (int i = 0; i < this.subscriptions.length; i++) {
+            for (String destination : this.subscriptions[i].destinations()) {
+                byDestination.computeIfAbsent(destination, key -> new BitSet(caps.length)).set(i);
+            }
+            for (Integer fullDays : this.subscriptions[i].fullDays()) {
+                byFullDays.computeIfAbsent(fullDays, key -> new BitSet(caps.length)).set(i);
+            }
+        }
+    }
+
+    public static SubscriptionIndex empty() {
+        return EMPTY;
+    }
+
+    public static SubscriptionIndex of(List<Subscription> subscriptions) {
+        return new SubscriptionIndex(subscriptions);
+    }
+
+    public int size() {
+        return subscriptions.length;
+    }
+
+    public Subscription get(int ordinal) {
+        return subscriptions[ordinal];
+    }
+
+    public Set<String> destinations() {
+        return Collections.unmodifiableSet(byDestination.keySet());
+    }
+
+    public Set<Integer> fullDays() {
+        return Collections.unmodifiableSet(byFullDays.keySet());
+    }
+
+    /**
+     * Subskrypcje obejmujące kierunek i długość okna (nowy bitset, wywołujący może go zmieniać).
+     */
+    public BitSet candidates(String destination, int fullDays) {
+        BitSet destinationBits = byDestination.get(destination);
+        BitSet fullDaysBits = byFullDays.get(fullDays);
+        if (destinationBits == null || fullDaysBits == null) {
+            return new BitSet();
+        }
+        BitSet candidates = (BitSet) destinationBits.clone();
+        candidates.and(fullDaysBits);
+        return candidates;
+    }
+
+    /**
+     * Pierwszy numer subskrypcji z limitem {@code >= pricePln}; wszystkie dalsze też go mają.
+     */
+    public int firstAffording(int pricePln) {
+        int low = 0;
+        int high = caps.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (caps[mid] < pricePln) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int cap(Subscription subscription) {
+        return subscription.maxPricePln() != null ? subscription.maxPricePln() : Integer.MAX_VALUE;
+    }
+}
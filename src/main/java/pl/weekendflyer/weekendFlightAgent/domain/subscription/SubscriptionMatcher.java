@@ -0,0 +1,89 @@
+package pl.weekendflyer.weekendFlightAgent.domain.subscription;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import pl.weekendflyer.weekendFlightAgent.domain.eval.TripEvaluator;
+import pl.weekendflyer.weekendFlightAgent.domain.model.CandidateWindow;
+import pl.weekendflyer.weekendFlightAgent.domain.model.FlightOffer;
+import pl.weekendflyer.weekendFlightAgent.domain.model.Subscription;
+import pl.weekendflyer.weekendFlightAgent.domain.model.SubscriptionMatch;
+import pl.weekendflyer.weekendFlightAgent.domain.model.TripConstraints;
+import pl.weekendflyer.weekendFlightAgent.domain.provider.OfferKeyGenerator;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.SubscriptionRepository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Dopasowuje oferty okna do subskrypcji z {@link SubscriptionIndex}: kandydaci z kierunku i fullDays są liczeni
+ * raz na okno, potem oferty od najtańszej zawężają ich progiem ceny, a reguły soboty sprawdza {@link TripEvaluator}
+ * tylko dla pozostałych. Subskrypcja dostaje najtańszą pasującą ofertę okna i wypada z dalszego sprawdzania.
+ * <p>
+ * Indeks jest przeładowywany z bazy przez {@link #refresh()} na początku planowania skanu.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class SubscriptionMatcher {
+
+    private final SubscriptionRepository repository;
+    private final TripEvaluator evaluator;
+
+    private volatile SubscriptionIndex index;
+
+    public SubscriptionIndex refresh() {
+        SubscriptionIndex refreshed = SubscriptionIndex.of(repository.findActive());
+        index = refreshed;
+        log.debug("SubscriptionMatcher: indexed {} subscriptions for {} destinations",
+                refreshed.size(), refreshed.destinations().size());
+        return refreshed;
+    }
+
+    public SubscriptionIndex index() {
+        SubscriptionIndex current = index;
+        return current != null ? current : refresh();
+    }
+
+    /**
+     * @param shared wspólne ograniczenia wyszukiwania, zawężane regułami subskrypcji
+     */
+    public List<SubscriptionMatch> match(CandidateWindow window, List<FlightOffer> offers, TripConstraints shared) {
+        SubscriptionIndex current = index();
+        if (current.size() == 0 || offers.isEmpty()) {
+            return List.of();
+        }
+        BitSet pending = current.candidates(window.destination(), window.fullDays());
+        if (pending.isEmpty()) {
+            return List.of();
+        }
+
+        List<FlightOffer> byPrice = offers.stream()
+                .filter(offer -> offer.pricePln() != null)
+                .sorted(Comparator.comparingInt(FlightOffer::pricePln))
+                .toList();
+        List<SubscriptionMatch> matches = new ArrayList<>();
+        for (FlightOffer offer : byPrice) {
+            int from = current.firstAffording(offer.pricePln());
+            pending.clear(0, from);
+            for (int ordinal = pending.nextSetBit(from); ordinal >= 0; ordinal = pending.nextSetBit(ordinal + 1)) {
+                Subscription subscription = current.get(ordinal);
+                TripConstraints constraints = subscription.constraints(shared);
+                if (evaluator.meetsHardConstraints(offer, constraints) && evaluator.isSaturdayFull(offer, constraints)) {
+                    matches.add(new SubscriptionMatch(subscription.id(), subscription.userId(), window.windowKey(),
+                            OfferKeyGenerator.generate(offer), offer.pricePln()));
+                    pending.clear(ordinal);
+                }
+            }
+            if (pending.isEmpty()) {
+                break;
+            }
+        }
+        return matches;
+    }
+
+    public void record(List<SubscriptionMatch> matches, Instant matchedAt) {
+        repository.recordMatches(matches, matchedAt);
+    }
+}
@@ -0,0 +1,101 @@
+package pl.weekendflyer.weekendFlightAgent.domain.timetable;
+
+import lombok.RequiredArgsConstructor;
+import pl.weekendflyer.weekendFlightAgent.domain.eval.TripEvaluator;
+import pl.weekendflyer.weekendFlightAgent.domain.model.FlightSegment;
+import pl.weekendflyer.weekendFlightAgent.domain.model.TripConstraints;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Połączenia bezpośrednie i z jedną przesiadką z {@link FlightTimetable} w jednym przebiegu po locie posortowanym
+ * po wylocie (connection scan). Pierwszy odcinek z lotniska źródłowego czeka w kolejce lotniska przesiadki; lot
+ * z tego lotniska do celu łączy się z odcinkami, które przyleciały co najmniej {@code minConnection} wcześniej.
+ * Odcinki starsze niż maksymalny czas podróży wypadają z kolejki, więc pamięć zależy od okna czasu, nie rozkładu.
+ * <p>
+ * Przy {@code maxStops >= 2} szukane są i tak najwyżej jedna przesiadka. Łańcuchy przechodzą reguły odcinka
+ * z {@link TripEvaluator} (czas, sobota, piątkowy przylot / niedzielny wylot).
+ */
+@RequiredArgsConstructor
+public class ConnectionScanner {
+
+    private final TripEvaluator evaluator;
+    private final Duration minConnection;
+
+    /**
+     * Wyloty z dowolnego {@code origins} do dowolnego {@code destinations}.
+     */
+    public List<List<FlightSegment>> outbound(FlightTimetable timetable, Collection<String> origins,
+                                              Collection<String> destinations, TripConstraints constraints) {
+        return scan(timetable, origins, destinations, constraints,
+                chain -> evaluator.acceptsOutboundRoute(chain, constraints));
+    }
+
+    /**
+     * Powroty z dowolnego {@code destinations} do dowolnego {@code origins}.
+     */
+    public List<List<FlightSegment>> inbound(FlightTimetable timetable, Collection<String> destinations,
+                                             Collection<String> origins, TripConstraints constraints) {
+        return scan(timetable, destinations, origins, constraints,
+                chain -> evaluator.acceptsInboundRoute(chain, constraints));
+    }
+
+    private List<List<FlightSegment>> scan(FlightTimetable timetable, Collection<String> sources, Collection<String> targets,
+                                           TripConstraints constraints, Predicate<List<FlightSegment>> rules) {
+        boolean connections = constraints.maxStops() > 0;
+        Duration maxDuration = Duration.ofMinutes(constraints.maxTotalDurationMinutesOneWay());
+        Map<String, Deque<FlightSegment>> firstLegsByHub = new HashMap<>();
+        List<List<FlightSegment>> chains = new ArrayList<>();
+
+        for (FlightSegment segment : timetable.segments()) {
+            if (connections && targets.contains(segment.arrivalAirport())) {
+                Deque<FlightSegment> firstLegs = firstLegsByHub.get(segment.departureAirport());
+                if (firstLegs != null) {
+                    connect(firstLegs, segment, maxDuration, rules, chains);
+                }
+            }
+            if (sources.contains(segment.departureAirport())) {
+                if (targets.contains(segment.arrivalAirport())) {
+                    List<FlightSegment> direct = List.of(segment);
+                    if (rules.test(direct)) {
+                        chains.add(direct);
+                    }
+                }
+                if (connections) {
+                    firstLegsByHub.computeIfAbsent(segment.arrivalAirport(), hub -> new ArrayDeque<>()).addLast(segment);
+                }
+            }
+        }
+        return chains;
+    }
+
+    /**
+     * {@code firstLegs} są w kolejności wylotu - czoło starsze niż {@code maxDuration} przed drugim odcinkiem
+     * nie połączy się już z żadnym późniejszym lotem.
+     */
+    private void connect(Deque<FlightSegment> firstLegs, FlightSegment second, Duration maxDuration,
+                         Predicate<List<FlightSegment>> rules, List<List<FlightSegment>> chains) {
+        while (!firstLegs.isEmpty()
+                && Duration.between(firstLegs.peekFirst().departureTime(), second.departureTime()).compareTo(maxDuration) > 0) {
+            firstLegs.pollFirst();
+        }
+        for (FlightSegment first : firstLegs) {
+            if (first.departureAirport().equals(second.arrivalAirport())
+                    || first.arrivalTime().plus(minConnection).isAfter(second.departureTime())) {
+                continue;
+            }
+            List<FlightSegment> chain = List.of(first, second);
+            if (rules.test(chain)) {
+                chains.add(chain);
+            }
+        }
+    }
+}
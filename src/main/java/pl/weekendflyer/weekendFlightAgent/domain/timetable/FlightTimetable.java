@@ -0,0 +1,102 @@
+package pl.weekendflyer.weekendFlightAgent.domain.timetable;
+
+import pl.weekendflyer.weekendFlightAgent.domain.model.FlightSegment;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Rozkład lotów posortowany po chwili wylotu (a potem przylotu) - wejście dla {@link ConnectionScanner}.
+ * <p>
+ * Plik: jeden lot na linię, {@code FROM,TO,wylot,przylot} z czasami w ISO-8601 ze strefą lub offsetem
+ * (np. {@code WAW,LIS,2026-01-16T18:00+01:00[Europe/Warsaw],2026-01-16T21:30Z[Europe/Lisbon]}).
+ * Puste linie i linie od {@code #} są pomijane.
+ */
+public final class FlightTimetable {
+
+    private static final Comparator<FlightSegment> BY_DEPARTURE = Comparator
+            .comparing((FlightSegment segment) -> segment.departureTime().toInstant())
+            .thenComparing(segment -> segment.arrivalTime().toInstant());
+
+    private static final FlightTimetable EMPTY = new FlightTimetable(List.of());
+
+    private final List<FlightSegment> segments;
+    private final LocalDate firstDate;
+    private final LocalDate lastDate;
+
+    private FlightTimetable(List<FlightSegment> sorted) {
+        this.segments = sorted;
+        this.firstDate = sorted.stream().map(FlightTimetable::departureDate).min(Comparator.naturalOrder()).orElse(null);
+        this.lastDate = sorted.stream().map(FlightTimetable::departureDate).max(Comparator.naturalOrder()).orElse(null);
+    }
+
+    public static FlightTimetable empty() {
+        return EMPTY;
+    }
+
+    public static FlightTimetable of(Collection<FlightSegment> segments) {
+        return new FlightTimetable(segments.stream().sorted(BY_DEPARTURE).toList());
+    }
+
+    public static FlightTimetable load(Path file) throws IOException {
+        List<FlightSegment> segments = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                segments.add(parse(line, file, lineNumber));
+            }
+        }
+        return of(segments);
+    }
+
+    public List<FlightSegment> segments() {
+        return segments;
+    }
+
+    public int size() {
+        return segments.size();
+    }
+
+    /**
+     * Czy dzień (lokalny dla lotniska wylotu) mieści się w zakresie dat rozkładu.
+     */
+    public boolean covers(LocalDate date) {
+        return firstDate != null && !date.isBefore(firstDate) && !date.isAfter(lastDate);
+    }
+
+    static LocalDate departureDate(FlightSegment segment) {
+        return segment.departureTime().toLocalDate();
+    }
+
+    private static FlightSegment parse(String line, Path file, int lineNumber) throws IOException {
+        String[] fields = line.split(",");
+        if (fields.length != 4) {
+            throw new IOException(file + ":" + lineNumber + ": expected FROM,TO,departure,arrival");
+        }
+        try {
+            FlightSegment segment = new FlightSegment(fields[0].strip(), fields[1].strip(),
+                    ZonedDateTime.parse(fields[2].strip()), ZonedDateTime.parse(fields[3].strip()));
+            if (!segment.arrivalTime().isAfter(segment.departureTime())) {
+                throw new IOException(file + ":" + lineNumber + ": arrival is not after departure");
+            }
+            return segment;
+        } catch (DateTimeParseException e) {
+            throw new IOException(file + ":" + lineNumber + ": " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package pl.weekendflyer.weekendFlightAgent.domain.timetable;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import pl.weekendflyer.weekendFlightAgent.domain.model.CandidateWindow;
+import pl.weekendflyer.weekendFlightAgent.domain.model.FlightSegment;
+import pl.weekendflyer.weekendFlightAgent.domain.model.TripConstraints;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Odsiewa okna, dla których rozkład nie ma żadnego wylotu w dniu wylotu albo żadnego powrotu w dniu powrotu
+ * spełniającego reguły weekendu - zanim provider zostanie zapytany o cenę. Jeden przebieg {@link ConnectionScanner}
+ * per kierunek dla wszystkich okien. Okna z dniem poza zakresem rozkładu przechodzą bez zmian.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class WeekendPrescreen {
+
+    private final FlightTimetable timetable;
+    private final ConnectionScanner scanner;
+
+    public List<CandidateWindow> filter(List<CandidateWindow> windows, TripConstraints constraints) {
+        if (timetable.size() == 0 || windows.isEmpty()) {
+            return windows;
+        }
+        Set<String> origins = new HashSet<>();
+        Set<String> destinations = new HashSet<>();
+        for (CandidateWindow window : windows) {
+            origins.add(window.origin());
+            destinations.add(window.destination());
+        }
+
+        Set<String> outboundDays = routeDays(scanner.outbound(timetable, origins, destinations, constraints));
+        Set<String> inboundDays = routeDays(scanner.inbound(timetable, destinations, origins, constraints));
+
+        List<CandidateWindow> feasible = windows.stream()
+                .filter(window -> !timetable.covers(window.departDate()) || !timetable.covers(window.returnDate())
+                        || (outboundDays.contains(routeDay(window.origin(), window.destination(), window.departDate()))
+                        && inboundDays.contains(routeDay(window.destination(), window.origin(), window.returnDate()))))
+                .toList();
+
+        log.info("WeekendPrescreen: {} of {} windows have a timetable connection ({} outbound, {} inbound route days)",
+                feasible.size(), windows.size(), outboundDays.size(), inboundDays.size());
+        return feasible;
+    }
+
+    private static Set<String> routeDays(List<List<FlightSegment>> chains) {
+        Set<String> days = new HashSet<>();
+        for (List<FlightSegment> chain : chains) {
+            FlightSegment first = chain.get(0);
+            days.add(routeDay(first.departureAirport(), chain.get(chain.size() - 1).arrivalAirport(),
+                    FlightTimetable.departureDate(first)));
+        }
+        return days;
+    }
+
+    private static String routeDay(String from, String to, LocalDate date) {
+        return from + "-" + to + "-" + date;
+    }
+}
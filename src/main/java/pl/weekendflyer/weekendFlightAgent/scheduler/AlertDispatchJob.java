@@ -0,0 +1,30 @@
+package pl.weekendflyer.weekendFlightAgent.scheduler;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pl.weekendflyer.weekendFlightAgent.domain.alert.AlertDispatcher;
+
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AlertDispatchJob {
+
+    private final AlertDispatcher alertDispatcher;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildRateLimiter() {
+        alertDispatcher.rebuildLimiter();
+        alertDispatcher.rebuildDeliveredFilter();
+    }
+
+    @Scheduled(fixedDelay = 1, initialDelay = 1, timeUnit = TimeUnit.MINUTES)
+    public void dispatchPendingAlerts() {
+        alertDispatcher.dispatchPending();
+    }
+}
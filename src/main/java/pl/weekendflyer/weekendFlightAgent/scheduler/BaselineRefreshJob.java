@@ -0,0 +1,18 @@
+package pl.weekendflyer.weekendFlightAgent.scheduler;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pl.weekendflyer.weekendFlightAgent.domain.deal.BaselineRefresher;
+
+@Component
+@RequiredArgsConstructor
+public class BaselineRefreshJob {
+
+    private final BaselineRefresher baselineRefresher;
+
+    @Scheduled(cron = "0 50 6 * * *", zone = "${agent.timezone:Europe/Warsaw}")
+    public void refreshBaselines() {
+        baselineRefresher.refresh();
+    }
+}
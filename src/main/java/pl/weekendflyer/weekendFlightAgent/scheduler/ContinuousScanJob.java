@@ -0,0 +1,82 @@
+package pl.weekendflyer.weekendFlightAgent.scheduler;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.TriggerContext;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+import pl.weekendflyer.weekendFlightAgent.config.AgentProperties;
+import pl.weekendflyer.weekendFlightAgent.config.AgentPropertiesHolder;
+import pl.weekendflyer.weekendFlightAgent.domain.planner.BudgetPacer;
+import pl.weekendflyer.weekendFlightAgent.domain.planner.WindowCheckPlanner;
+import pl.weekendflyer.weekendFlightAgent.domain.provider.FlightSearchService;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalTime;
+
+/**
+ * Tryb CONTINUOUS: co {@code scheduler.tickMinutes} planuje małą partię okien w ramach budżetu
+ * rozłożonego równomiernie na dobę, zamiast jednego przebiegu o 07:10. Tryb i tick czytane z
+ * {@link AgentPropertiesHolder#current()} przy każdym ticku - tak jak {@link DailyScanJob}, więc po
+ * przeładowaniu config.yaml działa dokładnie jeden z harmonogramów.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ContinuousScanJob implements SchedulingConfigurer {
+
+    private final Clock clock;
+    private final AgentPropertiesHolder agentPropertiesHolder;
+    private final WindowCheckPlanner windowCheckPlanner;
+    private final FlightSearchService flightSearchService;
+    private final ScanCycle scanCycle;
+    private final Environment environment;
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+        if (OneShotCommands.requested(environment)) {
+            return;
+        }
+
+        log.info("Continuous scan scheduler registered - mode={}, tick={}", scheduler().mode(), tickInterval());
+
+        taskRegistrar.addTriggerTask(this::tick, this::nextExecution);
+    }
+
+    void tick() {
+        AgentProperties.Scheduler scheduler = scheduler();
+        if (scheduler.mode() != AgentProperties.Scheduler.Mode.CONTINUOUS) {
+            log.debug("Continuous scan tick skipped - scheduler mode is {}", scheduler.mode());
+            return;
+        }
+        runTick(tickInterval());
+    }
+
+    void runTick(Duration tick) {
+        // budżet czytany co tick - zmiana dailyBudgetPerProvider w config.yaml działa bez restartu
+        BudgetPacer pacer = new BudgetPacer(windowCheckPlanner.dailyBudgetPerProvider(), tick);
+        int pacedTarget = pacer.pacedTarget(LocalTime.now(clock));
+        log.debug("Continuous scan tick - pacedTarget={}", pacedTarget);
+        scanCycle.run(flightSearchService.provider(), pacedTarget);
+    }
+
+    /**
+     * Stałe opóźnienie liczone od końca poprzedniego ticku, z aktualnym {@code tickMinutes}; pierwszy tick od razu.
+     */
+    private Instant nextExecution(TriggerContext context) {
+        Instant lastCompletion = context.lastCompletion();
+        return lastCompletion == null ? context.getClock().instant() : lastCompletion.plus(tickInterval());
+    }
+
+    private Duration tickInterval() {
+        return Duration.ofMinutes(scheduler().tickMinutes());
+    }
+
+    private AgentProperties.Scheduler scheduler() {
+        return agentPropertiesHolder.current().scheduler();
+    }
+}
@@ -2,69 +2,61 @@ package pl.weekendflyer.weekendFlightAgent.scheduler;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import pl.weekendflyer.weekendFlightAgent.config.AgentProperties;
-import pl.weekendflyer.weekendFlightAgent.domain.model.CandidateWindow;
-import pl.weekendflyer.weekendFlightAgent.domain.model.PlannerResult;
-import pl.weekendflyer.weekendFlightAgent.domain.planner.TripWindowGenerator;
+import pl.weekendflyer.weekendFlightAgent.config.AgentPropertiesHolder;
 import pl.weekendflyer.weekendFlightAgent.domain.planner.WindowCheckPlanner;
-
-import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import pl.weekendflyer.weekendFlightAgent.domain.provider.FlightSearchService;
+import pl.weekendflyer.weekendFlightAgent.domain.scan.ScanRunExecutor;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class DailyScanJob {
 
-    private static final String DEFAULT_PROVIDER = "default";
-
-    private final AgentProperties props;
-    private final TripWindowGenerator tripWindowGenerator;
+    private final AgentPropertiesHolder agentPropertiesHolder;
     private final WindowCheckPlanner windowCheckPlanner;
+    private final FlightSearchService flightSearchService;
+    private final ScanRunExecutor scanRunExecutor;
+    private final ScanCycle scanCycle;
+    private final Environment environment;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinishedScan() {
+        if (!agentPropertiesHolder.current().scan().resumeOnStartup() || OneShotCommands.requested(environment)) {
+            return;
+        }
+
+        scanRunExecutor.findUnfinished(flightSearchService.provider()).ifPresent(run -> {
+            log.info("Resuming unfinished scan run {} started at {}", run.getId(), run.getStartedAt());
+            scanCycle.resume(run);
+        });
+    }
 
     @Scheduled(cron = "0 10 7 * * *", zone = "${agent.timezone:Europe/Warsaw}")
+    public void scheduledDailyScan() {
+        AgentProperties.Scheduler scheduler = agentPropertiesHolder.current().scheduler();
+        if (scheduler.mode() != AgentProperties.Scheduler.Mode.CRON) {
+            log.debug("Daily scan skipped - scheduler mode is {}", scheduler.mode());
+            return;
+        }
+        runDailyScan();
+    }
+
     public void runDailyScan() {
+        AgentProperties props = agentPropertiesHolder.current();
         log.info("Daily scan started - origins={}, destinations={}, horizonDays={}",
                 props.origins(),
                 props.destinations().size(),
                 props.search().horizonDays()
         );
 
-        List<CandidateWindow> candidates = tripWindowGenerator.generate(
-                props.origins(),
-                props.destinations(),
-                props.search().horizonDays(),
-                props.search().fullDaysAllowed()
-        );
-
-        log.info("Generated {} candidate windows", candidates.size());
-
-        PlannerResult result = windowCheckPlanner.plan(DEFAULT_PROVIDER, candidates);
-
-        log.info("Planner result: totalCandidates={}, selectedCount={}, skippedRecentlyChecked={}, skippedBudget={}",
-                result.totalCandidates(),
-                result.selectedCount(),
-                result.skippedRecentlyChecked(),
-                result.skippedBudget()
-        );
-
-        logSelectedPerDestination(result.selected());
+        scanCycle.run(flightSearchService.provider(), windowCheckPlanner.dailyBudgetPerProvider());
 
         log.info("Daily scan finished.");
     }
-
-    private void logSelectedPerDestination(List<CandidateWindow> selected) {
-        Map<String, Long> countPerDestination = selected.stream()
-                .collect(Collectors.groupingBy(CandidateWindow::destination, Collectors.counting()));
-
-        countPerDestination.forEach((destination, count) ->
-                log.debug("Selected for {}: {} windows", destination, count));
-
-        if (!countPerDestination.isEmpty()) {
-            log.info("Selected windows per destination: {}", countPerDestination);
-        }
-    }
 }
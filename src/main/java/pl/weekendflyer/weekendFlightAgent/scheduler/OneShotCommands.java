@@ -0,0 +1,16 @@
+package pl.weekendflyer.weekendFlightAgent.scheduler;
+
+import org.springframework.core.env.Environment;
+
+/**
+ * Uruchomienie jednorazowe (run-once, eksport/import historii) - bez scheduli i wznawiania skanu, wyjście po runnerach.
+ */
+public final class OneShotCommands {
+
+    private OneShotCommands() {
+    }
+
+    public static boolean requested(Environment environment) {
+        return RunOnceRunner.isEnabled(environment) || PriceHistoryRunner.isRequested(environment);
+    }
+}
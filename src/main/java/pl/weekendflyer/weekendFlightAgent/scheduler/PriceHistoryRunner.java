@@ -0,0 +1,63 @@
+package pl.weekendflyer.weekendFlightAgent.scheduler;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import pl.weekendflyer.weekendFlightAgent.domain.history.PriceHistoryExporter;
+import pl.weekendflyer.weekendFlightAgent.domain.history.PriceHistoryImporter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+/**
+ * Eksport / import historii cen z linii poleceń, po czym aplikacja kończy działanie:
+ * {@code --agent.history.export=prices.pwh [--agent.history.since=2026-01-01]} albo {@code --agent.history.import=prices.pwh}.
+ */
+@Slf4j
+@Component
+public class PriceHistoryRunner implements ApplicationRunner {
+
+    static final String EXPORT_PROPERTY = "agent.history.export";
+    static final String IMPORT_PROPERTY = "agent.history.import";
+
+    private final String exportPath;
+    private final String importPath;
+    private final String since;
+    private final PriceHistoryExporter exporter;
+    private final PriceHistoryImporter importer;
+
+    public PriceHistoryRunner(
+            @Value("${" + EXPORT_PROPERTY + ":}") String exportPath,
+            @Value("${" + IMPORT_PROPERTY + ":}") String importPath,
+            @Value("${agent.history.since:}") String since,
+            PriceHistoryExporter exporter,
+            PriceHistoryImporter importer
+    ) {
+        this.exportPath = exportPath;
+        this.importPath = importPath;
+        this.since = since;
+        this.exporter = exporter;
+        this.importer = importer;
+    }
+
+    public static boolean isRequested(Environment environment) {
+        return environment.containsProperty(EXPORT_PROPERTY) || environment.containsProperty(IMPORT_PROPERTY);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        if (!exportPath.isBlank()) {
+            Instant from = since.isBlank() ? Instant.EPOCH : LocalDate.parse(since).atStartOfDay(ZoneOffset.UTC).toInstant();
+            exporter.export(Path.of(exportPath), from);
+        }
+        if (!importPath.isBlank()) {
+            importer.importFile(Path.of(importPath));
+        }
+    }
+}
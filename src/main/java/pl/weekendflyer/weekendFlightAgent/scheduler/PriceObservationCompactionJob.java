@@ -0,0 +1,18 @@
+package pl.weekendflyer.weekendFlightAgent.scheduler;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pl.weekendflyer.weekendFlightAgent.domain.history.PriceObservationCompactor;
+
+@Component
+@RequiredArgsConstructor
+public class PriceObservationCompactionJob {
+
+    private final PriceObservationCompactor priceObservationCompactor;
+
+    @Scheduled(cron = "0 20 5 * * *", zone = "${agent.timezone:Europe/Warsaw}")
+    public void compactObservations() {
+        priceObservationCompactor.compact();
+    }
+}
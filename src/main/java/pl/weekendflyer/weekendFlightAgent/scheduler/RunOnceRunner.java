@@ -0,0 +1,54 @@
+package pl.weekendflyer.weekendFlightAgent.scheduler;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import pl.weekendflyer.weekendFlightAgent.domain.alert.AlertDispatcher;
+import pl.weekendflyer.weekendFlightAgent.domain.model.AlertDispatchSummary;
+
+/**
+ * Tryb run-once ({@code --agent.run-once=true}): jeden dzienny scan i wysyłka alertów z outboxa,
+ * po czym aplikacja kończy działanie. Dla środowisk, w których każdy scan to osobny kontener.
+ */
+@Slf4j
+@Component
+public class RunOnceRunner implements ApplicationRunner {
+
+    public static final String PROPERTY = "agent.run-once";
+
+    private final boolean runOnce;
+    private final DailyScanJob dailyScanJob;
+    private final AlertDispatcher alertDispatcher;
+
+    public RunOnceRunner(
+            @Value("${" + PROPERTY + ":false}") boolean runOnce,
+            DailyScanJob dailyScanJob,
+            AlertDispatcher alertDispatcher
+    ) {
+        this.runOnce = runOnce;
+        this.dailyScanJob = dailyScanJob;
+        this.alertDispatcher = alertDispatcher;
+    }
+
+    public static boolean isEnabled(Environment environment) {
+        return environment.getProperty(PROPERTY, Boolean.class, false);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!runOnce) {
+            return;
+        }
+
+        log.info("Run-once mode - running daily scan and exiting");
+        dailyScanJob.runDailyScan();
+
+        // runnery działają przed ApplicationReadyEvent, więc limiter trzeba odtworzyć tutaj
+        alertDispatcher.rebuildLimiter();
+        AlertDispatchSummary summary = alertDispatcher.dispatchPending();
+        log.info("Run-once alerts: sent={}, failed={}, suppressed={}", summary.sent(), summary.failed(), summary.suppressed());
+    }
+}
@@ -0,0 +1,137 @@
+package pl.weekendflyer.weekendFlightAgent.scheduler;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import pl.weekendflyer.weekendFlightAgent.config.AgentProperties;
+import pl.weekendflyer.weekendFlightAgent.config.AgentPropertiesHolder;
+import pl.weekendflyer.weekendFlightAgent.domain.eval.TripConstraintsFactory;
+import pl.weekendflyer.weekendFlightAgent.domain.model.CandidateWindow;
+import pl.weekendflyer.weekendFlightAgent.domain.model.PlannerResult;
+import pl.weekendflyer.weekendFlightAgent.domain.model.ScanRun;
+import pl.weekendflyer.weekendFlightAgent.domain.model.ScanRunSummary;
+import pl.weekendflyer.weekendFlightAgent.domain.planner.TripWindowGenerator;
+import pl.weekendflyer.weekendFlightAgent.domain.planner.WindowCheckPlanner;
+import pl.weekendflyer.weekendFlightAgent.domain.scan.ScanMetrics;
+import pl.weekendflyer.weekendFlightAgent.domain.scan.ScanRunCoordinator;
+import pl.weekendflyer.weekendFlightAgent.domain.scan.ScanRunExecutor;
+import pl.weekendflyer.weekendFlightAgent.domain.scan.ScanTrace;
+import pl.weekendflyer.weekendFlightAgent.domain.subscription.SubscriptionIndex;
+import pl.weekendflyer.weekendFlightAgent.domain.subscription.SubscriptionMatcher;
+import pl.weekendflyer.weekendFlightAgent.domain.timetable.WeekendPrescreen;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Jeden cykl skanu wspólny dla trybu CRON i CONTINUOUS: dołącz do niezakończonego scan_run
+ * albo zaplanuj nowy w ramach limitu budżetu, a następnie wykonaj go.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ScanCycle {
+
+    private final AgentPropertiesHolder agentPropertiesHolder;
+    private final TripWindowGenerator tripWindowGenerator;
+    private final WeekendPrescreen weekendPrescreen;
+    private final TripConstraintsFactory tripConstraintsFactory;
+    private final SubscriptionMatcher subscriptionMatcher;
+    private final WindowCheckPlanner windowCheckPlanner;
+    private final ScanRunCoordinator scanRunCoordinator;
+    private final ScanRunExecutor scanRunExecutor;
+    private final ScanMetrics scanMetrics;
+    private final ScanTrace scanTrace;
+
+    public Optional<ScanRunSummary> run(String provider, int budgetLimit) {
+        try {
+            return scanMetrics.time(ScanMetrics.Stage.CYCLE, () -> {
+                Optional<ScanRun> run = scanRunCoordinator.joinOrPlan(provider, budgetLimit, budget -> planWindows(provider, budget));
+                return run.map(scanRun -> {
+                    ScanRunSummary summary = scanRunExecutor.execute(scanRun);
+                    logSummary(summary);
+                    return summary;
+                });
+            });
+        } finally {
+            scanTrace.cycleFinished();
+        }
+    }
+
+    public void resume(ScanRun run) {
+        try {
+            logSummary(scanRunExecutor.recover(run));
+        } finally {
+            scanTrace.cycleFinished();
+        }
+    }
+
+    private List<CandidateWindow> planWindows(String provider, int budget) {
+        AgentProperties props = agentPropertiesHolder.current();
+        SubscriptionIndex subscriptions = subscriptionMatcher.refresh();
+        List<CandidateWindow> generated = scanMetrics.time(ScanMetrics.Stage.GENERATE, () -> tripWindowGenerator.generate(
+                props.origins(),
+                union(props.destinations(), subscriptions.destinations()),
+                props.search().horizonDays(),
+                union(props.search().fullDaysAllowed(), subscriptions.fullDays())
+        ));
+        scanMetrics.candidatesGenerated(generated.size());
+
+        log.info("Generated {} candidate windows", generated.size());
+
+        List<CandidateWindow> candidates = scanMetrics.time(ScanMetrics.Stage.PRESCREEN,
+                () -> weekendPrescreen.filter(generated, tripConstraintsFactory.current()));
+        scanMetrics.prescreened(generated.size(), candidates.size());
+
+        PlannerResult result = scanMetrics.time(ScanMetrics.Stage.PLAN, () -> windowCheckPlanner.plan(provider, candidates, budget));
+        scanMetrics.planned(result);
+
+        log.info("Planner result: totalCandidates={}, selectedCount={}, skippedRecentlyChecked={}, skippedBudget={}",
+                result.totalCandidates(),
+                result.selectedCount(),
+                result.skippedRecentlyChecked(),
+                result.skippedBudget()
+        );
+
+        logSelectedPerDestination(result.selected());
+
+        return result.selected();
+    }
+
+    /**
+     * Kierunki i fullDays subskrypcji dokładane do konfiguracji - okno wspólne dla wielu użytkowników jest
+     * generowane i sprawdzane raz.
+     */
+    private static <T extends Comparable<T>> List<T> union(List<T> configured, Collection<T> subscribed) {
+        LinkedHashSet<T> all = new LinkedHashSet<>(configured);
+        subscribed.stream().sorted().forEach(all::add);
+        return List.copyOf(all);
+    }
+
+    private void logSummary(ScanRunSummary summary) {
+        log.info("Scan run {}: processed={}, done={}, failed={}, observations={}, completed={}",
+                summary.scanRunId(),
+                summary.processed(),
+                summary.done(),
+                summary.failed(),
+                summary.observationsRecorded(),
+                summary.completed()
+        );
+    }
+
+    private void logSelectedPerDestination(List<CandidateWindow> selected) {
+        Map<String, Long> countPerDestination = selected.stream()
+                .collect(Collectors.groupingBy(CandidateWindow::destination, Collectors.counting()));
+
+        countPerDestination.forEach((destination, count) ->
+                log.debug("Selected for {}: {} windows", destination, count));
+
+        if (!countPerDestination.isEmpty()) {
+            log.info("Selected windows per destination: {}", countPerDestination);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package pl.weekendflyer.weekendFlightAgent.scheduler;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.WindowLatestPriceStore;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Odświeża lustro {@code window_latest_price} o zmiany innych węzłów i usuwa z niego okna, których wylot minął.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WindowLatestPriceRefreshJob {
+
+    private final WindowLatestPriceStore windowLatestPriceStore;
+
+    @Scheduled(
+            fixedDelayString = "${agent.latest-price.refresh-interval-seconds:60}",
+            initialDelayString = "${agent.latest-price.refresh-interval-seconds:60}",
+            timeUnit = TimeUnit.SECONDS
+    )
+    public void refreshLatestPrices() {
+        try {
+            windowLatestPriceStore.refresh();
+        } catch (RuntimeException e) {
+            log.warn("Latest price mirror refresh failed, will retry: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package pl.weekendflyer.weekendFlightAgent.scheduler;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.WindowCheckStore;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind lokalnego stanu okien do {@code window_check}; dla sklepów zapisujących od razu nic nie robi.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WindowStateFlushJob {
+
+    private final WindowCheckStore windowCheckStore;
+
+    @Scheduled(
+            fixedDelayString = "${agent.window-state.flush-interval-seconds:5}",
+            initialDelayString = "${agent.window-state.flush-interval-seconds:5}",
+            timeUnit = TimeUnit.SECONDS
+    )
+    public void flushWindowState() {
+        try {
+            windowCheckStore.flush();
+        } catch (RuntimeException e) {
+            log.warn("Window state flush failed, will retry: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,7 @@
+-- =========================
+-- window_check: drop the unused (provider, next_check_at) index from V4
+-- =========================
+-- The planner loads window_check by (provider, window_key) for every candidate, because it also needs
+-- volatility and check_count of windows that are not due yet, and filters next_check_at in memory.
+-- No query filters on next_check_at, so the index only added write cost to every upsert.
+DROP INDEX IF EXISTS ix_window_check_provider_next_check;
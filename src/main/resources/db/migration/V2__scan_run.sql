@@ -0,0 +1,40 @@
+-- =========================
+-- scan_run (checkpointed scans)
+-- =========================
+CREATE TABLE scan_run (
+  id BIGSERIAL PRIMARY KEY,
+  provider TEXT NOT NULL,
+  status TEXT NOT NULL,
+  planned_count INTEGER NOT NULL DEFAULT 0,
+  started_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+  finished_at TIMESTAMPTZ NULL
+);
+
+CREATE INDEX ix_scan_run_provider_status
+  ON scan_run(provider, status, started_at);
+
+
+-- =========================
+-- scan_run_window (per-window status: PLANNED / IN_FLIGHT / DONE / FAILED)
+-- =========================
+CREATE SEQUENCE scan_run_window_id_seq INCREMENT BY 50;
+
+CREATE TABLE scan_run_window (
+  id BIGINT PRIMARY KEY DEFAULT nextval('scan_run_window_id_seq'),
+  scan_run_id BIGINT NOT NULL REFERENCES scan_run(id),
+  origin CHAR(3) NOT NULL,
+  destination CHAR(3) NOT NULL,
+  depart_date DATE NOT NULL,
+  return_date DATE NOT NULL,
+  window_key TEXT NOT NULL,
+  status TEXT NOT NULL,
+  attempts INTEGER NOT NULL DEFAULT 0,
+  error_message TEXT NULL,
+  updated_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+  CONSTRAINT uq_scan_run_window UNIQUE (scan_run_id, window_key)
+);
+
+ALTER SEQUENCE scan_run_window_id_seq OWNED BY scan_run_window.id;
+
+CREATE INDEX ix_scan_run_window_run_status
+  ON scan_run_window(scan_run_id, status);
@@ -0,0 +1,20 @@
+-- =========================
+-- scan_run_window as a shared work queue (claimed with FOR UPDATE SKIP LOCKED)
+-- =========================
+ALTER TABLE scan_run_window ADD COLUMN claimed_by TEXT NULL;
+
+CREATE INDEX ix_scan_run_window_claimable
+  ON scan_run_window(scan_run_id, id)
+  WHERE status IN ('PLANNED', 'IN_FLIGHT');
+
+
+-- =========================
+-- provider_budget (daily provider budget shared across nodes)
+-- =========================
+CREATE TABLE provider_budget (
+  provider TEXT NOT NULL,
+  budget_date DATE NOT NULL,
+  used INTEGER NOT NULL DEFAULT 0,
+  updated_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+  CONSTRAINT pk_provider_budget PRIMARY KEY (provider, budget_date)
+);
@@ -0,0 +1,30 @@
+-- =========================
+-- window_check: adaptive recheck (EWMA of the cheapest price per check)
+-- =========================
+ALTER TABLE window_check ADD COLUMN price_ewma DOUBLE PRECISION NULL;
+ALTER TABLE window_check ADD COLUMN price_ewm_var DOUBLE PRECISION NULL;
+ALTER TABLE window_check ADD COLUMN price_samples INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE window_check ADD COLUMN recheck_interval_hours INTEGER NULL;
+ALTER TABLE window_check ADD COLUMN next_check_at TIMESTAMPTZ NULL;
+
+CREATE INDEX ix_window_check_provider_next_check
+  ON window_check(provider, next_check_at);
+
+-- Seed statistics from the last 30 days of observations (cheapest price per window per day)
+WITH daily AS (
+  SELECT provider, window_key, date_trunc('day', observed_at) AS observed_day, MIN(price_pln) AS price
+  FROM price_observation
+  WHERE observed_at > now() - INTERVAL '30 days'
+  GROUP BY provider, window_key, date_trunc('day', observed_at)
+),
+stats AS (
+  SELECT provider, window_key, AVG(price) AS mean, VAR_POP(price) AS variance, COUNT(*) AS samples
+  FROM daily
+  GROUP BY provider, window_key
+)
+UPDATE window_check w
+SET price_ewma = s.mean,
+    price_ewm_var = s.variance,
+    price_samples = s.samples
+FROM stats s
+WHERE w.provider = s.provider AND w.window_key = s.window_key;
@@ -0,0 +1,14 @@
+-- =========================
+-- deal_outbox (transactional outbox drained by the alert relay)
+-- =========================
+CREATE TABLE deal_outbox (
+  id BIGSERIAL PRIMARY KEY,
+  deal_id BIGINT NOT NULL REFERENCES deal(id),
+  offer_key TEXT NOT NULL,
+  attempts INTEGER NOT NULL DEFAULT 0,
+  available_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+  created_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+CREATE INDEX ix_deal_outbox_available
+  ON deal_outbox(available_at, id);
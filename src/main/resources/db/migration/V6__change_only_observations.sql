@@ -0,0 +1,21 @@
+-- =========================
+-- change-only price_observation: a row is written only when the price changes or the heartbeat expires
+-- =========================
+
+-- number of checks the row stands for (unchanged rechecks are folded in when the next row is written)
+ALTER TABLE price_observation ADD COLUMN checks INTEGER NOT NULL DEFAULT 1;
+
+-- last written price per offer and unchanged rechecks since then; small and updated in place (HOT)
+CREATE TABLE offer_last_seen (
+  offer_key TEXT PRIMARY KEY,
+  price_pln INTEGER NOT NULL,
+  observed_at TIMESTAMPTZ NOT NULL,
+  last_seen_at TIMESTAMPTZ NOT NULL,
+  pending_checks INTEGER NOT NULL DEFAULT 0
+) WITH (fillfactor = 70);
+
+-- seed from the latest row per offer (ix_price_obs_offer_time), so existing offers are not rewritten after deploy
+INSERT INTO offer_last_seen (offer_key, price_pln, observed_at, last_seen_at)
+SELECT DISTINCT ON (offer_key) offer_key, price_pln, observed_at, observed_at
+FROM price_observation
+ORDER BY offer_key, observed_at DESC;
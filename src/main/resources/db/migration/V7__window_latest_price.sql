@@ -0,0 +1,30 @@
+-- =========================
+-- window_latest_price: current cheapest offer per (provider, window), upserted on ingest
+-- =========================
+CREATE TABLE window_latest_price (
+  provider TEXT NOT NULL,
+  window_key TEXT NOT NULL,
+  origin CHAR(3) NOT NULL,
+  destination CHAR(3) NOT NULL,
+  depart_date DATE NOT NULL,
+  return_date DATE NOT NULL,
+  offer_key TEXT NOT NULL,
+  price_pln INTEGER NOT NULL,
+  -- price before the last change; unchanged rechecks keep it
+  previous_price_pln INTEGER NULL,
+  first_observed_at TIMESTAMPTZ NOT NULL,
+  last_observed_at TIMESTAMPTZ NOT NULL,
+  CONSTRAINT pk_window_latest_price PRIMARY KEY (provider, window_key)
+) WITH (fillfactor = 70);
+
+CREATE INDEX ix_window_latest_price_depart_date
+  ON window_latest_price(depart_date);
+
+-- seed from history: cheapest row at the latest observation time of each window
+INSERT INTO window_latest_price (provider, window_key, origin, destination, depart_date, return_date,
+                                 offer_key, price_pln, first_observed_at, last_observed_at)
+SELECT DISTINCT ON (provider, window_key)
+       provider, window_key, origin, destination, depart_date, return_date, offer_key, price_pln,
+       MIN(observed_at) OVER (PARTITION BY provider, window_key), observed_at
+FROM price_observation
+ORDER BY provider, window_key, observed_at DESC, price_pln;
@@ -0,0 +1,35 @@
+-- =========================
+-- subscription: per-user watchlist (destinations, fullDays, price cap, Saturday rule)
+-- =========================
+CREATE TABLE subscription (
+  id BIGSERIAL PRIMARY KEY,
+  user_id TEXT NOT NULL,
+  destinations TEXT[] NOT NULL,
+  full_days INTEGER[] NOT NULL,
+  -- NULL = agent-wide hardCapPricePLN only
+  max_price_pln INTEGER NULL,
+  require_no_flight_on_saturday BOOLEAN NOT NULL DEFAULT TRUE,
+  latest_arrival_on_friday_local TIME NOT NULL DEFAULT '22:00',
+  earliest_departure_on_sunday_local TIME NOT NULL DEFAULT '06:00',
+  active BOOLEAN NOT NULL DEFAULT TRUE,
+  created_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+CREATE INDEX ix_subscription_user
+  ON subscription(user_id);
+
+-- =========================
+-- subscription_match: cheapest matching offer per subscription and offer, for per-user notifications
+-- =========================
+CREATE TABLE subscription_match (
+  id BIGSERIAL PRIMARY KEY,
+  subscription_id BIGINT NOT NULL REFERENCES subscription(id) ON DELETE CASCADE,
+  window_key TEXT NOT NULL,
+  offer_key TEXT NOT NULL,
+  price_pln INTEGER NOT NULL,
+  matched_at TIMESTAMPTZ NOT NULL,
+  CONSTRAINT uq_subscription_match_offer UNIQUE (subscription_id, offer_key)
+);
+
+CREATE INDEX ix_subscription_match_matched_at
+  ON subscription_match(matched_at);
@@ -0,0 +1,38 @@
+-- =========================
+-- price_observation_daily: roll-up of aged price_observation rows per window and UTC day
+-- =========================
+CREATE TABLE price_observation_daily (
+  window_key TEXT NOT NULL,
+  observed_day DATE NOT NULL,
+  origin CHAR(3) NOT NULL,
+  destination CHAR(3) NOT NULL,
+  full_days SMALLINT NOT NULL,
+  departure_month DATE NOT NULL,
+  min_price_pln INTEGER NOT NULL,
+  max_price_pln INTEGER NOT NULL,
+  -- weighted by checks, like baseline
+  median_price_pln INTEGER NOT NULL,
+  -- checks represented by the compacted rows
+  checks INTEGER NOT NULL,
+  -- raw rows compacted
+  observations INTEGER NOT NULL,
+  CONSTRAINT pk_price_observation_daily PRIMARY KEY (window_key, observed_day)
+);
+
+CREATE INDEX ix_price_obs_daily_segment_day
+  ON price_observation_daily(origin, destination, full_days, departure_month, observed_day);
+
+-- block-range index: lets the compaction find one day of rows without a fourth B-tree on the hot table
+CREATE INDEX ix_price_obs_observed_brin
+  ON price_observation USING brin (observed_at);
+
+-- compaction cursor: every UTC day before next_day is already rolled up
+CREATE TABLE price_observation_compaction (
+  id SMALLINT PRIMARY KEY DEFAULT 1 CHECK (id = 1),
+  next_day DATE NOT NULL,
+  updated_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+INSERT INTO price_observation_compaction (next_day)
+SELECT COALESCE(MIN((observed_at AT TIME ZONE 'UTC')::date), (now() AT TIME ZONE 'UTC')::date)
+FROM price_observation;
@@ -43,7 +43,14 @@ class FlywayMigrationIntegrationTest {
             "price_observation",
             "baseline",
             "deal",
-            "notification_log"
+            "notification_log",
+            "scan_run",
+            "scan_run_window",
+            "provider_budget",
+            "deal_outbox",
+            "offer_last_seen", "window_latest_price",
+            "subscription", "subscription_match",
+            "price_observation_daily", "price_observation_compaction"
         };
 
         for (String tableName : expectedTables) {
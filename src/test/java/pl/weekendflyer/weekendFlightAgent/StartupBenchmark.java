@@ -0,0 +1,109 @@
+package pl.weekendflyer.weekendFlightAgent;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Czas do pierwszego scanu w trybie run-once: zwykły jar kontra jar po AOT z archiwum AppCDS.
+ * Wymaga bazy z docker-compose i wcześniejszego {@code ./mvnw package -Pcds -DskipTests}.
+ * Uruchamianie: {@code ./mvnw test -Pbenchmark -Dtest=StartupBenchmark}
+ */
+@Tag("benchmark")
+class StartupBenchmark {
+
+    private static final Path CDS_DIRECTORY = Path.of("target", "cds");
+    private static final String FIRST_SCAN_MARKER = "Daily scan started";
+    private static final int WARMUP_ITERATIONS = 1;
+    private static final int MEASURED_ITERATIONS = 5;
+
+    @Test
+    void timeToFirstScanDefaultVersusAotWithCds() throws Exception {
+        Path cdsJar = extractedJar();
+        Path defaultJar = Path.of("target").resolve(cdsJar.getFileName());
+        assumeTrue(Files.exists(defaultJar), "Run ./mvnw package -Pcds -DskipTests first");
+
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        List<String> defaultCommand = List.of(java, "-jar", defaultJar.toString(), "--agent.run-once=true");
+        List<String> cdsCommand = List.of(java,
+                "-XX:SharedArchiveFile=" + CDS_DIRECTORY.resolve("application.jsa"),
+                "-Dspring.aot.enabled=true",
+                "-jar", cdsJar.toString(), "--agent.run-once=true");
+
+        Measurement plain = measure(defaultCommand);
+        Measurement cds = measure(cdsCommand);
+
+        System.out.printf("default    : time-to-first-scan median %6.0f ms, total %6.0f ms%n", plain.firstScanMillis(), plain.totalMillis());
+        System.out.printf("AOT + CDS  : time-to-first-scan median %6.0f ms, total %6.0f ms%n", cds.firstScanMillis(), cds.totalMillis());
+
+        assertTrue(cds.firstScanMillis() < plain.firstScanMillis(), "AOT + CDS should reach the first scan sooner");
+    }
+
+    private Path extractedJar() throws IOException {
+        assumeTrue(Files.exists(CDS_DIRECTORY.resolve("application.jsa")), "Run ./mvnw package -Pcds -DskipTests first");
+        try (Stream<Path> files = Files.list(CDS_DIRECTORY)) {
+            return files.filter(file -> file.toString().endsWith(".jar")).findFirst().orElseThrow();
+        }
+    }
+
+    private Measurement measure(List<String> command) throws Exception {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            runOnce(command);
+        }
+
+        double[] firstScan = new double[MEASURED_ITERATIONS];
+        double[] total = new double[MEASURED_ITERATIONS];
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            double[] result = runOnce(command);
+            firstScan[i] = result[0];
+            total[i] = result[1];
+        }
+
+        Arrays.sort(firstScan);
+        Arrays.sort(total);
+        return new Measurement(firstScan[MEASURED_ITERATIONS / 2], total[MEASURED_ITERATIONS / 2]);
+    }
+
+    /**
+     * @return [ms do logu pierwszego scanu, ms do zakończenia procesu]
+     */
+    private double[] runOnce(List<String> command) throws Exception {
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(new ArrayList<>(command)).redirectErrorStream(true).start();
+
+        long firstScanAt = -1;
+        try (BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = output.readLine()) != null) {
+                if (firstScanAt < 0 && line.contains(FIRST_SCAN_MARKER)) {
+                    firstScanAt = System.nanoTime();
+                }
+            }
+        }
+
+        assertTrue(process.waitFor(2, TimeUnit.MINUTES), "Run-once process did not exit");
+        long end = System.nanoTime();
+        assertEquals(0, process.exitValue());
+        assertTrue(firstScanAt > 0, "Process finished without starting a scan");
+
+        return new double[]{(firstScanAt - start) / 1_000_000.0, (end - start) / 1_000_000.0};
+    }
+
+    private record Measurement(double firstScanMillis, double totalMillis) {
+    }
+}
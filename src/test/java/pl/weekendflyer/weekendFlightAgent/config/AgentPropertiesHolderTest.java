@@ -0,0 +1,101 @@
+package pl.weekendflyer.weekendFlightAgent.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AgentPropertiesHolderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path configFile;
+    private String baseConfig;
+    private AgentPropertiesHolder holder;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        try (InputStream inputStream = new ClassPathResource("config.yaml").getInputStream()) {
+            baseConfig = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        configFile = tempDir.resolve("config.yaml");
+        Files.writeString(configFile, baseConfig);
+
+        AgentPropertiesLoader loader = new AgentPropertiesLoader("file:" + configFile, new DefaultResourceLoader());
+        holder = loader.agentPropertiesHolder();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        holder.close();
+    }
+
+    @Test
+    void shouldLoadConfigFromExternalPath() {
+        assertEquals(List.of("WAW"), holder.current().origins());
+    }
+
+    @Test
+    void shouldExposeImmutableListsInSnapshot() {
+        AgentProperties snapshot = holder.current();
+
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.origins().add("KRK"));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.destinations().clear());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.search().fullDaysAllowed().add(9));
+    }
+
+    @Test
+    void shouldSwapSnapshotOnValidChange() throws IOException {
+        AgentProperties before = holder.current();
+        Files.writeString(configFile, baseConfig.replace("dailyBudgetPerProvider: 100", "dailyBudgetPerProvider: 45"));
+
+        assertTrue(holder.reload());
+
+        assertEquals(45, holder.current().planner().dailyBudgetPerProvider());
+        assertEquals(100, before.planner().dailyBudgetPerProvider(), "Previous snapshot must stay immutable");
+    }
+
+    @Test
+    void shouldKeepPreviousSnapshotWhenNewVersionIsInvalid() throws IOException {
+        AgentProperties before = holder.current();
+        Files.writeString(configFile, baseConfig.replace("- \"WAW\"", "- \"warsaw\""));
+
+        assertFalse(holder.reload());
+
+        assertSame(before, holder.current());
+    }
+
+    @Test
+    void shouldKeepPreviousSnapshotWhenYamlIsBroken() throws IOException {
+        AgentProperties before = holder.current();
+        Files.writeString(configFile, "agent:\n  origins: [\n");
+
+        assertFalse(holder.reload());
+
+        assertSame(before, holder.current());
+    }
+
+    @Test
+    void shouldReloadWhenWatchedFileChanges() throws Exception {
+        Files.writeString(configFile, baseConfig.replace("dailyBudgetPerProvider: 100", "dailyBudgetPerProvider: 12"));
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (holder.current().planner().dailyBudgetPerProvider() != 12 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        assertEquals(12, holder.current().planner().dailyBudgetPerProvider());
+    }
+}
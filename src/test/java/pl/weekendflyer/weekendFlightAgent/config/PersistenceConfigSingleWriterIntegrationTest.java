@@ -0,0 +1,79 @@
+package pl.weekendflyer.weekendFlightAgent.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.ScanWorkQueueRepository;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Zegar i wiersze w dalekiej przyszłości - ślady innych testów w kolejce nie wpływają na wynik.
+ */
+@SpringBootTest
+class PersistenceConfigSingleWriterIntegrationTest {
+
+    private static final Instant NOW = Instant.parse("2199-06-01T12:00:00Z");
+    private static final Duration LEASE = Duration.ofMinutes(30);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ScanWorkQueueRepository scanWorkQueueRepository;
+
+    private final Clock clock = Clock.fixed(NOW, ZoneOffset.UTC);
+    private final String provider = "single-writer-" + System.nanoTime();
+    private long runId;
+
+    @BeforeEach
+    void setUp() {
+        runId = jdbcTemplate.queryForObject(
+                "INSERT INTO scan_run (provider, status, started_at) VALUES (?, 'RUNNING', ?) RETURNING id",
+                Long.class, provider, Timestamp.from(NOW));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM scan_run_window WHERE scan_run_id = ?", runId);
+        jdbcTemplate.update("DELETE FROM scan_run WHERE id = ?", runId);
+    }
+
+    @Test
+    void shouldRejectWindowStateFileWhileAnotherNodeHoldsScanWindows() {
+        window("WAW-LIS-a", "node-other", "IN_FLIGHT", NOW.minus(Duration.ofMinutes(5)));
+
+        IllegalStateException error = assertThrows(IllegalStateException.class, () ->
+                PersistenceConfig.requireSingleWriter(scanWorkQueueRepository, "node-self", LEASE, clock));
+        assertTrue(error.getMessage().contains("node-other"));
+    }
+
+    @Test
+    void shouldOnlyWarnAboutFinishedOrExpiredWorkOfOtherNodes() {
+        window("WAW-LIS-a", "node-other", "DONE", NOW.minus(Duration.ofMinutes(5)));
+        window("WAW-LIS-b", "node-other", "IN_FLIGHT", NOW.minus(Duration.ofHours(2)));
+        window("WAW-LIS-c", "node-self", "IN_FLIGHT", NOW.minus(Duration.ofMinutes(5)));
+
+        assertDoesNotThrow(() -> PersistenceConfig.requireSingleWriter(scanWorkQueueRepository, "node-self", LEASE, clock));
+        assertEquals(List.of("node-other"),
+                scanWorkQueueRepository.findOtherClaimers("node-self", NOW.minus(Duration.ofDays(1)), false));
+    }
+
+    private void window(String windowKey, String claimedBy, String status, Instant updatedAt) {
+        jdbcTemplate.update("""
+                INSERT INTO scan_run_window (scan_run_id, origin, destination, depart_date, return_date, window_key,
+                                             status, claimed_by, updated_at)
+                VALUES (?, 'WAW', 'LIS', DATE '2199-06-12', DATE '2199-06-16', ?, ?, ?, ?)
+                """, runId, windowKey, status, claimedBy, Timestamp.from(updatedAt));
+    }
+}
@@ -0,0 +1,310 @@
+package pl.weekendflyer.weekendFlightAgent.domain.alert;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.weekendflyer.weekendFlightAgent.domain.dedupe.OfferKeyFilter;
+import pl.weekendflyer.weekendFlightAgent.domain.model.AlertDispatchSummary;
+import pl.weekendflyer.weekendFlightAgent.domain.model.Deal;
+import pl.weekendflyer.weekendFlightAgent.domain.model.DealStatus;
+import pl.weekendflyer.weekendFlightAgent.domain.model.NotificationLogEntry;
+import pl.weekendflyer.weekendFlightAgent.domain.model.OutboxMessage;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.DealOutboxRepository;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.DealRepository;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.NotificationLogRepository;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AlertDispatcherTest {
+
+    private static final ZoneId WARSAW_ZONE = ZoneId.of("Europe/Warsaw");
+    private static final Instant NOW = Instant.parse("2026-01-14T12:00:00Z");
+    private static final Duration CLAIM_LEASE = Duration.ofMinutes(10);
+    private static final Instant LEASED_UNTIL = NOW.plus(CLAIM_LEASE);
+
+    @Mock
+    private DealRepository dealRepository;
+    @Mock
+    private DealOutboxRepository dealOutboxRepository;
+    @Mock
+    private NotificationLogRepository notificationLogRepository;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private StubAlertChannel channel;
+    private ExecutorService executor;
+    private final AtomicBoolean inTransaction = new AtomicBoolean();
+
+    @BeforeEach
+    void setUp() {
+        channel = new StubAlertChannel();
+        executor = Executors.newFixedThreadPool(2);
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation -> {
+            inTransaction.set(true);
+            try {
+                return invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null);
+            } finally {
+                inTransaction.set(false);
+            }
+        });
+        lenient().doAnswer(invocation -> {
+            inTransaction.set(true);
+            try {
+                invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+                return null;
+            } finally {
+                inTransaction.set(false);
+            }
+        }).when(transactionTemplate).executeWithoutResult(any());
+        lenient().when(notificationLogRepository.findDeliveredOfferKeys(any(), any())).thenReturn(Set.of());
+    }
+
+    @Test
+    void shouldSendDealsAndRecordOutcomesInOneBatch() {
+        AlertDispatcher dispatcher = dispatcher(3, 1, 3);
+        when(dealOutboxRepository.claim(50, NOW, LEASED_UNTIL)).thenReturn(List.of(message(1L, "LIS"), message(2L, "BCN")));
+
+        AlertDispatchSummary summary = dispatcher.dispatchPending();
+
+        assertEquals(new AlertDispatchSummary(2, 2, 0, 0), summary);
+        assertEquals(2, channel.sent().size());
+        List<NotificationLogEntry> logged = capturedLogEntries();
+        assertEquals(2, logged.size());
+        assertTrue(logged.stream().allMatch(NotificationLogEntry::success));
+        assertTrue(logged.stream().allMatch(entry -> entry.channel().equals("STUB")));
+        verify(notificationLogRepository, times(1)).insertAll(any());
+        verify(dealRepository).updateStatus(argThat(ids -> ids.containsAll(List.of(1L, 2L))), eq(DealStatus.NOTIFIED));
+        verify(dealOutboxRepository).delete(argThat(ids -> ids.containsAll(List.of(101L, 102L))));
+    }
+
+    @Test
+    void shouldSendOutsideTransactionAfterClaimCommits() {
+        AlertDispatcher dispatcher = dispatcher(3, 1, 3);
+        channel.beforeSend(deal -> assertFalse(inTransaction.get(), "Channel must not be called while rows are locked"));
+        when(dealOutboxRepository.claim(50, NOW, LEASED_UNTIL)).thenReturn(List.of(message(1L, "LIS")));
+
+        AlertDispatchSummary summary = dispatcher.dispatchPending();
+
+        assertEquals(1, summary.sent());
+        InOrder order = inOrder(transactionTemplate, dealOutboxRepository, notificationLogRepository);
+        order.verify(transactionTemplate).execute(any());
+        order.verify(dealOutboxRepository).claim(50, NOW, LEASED_UNTIL);
+        order.verify(transactionTemplate).executeWithoutResult(any());
+        order.verify(notificationLogRepository).insertAll(any());
+    }
+
+    @Test
+    void shouldSuppressDealsOverCapsWithoutCountingQueries() {
+        AlertDispatcher dispatcher = dispatcher(2, 1, 3);
+        when(dealOutboxRepository.claim(50, NOW, LEASED_UNTIL)).thenReturn(List.of(
+                message(1L, "LIS"), message(2L, "LIS"), message(3L, "BCN"), message(4L, "MAD")));
+
+        AlertDispatchSummary summary = dispatcher.dispatchPending();
+
+        assertEquals(2, summary.sent());
+        assertEquals(2, summary.suppressed());
+        verify(dealRepository).updateStatus(List.of(2L, 4L), DealStatus.SUPPRESSED);
+        verify(dealOutboxRepository).delete(argThat(ids -> ids.size() == 4));
+        verify(notificationLogRepository, times(1)).findSuccessfulSince(any());
+    }
+
+    @Test
+    void shouldRetryTransientFailures() {
+        AlertDispatcher dispatcher = dispatcher(3, 1, 3);
+        channel.failTimes("offer-1", 2);
+        when(dealOutboxRepository.claim(50, NOW, LEASED_UNTIL)).thenReturn(List.of(message(1L, "LIS")));
+
+        AlertDispatchSummary summary = dispatcher.dispatchPending();
+
+        assertEquals(1, summary.sent());
+        assertEquals(3, channel.attempts());
+    }
+
+    @Test
+    void shouldRescheduleFailedDeliveryWithoutLoggingIt() {
+        AlertDispatcher dispatcher = dispatcher(3, 1, 2);
+        channel.failTimes("offer-1", 5);
+        when(dealOutboxRepository.claim(50, NOW, LEASED_UNTIL)).thenReturn(List.of(message(1L, "LIS")));
+
+        AlertDispatchSummary summary = dispatcher.dispatchPending();
+
+        assertEquals(0, summary.sent());
+        assertEquals(0, summary.failed());
+        verify(dealOutboxRepository).reschedule(List.of(101L), NOW.plus(Duration.ofMinutes(5)));
+        verify(notificationLogRepository).insertAll(List.of());
+        verify(dealRepository, never()).updateStatus(any(), any());
+    }
+
+    @Test
+    void shouldConfirmFilterHitAgainstNotificationLogBeforeDropping() {
+        AlertDispatcher dispatcher = dispatcher(3, 1, 3);
+        when(dealOutboxRepository.claim(50, NOW, LEASED_UNTIL))
+                .thenReturn(List.of(message(1L, "LIS")))
+                .thenReturn(List.of(message(1L, "LIS"), message(2L, "BCN")));
+        when(notificationLogRepository.findDeliveredOfferKeys("STUB", List.of("offer-1"))).thenReturn(Set.of("offer-1"));
+
+        dispatcher.dispatchPending();
+        AlertDispatchSummary second = dispatcher.dispatchPending();
+
+        assertEquals(1, second.sent());
+        assertEquals(List.of("offer-1", "offer-2"), channel.sent().stream().map(Deal::getOfferKey).toList());
+        verify(notificationLogRepository).findDeliveredOfferKeys("STUB", List.of("offer-1"));
+        verify(dealRepository).updateStatus(List.of(1L), DealStatus.SUPPRESSED);
+        verify(dealOutboxRepository).delete(List.of(101L, 102L));
+    }
+
+    @Test
+    void shouldSendWhenFilterHitIsNotConfirmedByNotificationLog() {
+        AlertDispatcher dispatcher = dispatcher(3, 1, 3);
+        when(notificationLogRepository.findDeliveredOfferKeysSince("STUB", NOW.minus(Duration.ofDays(30))))
+                .thenReturn(List.of("offer-1"));
+        when(dealOutboxRepository.claim(50, NOW, LEASED_UNTIL)).thenReturn(List.of(message(1L, "LIS")));
+
+        AlertDispatchSummary summary = dispatcher.dispatchPending();
+
+        assertEquals(1, summary.sent());
+        assertEquals(List.of("offer-1"), channel.sent().stream().map(Deal::getOfferKey).toList());
+        verify(dealRepository).updateStatus(List.of(1L), DealStatus.NOTIFIED);
+    }
+
+    @Test
+    void shouldSkipOfferDeliveredBeforeRestart() {
+        AlertDispatcher dispatcher = dispatcher(3, 1, 3);
+        when(notificationLogRepository.findDeliveredOfferKeysSince("STUB", NOW.minus(Duration.ofDays(30))))
+                .thenReturn(List.of("offer-1"));
+        when(notificationLogRepository.findDeliveredOfferKeys("STUB", List.of("offer-1"))).thenReturn(Set.of("offer-1"));
+        when(dealOutboxRepository.claim(50, NOW, LEASED_UNTIL)).thenReturn(List.of(message(1L, "LIS")));
+
+        AlertDispatchSummary summary = dispatcher.dispatchPending();
+
+        assertEquals(0, summary.sent());
+        assertEquals(0, channel.attempts());
+        verify(dealOutboxRepository).delete(List.of(101L));
+        verify(dealRepository).updateStatus(List.of(1L), DealStatus.SUPPRESSED);
+    }
+
+    @Test
+    void shouldTrustFilterMissWithoutQueryingNotificationLog() {
+        AlertDispatcher dispatcher = dispatcher(3, 1, 3);
+        when(dealOutboxRepository.claim(50, NOW, LEASED_UNTIL)).thenReturn(List.of(message(1L, "LIS")));
+
+        AlertDispatchSummary summary = dispatcher.dispatchPending();
+
+        assertEquals(1, summary.sent());
+        verify(notificationLogRepository, never()).findDeliveredOfferKeys(any(), any());
+    }
+
+    @Test
+    void shouldMarkFailedAfterLastDeliveryRoundAndFreeTheSlot() {
+        AlertDispatcher dispatcher = dispatcher(1, 1, 2);
+        channel.failTimes("offer-1", 5);
+        when(dealOutboxRepository.claim(50, NOW, LEASED_UNTIL))
+                .thenReturn(List.of(new OutboxMessage(101L, AlertDispatcher.MAX_DELIVERY_ROUNDS - 1, deal(1L, "LIS"))))
+                .thenReturn(List.of(message(2L, "LIS")));
+
+        AlertDispatchSummary first = dispatcher.dispatchPending();
+
+        assertEquals(1, first.failed());
+        assertEquals(2, channel.attempts());
+        NotificationLogEntry failure = capturedLogEntries().get(0);
+        assertFalse(failure.success());
+        assertEquals("channel unavailable", failure.errorMessage());
+        verify(dealRepository).updateStatus(List.of(1L), DealStatus.FAILED);
+
+        AlertDispatchSummary second = dispatcher.dispatchPending();
+        assertEquals(1, second.sent(), "Failed send must not consume the daily cap");
+    }
+
+    @Test
+    void shouldRespectCapsRebuiltFromNotificationLog() {
+        AlertDispatcher dispatcher = dispatcher(3, 1, 3);
+        when(notificationLogRepository.findSuccessfulSince(NOW.minus(Duration.ofDays(7)))).thenReturn(List.of(
+                new NotificationLogEntry(NOW.minus(Duration.ofDays(2)), "STUB", "old", 9L, "LIS", true, null)));
+        when(dealOutboxRepository.claim(50, NOW, LEASED_UNTIL)).thenReturn(List.of(message(1L, "LIS")));
+
+        dispatcher.rebuildLimiter();
+        AlertDispatchSummary summary = dispatcher.dispatchPending();
+
+        assertEquals(1, summary.suppressed());
+        assertTrue(channel.sent().isEmpty());
+    }
+
+    @Test
+    void shouldSkipWhenNothingPending() {
+        AlertDispatcher dispatcher = dispatcher(3, 1, 3);
+        when(dealOutboxRepository.claim(50, NOW, LEASED_UNTIL)).thenReturn(List.of());
+
+        assertEquals(AlertDispatchSummary.empty(), dispatcher.dispatchPending());
+        verify(notificationLogRepository, never()).insertAll(any());
+    }
+
+    private AlertDispatcher dispatcher(int maxPerDay, int maxPerDestinationPerWeek, int maxAttempts) {
+        return new AlertDispatcher(
+                Clock.fixed(NOW, WARSAW_ZONE),
+                channel,
+                new AlertRateLimiter(() -> maxPerDay, () -> maxPerDestinationPerWeek),
+                executor,
+                () -> maxAttempts,
+                Duration.ZERO,
+                Duration.ofMinutes(5),
+                CLAIM_LEASE,
+                50,
+                dealRepository,
+                dealOutboxRepository,
+                notificationLogRepository,
+                transactionTemplate,
+                new OfferKeyFilter("notification", 1_000, 0.00001, new SimpleMeterRegistry()),
+                Duration.ofDays(30)
+        );
+    }
+
+    private List<NotificationLogEntry> capturedLogEntries() {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<NotificationLogEntry>> captor = ArgumentCaptor.forClass(List.class);
+        verify(notificationLogRepository, atLeastOnce()).insertAll(captor.capture());
+        return captor.getAllValues().get(0);
+    }
+
+    private OutboxMessage message(Long dealId, String destination) {
+        return new OutboxMessage(100 + dealId, 0, deal(dealId, destination));
+    }
+
+    private Deal deal(Long id, String destination) {
+        Deal deal = new Deal();
+        deal.setId(id);
+        deal.setStatus(DealStatus.NEW);
+        deal.setProvider("TestProvider");
+        deal.setOrigin("WAW");
+        deal.setDestination(destination);
+        deal.setDepartDate(LocalDate.of(2026, 2, 13));
+        deal.setReturnDate(LocalDate.of(2026, 2, 15));
+        deal.setOfferKey("offer-" + id);
+        deal.setPricePln(399);
+        deal.setCreatedAt(NOW);
+        return deal;
+    }
+}
@@ -0,0 +1,116 @@
+package pl.weekendflyer.weekendFlightAgent.domain.alert;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.weekendflyer.weekendFlightAgent.domain.deal.DealRecorder;
+import pl.weekendflyer.weekendFlightAgent.domain.model.Deal;
+import pl.weekendflyer.weekendFlightAgent.domain.model.DealStatus;
+import pl.weekendflyer.weekendFlightAgent.domain.model.OutboxMessage;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.DealOutboxRepository;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.DealRepository;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class AlertOutboxIntegrationTest {
+
+    @Autowired
+    private DealRecorder dealRecorder;
+
+    @Autowired
+    private AlertDispatcher alertDispatcher;
+
+    @Autowired
+    private DealRepository dealRepository;
+
+    @Autowired
+    private DealOutboxRepository dealOutboxRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void resetState() {
+        jdbcTemplate.update("DELETE FROM deal_outbox");
+        jdbcTemplate.update("UPDATE notification_log SET sent_at = sent_at - interval '8 days' WHERE sent_at > now() - interval '8 days'");
+        alertDispatcher.rebuildLimiter();
+    }
+
+    @Test
+    void shouldWriteOutboxWithDealAndRelayItOnce() {
+        Deal detected = deal("outbox-" + System.nanoTime());
+
+        List<Deal> recorded = transactionTemplate.execute(status -> dealRecorder.record(List.of(detected), Instant.now()));
+        Long dealId = recorded.get(0).getId();
+        assertEquals(1, outboxRows(dealId), "Outbox row must be committed together with the deal");
+
+        List<Deal> duplicate = transactionTemplate.execute(status ->
+                dealRecorder.record(List.of(deal(detected.getOfferKey())), Instant.now()));
+        assertTrue(duplicate.isEmpty(), "Offer already recorded as deal must not be enqueued again");
+
+        alertDispatcher.dispatchPending();
+
+        assertEquals(0, outboxRows(dealId));
+        assertEquals(DealStatus.NOTIFIED, dealRepository.findById(dealId).orElseThrow().getStatus());
+        Integer logged = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM notification_log WHERE offer_key = ? AND success", Integer.class, detected.getOfferKey());
+        assertEquals(1, logged);
+    }
+
+    @Test
+    void shouldHideLeasedRowsFromOtherClaimsUntilLeaseExpires() {
+        Deal detected = deal("outbox-lease-" + System.nanoTime());
+        Instant now = Instant.now();
+        Long dealId = transactionTemplate.execute(status -> dealRecorder.record(List.of(detected), now)).get(0).getId();
+        Instant leasedUntil = now.plus(Duration.ofMinutes(10));
+
+        List<OutboxMessage> first = transactionTemplate.execute(status -> dealOutboxRepository.claim(50, now, leasedUntil));
+        List<OutboxMessage> duringLease = transactionTemplate.execute(status ->
+                dealOutboxRepository.claim(50, now.plus(Duration.ofMinutes(5)), leasedUntil.plus(Duration.ofMinutes(5))));
+        List<OutboxMessage> afterLease = transactionTemplate.execute(status ->
+                dealOutboxRepository.claim(50, leasedUntil, leasedUntil.plus(Duration.ofMinutes(10))));
+
+        assertEquals(List.of(dealId), first.stream().map(message -> message.deal().getId()).toList());
+        assertTrue(duringLease.isEmpty(), "Leased row must stay invisible after the claim commits");
+        assertEquals(List.of(dealId), afterLease.stream().map(message -> message.deal().getId()).toList());
+        assertEquals(0, afterLease.get(0).attempts(), "Expired lease must not count as a delivery round");
+    }
+
+    private int outboxRows(Long dealId) {
+        Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM deal_outbox WHERE deal_id = ?", Integer.class, dealId);
+        return rows != null ? rows : 0;
+    }
+
+    private Deal deal(String offerKey) {
+        Deal deal = new Deal();
+        deal.setCreatedAt(Instant.now());
+        deal.setStatus(DealStatus.NEW);
+        deal.setProvider("test");
+        deal.setOrigin("WAW");
+        deal.setDestination("TST");
+        deal.setDepartDate(LocalDate.of(2099, 1, 16));
+        deal.setReturnDate(LocalDate.of(2099, 1, 18));
+        deal.setFullDays((short) 1);
+        deal.setDepartureMonth(LocalDate.of(2099, 1, 1));
+        deal.setWindowKey("WAW-TST-2099-01-16-2099-01-18");
+        deal.setOfferKey(offerKey);
+        deal.setPricePln(399);
+        deal.setBaselineMedian30Pln(800);
+        deal.setPercentBelowMedian(new BigDecimal("50.13"));
+        deal.setSavingPln(401);
+        return deal;
+    }
+}
@@ -0,0 +1,104 @@
+package pl.weekendflyer.weekendFlightAgent.domain.alert;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pl.weekendflyer.weekendFlightAgent.domain.model.NotificationLogEntry;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AlertRateLimiterTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-14T12:00:00Z");
+
+    @Test
+    void shouldEnforceDailyCap() {
+        AlertRateLimiter limiter = new AlertRateLimiter(() -> 2, () -> 10);
+
+        assertTrue(limiter.tryAcquire("LIS", NOW));
+        assertTrue(limiter.tryAcquire("BCN", NOW.plusSeconds(1)));
+        assertFalse(limiter.tryAcquire("MAD", NOW.plusSeconds(2)));
+    }
+
+    @Test
+    void shouldSlideDailyWindow() {
+        AlertRateLimiter limiter = new AlertRateLimiter(() -> 1, () -> 10);
+
+        assertTrue(limiter.tryAcquire("LIS", NOW));
+        assertFalse(limiter.tryAcquire("BCN", NOW.plus(Duration.ofHours(23))));
+        assertTrue(limiter.tryAcquire("BCN", NOW.plus(Duration.ofHours(24)).plusSeconds(1)));
+    }
+
+    @Test
+    void shouldEnforcePerDestinationWeeklyCap() {
+        AlertRateLimiter limiter = new AlertRateLimiter(() -> 10, () -> 1);
+
+        assertTrue(limiter.tryAcquire("LIS", NOW));
+        assertTrue(limiter.tryAcquire("BCN", NOW));
+        assertFalse(limiter.tryAcquire("LIS", NOW.plus(Duration.ofDays(6))));
+        assertTrue(limiter.tryAcquire("LIS", NOW.plus(Duration.ofDays(7)).plusSeconds(1)));
+    }
+
+    @Test
+    void shouldReleaseSlotOfFailedSend() {
+        AlertRateLimiter limiter = new AlertRateLimiter(() -> 1, () -> 1);
+
+        assertTrue(limiter.tryAcquire("LIS", NOW));
+        limiter.release("LIS", NOW);
+
+        assertTrue(limiter.tryAcquire("LIS", NOW.plusSeconds(1)));
+    }
+
+    @Test
+    void shouldReleaseSlotsOnlyWhenRecordingTransactionRollsBack() {
+        AlertRateLimiter limiter = new AlertRateLimiter(() -> 1, () -> 1);
+
+        assertTrue(limiter.tryAcquire("LIS", NOW));
+        completeTransaction(() -> limiter.releaseOnRollback(List.of(entry("LIS", NOW))), TransactionSynchronization.STATUS_COMMITTED);
+        assertFalse(limiter.tryAcquire("LIS", NOW.plusSeconds(1)), "Committed send keeps its slot");
+
+        completeTransaction(() -> limiter.releaseOnRollback(List.of(entry("LIS", NOW))), TransactionSynchronization.STATUS_ROLLED_BACK);
+        assertTrue(limiter.tryAcquire("LIS", NOW.plusSeconds(2)), "Unrecorded send must not consume the cap");
+    }
+
+    @Test
+    void shouldRebuildFromNotificationLog() {
+        AlertRateLimiter limiter = new AlertRateLimiter(() -> 3, () -> 1);
+
+        limiter.rebuild(List.of(
+                entry("LIS", NOW.minus(Duration.ofDays(3))),
+                entry("BCN", NOW.minus(Duration.ofHours(2))),
+                entry("MAD", NOW.minus(Duration.ofHours(1)))
+        ));
+
+        assertFalse(limiter.tryAcquire("LIS", NOW), "LIS already alerted this week");
+        assertTrue(limiter.tryAcquire("FCO", NOW));
+        assertFalse(limiter.tryAcquire("ATH", NOW), "Daily cap reached with BCN, MAD and FCO");
+    }
+
+    @Test
+    void shouldTreatPaddedDestinationCodesAsEqual() {
+        AlertRateLimiter limiter = new AlertRateLimiter(() -> 10, () -> 1);
+
+        assertTrue(limiter.tryAcquire("LIS ", NOW));
+        assertFalse(limiter.tryAcquire("LIS", NOW));
+    }
+
+    private static void completeTransaction(Runnable work, int status) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            work.run();
+            TransactionSynchronizationManager.getSynchronizations().forEach(sync -> sync.afterCompletion(status));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private NotificationLogEntry entry(String destination, Instant sentAt) {
+        return new NotificationLogEntry(sentAt, "TELEGRAM", "offer-" + destination, 1L, destination, true, null);
+    }
+}
@@ -0,0 +1,55 @@
+package pl.weekendflyer.weekendFlightAgent.domain.alert;
+
+import pl.weekendflyer.weekendFlightAgent.domain.model.Deal;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Lokalny kanał do testów: zapamiętuje wysłane alerty, a dla wskazanych ofert
+ * zwraca błąd zadaną liczbę razy.
+ */
+class StubAlertChannel implements AlertChannel {
+
+    private final List<Deal> sent = new CopyOnWriteArrayList<>();
+    private final Map<String, AtomicInteger> failuresLeft = new ConcurrentHashMap<>();
+    private final AtomicInteger attempts = new AtomicInteger();
+    private volatile Consumer<Deal> beforeSend = deal -> { };
+
+    @Override
+    public String name() {
+        return "STUB";
+    }
+
+    @Override
+    public void send(Deal deal) throws IOException {
+        beforeSend.accept(deal);
+        attempts.incrementAndGet();
+        AtomicInteger failures = failuresLeft.get(deal.getOfferKey());
+        if (failures != null && failures.getAndDecrement() > 0) {
+            throw new IOException("channel unavailable");
+        }
+        sent.add(deal);
+    }
+
+    void beforeSend(Consumer<Deal> hook) {
+        beforeSend = hook;
+    }
+
+    void failTimes(String offerKey, int times) {
+        failuresLeft.put(offerKey, new AtomicInteger(times));
+    }
+
+    List<Deal> sent() {
+        return sent;
+    }
+
+    int attempts() {
+        return attempts.get();
+    }
+}
@@ -0,0 +1,118 @@
+package pl.weekendflyer.weekendFlightAgent.domain.deal;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pl.weekendflyer.weekendFlightAgent.config.AgentProperties;
+import pl.weekendflyer.weekendFlightAgent.domain.model.Baseline;
+import pl.weekendflyer.weekendFlightAgent.domain.model.Deal;
+import pl.weekendflyer.weekendFlightAgent.domain.model.DealStatus;
+import pl.weekendflyer.weekendFlightAgent.domain.model.PriceObservation;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.BaselineRepository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DealDetectorTest {
+
+    private static final LocalDate DEPARTURE_MONTH = LocalDate.of(2026, 2, 1);
+
+    @Mock
+    private BaselineRepository baselineRepository;
+
+    private DealDetector detector;
+
+    @BeforeEach
+    void setUp() {
+        detector = new DealDetector(() -> new AgentProperties.CandidateFilter(150, 10, 20), baselineRepository);
+    }
+
+    @Test
+    void shouldDetectDealWellBelowMedian() {
+        givenBaseline(1000, 30);
+
+        Optional<Deal> deal = detector.detect(observation(700));
+
+        assertTrue(deal.isPresent());
+        assertEquals(DealStatus.NEW, deal.get().getStatus());
+        assertEquals(300, deal.get().getSavingPln());
+        assertEquals(1000, deal.get().getBaselineMedian30Pln());
+        assertEquals(new BigDecimal("30.00"), deal.get().getPercentBelowMedian());
+        assertEquals("offer-1", deal.get().getOfferKey());
+    }
+
+    @Test
+    void shouldRejectSavingBelowAbsoluteThreshold() {
+        givenBaseline(1000, 30);
+
+        assertTrue(detector.detect(observation(900)).isEmpty());
+    }
+
+    @Test
+    void shouldRejectSavingBelowPercentThreshold() {
+        givenBaseline(3000, 30);
+
+        assertTrue(detector.detect(observation(2800)).isEmpty());
+    }
+
+    @Test
+    void shouldApplyReloadedThresholdsOnNextDetection() {
+        AtomicReference<AgentProperties.CandidateFilter> filter = new AtomicReference<>(new AgentProperties.CandidateFilter(150, 10, 20));
+        DealDetector reloadable = new DealDetector(filter::get, baselineRepository);
+        givenBaseline(1000, 30);
+
+        assertTrue(reloadable.detect(observation(900)).isEmpty());
+
+        filter.set(new AgentProperties.CandidateFilter(50, 5, 20));
+
+        assertTrue(reloadable.detect(observation(900)).isPresent());
+    }
+
+    @Test
+    void shouldIgnoreThinBaseline() {
+        givenBaseline(1000, DealDetector.MIN_BASELINE_SAMPLES - 1);
+
+        assertTrue(detector.detect(observation(500)).isEmpty());
+    }
+
+    @Test
+    void shouldIgnoreMissingBaseline() {
+        when(baselineRepository.findByOriginAndDestinationAndFullDaysAndDepartureMonth("WAW", "LIS", (short) 2, DEPARTURE_MONTH))
+                .thenReturn(Optional.empty());
+
+        assertTrue(detector.detect(observation(500)).isEmpty());
+    }
+
+    private void givenBaseline(int median, int count) {
+        Baseline baseline = new Baseline();
+        baseline.setMedian30Pln(median);
+        baseline.setCount30(count);
+        when(baselineRepository.findByOriginAndDestinationAndFullDaysAndDepartureMonth("WAW", "LIS", (short) 2, DEPARTURE_MONTH))
+                .thenReturn(Optional.of(baseline));
+    }
+
+    private PriceObservation observation(int price) {
+        PriceObservation observation = new PriceObservation();
+        observation.setObservedAt(Instant.parse("2026-01-14T12:00:00Z"));
+        observation.setProvider("TestProvider");
+        observation.setOrigin("WAW");
+        observation.setDestination("LIS");
+        observation.setDepartDate(LocalDate.of(2026, 2, 13));
+        observation.setReturnDate(LocalDate.of(2026, 2, 16));
+        observation.setFullDays((short) 2);
+        observation.setDepartureMonth(DEPARTURE_MONTH);
+        observation.setWindowKey("WAW-LIS-2026-02-13-2026-02-16");
+        observation.setOfferKey("offer-1");
+        observation.setPricePln(price);
+        return observation;
+    }
+}
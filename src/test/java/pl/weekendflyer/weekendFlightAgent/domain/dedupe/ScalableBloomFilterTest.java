@@ -0,0 +1,68 @@
+package pl.weekendflyer.weekendFlightAgent.domain.dedupe;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScalableBloomFilterTest {
+
+    @Test
+    void shouldGrowPastInitialCapacityWithoutFalseNegatives() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(1_000, 0.001);
+        SplittableRandom random = new SplittableRandom(7);
+        long[][] keys = new long[20_000][];
+
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = new long[]{random.nextLong(), random.nextLong()};
+            filter.put(keys[i][0], keys[i][1]);
+        }
+
+        for (long[] key : keys) {
+            assertTrue(filter.mightContain(key[0], key[1]));
+        }
+        assertTrue(filter.stages() > 1, "filter should have added stages");
+        assertTrue(filter.size() >= keys.length * 0.998, "only false positives may be skipped on put: " + filter.size());
+    }
+
+    @Test
+    void shouldKeepFalsePositiveRateBelowTargetAfterGrowing() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(1_000, 0.01);
+        SplittableRandom random = new SplittableRandom(11);
+        for (int i = 0; i < 30_000; i++) {
+            filter.put(random.nextLong(), random.nextLong());
+        }
+
+        int falsePositives = 0;
+        int probes = 200_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain(random.nextLong(), random.nextLong())) {
+                falsePositives++;
+            }
+        }
+
+        double measured = falsePositives / (double) probes;
+        assertTrue(measured <= 0.01, "measured false-positive rate " + measured);
+        assertTrue(filter.expectedFalsePositiveRate() <= 0.01);
+        assertTrue(filter.memoryBytes() > 0);
+    }
+
+    @Test
+    void shouldReportRepeatedPut() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(10, 0.001);
+
+        assertTrue(filter.put(1, 2));
+        assertFalse(filter.put(1, 2));
+        assertEquals(1, filter.size());
+    }
+
+    @Test
+    void shouldRejectInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new ScalableBloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new ScalableBloomFilter(10, 1.0));
+    }
+}
@@ -0,0 +1,110 @@
+package pl.weekendflyer.weekendFlightAgent.domain.eval;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import pl.weekendflyer.weekendFlightAgent.domain.model.FlightOffer;
+import pl.weekendflyer.weekendFlightAgent.domain.model.FlightSegment;
+import pl.weekendflyer.weekendFlightAgent.domain.model.TripConstraints;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static pl.weekendflyer.weekendFlightAgent.domain.eval.FlightOfferTestHelper.LISBON_ZONE;
+import static pl.weekendflyer.weekendFlightAgent.domain.eval.FlightOfferTestHelper.WARSAW_ZONE;
+
+class ConstraintChainTest {
+
+    private static final LocalDate THURSDAY = LocalDate.of(2026, 1, 15);
+
+    private final TripEvaluator evaluator = new TripEvaluator();
+
+    @Test
+    void shouldMatchTripEvaluatorWhileReordering() {
+        List<TripConstraints> constraintSets = List.of(
+                new TripConstraints(1, 480, 2000, LocalTime.of(22, 0), LocalTime.of(6, 0), true),
+                new TripConstraints(0, 300, null, LocalTime.of(20, 0), LocalTime.of(12, 0), false),
+                new TripConstraints(2, 720, 800, LocalTime.of(23, 59), LocalTime.of(0, 0), true)
+        );
+        ConstraintChain chain = new ConstraintChain(evaluator);
+        Random random = new Random(7);
+
+        int accepted = 0;
+        for (TripConstraints constraints : constraintSets) {
+            for (int i = 0; i < 5 * ConstraintChain.REORDER_EVERY; i++) {
+                FlightOffer offer = randomOffer(random);
+                boolean expected = evaluator.meetsHardConstraints(offer, constraints) && evaluator.isSaturdayFull(offer, constraints);
+                assertEquals(expected, chain.test(offer, constraints), () -> "offer " + offer);
+                accepted += expected ? 1 : 0;
+            }
+        }
+        assertTrue(accepted > 0);
+        assertFalse(chain.test(null, constraintSets.get(0)));
+        assertFalse(chain.test(randomOffer(random), null));
+    }
+
+    @Test
+    void shouldMoveMostSelectiveStageFirstAndExposeMetrics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ConstraintChain chain = new ConstraintChain(evaluator, registry);
+        TripConstraints constraints = new TripConstraints(1, 480, 2000, LocalTime.of(22, 0), LocalTime.of(6, 0), true);
+        assertEquals(ConstraintChain.Stage.PRICE, chain.order().get(0));
+
+        // wszystko poza niedzielnym wylotem jest w porządku - powrót jest w poniedziałek
+        FlightOffer mondayReturn = offer(THURSDAY.plusDays(1).atTime(12, 0), 0,
+                THURSDAY.plusDays(4).atTime(10, 0), 0, 500);
+        for (int i = 0; i < 8 * ConstraintChain.REORDER_EVERY; i++) {
+            assertFalse(chain.test(mondayReturn, constraints));
+        }
+
+        assertEquals(ConstraintChain.Stage.SUNDAY_DEPARTURE, chain.order().get(0));
+        assertTrue(chain.rejectionRate(ConstraintChain.Stage.SUNDAY_DEPARTURE) > 0.9);
+        assertEquals(0.0, registry.get("agent.eval.stage.position").tag("stage", "sunday_departure").gauge().value());
+        assertTrue(registry.get("agent.eval.stage.rejection.rate").tag("stage", "sunday_departure").gauge().value() > 0.9);
+        assertEquals(8.0 * ConstraintChain.REORDER_EVERY,
+                registry.get("agent.eval.stage.rejected").tag("stage", "sunday_departure").functionCounter().count());
+    }
+
+    private FlightOffer randomOffer(Random random) {
+        LocalDateTime outbound = THURSDAY.atStartOfDay().plusMinutes(random.nextInt(3 * 24 * 60));
+        LocalDateTime inbound = THURSDAY.plusDays(2).atStartOfDay().plusMinutes(random.nextInt(3 * 24 * 60));
+        Integer price = random.nextInt(20) == 0 ? null : 100 + random.nextInt(2500);
+        return offer(outbound, random.nextInt(3), inbound, random.nextInt(3), price, 120 + random.nextInt(360));
+    }
+
+    private static FlightOffer offer(LocalDateTime outboundLocal, int outboundStops,
+                                     LocalDateTime inboundLocal, int inboundStops, Integer price) {
+        return offer(outboundLocal, outboundStops, inboundLocal, inboundStops, price, 240);
+    }
+
+    private static FlightOffer offer(LocalDateTime outboundLocal, int outboundStops,
+                                     LocalDateTime inboundLocal, int inboundStops, Integer price, int legMinutes) {
+        return new FlightOffer("WAW", "LIS",
+                legs("WAW", "LIS", outboundLocal.atZone(WARSAW_ZONE), outboundStops, legMinutes, LISBON_ZONE),
+                legs("LIS", "WAW", inboundLocal.atZone(LISBON_ZONE), inboundStops, legMinutes, WARSAW_ZONE),
+                price, "TestProvider", "https://test.com");
+    }
+
+    /**
+     * {@code stops + 1} odcinków po {@code legMinutes} z godziną na przesiadkę; ostatni przylot w strefie celu.
+     */
+    private static List<FlightSegment> legs(String from, String to, ZonedDateTime departure, int stops, int legMinutes,
+                                            ZoneId arrivalZone) {
+        List<FlightSegment> segments = new ArrayList<>();
+        ZonedDateTime at = departure;
+        for (int i = 0; i <= stops; i++) {
+            ZonedDateTime arrival = at.plusMinutes(legMinutes);
+            boolean last = i == stops;
+            segments.add(new FlightSegment(i == 0 ? from : "HUB" + i, last ? to : "HUB" + (i + 1), at,
+                    last ? arrival.withZoneSameInstant(arrivalZone) : arrival));
+            at = arrival.plusHours(1);
+        }
+        return segments;
+    }
+}
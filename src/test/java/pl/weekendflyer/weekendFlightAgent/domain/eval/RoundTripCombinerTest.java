@@ -0,0 +1,111 @@
+package pl.weekendflyer.weekendFlightAgent.domain.eval;
+
+import org.junit.jupiter.api.Test;
+import pl.weekendflyer.weekendFlightAgent.domain.model.CandidateWindow;
+import pl.weekendflyer.weekendFlightAgent.domain.model.FlightOffer;
+import pl.weekendflyer.weekendFlightAgent.domain.model.FlightSegment;
+import pl.weekendflyer.weekendFlightAgent.domain.model.OneWayFare;
+import pl.weekendflyer.weekendFlightAgent.domain.model.TripConstraints;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static pl.weekendflyer.weekendFlightAgent.domain.eval.FlightOfferTestHelper.LISBON_ZONE;
+import static pl.weekendflyer.weekendFlightAgent.domain.eval.FlightOfferTestHelper.WARSAW_ZONE;
+
+class RoundTripCombinerTest {
+
+    private static final LocalDate FRIDAY = LocalDate.of(2026, 1, 16);
+    private static final LocalDate SUNDAY = FRIDAY.plusDays(2);
+
+    private final RoundTripCombiner combiner = new RoundTripCombiner(new TripEvaluator());
+    private final TripConstraints constraints = new TripConstraints(1, 480, 1000, LocalTime.of(22, 0), LocalTime.of(6, 0), true);
+    private final CandidateWindow window = new CandidateWindow("WAW", "LIS", FRIDAY, SUNDAY);
+
+    @Test
+    void shouldReturnCheapestPairsFirstUpToLimit() {
+        List<OneWayFare> outbound = combiner.outboundLegs(List.of(
+                outbound(LocalTime.of(9, 0), 300),
+                outbound(LocalTime.of(12, 0), 200),
+                outbound(LocalTime.of(15, 0), 250)
+        ), constraints);
+        List<OneWayFare> inbound = combiner.inboundLegs(List.of(
+                inbound(LocalTime.of(10, 0), 220),
+                inbound(LocalTime.of(18, 0), 180)
+        ), constraints);
+
+        List<FlightOffer> offers = combiner.combine(window, outbound, inbound, constraints, 4);
+
+        assertEquals(List.of(380, 420, 430, 470), offers.stream().map(FlightOffer::pricePln).toList());
+        FlightOffer cheapest = offers.get(0);
+        assertEquals("WAW", cheapest.originIata());
+        assertEquals("LIS", cheapest.destinationIata());
+        assertEquals(ZonedDateTime.of(SUNDAY, LocalTime.of(18, 0), LISBON_ZONE), cheapest.inboundSegments().get(0).departureTime());
+        assertEquals("https://test.com/out-200 | https://test.com/in-180", cheapest.deepLink());
+    }
+
+    @Test
+    void shouldDropLegsBreakingTripRules() {
+        List<OneWayFare> outbound = combiner.outboundLegs(List.of(
+                outbound(LocalTime.of(12, 0), 200),
+                // przylot w piątek po 22:00
+                outbound(LocalTime.of(21, 0), 100),
+                // dwie przesiadki
+                new OneWayFare("WAW", "LIS", List.of(
+                        segment("WAW", "FRA", FRIDAY.atTime(7, 0).atZone(WARSAW_ZONE), 90),
+                        segment("FRA", "MAD", FRIDAY.atTime(10, 0).atZone(WARSAW_ZONE), 90),
+                        segment("MAD", "LIS", FRIDAY.atTime(13, 0).atZone(WARSAW_ZONE), 60)
+                ), 90, "TestProvider", "https://test.com/hops")
+        ), constraints);
+        List<OneWayFare> inbound = combiner.inboundLegs(List.of(
+                inbound(LocalTime.of(10, 0), 220),
+                // niedziela przed 06:00
+                inbound(LocalTime.of(5, 0), 50),
+                // sobota
+                new OneWayFare("LIS", "WAW", List.of(segment("LIS", "WAW",
+                        ZonedDateTime.of(FRIDAY.plusDays(1), LocalTime.of(10, 0), LISBON_ZONE), 240)), 40, "TestProvider", "https://test.com/sat")
+        ), constraints);
+
+        assertEquals(List.of(200), outbound.stream().map(OneWayFare::pricePln).toList());
+        assertEquals(List.of(220), inbound.stream().map(OneWayFare::pricePln).toList());
+        assertEquals(List.of(420), combiner.combine(window, outbound, inbound, constraints, 10).stream()
+                .map(FlightOffer::pricePln).toList());
+    }
+
+    @Test
+    void shouldStopAtHardCapPrice() {
+        List<OneWayFare> outbound = combiner.outboundLegs(List.of(
+                outbound(LocalTime.of(9, 0), 450),
+                outbound(LocalTime.of(12, 0), 600)
+        ), constraints);
+        List<OneWayFare> inbound = combiner.inboundLegs(List.of(
+                inbound(LocalTime.of(10, 0), 500),
+                inbound(LocalTime.of(18, 0), 550)
+        ), constraints);
+
+        List<FlightOffer> offers = combiner.combine(window, outbound, inbound, constraints, 10);
+
+        assertEquals(List.of(950, 1000), offers.stream().map(FlightOffer::pricePln).toList());
+        TripEvaluator evaluator = new TripEvaluator();
+        offers.forEach(offer -> assertTrue(evaluator.meetsHardConstraints(offer, constraints) && evaluator.isSaturdayFull(offer, constraints)));
+    }
+
+    private OneWayFare outbound(LocalTime departure, int price) {
+        return new OneWayFare("WAW", "LIS", List.of(segment("WAW", "LIS", ZonedDateTime.of(FRIDAY, departure, WARSAW_ZONE), 270)),
+                price, "TestProvider", "https://test.com/out-" + price);
+    }
+
+    private OneWayFare inbound(LocalTime departure, int price) {
+        return new OneWayFare("LIS", "WAW", List.of(segment("LIS", "WAW", ZonedDateTime.of(SUNDAY, departure, LISBON_ZONE), 240)),
+                price, "TestProvider", "https://test.com/in-" + price);
+    }
+
+    private static FlightSegment segment(String from, String to, ZonedDateTime departure, int minutes) {
+        ZoneId arrivalZone = to.equals("LIS") ? LISBON_ZONE : WARSAW_ZONE;
+        return new FlightSegment(from, to, departure, departure.plusMinutes(minutes).withZoneSameInstant(arrivalZone));
+    }
+}
@@ -0,0 +1,85 @@
+package pl.weekendflyer.weekendFlightAgent.domain.history;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceHistoryFormatTest {
+
+    @Test
+    void shouldRoundTripBlockWithDictionariesAndDeltas() {
+        List<HistoryRow> rows = List.of(
+                row(1_768_392_000_123_456L, "kiwi", "LIS", LocalDate.of(2026, 2, 13), "kiwi|WAW>LIS@2026-02-13T06:00:00Z|", 540),
+                row(1_768_392_000_123_400L, "kiwi", "LIS", LocalDate.of(2026, 2, 13), "kiwi|WAW>LIS@2026-02-13T09:00:00Z|", 455),
+                row(1_768_395_600_000_000L, "skyscanner", "BCN", LocalDate.of(2026, 1, 30), "sky|tab\there\\", 1210),
+                row(1_768_395_600_000_001L, "kiwi", "LIS", LocalDate.of(2026, 2, 13), "kiwi|WAW>LIS@2026-02-13T06:00:00Z|", 3),
+                row(1_768_399_200_000_000L, "kiwi", "LIS", LocalDate.of(2026, 2, 13), "kiwi|WAW>LIS@2026-02-13T09:00:00Z|", 455, 37)
+        );
+
+        List<HistoryRow> decoded = roundTrip(rows);
+
+        assertEquals(rows, decoded);
+    }
+
+    @Test
+    void shouldDictionaryEncodeRepeatedKeys() {
+        List<HistoryRow> repeated = new ArrayList<>();
+        List<HistoryRow> distinct = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            repeated.add(row(1_768_392_000_000_000L + i, "kiwi", "LIS", LocalDate.of(2026, 2, 13), "kiwi|same-offer", 500 + i % 7));
+            distinct.add(row(1_768_392_000_000_000L + i, "kiwi", "LIS", LocalDate.of(2026, 2, 13), "kiwi|offer-" + i, 500 + i % 7));
+        }
+
+        int repeatedBytes = encode(repeated).length();
+        int distinctBytes = encode(distinct).length();
+
+        assertTrue(repeatedBytes < 1_000 * 6, "Repeated rows should take a few bytes each, got " + repeatedBytes);
+        assertTrue(repeatedBytes < distinctBytes);
+    }
+
+    @Test
+    void shouldStartFreshDictionariesAfterClear() {
+        PriceHistoryFormat.BlockEncoder encoder = new PriceHistoryFormat.BlockEncoder();
+        encoder.add(row(1L, "kiwi", "LIS", LocalDate.of(2026, 2, 13), "first", 100));
+        encoder.clear();
+        HistoryRow second = row(2L, "sky", "BCN", LocalDate.of(2026, 3, 6), "second", 200);
+        encoder.add(second);
+
+        PriceHistoryFormat.Output output = new PriceHistoryFormat.Output();
+        encoder.encode(output);
+        List<HistoryRow> decoded = new ArrayList<>();
+        PriceHistoryFormat.decodeBlock(ByteBuffer.wrap(output.bytes(), 0, output.length()), encoder.size(), decoded::add);
+
+        assertEquals(List.of(second), decoded);
+    }
+
+    private List<HistoryRow> roundTrip(List<HistoryRow> rows) {
+        PriceHistoryFormat.Output output = encode(rows);
+        List<HistoryRow> decoded = new ArrayList<>();
+        PriceHistoryFormat.decodeBlock(ByteBuffer.wrap(output.bytes(), 0, output.length()), rows.size(), decoded::add);
+        return decoded;
+    }
+
+    private PriceHistoryFormat.Output encode(List<HistoryRow> rows) {
+        PriceHistoryFormat.BlockEncoder encoder = new PriceHistoryFormat.BlockEncoder();
+        rows.forEach(encoder::add);
+        PriceHistoryFormat.Output output = new PriceHistoryFormat.Output();
+        encoder.encode(output);
+        return output;
+    }
+
+    private HistoryRow row(long micros, String provider, String destination, LocalDate depart, String offerKey, int price) {
+        return row(micros, provider, destination, depart, offerKey, price, 1);
+    }
+
+    private HistoryRow row(long micros, String provider, String destination, LocalDate depart, String offerKey, int price, int checks) {
+        LocalDate ret = depart.plusDays(3);
+        return new HistoryRow(micros, provider, "WAW", destination, depart, ret, (short) 2, depart.withDayOfMonth(1),
+                "WAW-" + destination + "-" + depart + "-" + ret, offerKey, price, checks);
+    }
+}
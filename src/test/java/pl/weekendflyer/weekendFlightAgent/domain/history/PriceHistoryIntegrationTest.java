@@ -0,0 +1,115 @@
+package pl.weekendflyer.weekendFlightAgent.domain.history;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import pl.weekendflyer.weekendFlightAgent.domain.model.PriceObservation;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.JdbcPriceObservationStore;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class PriceHistoryIntegrationTest {
+
+    private static final Instant SINCE = Instant.parse("2098-01-01T00:00:00Z");
+    private static final String ROWS_SQL = """
+            SELECT observed_at || '|' || provider || '|' || origin || '|' || destination || '|' || depart_date || '|' ||
+                   return_date || '|' || full_days || '|' || departure_month || '|' || window_key || '|' || offer_key || '|' || price_pln || '|' || checks
+            FROM price_observation WHERE observed_at >= ? ORDER BY observed_at, offer_key
+            """;
+
+    @TempDir
+    Path tempDir;
+
+    @Autowired
+    private PriceHistoryExporter exporter;
+
+    @Autowired
+    private PriceHistoryImporter importer;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM price_observation WHERE observed_at >= ?", Timestamp.from(SINCE));
+    }
+
+    @Test
+    void shouldRoundTripObservationsThroughBinaryFile() throws IOException {
+        new JdbcPriceObservationStore(jdbcTemplate, 100).saveAll(observations());
+        // wiersze zapisu change-only reprezentują kilka sprawdzeń - waga musi przetrwać eksport
+        jdbcTemplate.update("UPDATE price_observation SET checks = 1 + price_pln % 7 WHERE observed_at >= ?", Timestamp.from(SINCE));
+        List<String> before = rows();
+        assertTrue(before.stream().anyMatch(row -> !row.endsWith("|1")));
+        Path file = tempDir.resolve("prices.pwh");
+
+        long exported = exporter.export(file, SINCE);
+        jdbcTemplate.update("DELETE FROM price_observation WHERE observed_at >= ?", Timestamp.from(SINCE));
+        long imported = importer.importFile(file);
+
+        assertEquals(250, exported);
+        assertEquals(250, imported);
+        assertEquals(before, rows());
+        assertTrue(Files.size(file) < 250 * 40, "Export should be compact, got " + Files.size(file) + " bytes");
+    }
+
+    @Test
+    void shouldRejectForeignFile() throws IOException {
+        Path file = tempDir.resolve("not-history.bin");
+        Files.writeString(file, "id,price\n1,100\n");
+
+        assertThrows(IOException.class, () -> importer.importFile(file));
+    }
+
+    @Test
+    void shouldRejectVersionWithoutChecksColumn() throws IOException {
+        Path file = tempDir.resolve("v1.pwh");
+        ByteBuffer header = ByteBuffer.allocate(16).putInt(PriceHistoryFormat.MAGIC).putInt(1).putInt(0).putInt(0);
+        Files.write(file, header.array());
+
+        IOException error = assertThrows(IOException.class, () -> importer.importFile(file));
+        assertTrue(error.getMessage().contains("version 1"), error.getMessage());
+    }
+
+    private List<String> rows() {
+        return jdbcTemplate.queryForList(ROWS_SQL, String.class, Timestamp.from(SINCE));
+    }
+
+    private List<PriceObservation> observations() {
+        String[] destinations = {"LIS", "BCN", "MAD", "FCO", "ATH"};
+        List<PriceObservation> observations = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            LocalDate depart = LocalDate.of(2099, 1, 2).plusWeeks(i % 10);
+            LocalDate ret = depart.plusDays(3);
+            String destination = destinations[i % destinations.length];
+            PriceObservation observation = new PriceObservation();
+            observation.setObservedAt(SINCE.plusSeconds(3_600L * (i / 25)).plusNanos(1_000L * i));
+            observation.setProvider(i % 2 == 0 ? "history-a" : "history-b");
+            observation.setOrigin("WAW");
+            observation.setDestination(destination);
+            observation.setDepartDate(depart);
+            observation.setReturnDate(ret);
+            observation.setFullDays((short) 2);
+            observation.setDepartureMonth(depart.withDayOfMonth(1));
+            observation.setWindowKey("WAW-" + destination + "-" + depart + "-" + ret);
+            observation.setOfferKey("history|offer-" + (i % 40) + (i == 7 ? "\twith\\escapes" : ""));
+            observation.setPricePln(300 + (i * 37) % 900);
+            observations.add(observation);
+        }
+        return observations;
+    }
+}
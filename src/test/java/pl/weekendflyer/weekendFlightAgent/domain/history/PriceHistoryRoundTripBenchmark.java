@@ -0,0 +1,127 @@
+package pl.weekendflyer.weekendFlightAgent.domain.history;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Eksport + import 10M wierszy price_observation; raportuje czas, rozmiar pliku i szczyt zajętości heapu.
+ * Uruchamianie: {@code ./mvnw test -Pbenchmark -Dtest=PriceHistoryRoundTripBenchmark [-Dhistory.rows=1000000]}
+ */
+@Tag("benchmark")
+@SpringBootTest
+class PriceHistoryRoundTripBenchmark {
+
+    private static final Instant SINCE = Instant.parse("2097-01-01T00:00:00Z");
+    private static final long MAX_HEAP_GROWTH_BYTES = 256L * 1024 * 1024;
+
+    private static final String GENERATE_SQL = """
+            INSERT INTO price_observation (observed_at, provider, origin, destination, depart_date, return_date,
+                                           full_days, departure_month, window_key, offer_key, price_pln)
+            SELECT ?::timestamptz + g * interval '37 milliseconds', 'bench-history', 'WAW', w.destination, w.depart,
+                   w.depart + 3, 2, date_trunc('month', w.depart)::date,
+                   'WAW-' || w.destination || '-' || w.depart || '-' || (w.depart + 3),
+                   'bench-history|WAW>' || w.destination || '@' || w.depart || 'T' || lpad(((g / 130) % 24)::text, 2, '0') || ':00:00Z|' || (g % 50000),
+                   200 + (g * 7919) % 2800
+            FROM generate_series(1, ?) g
+            CROSS JOIN LATERAL (
+              SELECT (ARRAY['LIS','BCN','MAD','FCO','VCE','MLA','ATH','OPO','NAP','PMO'])[1 + g % 10] AS destination,
+                     date '2097-03-06' + ((g / 10) % 13)::int * 7 AS depart
+            ) w
+            """;
+
+    private static final String CHECKSUM_SQL = """
+            SELECT COUNT(*) AS rows, SUM(price_pln) AS prices, COUNT(DISTINCT offer_key) AS offers,
+                   SUM(EXTRACT(EPOCH FROM observed_at)) AS observed
+            FROM price_observation WHERE observed_at >= ?
+            """;
+
+    @TempDir
+    Path tempDir;
+
+    @Autowired
+    private PriceHistoryExporter exporter;
+
+    @Autowired
+    private PriceHistoryImporter importer;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM price_observation WHERE observed_at >= ?", Timestamp.from(SINCE));
+    }
+
+    @Test
+    void roundTripTenMillionRows() throws Exception {
+        long rows = Long.getLong("history.rows", 10_000_000L);
+        cleanUp();
+        jdbcTemplate.update(GENERATE_SQL, Timestamp.from(SINCE), rows);
+        Map<String, Object> before = jdbcTemplate.queryForMap(CHECKSUM_SQL, Timestamp.from(SINCE));
+        Path file = tempDir.resolve("prices.pwh");
+
+        long heapBefore = heapUsedAfterGc();
+        resetPeaks();
+        long exportStart = System.nanoTime();
+        long exported = exporter.export(file, SINCE);
+        double exportSeconds = (System.nanoTime() - exportStart) / 1e9;
+        long exportPeak = peakHeap() - heapBefore;
+
+        cleanUp();
+
+        heapBefore = heapUsedAfterGc();
+        resetPeaks();
+        long importStart = System.nanoTime();
+        long imported = importer.importFile(file);
+        double importSeconds = (System.nanoTime() - importStart) / 1e9;
+        long importPeak = peakHeap() - heapBefore;
+
+        Map<String, Object> after = jdbcTemplate.queryForMap(CHECKSUM_SQL, Timestamp.from(SINCE));
+
+        System.out.printf("rows %,d, file %.1f MB (%.1f bytes/row)%n", rows, Files.size(file) / 1e6, Files.size(file) / (double) rows);
+        System.out.printf("export: %.1f s, peak heap growth %.1f MB%n", exportSeconds, exportPeak / 1e6);
+        System.out.printf("import: %.1f s, peak heap growth %.1f MB%n", importSeconds, importPeak / 1e6);
+
+        assertEquals(rows, exported);
+        assertEquals(rows, imported);
+        assertEquals(before, after);
+        assertTrue(exportPeak < MAX_HEAP_GROWTH_BYTES && importPeak < MAX_HEAP_GROWTH_BYTES, "Heap should stay bounded");
+    }
+
+    private static long heapUsedAfterGc() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static List<MemoryPoolMXBean> heapPools() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+    }
+
+    private static void resetPeaks() {
+        heapPools().forEach(MemoryPoolMXBean::resetPeakUsage);
+    }
+
+    private static long peakHeap() {
+        return heapPools().stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+    }
+}
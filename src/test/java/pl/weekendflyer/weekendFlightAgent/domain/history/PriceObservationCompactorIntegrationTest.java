@@ -0,0 +1,117 @@
+package pl.weekendflyer.weekendFlightAgent.domain.history;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class PriceObservationCompactorIntegrationTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final String prefix = "compact-" + System.nanoTime();
+    private final LocalDate day = LocalDate.of(1990, 1, 1).plusDays(System.nanoTime() % 3000);
+    private LocalDate savedCursor;
+
+    @BeforeEach
+    void moveCursor() {
+        savedCursor = cursor();
+        jdbcTemplate.update("UPDATE price_observation_compaction SET next_day = ?", Date.valueOf(day));
+    }
+
+    @AfterEach
+    void restoreCursor() {
+        jdbcTemplate.update("UPDATE price_observation_compaction SET next_day = ?", Date.valueOf(savedCursor));
+        jdbcTemplate.update("DELETE FROM price_observation WHERE window_key LIKE ?", prefix + "%");
+    }
+
+    @Test
+    void shouldRollUpAgedDayAndDeleteRawRowsInBatches() {
+        insert("a", 6, 400, 1);
+        insert("a", 9, 380, 2);
+        insert("a", 12, 420, 1);
+        insert("b", 10, 500, 1);
+        insert("a", 30, 999, 1);
+
+        PriceObservationCompactor.Result result = compactor(1, 100).compact();
+
+        assertEquals(2, result.groups());
+        assertEquals(4, result.rows());
+        assertEquals(day.plusDays(1), result.nextDay());
+        assertEquals(day.plusDays(1), cursor());
+
+        Map<String, Object> a = daily("a");
+        assertEquals(380, a.get("min_price_pln"));
+        assertEquals(420, a.get("max_price_pln"));
+        assertEquals(390, a.get("median_price_pln"));
+        assertEquals(4, a.get("checks"));
+        assertEquals(3, a.get("observations"));
+        assertEquals(500, daily("b").get("median_price_pln"));
+
+        assertEquals(List.of(999), jdbcTemplate.queryForList(
+                "SELECT price_pln FROM price_observation WHERE window_key LIKE ?", Integer.class, prefix + "%"));
+    }
+
+    @Test
+    void shouldResumeWhereThePreviousRunStopped() {
+        insert("a", 6, 400, 1);
+        insert("b", 7, 410, 1);
+
+        PriceObservationCompactor compactor = compactor(1, 1);
+        PriceObservationCompactor.Result first = compactor.compact();
+        assertEquals(1, first.groups());
+        assertEquals(day, cursor());
+
+        PriceObservationCompactor.Result second = compactor.compact();
+        assertEquals(1, second.groups());
+        assertEquals(410, daily("b").get("min_price_pln"));
+
+        PriceObservationCompactor.Result third = compactor.compact();
+        assertEquals(0, third.groups());
+        assertEquals(day.plusDays(1), third.nextDay());
+    }
+
+    private PriceObservationCompactor compactor(int groupsPerBatch, int maxBatchesPerRun) {
+        Clock clock = Clock.fixed(day.plusDays(2).atStartOfDay(ZoneOffset.UTC).toInstant(), ZoneOffset.UTC);
+        return new PriceObservationCompactor(jdbcTemplate, transactionTemplate, clock, () -> Duration.ofDays(1),
+                groupsPerBatch, maxBatchesPerRun, Duration.ZERO);
+    }
+
+    private void insert(String window, int hour, int price, int checks) {
+        jdbcTemplate.update("""
+                INSERT INTO price_observation (observed_at, provider, origin, destination, depart_date, return_date,
+                                               full_days, departure_month, window_key, offer_key, price_pln, checks)
+                VALUES (?, 'test', 'WAW', 'LIS', '2099-01-15', '2099-01-19', 3, '2099-01-01', ?, ?, ?, ?)
+                """,
+                Timestamp.from(day.atStartOfDay(ZoneOffset.UTC).plusHours(hour).toInstant()),
+                prefix + window, prefix + window + "-" + price, price, checks);
+    }
+
+    private Map<String, Object> daily(String window) {
+        return jdbcTemplate.queryForMap("SELECT * FROM price_observation_daily WHERE window_key = ? AND observed_day = ?",
+                prefix + window, Date.valueOf(day));
+    }
+
+    private LocalDate cursor() {
+        return jdbcTemplate.queryForObject("SELECT next_day FROM price_observation_compaction", LocalDate.class);
+    }
+}
@@ -0,0 +1,47 @@
+package pl.weekendflyer.weekendFlightAgent.domain.planner;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BudgetPacerTest {
+
+    @Test
+    void shouldAllowFirstTickShareRightAfterMidnight() {
+        BudgetPacer pacer = new BudgetPacer(288, Duration.ofMinutes(5));
+
+        assertEquals(1, pacer.pacedTarget(LocalTime.MIDNIGHT));
+    }
+
+    @Test
+    void shouldSpreadBudgetEvenlyOverTheDay() {
+        BudgetPacer pacer = new BudgetPacer(100, Duration.ofMinutes(5));
+
+        assertEquals(50, pacer.pacedTarget(LocalTime.of(11, 55)));
+        assertEquals(75, pacer.pacedTarget(LocalTime.of(17, 55)));
+    }
+
+    @Test
+    void shouldRoundUpSoSmallBudgetsAreNotStarved() {
+        BudgetPacer pacer = new BudgetPacer(10, Duration.ofMinutes(5));
+
+        assertEquals(1, pacer.pacedTarget(LocalTime.of(0, 1)));
+        assertEquals(5, pacer.pacedTarget(LocalTime.of(11, 55)));
+    }
+
+    @Test
+    void shouldNeverExceedDailyBudget() {
+        BudgetPacer pacer = new BudgetPacer(100, Duration.ofMinutes(30));
+
+        assertEquals(100, pacer.pacedTarget(LocalTime.of(23, 50)));
+        assertEquals(100, pacer.pacedTarget(LocalTime.MAX));
+    }
+
+    @Test
+    void shouldRejectNonPositiveTick() {
+        assertThrows(IllegalArgumentException.class, () -> new BudgetPacer(100, Duration.ZERO));
+    }
+}
@@ -0,0 +1,74 @@
+package pl.weekendflyer.weekendFlightAgent.domain.planner;
+
+import org.junit.jupiter.api.Test;
+import pl.weekendflyer.weekendFlightAgent.domain.model.WindowCheck;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecheckIntervalPolicyTest {
+
+    private final RecheckIntervalPolicy policy = new RecheckIntervalPolicy(12, 72);
+
+    @Test
+    void shouldUseMinIntervalUntilEnoughSamples() {
+        WindowCheck check = check(500.0, 0.0, 2);
+
+        assertEquals(12, policy.intervalHours(check, 60));
+    }
+
+    @Test
+    void shouldCheckStableDistantWindowsRarely() {
+        WindowCheck check = check(500.0, 0.0, 10);
+
+        assertEquals(72, policy.intervalHours(check, 60));
+    }
+
+    @Test
+    void shouldCheckVolatileWindowsOften() {
+        WindowCheck stable = check(500.0, 25.0, 10);
+        WindowCheck volatileCheck = check(500.0, 10_000.0, 10);
+
+        int stableInterval = policy.intervalHours(stable, 60);
+        int volatileInterval = policy.intervalHours(volatileCheck, 60);
+
+        assertTrue(volatileInterval < stableInterval);
+        assertEquals(14, volatileInterval);
+    }
+
+    @Test
+    void shouldShortenIntervalCloseToDeparture() {
+        WindowCheck check = check(500.0, 0.0, 10);
+
+        assertEquals(72, policy.intervalHours(check, 30));
+        assertEquals(36, policy.intervalHours(check, 15));
+        assertEquals(18, policy.intervalHours(check, 2));
+    }
+
+    @Test
+    void shouldReturnConstantIntervalForFixedPolicy() {
+        RecheckIntervalPolicy fixed = RecheckIntervalPolicy.fixed(12);
+
+        assertEquals(12, fixed.intervalHours(check(500.0, 0.0, 10), 60));
+        assertEquals(12, fixed.intervalHours(check(500.0, 10_000.0, 10), 1));
+    }
+
+    @Test
+    void shouldComputeCoefficientOfVariation() {
+        assertEquals(0.2, RecheckIntervalPolicy.volatility(check(500.0, 10_000.0, 10)), 1e-9);
+        assertEquals(0.0, RecheckIntervalPolicy.volatility(new WindowCheck()), 1e-9);
+        assertEquals(0.0, RecheckIntervalPolicy.volatility(check(500.0, 10_000.0, 2)), 1e-9);
+    }
+
+    @Test
+    void shouldRejectMaxLowerThanMin() {
+        assertThrows(IllegalArgumentException.class, () -> new RecheckIntervalPolicy(24, 12));
+    }
+
+    private WindowCheck check(double ewma, double variance, int samples) {
+        WindowCheck check = new WindowCheck();
+        check.setPriceEwma(ewma);
+        check.setPriceEwmVar(variance);
+        check.setPriceSamples(samples);
+        return check;
+    }
+}
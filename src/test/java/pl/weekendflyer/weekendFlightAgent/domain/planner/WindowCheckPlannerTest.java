@@ -1,5 +1,6 @@
 package pl.weekendflyer.weekendFlightAgent.domain.planner;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -7,10 +8,12 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import pl.weekendflyer.weekendFlightAgent.config.AgentProperties;
 import pl.weekendflyer.weekendFlightAgent.domain.model.CandidateWindow;
 import pl.weekendflyer.weekendFlightAgent.domain.model.PlannerResult;
 import pl.weekendflyer.weekendFlightAgent.domain.model.WindowCheck;
-import pl.weekendflyer.weekendFlightAgent.domain.repository.WindowCheckRepository;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.WindowCheckStore;
+import pl.weekendflyer.weekendFlightAgent.domain.scan.ScanMetrics;
 
 import java.time.Clock;
 import java.time.Instant;
@@ -18,6 +21,8 @@ import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.anyList;
@@ -31,7 +36,7 @@ class WindowCheckPlannerTest {
     private static final String PROVIDER = "TestProvider";
 
     @Mock
-    private WindowCheckRepository repository;
+    private WindowCheckStore repository;
 
     @Captor
     private ArgumentCaptor<List<WindowCheck>> saveCaptor;
@@ -49,7 +54,7 @@ class WindowCheckPlannerTest {
 
     @Test
     void shouldReturnNewWindowsFirst() {
-        WindowCheckPlanner planner = new WindowCheckPlanner(fixedClock, 12, 10, repository);
+        WindowCheckPlanner planner = planner(fixedClock, 12, 10);
 
         CandidateWindow newWindow = createCandidate("WAW", "LIS", today.plusDays(2), today.plusDays(4));
         CandidateWindow existingWindow = createCandidate("WAW", "BCN", today.plusDays(2), today.plusDays(4));
@@ -68,7 +73,7 @@ class WindowCheckPlannerTest {
     @Test
     void shouldFilterOutRecentlyCheckedWindows() {
         int minRecheckIntervalHours = 12;
-        WindowCheckPlanner planner = new WindowCheckPlanner(fixedClock, minRecheckIntervalHours, 10, repository);
+        WindowCheckPlanner planner = planner(fixedClock, minRecheckIntervalHours, 10);
 
         CandidateWindow recentlyChecked = createCandidate("WAW", "LIS", today.plusDays(2), today.plusDays(4));
         CandidateWindow notRecentlyChecked = createCandidate("WAW", "BCN", today.plusDays(2), today.plusDays(4));
@@ -91,7 +96,7 @@ class WindowCheckPlannerTest {
 
     @Test
     void shouldPrioritizeCloserDepartDates() {
-        WindowCheckPlanner planner = new WindowCheckPlanner(fixedClock, 12, 10, repository);
+        WindowCheckPlanner planner = planner(fixedClock, 12, 10);
 
         CandidateWindow farWindow = createCandidate("WAW", "LIS", today.plusDays(10), today.plusDays(12));
         CandidateWindow closeWindow = createCandidate("WAW", "BCN", today.plusDays(2), today.plusDays(4));
@@ -108,7 +113,7 @@ class WindowCheckPlannerTest {
 
     @Test
     void shouldPrioritizeLessCheckedWindows() {
-        WindowCheckPlanner planner = new WindowCheckPlanner(fixedClock, 12, 10, repository);
+        WindowCheckPlanner planner = planner(fixedClock, 12, 10);
 
         CandidateWindow manyChecks = createCandidate("WAW", "LIS", today.plusDays(2), today.plusDays(4));
         CandidateWindow fewChecks = createCandidate("WAW", "BCN", today.plusDays(2), today.plusDays(4));
@@ -131,7 +136,7 @@ class WindowCheckPlannerTest {
     @Test
     void shouldRespectDailyBudget() {
         int dailyBudget = 2;
-        WindowCheckPlanner planner = new WindowCheckPlanner(fixedClock, 12, dailyBudget, repository);
+        WindowCheckPlanner planner = planner(fixedClock, 12, dailyBudget);
 
         List<CandidateWindow> candidates = List.of(
                 createCandidate("WAW", "LIS", today.plusDays(2), today.plusDays(4)),
@@ -152,8 +157,87 @@ class WindowCheckPlannerTest {
     }
 
     @Test
-    void shouldPersistWindowChecksOnPlan() {
-        WindowCheckPlanner planner = new WindowCheckPlanner(fixedClock, 12, 10, repository);
+    void shouldReadBudgetFromCurrentConfigOnEveryPlan() {
+        AtomicReference<AgentProperties.Planner> config = new AtomicReference<>(new AgentProperties.Planner(3, 500, 12, 1, 72, 0.3));
+        WindowCheckPlanner planner = new WindowCheckPlanner(fixedClock, config::get, repository, ScanMetrics.noop());
+
+        List<CandidateWindow> candidates = List.of(
+                createCandidate("WAW", "LIS", today.plusDays(2), today.plusDays(4)),
+                createCandidate("WAW", "BCN", today.plusDays(3), today.plusDays(5)),
+                createCandidate("WAW", "MAD", today.plusDays(4), today.plusDays(6))
+        );
+
+        when(repository.findByProviderAndWindowKeyIn(eq(PROVIDER), anyList()))
+                .thenReturn(Collections.emptyList());
+
+        assertEquals(1, planner.plan(PROVIDER, candidates).selectedCount());
+
+        config.set(new AgentProperties.Planner(3, 500, 12, 3, 72, 0.3));
+
+        assertEquals(3, planner.dailyBudgetPerProvider());
+        assertEquals(3, planner.plan(PROVIDER, candidates).selectedCount());
+    }
+
+    @Test
+    void shouldTimeLookupSortAndSaveStages() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AgentProperties.Planner config = new AgentProperties.Planner(3, 500, 12, 10, 72, 0.3);
+        WindowCheckPlanner planner = new WindowCheckPlanner(fixedClock, () -> config, repository, new ScanMetrics(meterRegistry));
+        CandidateWindow window = createCandidate("WAW", "LIS", today.plusDays(2), today.plusDays(4));
+
+        when(repository.findByProviderAndWindowKeyIn(eq(PROVIDER), anyList()))
+                .thenReturn(Collections.emptyList());
+
+        planner.plan(PROVIDER, List.of(window));
+        planner.recordChecked(PROVIDER, List.of(window));
+
+        assertEquals(2, meterRegistry.get("agent.scan.stage").tag("stage", "plan.lookup").timer().count(),
+                "plan and recordChecked both look up window_check");
+        assertEquals(1, meterRegistry.get("agent.scan.stage").tag("stage", "plan.sort").timer().count());
+        assertEquals(1, meterRegistry.get("agent.scan.stage").tag("stage", "window_check.save").timer().count());
+    }
+
+    @Test
+    void shouldRespectExplicitTickBudget() {
+        WindowCheckPlanner planner = planner(fixedClock, 12, 100);
+
+        List<CandidateWindow> candidates = List.of(
+                createCandidate("WAW", "LIS", today.plusDays(2), today.plusDays(4)),
+                createCandidate("WAW", "BCN", today.plusDays(3), today.plusDays(5)),
+                createCandidate("WAW", "MAD", today.plusDays(4), today.plusDays(6))
+        );
+
+        when(repository.findByProviderAndWindowKeyIn(eq(PROVIDER), anyList()))
+                .thenReturn(Collections.emptyList());
+
+        PlannerResult result = planner.plan(PROVIDER, candidates, 1);
+
+        assertEquals(1, result.selectedCount());
+        assertEquals("LIS", result.selected().get(0).destination());
+        assertEquals(2, result.skippedBudget());
+
+        PlannerResult exhausted = planner.plan(PROVIDER, candidates, 0);
+        assertEquals(0, exhausted.selectedCount());
+        assertEquals(3, exhausted.skippedBudget());
+    }
+
+    @Test
+    void shouldNotPersistWindowChecksOnPlan() {
+        WindowCheckPlanner planner = planner(fixedClock, 12, 10);
+
+        CandidateWindow candidate = createCandidate("WAW", "LIS", today.plusDays(2), today.plusDays(4));
+
+        when(repository.findByProviderAndWindowKeyIn(eq(PROVIDER), anyList()))
+                .thenReturn(Collections.emptyList());
+
+        planner.plan(PROVIDER, List.of(candidate));
+
+        verify(repository, never()).saveAll(any());
+    }
+
+    @Test
+    void shouldPersistWindowChecksOnRecordChecked() {
+        WindowCheckPlanner planner = planner(fixedClock, 12, 10);
 
         CandidateWindow newWindow = createCandidate("WAW", "LIS", today.plusDays(2), today.plusDays(4));
         CandidateWindow existingWindow = createCandidate("WAW", "BCN", today.plusDays(3), today.plusDays(5));
@@ -164,7 +248,7 @@ class WindowCheckPlannerTest {
         when(repository.findByProviderAndWindowKeyIn(eq(PROVIDER), anyList()))
                 .thenReturn(List.of(existingCheck));
 
-        planner.plan(PROVIDER, List.of(newWindow, existingWindow));
+        planner.recordChecked(PROVIDER, List.of(newWindow, existingWindow));
 
         verify(repository).saveAll(saveCaptor.capture());
 
@@ -195,14 +279,14 @@ class WindowCheckPlannerTest {
     void shouldUseClockForNow() {
         Instant specificInstant = Instant.parse("2026-01-14T10:30:00Z");
         Clock specificClock = Clock.fixed(specificInstant, WARSAW_ZONE);
-        WindowCheckPlanner planner = new WindowCheckPlanner(specificClock, 12, 10, repository);
+        WindowCheckPlanner planner = planner(specificClock, 12, 10);
 
         CandidateWindow candidate = createCandidate("WAW", "LIS", today.plusDays(2), today.plusDays(4));
 
         when(repository.findByProviderAndWindowKeyIn(eq(PROVIDER), anyList()))
                 .thenReturn(Collections.emptyList());
 
-        planner.plan(PROVIDER, List.of(candidate));
+        planner.recordChecked(PROVIDER, List.of(candidate));
 
         verify(repository).saveAll(saveCaptor.capture());
 
@@ -210,9 +294,18 @@ class WindowCheckPlannerTest {
         assertEquals(specificInstant, saved.getLastCheckedAt());
     }
 
+    @Test
+    void shouldSkipRecordCheckedForEmptyList() {
+        WindowCheckPlanner planner = planner(fixedClock, 12, 10);
+
+        planner.recordChecked(PROVIDER, Collections.emptyList());
+
+        verifyNoInteractions(repository);
+    }
+
     @Test
     void shouldReturnEmptyResultForEmptyCandidates() {
-        WindowCheckPlanner planner = new WindowCheckPlanner(fixedClock, 12, 10, repository);
+        WindowCheckPlanner planner = planner(fixedClock, 12, 10);
 
         PlannerResult result = planner.plan(PROVIDER, Collections.emptyList());
 
@@ -224,7 +317,7 @@ class WindowCheckPlannerTest {
 
     @Test
     void shouldHandleWindowWithNullLastCheckedAt() {
-        WindowCheckPlanner planner = new WindowCheckPlanner(fixedClock, 12, 10, repository);
+        WindowCheckPlanner planner = planner(fixedClock, 12, 10);
 
         CandidateWindow candidate = createCandidate("WAW", "LIS", today.plusDays(2), today.plusDays(4));
 
@@ -241,7 +334,7 @@ class WindowCheckPlannerTest {
 
     @Test
     void shouldSortDeterministicallyByWindowKeyAsTieBreaker() {
-        WindowCheckPlanner planner = new WindowCheckPlanner(fixedClock, 12, 10, repository);
+        WindowCheckPlanner planner = planner(fixedClock, 12, 10);
 
         CandidateWindow windowA = createCandidate("WAW", "AAA", today.plusDays(2), today.plusDays(4));
         CandidateWindow windowB = createCandidate("WAW", "BBB", today.plusDays(2), today.plusDays(4));
@@ -258,6 +351,130 @@ class WindowCheckPlannerTest {
         assertEquals(windowC.windowKey(), result.selected().get(2).windowKey());
     }
 
+    @Test
+    void shouldUseAdaptiveNextCheckAtForEligibility() {
+        WindowCheckPlanner planner = planner(fixedClock, 12, 10);
+
+        CandidateWindow stable = createCandidate("WAW", "LIS", today.plusDays(2), today.plusDays(4));
+        CandidateWindow volatileWindow = createCandidate("WAW", "BCN", today.plusDays(3), today.plusDays(5));
+
+        WindowCheck stableCheck = createWindowCheck(stable, fixedNow.minusSeconds(24 * 3600), 5);
+        stableCheck.setNextCheckAt(fixedNow.plusSeconds(24 * 3600));
+        WindowCheck volatileCheck = createWindowCheck(volatileWindow, fixedNow.minusSeconds(2 * 3600), 5);
+        volatileCheck.setNextCheckAt(fixedNow.minusSeconds(60));
+
+        when(repository.findByProviderAndWindowKeyIn(eq(PROVIDER), anyList()))
+                .thenReturn(List.of(stableCheck, volatileCheck));
+
+        PlannerResult result = planner.plan(PROVIDER, List.of(stable, volatileWindow));
+
+        assertEquals(List.of(volatileWindow), result.selected());
+        assertEquals(1, result.skippedRecentlyChecked());
+    }
+
+    @Test
+    void shouldPrioritizeVolatileWindowsAmongCheckedOnes() {
+        WindowCheckPlanner planner = planner(fixedClock, 12, 10);
+
+        CandidateWindow stable = createCandidate("WAW", "LIS", today.plusDays(2), today.plusDays(4));
+        CandidateWindow volatileWindow = createCandidate("WAW", "BCN", today.plusDays(20), today.plusDays(22));
+
+        Instant lastChecked = fixedNow.minusSeconds(24 * 3600);
+        WindowCheck stableCheck = createWindowCheck(stable, lastChecked, 1);
+        stableCheck.setPriceEwma(500.0);
+        stableCheck.setPriceEwmVar(25.0);
+        stableCheck.setPriceSamples(5);
+        WindowCheck volatileCheck = createWindowCheck(volatileWindow, lastChecked, 1);
+        volatileCheck.setPriceEwma(500.0);
+        volatileCheck.setPriceEwmVar(10_000.0);
+        volatileCheck.setPriceSamples(5);
+
+        when(repository.findByProviderAndWindowKeyIn(eq(PROVIDER), anyList()))
+                .thenReturn(List.of(stableCheck, volatileCheck));
+
+        PlannerResult result = planner.plan(PROVIDER, List.of(stable, volatileWindow));
+
+        assertEquals(volatileWindow, result.selected().get(0));
+        assertEquals(stable, result.selected().get(1));
+    }
+
+    @Test
+    void shouldNotRankWindowsWithTooFewSamplesByVolatility() {
+        WindowCheckPlanner planner = planner(fixedClock, 12, 10);
+
+        CandidateWindow history = createCandidate("WAW", "LIS", today.plusDays(2), today.plusDays(4));
+        CandidateWindow noisy = createCandidate("WAW", "BCN", today.plusDays(20), today.plusDays(22));
+
+        Instant lastChecked = fixedNow.minusSeconds(24 * 3600);
+        WindowCheck historyCheck = createWindowCheck(history, lastChecked, 1);
+        historyCheck.setPriceEwma(500.0);
+        historyCheck.setPriceEwmVar(2_500.0);
+        historyCheck.setPriceSamples(5);
+        WindowCheck noisyCheck = createWindowCheck(noisy, lastChecked, 1);
+        noisyCheck.setPriceEwma(500.0);
+        noisyCheck.setPriceEwmVar(90_000.0);
+        noisyCheck.setPriceSamples(1);
+
+        when(repository.findByProviderAndWindowKeyIn(eq(PROVIDER), anyList()))
+                .thenReturn(List.of(noisyCheck, historyCheck));
+
+        PlannerResult result = planner.plan(PROVIDER, List.of(noisy, history));
+
+        assertEquals(history, result.selected().get(0));
+        assertEquals(noisy, result.selected().get(1));
+    }
+
+    @Test
+    void shouldUpdatePriceStatsAndScheduleNextCheckOnRecordChecked() {
+        RecheckIntervalPolicy policy = new RecheckIntervalPolicy(12, 72);
+        WindowCheckPlanner planner = planner(fixedClock, 12, 72, 10, 0.5);
+
+        CandidateWindow window = createCandidate("WAW", "LIS", today.plusDays(40), today.plusDays(42));
+        WindowCheck check = createWindowCheck(window, fixedNow.minusSeconds(24 * 3600), 3);
+        check.setPriceEwma(500.0);
+        check.setPriceEwmVar(0.0);
+        check.setPriceSamples(3);
+
+        when(repository.findByProviderAndWindowKeyIn(eq(PROVIDER), anyList()))
+                .thenReturn(List.of(check));
+
+        planner.recordChecked(PROVIDER, List.of(window), Map.of(window.windowKey(), 600));
+
+        assertEquals(4, check.getPriceSamples());
+        assertEquals(550.0, check.getPriceEwma(), 1e-9);
+        assertEquals(2500.0, check.getPriceEwmVar(), 1e-9);
+        int expectedInterval = policy.intervalHours(check, 40);
+        assertEquals(expectedInterval, check.getRecheckIntervalHours());
+        assertEquals(fixedNow.plusSeconds(expectedInterval * 3600L), check.getNextCheckAt());
+    }
+
+    @Test
+    void shouldScheduleMinIntervalWhenNoPriceWasFound() {
+        WindowCheckPlanner planner = planner(fixedClock, 12, 72, 10, 0.3);
+
+        CandidateWindow window = createCandidate("WAW", "LIS", today.plusDays(40), today.plusDays(42));
+
+        when(repository.findByProviderAndWindowKeyIn(eq(PROVIDER), anyList()))
+                .thenReturn(Collections.emptyList());
+
+        planner.recordChecked(PROVIDER, List.of(window), Map.of());
+
+        verify(repository).saveAll(saveCaptor.capture());
+        WindowCheck saved = saveCaptor.getValue().get(0);
+        assertEquals(0, saved.getPriceSamples());
+        assertEquals(12, saved.getRecheckIntervalHours());
+        assertEquals(fixedNow.plusSeconds(12 * 3600L), saved.getNextCheckAt());
+    }
+
+    private WindowCheckPlanner planner(Clock clock, int recheckIntervalHours, int dailyBudget) {
+        return planner(clock, recheckIntervalHours, recheckIntervalHours, dailyBudget, 0.3);
+    }
+
+    private WindowCheckPlanner planner(Clock clock, int minRecheckHours, int maxRecheckHours, int dailyBudget, double priceEwmaAlpha) {
+        AgentProperties.Planner config = new AgentProperties.Planner(3, 500, minRecheckHours, dailyBudget, maxRecheckHours, priceEwmaAlpha);
+        return new WindowCheckPlanner(clock, () -> config, repository, ScanMetrics.noop());
+    }
+
     private CandidateWindow createCandidate(String origin, String destination, LocalDate departDate, LocalDate returnDate) {
         return new CandidateWindow(origin, destination, departDate, returnDate);
     }
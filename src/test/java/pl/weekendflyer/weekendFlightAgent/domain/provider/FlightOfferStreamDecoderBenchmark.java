@@ -0,0 +1,116 @@
+package pl.weekendflyer.weekendFlightAgent.domain.provider;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import pl.weekendflyer.weekendFlightAgent.domain.eval.TripEvaluator;
+import pl.weekendflyer.weekendFlightAgent.domain.model.CandidateWindow;
+import pl.weekendflyer.weekendFlightAgent.domain.model.FlightOffer;
+import pl.weekendflyer.weekendFlightAgent.domain.model.TripConstraints;
+
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Uruchamianie: {@code ./mvnw test -Pbenchmark -Dtest=FlightOfferStreamDecoderBenchmark}
+ */
+@Tag("benchmark")
+class FlightOfferStreamDecoderBenchmark {
+
+    private static final String PROVIDER = "BenchmarkProvider";
+    private static final int FIXTURE_BYTES = 5 * 1024 * 1024;
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASURED_ITERATIONS = 15;
+
+    private final com.sun.management.ThreadMXBean threadMXBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Test
+    void streamingDecoderVersusTreeBinding() {
+        byte[] payload = fixtureOfAtLeast(FIXTURE_BYTES);
+        CandidateWindow window = new CandidateWindow("WAW", "LIS", LocalDate.of(2026, 1, 16), LocalDate.of(2026, 1, 18));
+        TripConstraints constraints = new TripConstraints(1, 480, 2000, LocalTime.of(22, 0), LocalTime.of(6, 0), true);
+        TripEvaluator evaluator = new TripEvaluator();
+        FlightOfferStreamDecoder decoder = new FlightOfferStreamDecoder();
+
+        IntSupplier treeBinding = () -> {
+            List<FlightOffer> accepted = new ArrayList<>();
+            for (FlightOffer offer : ProviderPayloadFixture.bindTree(payload, PROVIDER, window)) {
+                if (evaluator.meetsHardConstraints(offer, constraints)) {
+                    accepted.add(offer);
+                }
+            }
+            return accepted.size();
+        };
+
+        IntSupplier streaming = () -> {
+            List<FlightOffer> accepted = new ArrayList<>();
+            decoder.decode(new ByteArrayInputStream(payload), PROVIDER, window, constraints, offer -> {
+                if (evaluator.meetsHardConstraints(offer, constraints)) {
+                    accepted.add(offer);
+                }
+            });
+            return accepted.size();
+        };
+
+        Measurement tree = measure(treeBinding);
+        Measurement stream = measure(streaming);
+
+        System.out.printf("Fixture: %.2f MB%n", payload.length / (1024.0 * 1024.0));
+        System.out.printf("tree binding : median %6.1f ms, allocated %7.1f MB, accepted %d%n",
+                tree.medianMillis(), tree.allocatedMegabytes(), tree.accepted());
+        System.out.printf("streaming    : median %6.1f ms, allocated %7.1f MB, accepted %d%n",
+                stream.medianMillis(), stream.allocatedMegabytes(), stream.accepted());
+
+        assertEquals(tree.accepted(), stream.accepted());
+        assertTrue(stream.allocatedMegabytes() < tree.allocatedMegabytes(),
+                "Streaming decoder should allocate less than tree binding");
+    }
+
+    private byte[] fixtureOfAtLeast(int bytes) {
+        int offers = 1000;
+        byte[] payload = ProviderPayloadFixture.generate(offers, 7L);
+        while (payload.length < bytes) {
+            offers = (int) (offers * ((double) bytes / payload.length)) + 1;
+            payload = ProviderPayloadFixture.generate(offers, 7L);
+        }
+        return payload;
+    }
+
+    private Measurement measure(IntSupplier task) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            task.getAsInt();
+        }
+
+        long[] nanos = new long[MEASURED_ITERATIONS];
+        long allocatedTotal = 0;
+        int accepted = 0;
+        long threadId = Thread.currentThread().getId();
+
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            accepted = task.getAsInt();
+            nanos[i] = System.nanoTime() - start;
+            allocatedTotal += threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        }
+
+        Arrays.sort(nanos);
+        return new Measurement(
+                nanos[MEASURED_ITERATIONS / 2] / 1_000_000.0,
+                allocatedTotal / (double) MEASURED_ITERATIONS / (1024.0 * 1024.0),
+                accepted
+        );
+    }
+
+    private record Measurement(double medianMillis, double allocatedMegabytes, int accepted) {
+    }
+}
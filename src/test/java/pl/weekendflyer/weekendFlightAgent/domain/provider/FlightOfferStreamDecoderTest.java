@@ -0,0 +1,255 @@
+package pl.weekendflyer.weekendFlightAgent.domain.provider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pl.weekendflyer.weekendFlightAgent.domain.eval.TripEvaluator;
+import pl.weekendflyer.weekendFlightAgent.domain.model.CandidateWindow;
+import pl.weekendflyer.weekendFlightAgent.domain.model.FlightOffer;
+import pl.weekendflyer.weekendFlightAgent.domain.model.OneWayFare;
+import pl.weekendflyer.weekendFlightAgent.domain.model.TripConstraints;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightOfferStreamDecoderTest {
+
+    private static final String PROVIDER = "TestProvider";
+
+    private FlightOfferStreamDecoder decoder;
+    private TripConstraints constraints;
+    private CandidateWindow window;
+
+    @BeforeEach
+    void setUp() {
+        decoder = new FlightOfferStreamDecoder();
+        constraints = new TripConstraints(1, 480, 2000, LocalTime.of(22, 0), LocalTime.of(6, 0), true);
+        window = new CandidateWindow("WAW", "LIS", LocalDate.of(2026, 1, 16), LocalDate.of(2026, 1, 18));
+    }
+
+    @Test
+    void shouldDecodeOfferWithAllFields() {
+        String json = """
+                {"currency":"PLN","offers":[{
+                  "price":850,
+                  "deepLink":"https://test.com/1",
+                  "outbound":[{"from":"WAW","to":"LIS","departure":"2026-01-16T18:00:00+01:00[Europe/Warsaw]","arrival":"2026-01-16T21:30:00Z[Europe/Lisbon]"}],
+                  "inbound":[{"from":"LIS","to":"WAW","departure":"2026-01-18T10:00:00Z[Europe/Lisbon]","arrival":"2026-01-18T15:30:00+01:00[Europe/Warsaw]"}]
+                }]}
+                """;
+
+        List<FlightOffer> offers = new ArrayList<>();
+        DecodeResult result = decoder.decode(stream(json), PROVIDER, window, constraints, offers::add);
+
+        assertEquals(1, result.offersRead());
+        assertEquals(1, result.offersEmitted());
+        FlightOffer offer = offers.get(0);
+        assertEquals("WAW", offer.originIata());
+        assertEquals("LIS", offer.destinationIata());
+        assertEquals(850, offer.pricePln());
+        assertEquals(PROVIDER, offer.provider());
+        assertEquals("https://test.com/1", offer.deepLink());
+        assertEquals(ZonedDateTime.parse("2026-01-16T21:30:00Z[Europe/Lisbon]"), offer.outboundArrivalTime());
+        assertEquals("LIS", offer.inboundSegments().get(0).departureAirport());
+    }
+
+    @Test
+    void shouldRejectOfferAboveStopLimitWithoutMaterializing() {
+        String json = """
+                {"offers":[{
+                  "outbound":[%s,%s,%s],
+                  "inbound":[%s],
+                  "price":500
+                }]}
+                """.formatted(segment(), segment(), segment(), segment());
+
+        List<FlightOffer> offers = new ArrayList<>();
+        DecodeResult result = decoder.decode(stream(json), PROVIDER, window, constraints, offers::add);
+
+        assertTrue(offers.isEmpty());
+        assertEquals(1, result.rejectedStops());
+    }
+
+    @Test
+    void shouldRejectOfferAboveHardCapPrice() {
+        String json = """
+                {"offers":[{"price":2500,"outbound":[%s],"inbound":[%s]}]}
+                """.formatted(segment(), segment());
+
+        List<FlightOffer> offers = new ArrayList<>();
+        DecodeResult result = decoder.decode(stream(json), PROVIDER, window, constraints, offers::add);
+
+        assertTrue(offers.isEmpty());
+        assertEquals(1, result.rejectedPrice());
+    }
+
+    @Test
+    void shouldRejectOfferWithoutPriceOrSegments() {
+        String json = """
+                {"offers":[
+                  {"price":null,"outbound":[%s],"inbound":[%s]},
+                  {"outbound":[%s],"inbound":[%s]},
+                  {"price":500,"outbound":[],"inbound":[%s]}
+                ]}
+                """.formatted(segment(), segment(), segment(), segment(), segment());
+
+        List<FlightOffer> offers = new ArrayList<>();
+        DecodeResult result = decoder.decode(stream(json), PROVIDER, window, constraints, offers::add);
+
+        assertTrue(offers.isEmpty());
+        assertEquals(3, result.rejectedIncomplete());
+    }
+
+    @Test
+    void shouldAcceptAnyPriceWhenNoHardCap() {
+        TripConstraints noCap = new TripConstraints(1, 480, null, LocalTime.of(22, 0), LocalTime.of(6, 0), true);
+        String json = """
+                {"offers":[{"price":99999,"outbound":[%s],"inbound":[%s]}]}
+                """.formatted(segment(), segment());
+
+        List<FlightOffer> offers = new ArrayList<>();
+        decoder.decode(stream(json), PROVIDER, window, noCap, offers::add);
+
+        assertEquals(1, offers.size());
+    }
+
+    @Test
+    void shouldSkipUnknownFieldsAndNestedStructures() {
+        String json = """
+                {"meta":{"page":1,"tags":["a","b"]},"offers":[{
+                  "id":"x1",
+                  "baggage":{"cabin":{"kg":8},"hold":[20,23]},
+                  "price":700,
+                  "outbound":[{"from":"WAW","to":"LIS","carrier":{"code":"LO"},"departure":"2026-01-16T18:00:00+01:00","arrival":"2026-01-16T21:30:00Z"}],
+                  "inbound":[%s]
+                }],"links":[{"next":null}]}
+                """.formatted(segment());
+
+        List<FlightOffer> offers = new ArrayList<>();
+        DecodeResult result = decoder.decode(stream(json), PROVIDER, window, constraints, offers::add);
+
+        assertEquals(1, result.offersEmitted());
+        assertEquals(700, offers.get(0).pricePln());
+    }
+
+    @Test
+    void shouldMatchTripEvaluatorOnStopsAndPrice() {
+        TripConstraints relaxedDuration = new TripConstraints(1, Integer.MAX_VALUE, 2000,
+                LocalTime.of(22, 0), LocalTime.of(6, 0), true);
+        byte[] payload = ProviderPayloadFixture.generate(500, 42L);
+
+        List<FlightOffer> streamed = new ArrayList<>();
+        decoder.decode(new ByteArrayInputStream(payload), PROVIDER, window, relaxedDuration, streamed::add);
+
+        TripEvaluator evaluator = new TripEvaluator();
+        List<FlightOffer> all = ProviderPayloadFixture.bindTree(payload, PROVIDER, window);
+        List<FlightOffer> expected = all.stream()
+                .filter(offer -> evaluator.meetsHardConstraints(offer, relaxedDuration))
+                .toList();
+
+        assertEquals(expected, streamed);
+    }
+
+    @Test
+    void shouldDecodeOneWayFaresWithoutInbound() {
+        String json = """
+                {"offers":[
+                  {"price":320,"deepLink":"https://test.com/ow","outbound":[%s]},
+                  {"price":2500,"outbound":[%s]},
+                  {"price":400,"outbound":[%s,%s,%s]}
+                ]}
+                """.formatted(segment(), segment(), segment(), segment(), segment());
+
+        List<OneWayFare> fares = new ArrayList<>();
+        DecodeResult result = decoder.decodeOneWay(stream(json), PROVIDER, "WAW", "LIS", LocalDate.of(2026, 1, 16),
+                constraints, fares::add);
+
+        assertEquals(3, result.offersRead());
+        assertEquals(1, result.offersEmitted());
+        assertEquals(1, result.rejectedPrice());
+        assertEquals(1, result.rejectedStops());
+        OneWayFare fare = fares.get(0);
+        assertEquals("WAW", fare.originIata());
+        assertEquals("LIS", fare.destinationIata());
+        assertEquals(320, fare.pricePln());
+        assertEquals("https://test.com/ow", fare.deepLink());
+        assertEquals(ZonedDateTime.parse("2026-01-16T18:00:00+01:00"), fare.departureTime());
+    }
+
+    @Test
+    void shouldCompareDecimalPriceWithCapExactlyAndRoundHalfUp() {
+        String json = """
+                {"offers":[
+                  {"price":2000.50,"outbound":[%s],"inbound":[%s]},
+                  {"price":1999.50,"outbound":[%s],"inbound":[%s]},
+                  {"price":2000.0,"outbound":[%s],"inbound":[%s]}
+                ]}
+                """.formatted(segment(), segment(), segment(), segment(), segment(), segment());
+
+        List<FlightOffer> offers = new ArrayList<>();
+        DecodeResult result = decoder.decode(stream(json), PROVIDER, window, constraints, offers::add);
+
+        assertEquals(List.of(2000, 2000), offers.stream().map(FlightOffer::pricePln).toList());
+        assertEquals(1, result.rejectedPrice());
+    }
+
+    @Test
+    void shouldRejectNonNumericPriceAndKeepReading() {
+        String json = """
+                {"offers":[
+                  {"price":"850","outbound":[%s],"inbound":[%s]},
+                  {"price":{"amount":850},"outbound":[%s],"inbound":[%s]},
+                  {"price":-1,"outbound":[%s],"inbound":[%s]},
+                  {"price":9999999999,"outbound":[%s],"inbound":[%s]},
+                  {"price":700,"outbound":[%s],"inbound":[%s]}
+                ]}
+                """.formatted(segment(), segment(), segment(), segment(), segment(), segment(),
+                segment(), segment(), segment(), segment());
+
+        List<FlightOffer> offers = new ArrayList<>();
+        DecodeResult result = decoder.decode(stream(json), PROVIDER, window, constraints, offers::add);
+
+        assertEquals(List.of(700), offers.stream().map(FlightOffer::pricePln).toList());
+        assertEquals(4, result.rejectedIncomplete());
+    }
+
+    @Test
+    void shouldSkipOnlyOfferWithSegmentWithoutValidTimes() {
+        String json = """
+                {"offers":[
+                  {"price":500,"outbound":[{"from":"WAW","to":"LIS","departure":"2026-01-16T18:00:00+01:00"}],"inbound":[%s]},
+                  {"price":600,"outbound":[%s],"inbound":[{"from":"LIS","to":"WAW","departure":"soon","arrival":"later"}]},
+                  {"price":700,"outbound":[%s],"inbound":[%s]}
+                ]}
+                """.formatted(segment(), segment(), segment(), segment());
+
+        List<FlightOffer> offers = new ArrayList<>();
+        DecodeResult result = decoder.decode(stream(json), PROVIDER, window, constraints, offers::add);
+
+        assertEquals(List.of(700), offers.stream().map(FlightOffer::pricePln).toList());
+        assertEquals(2, result.rejectedIncomplete());
+    }
+
+    @Test
+    void shouldThrowOnMalformedPayload() {
+        assertThrows(IllegalArgumentException.class, () ->
+                decoder.decode(stream("{\"offers\":[{\"price\":"), PROVIDER, window, constraints, offer -> {
+                }));
+    }
+
+    private static String segment() {
+        return """
+                {"from":"WAW","to":"LIS","departure":"2026-01-16T18:00:00+01:00","arrival":"2026-01-16T21:30:00Z"}""";
+    }
+
+    private static InputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
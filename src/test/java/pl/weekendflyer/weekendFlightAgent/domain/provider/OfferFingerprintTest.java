@@ -0,0 +1,62 @@
+package pl.weekendflyer.weekendFlightAgent.domain.provider;
+
+import org.junit.jupiter.api.Test;
+import pl.weekendflyer.weekendFlightAgent.domain.model.FlightOffer;
+import pl.weekendflyer.weekendFlightAgent.domain.model.FlightSegment;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OfferFingerprintTest {
+
+    private static final ZoneId WARSAW = ZoneId.of("Europe/Warsaw");
+    private static final ZoneId LISBON = ZoneId.of("Europe/Lisbon");
+    private static final ZonedDateTime FRIDAY = ZonedDateTime.of(2026, 2, 13, 6, 0, 0, 0, WARSAW);
+    private static final ZonedDateTime SUNDAY = ZonedDateTime.of(2026, 2, 15, 18, 0, 0, 0, LISBON);
+
+    @Test
+    void shouldMatchReferenceMurmur3OfPackedKey() {
+        // MurmurHash3 x64_128 (seed 0) po bajtach: długość 7 jako long LE + znaki UTF-16LE dopełnione do 8 bajtów
+        assertEquals("71e1eb8d017368eb959adfae3a26a7d7", OfferFingerprint.ofKey("offer-1").hex());
+    }
+
+    @Test
+    void shouldDependOnInstantsNotOnZoneOfTheSegmentTimes() {
+        FlightOffer warsawTimes = offer("kiwi", FRIDAY, SUNDAY);
+        FlightOffer utcTimes = offer("kiwi", FRIDAY.withZoneSameInstant(ZoneId.of("UTC")), SUNDAY.withZoneSameInstant(ZoneId.of("UTC")));
+
+        assertEquals(OfferFingerprint.of(warsawTimes), OfferFingerprint.of(utcTimes));
+    }
+
+    @Test
+    void shouldDifferWhenProviderOrTimesDiffer() {
+        OfferFingerprint base = OfferFingerprint.of(offer("kiwi", FRIDAY, SUNDAY));
+
+        assertNotEquals(base, OfferFingerprint.of(offer("skyscanner", FRIDAY, SUNDAY)));
+        assertNotEquals(base, OfferFingerprint.of(offer("kiwi", FRIDAY.plusMinutes(5), SUNDAY)));
+        assertNotEquals(base, OfferFingerprint.of(offer("kiwi", FRIDAY, SUNDAY.plusMinutes(5))));
+    }
+
+    @Test
+    void shouldParseGeneratedOfferKeyBackToTheSameFingerprint() {
+        FlightOffer offer = offer("kiwi", FRIDAY, SUNDAY);
+
+        String offerKey = OfferKeyGenerator.generate(offer);
+
+        assertEquals(32, offerKey.length());
+        assertTrue(offerKey.chars().allMatch(c -> Character.digit(c, 16) >= 0));
+        assertEquals(OfferFingerprint.of(offer), OfferFingerprint.ofKey(offerKey));
+    }
+
+    private static FlightOffer offer(String provider, ZonedDateTime outbound, ZonedDateTime inbound) {
+        return new FlightOffer("WAW", "LIS",
+                List.of(new FlightSegment("WAW", "LIS", outbound, outbound.plusHours(4))),
+                List.of(new FlightSegment("LIS", "WAW", inbound, inbound.plusHours(4))),
+                540, provider, "https://example.com");
+    }
+}
@@ -0,0 +1,128 @@
+package pl.weekendflyer.weekendFlightAgent.domain.provider;
+
+import org.junit.jupiter.api.Test;
+import pl.weekendflyer.weekendFlightAgent.domain.eval.RoundTripCombiner;
+import pl.weekendflyer.weekendFlightAgent.domain.eval.TripEvaluator;
+import pl.weekendflyer.weekendFlightAgent.domain.model.CandidateWindow;
+import pl.weekendflyer.weekendFlightAgent.domain.model.FlightOffer;
+import pl.weekendflyer.weekendFlightAgent.domain.model.TripConstraints;
+import pl.weekendflyer.weekendFlightAgent.domain.planner.TripWindowGenerator;
+import pl.weekendflyer.weekendFlightAgent.domain.scan.ScanTrace;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OneWayFareSearchTest {
+
+    private static final ZoneId ZONE = ZoneId.of("Europe/Warsaw");
+    // poniedziałek
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2026-01-12T08:00:00Z"), ZONE);
+
+    private final TripConstraints constraints = new TripConstraints(1, 480, 2000, LocalTime.of(22, 0), LocalTime.of(6, 0), true);
+    private final CountingOneWayClient client = new CountingOneWayClient();
+    private final OneWayFareIndex index = new OneWayFareIndex(Duration.ofMinutes(60));
+    private final OneWayFareSearch search = new OneWayFareSearch(client, new FlightOfferStreamDecoder(), index,
+            new RoundTripCombiner(new TripEvaluator()), CLOCK, 20, ScanTrace.disabled());
+
+    @Test
+    void shouldFetchEachRouteDayOnceAcrossWindows() throws Exception {
+        List<CandidateWindow> windows = new TripWindowGenerator(CLOCK, 100, 1000)
+                .generate(List.of("WAW"), List.of("LIS"), 21, List.of(1, 2, 3));
+        Set<LocalDate> departDates = new HashSet<>();
+        Set<LocalDate> returnDates = new HashSet<>();
+        List<FlightOffer> offers = new ArrayList<>();
+        for (CandidateWindow window : windows) {
+            departDates.add(window.departDate());
+            returnDates.add(window.returnDate());
+            offers.addAll(search.search(window, constraints));
+        }
+
+        assertTrue(client.calls <= departDates.size() + returnDates.size());
+        assertTrue(client.calls < windows.size(), client.calls + " calls for " + windows.size() + " windows");
+        assertFalse(offers.isEmpty());
+
+        int callsAfterScan = client.calls;
+        for (CandidateWindow window : windows) {
+            search.search(window, constraints);
+        }
+        assertEquals(callsAfterScan, client.calls);
+    }
+
+    @Test
+    void shouldCombineCheapestLegsForWindow() throws Exception {
+        CandidateWindow window = new CandidateWindow("WAW", "LIS", LocalDate.of(2026, 1, 16), LocalDate.of(2026, 1, 18));
+
+        List<FlightOffer> offers = search.search(window, constraints);
+
+        assertEquals(2, client.calls);
+        assertEquals(List.of(300, 450, 450, 600), offers.stream().map(FlightOffer::pricePln).toList());
+        assertEquals("https://test.com/WAW-LIS-2026-01-16-100 | https://test.com/LIS-WAW-2026-01-18-200",
+                offers.get(0).deepLink());
+    }
+
+    @Test
+    void shouldNotFetchReturnDayOtherThanSunday() throws Exception {
+        CandidateWindow window = new CandidateWindow("WAW", "LIS", LocalDate.of(2026, 1, 16), LocalDate.of(2026, 1, 19));
+
+        assertTrue(search.search(window, constraints).isEmpty());
+        assertEquals(1, client.calls);
+    }
+
+    @Test
+    void shouldSkipInboundFetchWhenNoOutboundLegQualifies() throws Exception {
+        // wylot w sobotę - żaden lot nie zostawia pełnej soboty
+        CandidateWindow window = new CandidateWindow("WAW", "LIS", LocalDate.of(2026, 1, 17), LocalDate.of(2026, 1, 19));
+
+        assertTrue(search.search(window, constraints).isEmpty());
+        assertEquals(1, client.calls);
+    }
+
+    /**
+     * Dwa loty dziennie na trasę: 12:00 (100 PLN z WAW, 200 PLN z powrotem) i 16:00 (o 150 PLN drożej).
+     */
+    private static class CountingOneWayClient implements OneWayFlightProviderClient {
+
+        private int calls;
+
+        @Override
+        public String name() {
+            return "TestProvider";
+        }
+
+        @Override
+        public InputStream search(CandidateWindow window) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public InputStream searchOneWay(String origin, String destination, LocalDate date) {
+            calls++;
+            int base = origin.equals("WAW") ? 100 : 200;
+            String json = "{\"offers\":[%s,%s]}".formatted(
+                    offer(origin, destination, date.atTime(12, 0), base),
+                    offer(origin, destination, date.atTime(16, 0), base + 150));
+            return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private static String offer(String origin, String destination, LocalDateTime departure, int price) {
+            return """
+                    {"price":%d,"deepLink":"https://test.com/%s-%s-%s-%d","outbound":[{"from":"%s","to":"%s","departure":"%s","arrival":"%s"}]}"""
+                    .formatted(price, origin, destination, departure.toLocalDate(), price, origin, destination,
+                            departure.atZone(ZONE), departure.plusHours(4).atZone(ZONE));
+        }
+    }
+}
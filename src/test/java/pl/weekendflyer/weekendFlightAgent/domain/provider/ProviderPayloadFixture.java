@@ -0,0 +1,112 @@
+package pl.weekendflyer.weekendFlightAgent.domain.provider;
+
+import pl.weekendflyer.weekendFlightAgent.domain.model.CandidateWindow;
+import pl.weekendflyer.weekendFlightAgent.domain.model.FlightOffer;
+import pl.weekendflyer.weekendFlightAgent.domain.model.FlightSegment;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+final class ProviderPayloadFixture {
+
+    private static final ZoneId WARSAW_ZONE = ZoneId.of("Europe/Warsaw");
+    private static final ZoneId LISBON_ZONE = ZoneId.of("Europe/Lisbon");
+    private static final String[] HUBS = {"FRA", "MUC", "ZRH", "VIE", "AMS", "CDG"};
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private ProviderPayloadFixture() {}
+
+    static byte[] generate(int offerCount, long seed) {
+        Random random = new Random(seed);
+        StringBuilder json = new StringBuilder(offerCount * 1100);
+        json.append("{\"currency\":\"PLN\",\"meta\":{\"source\":\"fixture\",\"seed\":").append(seed).append("},\"offers\":[");
+
+        ZonedDateTime outboundStart = ZonedDateTime.of(2026, 1, 16, 6, 0, 0, 0, WARSAW_ZONE);
+        ZonedDateTime inboundStart = ZonedDateTime.of(2026, 1, 18, 6, 0, 0, 0, LISBON_ZONE);
+
+        for (int i = 0; i < offerCount; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":\"offer-").append(i).append('"');
+            json.append(",\"carrier\":{\"code\":\"LO\",\"name\":\"Carrier ").append(random.nextInt(40)).append("\"}");
+            json.append(",\"fareRules\":{\"refundable\":").append(random.nextBoolean())
+                    .append(",\"baggage\":[{\"type\":\"cabin\",\"kg\":8},{\"type\":\"hold\",\"kg\":").append(20 + random.nextInt(4)).append("}]}");
+            json.append(",\"outbound\":");
+            appendSegments(json, random, "WAW", "LIS", outboundStart.plusMinutes(random.nextInt(14 * 60)));
+            json.append(",\"inbound\":");
+            appendSegments(json, random, "LIS", "WAW", inboundStart.plusMinutes(random.nextInt(14 * 60)));
+            json.append(",\"price\":").append(200 + random.nextInt(2800));
+            json.append(",\"deepLink\":\"https://provider.test/book?offer=").append(i).append("&session=")
+                    .append(Long.toHexString(random.nextLong())).append('"');
+            json.append('}');
+        }
+
+        json.append("]}");
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static List<FlightOffer> bindTree(byte[] payload, String provider, CandidateWindow window) {
+        JsonNode root = OBJECT_MAPPER.readTree(payload);
+        List<FlightOffer> offers = new ArrayList<>();
+        for (JsonNode offer : root.get("offers")) {
+            JsonNode price = offer.get("price");
+            JsonNode deepLink = offer.get("deepLink");
+            offers.add(new FlightOffer(
+                    window.origin(),
+                    window.destination(),
+                    bindSegments(offer.get("outbound")),
+                    bindSegments(offer.get("inbound")),
+                    price == null || price.isNull() ? null : price.asInt(),
+                    provider,
+                    deepLink == null || deepLink.isNull() ? null : deepLink.asString()
+            ));
+        }
+        return offers;
+    }
+
+    private static List<FlightSegment> bindSegments(JsonNode segments) {
+        List<FlightSegment> result = new ArrayList<>();
+        if (segments == null) {
+            return result;
+        }
+        for (JsonNode segment : segments) {
+            result.add(new FlightSegment(
+                    segment.get("from").asString(),
+                    segment.get("to").asString(),
+                    ZonedDateTime.parse(segment.get("departure").asString()),
+                    ZonedDateTime.parse(segment.get("arrival").asString())
+            ));
+        }
+        return List.copyOf(result);
+    }
+
+    private static void appendSegments(StringBuilder json, Random random, String from, String to, ZonedDateTime departure) {
+        int segmentCount = 1 + random.nextInt(3);
+        String previous = from;
+        ZonedDateTime time = departure;
+        json.append('[');
+        for (int s = 0; s < segmentCount; s++) {
+            String next = s == segmentCount - 1 ? to : HUBS[random.nextInt(HUBS.length)];
+            ZonedDateTime arrival = time.plusMinutes(90 + random.nextInt(120));
+            if (s > 0) {
+                json.append(',');
+            }
+            json.append("{\"from\":\"").append(previous)
+                    .append("\",\"to\":\"").append(next)
+                    .append("\",\"flightNumber\":\"LO").append(100 + random.nextInt(900))
+                    .append("\",\"departure\":\"").append(time)
+                    .append("\",\"arrival\":\"").append(arrival)
+                    .append("\",\"aircraft\":{\"code\":\"E95\",\"seats\":").append(100 + random.nextInt(80)).append("}}");
+            previous = next;
+            time = arrival.plusMinutes(45 + random.nextInt(90));
+        }
+        json.append(']');
+    }
+}
@@ -0,0 +1,121 @@
+package pl.weekendflyer.weekendFlightAgent.domain.provider;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.weekendflyer.weekendFlightAgent.domain.model.CandidateWindow;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ProviderReplayTest {
+
+    private static final Instant RECORDED_AT = Instant.parse("2026-03-02T06:10:00Z");
+    private static final CandidateWindow LIS = new CandidateWindow("WAW", "LIS", LocalDate.of(2026, 3, 13), LocalDate.of(2026, 3, 16));
+    private static final CandidateWindow BCN = new CandidateWindow("WAW", "BCN", LocalDate.of(2026, 3, 13), LocalDate.of(2026, 3, 16));
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReplayRecordedResponsesInRecordingOrder() throws IOException {
+        Path file = directory.resolve("provider.prr");
+        SequenceProvider provider = new SequenceProvider();
+
+        try (RecordingFlightProviderClient recorder = new RecordingFlightProviderClient(
+                provider, ProviderResponseLog.openForAppend(file), Clock.fixed(RECORDED_AT, ZoneOffset.UTC))) {
+            assertEquals("{\"offers\":[],\"call\":1}", read(recorder.search(LIS)));
+            read(recorder.search(LIS));
+        }
+        try (RecordingFlightProviderClient recorder = new RecordingFlightProviderClient(
+                provider, ProviderResponseLog.openForAppend(file), Clock.fixed(RECORDED_AT.plusSeconds(60), ZoneOffset.UTC))) {
+            read(recorder.search(BCN));
+        }
+
+        ReplayFlightProviderClient replay = ReplayFlightProviderClient.open(file, 0);
+
+        assertEquals("sequence", replay.name());
+        assertEquals(RECORDED_AT, replay.recordedFrom());
+        assertEquals("{\"offers\":[],\"call\":1}", read(replay.search(LIS)));
+        assertEquals("{\"offers\":[],\"call\":2}", read(replay.search(LIS)));
+        assertEquals("{\"offers\":[],\"call\":2}", read(replay.search(LIS)), "last recording is repeated");
+        assertEquals("{\"offers\":[],\"call\":3}", read(replay.search(BCN)));
+        assertEquals(4, replay.served());
+    }
+
+    @Test
+    void shouldServeEmptyOffersForWindowWithoutRecording() throws IOException {
+        ReplayFlightProviderClient replay = new ReplayFlightProviderClient(List.of(
+                new RecordedResponse(RECORDED_AT, Duration.ofMillis(5), "p", LIS.windowKey(), new byte[]{'{', '}'})
+        ), 0);
+
+        assertEquals("{\"offers\":[]}", read(replay.search(BCN)));
+        assertEquals(1, replay.misses());
+        assertEquals(0, replay.served());
+    }
+
+    @Test
+    void shouldIgnoreIncompleteRecordAtTheEndOfTheLog() throws IOException {
+        Path file = directory.resolve("torn.prr");
+        byte[] payload = "{\"offers\":[]}".getBytes(StandardCharsets.UTF_8);
+        try (ProviderResponseLog log = ProviderResponseLog.openForAppend(file)) {
+            log.append(new RecordedResponse(RECORDED_AT, Duration.ZERO, "p", LIS.windowKey(), payload));
+            log.append(new RecordedResponse(RECORDED_AT, Duration.ZERO, "p", BCN.windowKey(), payload));
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(file) - 3);
+        }
+
+        List<RecordedResponse> responses = ProviderResponseLog.readAll(file);
+
+        assertEquals(1, responses.size());
+        assertEquals(LIS.windowKey(), responses.get(0).windowKey());
+        assertArrayEquals(payload, responses.get(0).payload());
+    }
+
+    @Test
+    void shouldRejectFileThatIsNotAResponseLog() throws IOException {
+        Path file = directory.resolve("other.bin");
+        Files.writeString(file, "not a segment");
+
+        assertThrows(IOException.class, () -> ProviderResponseLog.readAll(file));
+        assertThrows(IOException.class, () -> ProviderResponseLog.openForAppend(file));
+    }
+
+    private static String read(InputStream payload) throws IOException {
+        try (payload) {
+            return new String(payload.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static class SequenceProvider implements FlightProviderClient {
+
+        private int calls;
+
+        @Override
+        public String name() {
+            return "sequence";
+        }
+
+        @Override
+        public InputStream search(CandidateWindow window) {
+            calls++;
+            return new ByteArrayInputStream(("{\"offers\":[],\"call\":" + calls + "}").getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package pl.weekendflyer.weekendFlightAgent.domain.provider;
+
+import pl.weekendflyer.weekendFlightAgent.domain.model.CandidateWindow;
+import pl.weekendflyer.weekendFlightAgent.domain.model.FlightOffer;
+import pl.weekendflyer.weekendFlightAgent.domain.model.FlightSegment;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Syntetyczne oferty o realistycznym rozkładzie dla dowolnej siatki origin × destination × horyzont:
+ * mediana ceny i czas lotu stałe per trasa, cena log-normalna z sezonowością i dopłatą last-minute,
+ * 0-2 przesiadki przez huby, czasy w strefach lotnisk. Część ofert celowo nie spełnia reguły soboty
+ * albo limitów (przesiadki, cena), tak jak w prawdziwych odpowiedziach.
+ * <p>
+ * Wynik zależy tylko od ziarna, okna i daty zapytania - ten sam scenariusz daje te same dane.
+ */
+public final class SyntheticOfferGenerator {
+
+    private static final Map<String, ZoneId> AIRPORTS = new LinkedHashMap<>();
+    private static final String[] HUBS = {"FRA", "MUC", "ZRH", "VIE", "AMS", "CDG", "IST", "CPH"};
+
+    static {
+        airports("Europe/Warsaw", "WAW", "KRK", "GDN", "WRO", "KTW", "POZ", "WMI");
+        airports("Europe/Lisbon", "LIS", "OPO", "FAO");
+        airports("Europe/Madrid", "MAD", "BCN", "AGP", "PMI", "VLC", "SVQ");
+        airports("Europe/Rome", "FCO", "VCE", "MXP", "NAP", "BLQ", "CTA");
+        airports("Europe/Malta", "MLA");
+        airports("Europe/Athens", "ATH", "SKG", "HER");
+        airports("Europe/Copenhagen", "CPH");
+        airports("Europe/Oslo", "OSL", "BGO");
+        airports("Europe/Dublin", "DUB");
+        airports("Europe/London", "LHR", "STN", "EDI", "MAN");
+        airports("Europe/Paris", "CDG", "NCE", "LYS");
+        airports("Europe/Amsterdam", "AMS");
+        airports("Europe/Berlin", "FRA", "MUC", "BER", "HAM");
+        airports("Europe/Zurich", "ZRH", "GVA");
+        airports("Europe/Vienna", "VIE");
+        airports("Europe/Prague", "PRG");
+        airports("Europe/Budapest", "BUD");
+        airports("Europe/Stockholm", "ARN");
+        airports("Europe/Helsinki", "HEL");
+        airports("Europe/Istanbul", "IST");
+        airports("Atlantic/Reykjavik", "KEF");
+        airports("Atlantic/Canary", "TFS", "LPA");
+        airports("Asia/Nicosia", "LCA");
+    }
+
+    private final long seed;
+    private final int offersPerWindow;
+    private final String provider;
+
+    public SyntheticOfferGenerator(long seed, int offersPerWindow, String provider) {
+        this.seed = seed;
+        this.offersPerWindow = offersPerWindow;
+        this.provider = provider;
+    }
+
+    public static List<String> origins(int count) {
+        return pick(count, true);
+    }
+
+    public static List<String> destinations(int count) {
+        return pick(count, false);
+    }
+
+    public List<FlightOffer> offers(CandidateWindow window, LocalDate searchDate) {
+        Random random = new Random(seed ^ window.windowKey().hashCode() * 31L ^ searchDate.toEpochDay());
+        Route route = route(window.origin(), window.destination());
+        LocalDate friday = window.departDate().with(TemporalAdjusters.nextOrSame(DayOfWeek.FRIDAY));
+        double priceLevel = route.medianPln() * seasonFactor(friday) * lastMinuteFactor(searchDate, friday);
+
+        List<FlightOffer> offers = new ArrayList<>(offersPerWindow);
+        for (int i = 0; i < offersPerWindow; i++) {
+            int stops = stops(random);
+            LocalDate outboundDay = random.nextDouble() < 0.12 ? friday.plusDays(1) : friday;
+            LocalDate inboundDay = random.nextDouble() < 0.08 ? friday.plusDays(1) : friday.plusDays(2);
+
+            List<FlightSegment> outbound = segments(random, window.origin(), window.destination(), route, stops,
+                    outboundDay.atTime(6, 0).atZone(zone(window.origin())).plusMinutes(15L * random.nextInt(60)));
+            List<FlightSegment> inbound = segments(random, window.destination(), window.origin(), route, stops(random),
+                    inboundDay.atTime(6, 0).atZone(zone(window.destination())).plusMinutes(15L * random.nextInt(64)));
+
+            double stopDiscount = 1.0 - 0.12 * stops;
+            int price = (int) Math.round(priceLevel * stopDiscount * Math.exp(0.25 * random.nextGaussian()));
+            if (random.nextDouble() < 0.02) {
+                price = (int) (price * 0.6);
+            }
+
+            offers.add(new FlightOffer(window.origin(), window.destination(), outbound, inbound, Math.max(49, price), provider,
+                    "https://provider.test/book?w=" + window.windowKey() + "&o=" + i + "&d=" + searchDate));
+        }
+        return offers;
+    }
+
+    public byte[] payload(CandidateWindow window, LocalDate searchDate) {
+        List<FlightOffer> offers = offers(window, searchDate);
+        StringBuilder json = new StringBuilder(offers.size() * 420).append("{\"offers\":[");
+        for (int i = 0; i < offers.size(); i++) {
+            FlightOffer offer = offers.get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"price\":").append(offer.pricePln())
+                    .append(",\"deepLink\":\"").append(offer.deepLink()).append('"')
+                    .append(",\"outbound\":");
+            appendSegments(json, offer.outboundSegments());
+            json.append(",\"inbound\":");
+            appendSegments(json, offer.inboundSegments());
+            json.append('}');
+        }
+        return json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Mediana ceny i czas bloku zależą tylko od trasy (w obie strony tak samo).
+     */
+    static Route route(String origin, String destination) {
+        String key = origin.compareTo(destination) < 0 ? origin + destination : destination + origin;
+        int hash = key.hashCode() & 0x7fffffff;
+        int blockMinutes = 70 + hash % 200;
+        int medianPln = 180 + blockMinutes * 3 + (hash >>> 8) % 250;
+        return new Route(medianPln, blockMinutes);
+    }
+
+    record Route(int medianPln, int blockMinutes) {
+    }
+
+    private List<FlightSegment> segments(Random random, String from, String to, Route route, int stops, ZonedDateTime departure) {
+        List<FlightSegment> segments = new ArrayList<>(stops + 1);
+        String current = from;
+        ZonedDateTime time = departure;
+        int legMinutes = Math.max(45, route.blockMinutes() / (stops + 1) + 25);
+        for (int leg = 0; leg <= stops; leg++) {
+            String next = leg == stops ? to : hub(random, from, to);
+            ZonedDateTime arrival = time.plusMinutes(legMinutes + random.nextInt(30)).withZoneSameInstant(zone(next));
+            segments.add(new FlightSegment(current, next, time, arrival));
+            current = next;
+            time = arrival.plusMinutes(55 + random.nextInt(150));
+        }
+        return segments;
+    }
+
+    private static String hub(Random random, String from, String to) {
+        String hub;
+        do {
+            hub = HUBS[random.nextInt(HUBS.length)];
+        } while (hub.equals(from) || hub.equals(to));
+        return hub;
+    }
+
+    private static int stops(Random random) {
+        double roll = random.nextDouble();
+        return roll < 0.55 ? 0 : roll < 0.9 ? 1 : 2;
+    }
+
+    private static double seasonFactor(LocalDate date) {
+        return switch (date.getMonth()) {
+            case JULY, AUGUST -> 1.35;
+            case JUNE, DECEMBER -> 1.2;
+            case JANUARY, FEBRUARY, NOVEMBER -> 0.85;
+            default -> 1.0;
+        };
+    }
+
+    private static double lastMinuteFactor(LocalDate searchDate, LocalDate departure) {
+        long daysAhead = ChronoUnit.DAYS.between(searchDate, departure);
+        return daysAhead < 14 ? 1.0 + (14 - daysAhead) * 0.03 : 1.0;
+    }
+
+    private static ZoneId zone(String iata) {
+        return AIRPORTS.getOrDefault(iata, ZoneId.of("Europe/Warsaw"));
+    }
+
+    private static List<String> pick(int count, boolean polish) {
+        List<String> codes = AIRPORTS.entrySet().stream()
+                .filter(entry -> polish == entry.getValue().getId().equals("Europe/Warsaw"))
+                .map(Map.Entry::getKey)
+                .toList();
+        if (count > codes.size()) {
+            throw new IllegalArgumentException("At most " + codes.size() + " airports available, requested " + count);
+        }
+        return codes.subList(0, count);
+    }
+
+    private static void airports(String zone, String... codes) {
+        for (String code : codes) {
+            AIRPORTS.put(code, ZoneId.of(zone));
+        }
+    }
+
+    private static void appendSegments(StringBuilder json, List<FlightSegment> segments) {
+        json.append('[');
+        for (int i = 0; i < segments.size(); i++) {
+            FlightSegment segment = segments.get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"from\":\"").append(segment.departureAirport())
+                    .append("\",\"to\":\"").append(segment.arrivalAirport())
+                    .append("\",\"departure\":\"").append(segment.departureTime().toOffsetDateTime())
+                    .append("\",\"arrival\":\"").append(segment.arrivalTime().toOffsetDateTime()).append("\"}");
+        }
+        json.append(']');
+    }
+}
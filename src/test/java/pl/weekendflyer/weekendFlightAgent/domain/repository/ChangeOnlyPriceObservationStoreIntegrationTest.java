@@ -0,0 +1,152 @@
+package pl.weekendflyer.weekendFlightAgent.domain.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import pl.weekendflyer.weekendFlightAgent.domain.deal.BaselineRefresher;
+import pl.weekendflyer.weekendFlightAgent.domain.model.Baseline;
+import pl.weekendflyer.weekendFlightAgent.domain.model.CandidateWindow;
+import pl.weekendflyer.weekendFlightAgent.domain.model.FlightOffer;
+import pl.weekendflyer.weekendFlightAgent.domain.model.PriceObservation;
+import pl.weekendflyer.weekendFlightAgent.domain.scan.PriceObservationMapper;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class ChangeOnlyPriceObservationStoreIntegrationTest {
+
+    private static final Duration HEARTBEAT = Duration.ofHours(24);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BaselineRepository baselineRepository;
+
+    @Autowired
+    private BaselineRefresher baselineRefresher;
+
+    private final CandidateWindow window = new CandidateWindow("WAW", "LIS", LocalDate.of(2099, 3, 12), LocalDate.of(2099, 3, 16));
+    private final Instant t0 = Instant.now().truncatedTo(ChronoUnit.MICROS);
+
+    @Test
+    void shouldCountUnchangedRechecksAndFoldThemIntoPreviousRow() {
+        ChangeOnlyPriceObservationStore store = store();
+        String provider = "change-" + System.nanoTime();
+
+        store.saveAll(List.of(observation(window, provider, 400, t0)));
+        store.saveAll(List.of(observation(window, provider, 400, t0.plus(1, ChronoUnit.HOURS))));
+        store.saveAll(List.of(observation(window, provider, 400, t0.plus(2, ChronoUnit.HOURS))));
+
+        assertEquals(List.of(400), prices(provider));
+        Map<String, Object> lastSeen = lastSeen(provider);
+        assertEquals(2, lastSeen.get("pending_checks"));
+        assertEquals(t0.plus(2, ChronoUnit.HOURS), ((Timestamp) lastSeen.get("last_seen_at")).toInstant());
+
+        store.saveAll(List.of(observation(window, provider, 380, t0.plus(3, ChronoUnit.HOURS))));
+
+        assertEquals(List.of(400, 380), prices(provider));
+        assertEquals(List.of(3, 1), checks(provider));
+        assertEquals(0, lastSeen(provider).get("pending_checks"));
+        assertEquals(380, lastSeen(provider).get("price_pln"));
+    }
+
+    @Test
+    void shouldWriteRowWhenHeartbeatExpires() {
+        ChangeOnlyPriceObservationStore store = store();
+        String provider = "heartbeat-" + System.nanoTime();
+
+        store.saveAll(List.of(observation(window, provider, 400, t0)));
+        store.saveAll(List.of(observation(window, provider, 400, t0.plus(23, ChronoUnit.HOURS))));
+        store.saveAll(List.of(observation(window, provider, 400, t0.plus(25, ChronoUnit.HOURS))));
+
+        assertEquals(List.of(400, 400), prices(provider));
+        assertEquals(List.of(2, 1), checks(provider));
+    }
+
+    @Test
+    void shouldWriteRowWhenAnotherNodeChangedPriceMeanwhile() {
+        ChangeOnlyPriceObservationStore nodeA = store();
+        String provider = "cluster-" + System.nanoTime();
+
+        nodeA.saveAll(List.of(observation(window, provider, 400, t0)));
+        ChangeOnlyPriceObservationStore nodeB = store();
+        nodeB.saveAll(List.of(observation(window, provider, 450, t0.plus(1, ChronoUnit.HOURS))));
+        nodeA.saveAll(List.of(observation(window, provider, 400, t0.plus(2, ChronoUnit.HOURS))));
+
+        assertEquals(List.of(400, 450, 400), prices(provider));
+    }
+
+    @Test
+    void shouldComputeSameBaselineAsRowPerCheck() {
+        int year = 2200 + (int) (System.nanoTime() % 500);
+        CandidateWindow changeOnlyWindow = new CandidateWindow("WAW", "OPO", LocalDate.of(year, 1, 14), LocalDate.of(year, 1, 18));
+        CandidateWindow everyCheckWindow = new CandidateWindow("WAW", "OPO", LocalDate.of(year, 2, 11), LocalDate.of(year, 2, 15));
+        ChangeOnlyPriceObservationStore changeOnly = store();
+        JdbcPriceObservationStore everyCheck = new JdbcPriceObservationStore(jdbcTemplate, 100);
+        String changeOnlyProvider = "weighted-" + System.nanoTime();
+        String everyCheckProvider = "plain-" + System.nanoTime();
+
+        int[] checkedPrices = {400, 400, 400, 380, 380, 420, 400, 400, 400, 400};
+        for (int i = 0; i < checkedPrices.length; i++) {
+            Instant at = t0.plus(i, ChronoUnit.HOURS);
+            changeOnly.saveAll(List.of(observation(changeOnlyWindow, changeOnlyProvider, checkedPrices[i], at)));
+            everyCheck.saveAll(List.of(observation(everyCheckWindow, everyCheckProvider, checkedPrices[i], at)));
+        }
+        assertEquals(4, prices(changeOnlyProvider).size());
+
+        baselineRefresher.refresh();
+
+        Baseline weighted = baseline(changeOnlyWindow);
+        Baseline plain = baseline(everyCheckWindow);
+        assertEquals(checkedPrices.length, weighted.getCount30());
+        assertEquals(plain.getCount30(), weighted.getCount30());
+        assertEquals(plain.getMedian30Pln(), weighted.getMedian30Pln());
+        assertEquals(plain.getMean30Pln(), weighted.getMean30Pln());
+        assertEquals(plain.getStd30Pln(), weighted.getStd30Pln());
+        assertEquals(plain.getMin30Pln(), weighted.getMin30Pln());
+    }
+
+    private ChangeOnlyPriceObservationStore store() {
+        return new ChangeOnlyPriceObservationStore(
+                new JdbcPriceObservationStore(jdbcTemplate, 100), jdbcTemplate, Clock.systemUTC(), HEARTBEAT);
+    }
+
+    private PriceObservation observation(CandidateWindow window, String provider, int price, Instant observedAt) {
+        FlightOffer offer = new FlightOffer(window.origin(), window.destination(), List.of(), List.of(), price, provider, "https://provider.test/offer");
+        return PriceObservationMapper.toObservation(window, offer, observedAt);
+    }
+
+    private Baseline baseline(CandidateWindow window) {
+        PriceObservation sample = observation(window, "any", 1, t0);
+        return baselineRepository.findByOriginAndDestinationAndFullDaysAndDepartureMonth(
+                window.origin(), window.destination(), sample.getFullDays(), sample.getDepartureMonth()).orElseThrow();
+    }
+
+    private List<Integer> prices(String provider) {
+        return jdbcTemplate.queryForList(
+                "SELECT price_pln FROM price_observation WHERE provider = ? ORDER BY observed_at", Integer.class, provider);
+    }
+
+    private List<Integer> checks(String provider) {
+        return jdbcTemplate.queryForList(
+                "SELECT checks FROM price_observation WHERE provider = ? ORDER BY observed_at", Integer.class, provider);
+    }
+
+    private Map<String, Object> lastSeen(String provider) {
+        return jdbcTemplate.queryForMap("""
+                SELECT s.* FROM offer_last_seen s
+                WHERE s.offer_key = (SELECT offer_key FROM price_observation WHERE provider = ? LIMIT 1)
+                """, provider);
+    }
+}
@@ -0,0 +1,85 @@
+package pl.weekendflyer.weekendFlightAgent.domain.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import pl.weekendflyer.weekendFlightAgent.domain.model.BaselineStats;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Mediana ważona {@code checks} musi dawać to samo co {@code percentile_cont(0.5)} po rozwinięciu sprawdzeń
+ * na pojedyncze wiersze - konkretne wartości dla nieparzystej i parzystej liczby sprawdzeń.
+ */
+@SpringBootTest
+class JdbcBaselineStoreIntegrationTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final int year = 2500 + (int) (System.nanoTime() % 400);
+    private final Instant t0 = Instant.now().truncatedTo(ChronoUnit.MICROS);
+
+    @Test
+    void shouldPinWeightedMedianForOddAndEvenCounts() {
+        LocalDate odd = LocalDate.of(year, 1, 1);
+        LocalDate even = LocalDate.of(year, 2, 1);
+        LocalDate weighted = LocalDate.of(year, 3, 1);
+        LocalDate weightedEven = LocalDate.of(year, 4, 1);
+        insert(odd, 100, 1);
+        insert(odd, 200, 1);
+        insert(odd, 300, 1);
+        insert(even, 100, 1);
+        insert(even, 200, 1);
+        insert(even, 300, 1);
+        insert(even, 400, 1);
+        // 100, 400, 400, 400 -> (400 + 400) / 2
+        insert(weighted, 100, 1);
+        insert(weighted, 400, 3);
+        // 100, 100, 300, 300 -> (100 + 300) / 2
+        insert(weightedEven, 100, 2);
+        insert(weightedEven, 300, 2);
+
+        JdbcBaselineStore store = new JdbcBaselineStore(jdbcTemplate, 100);
+        List<BaselineStats> stats = store.compute(t0.minus(1, ChronoUnit.HOURS));
+
+        assertStats(stats(stats, odd), 200, 200, 3);
+        assertStats(stats(stats, even), 250, 250, 4);
+        assertStats(stats(stats, weighted), 400, 325, 4);
+        assertStats(stats(stats, weightedEven), 200, 200, 4);
+    }
+
+    private static void assertStats(BaselineStats stats, int median, int mean, int count) {
+        assertEquals(median, stats.medianPln(), "median");
+        assertEquals(mean, stats.meanPln(), "mean");
+        assertEquals(count, stats.count(), "count");
+    }
+
+    private static BaselineStats stats(List<BaselineStats> all, LocalDate month) {
+        return all.stream()
+                .filter(s -> s.origin().equals("WAW") && s.destination().equals("FNC") && s.departureMonth().equals(month))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private void insert(LocalDate month, int price, int checks) {
+        LocalDate depart = month.plusDays(10);
+        LocalDate ret = depart.plusDays(4);
+        String windowKey = "WAW-FNC-" + depart + "-" + ret;
+        jdbcTemplate.update("""
+                INSERT INTO price_observation (observed_at, provider, origin, destination, depart_date, return_date,
+                                               full_days, departure_month, window_key, offer_key, price_pln, checks)
+                VALUES (?, 'median-test', 'WAW', 'FNC', ?, ?, 3, ?, ?, ?, ?, ?)
+                """,
+                Timestamp.from(t0), Date.valueOf(depart), Date.valueOf(ret), Date.valueOf(month), windowKey,
+                "median-" + System.nanoTime(), price, checks);
+    }
+}
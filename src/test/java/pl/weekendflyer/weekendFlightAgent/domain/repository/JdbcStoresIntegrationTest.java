@@ -0,0 +1,120 @@
+package pl.weekendflyer.weekendFlightAgent.domain.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import pl.weekendflyer.weekendFlightAgent.domain.model.CandidateWindow;
+import pl.weekendflyer.weekendFlightAgent.domain.model.FlightOffer;
+import pl.weekendflyer.weekendFlightAgent.domain.model.PriceObservation;
+import pl.weekendflyer.weekendFlightAgent.domain.model.WindowCheck;
+import pl.weekendflyer.weekendFlightAgent.domain.scan.PriceObservationMapper;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class JdbcStoresIntegrationTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldInsertAndUpdateWindowChecksWithBatchUpsert() {
+        JdbcWindowCheckStore store = new JdbcWindowCheckStore(jdbcTemplate, 2);
+        String provider = "jdbc-" + System.nanoTime();
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+
+        List<WindowCheck> created = List.of(
+                check(provider, "LIS", now),
+                check(provider, "BCN", now),
+                check(provider, "MAD", now)
+        );
+        store.saveAll(created);
+
+        List<WindowCheck> loaded = store.findByProviderAndWindowKeyIn(provider,
+                created.stream().map(WindowCheck::getWindowKey).toList());
+        assertEquals(3, loaded.size());
+        loaded.forEach(check -> assertNotNull(check.getId()));
+
+        WindowCheck lis = loaded.stream().filter(c -> c.getDestination().equals("LIS")).findFirst().orElseThrow();
+        assertNull(lis.getPriceEwma());
+        assertEquals(now, lis.getLastCheckedAt());
+
+        Instant later = now.plus(1, ChronoUnit.DAYS);
+        lis.markChecked(later, later);
+        lis.recordPrice(420, 0.3);
+        lis.scheduleNextCheck(later, 24);
+        store.saveAll(List.of(lis));
+
+        WindowCheck updated = store.findByProviderAndWindowKeyIn(provider, List.of(lis.getWindowKey())).get(0);
+        assertEquals(lis.getId(), updated.getId());
+        assertEquals(2, updated.getCheckCount());
+        assertEquals(420.0, updated.getPriceEwma());
+        assertEquals(1, updated.getPriceSamples());
+        assertEquals(24, updated.getRecheckIntervalHours());
+        assertEquals(later.plus(24, ChronoUnit.HOURS), updated.getNextCheckAt());
+        assertEquals(now, updated.getCreatedAt());
+    }
+
+    @Test
+    void shouldReturnNothingForEmptyKeyList() {
+        JdbcWindowCheckStore store = new JdbcWindowCheckStore(jdbcTemplate, 10);
+
+        assertTrue(store.findByProviderAndWindowKeyIn("any", List.of()).isEmpty());
+    }
+
+    @Test
+    void shouldAppendPriceObservationsInBatches() {
+        JdbcPriceObservationStore store = new JdbcPriceObservationStore(jdbcTemplate, 2);
+        String provider = "jdbc-" + System.nanoTime();
+        CandidateWindow window = new CandidateWindow("WAW", "LIS", LocalDate.of(2099, 1, 15), LocalDate.of(2099, 1, 19));
+        Instant observedAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+
+        List<PriceObservation> observations = List.of(
+                PriceObservationMapper.toObservation(window, offer(provider, 350, "a"), observedAt),
+                PriceObservationMapper.toObservation(window, offer(provider, 410, "b"), observedAt),
+                PriceObservationMapper.toObservation(window, offer(provider, 505, "c"), observedAt)
+        );
+        observations.get(2).setChecks(3);
+        store.saveAll(observations);
+
+        Integer rows = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM price_observation WHERE provider = ? AND window_key = ? AND observed_at = ?",
+                Integer.class, provider, window.windowKey(), Timestamp.from(observedAt));
+        assertEquals(3, rows);
+        Integer cheapest = jdbcTemplate.queryForObject(
+                "SELECT MIN(price_pln) FROM price_observation WHERE provider = ?", Integer.class, provider);
+        assertEquals(350, cheapest);
+        Integer checks = jdbcTemplate.queryForObject(
+                "SELECT SUM(checks) FROM price_observation WHERE provider = ?", Integer.class, provider);
+        assertEquals(5, checks);
+    }
+
+    private WindowCheck check(String provider, String destination, Instant now) {
+        LocalDate depart = LocalDate.of(2099, 1, 15);
+        LocalDate ret = LocalDate.of(2099, 1, 19);
+        WindowCheck check = new WindowCheck();
+        check.setProvider(provider);
+        check.setOrigin("WAW");
+        check.setDestination(destination);
+        check.setDepartDate(depart);
+        check.setReturnDate(ret);
+        check.setWindowKey(new CandidateWindow("WAW", destination, depart, ret).windowKey());
+        check.setLastCheckedAt(now);
+        check.setCheckCount(1);
+        check.setPriceSamples(0);
+        check.setCreatedAt(now);
+        check.setUpdatedAt(now);
+        return check;
+    }
+
+    private FlightOffer offer(String provider, int price, String link) {
+        return new FlightOffer("WAW", "LIS", List.of(), List.of(), price, provider, "https://provider.test/" + link);
+    }
+}
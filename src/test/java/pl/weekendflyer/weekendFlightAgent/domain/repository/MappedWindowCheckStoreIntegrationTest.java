@@ -0,0 +1,148 @@
+package pl.weekendflyer.weekendFlightAgent.domain.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import pl.weekendflyer.weekendFlightAgent.domain.model.WindowCheck;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class MappedWindowCheckStoreIntegrationTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    Path dir;
+
+    private final Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+
+    @Test
+    void shouldServeWritesLocallyAndFlushThemToWindowCheck() throws Exception {
+        String provider = "mapped-" + System.nanoTime();
+        try (MappedWindowCheckStore store = open(dir.resolve("state.bin"), 16)) {
+            assertTrue(store.rebuiltOnOpen());
+
+            WindowCheck lis = check(provider, "LIS", 0);
+            lis.recordPrice(420, 0.3);
+            lis.scheduleNextCheck(now, 24);
+            List<WindowCheck> checks = new ArrayList<>(List.of(lis));
+            for (int i = 1; i < 40; i++) {
+                checks.add(check(provider, "BCN", i));
+            }
+            store.saveAll(checks);
+
+            assertEquals(40, store.dirtyCount());
+            assertEquals(0, rows(provider));
+
+            WindowCheck loaded = store.findByProviderAndWindowKeyIn(provider, List.of(lis.getWindowKey(), "WAW-XXX-missing")).get(0);
+            assertEquals("LIS", loaded.getDestination());
+            assertEquals(lis.getDepartDate(), loaded.getDepartDate());
+            assertEquals(now, loaded.getLastCheckedAt());
+            assertEquals(420.0, loaded.getPriceEwma());
+            assertEquals(0.0, loaded.getPriceEwmVar());
+            assertEquals(24, loaded.getRecheckIntervalHours());
+            assertEquals(now.plus(24, ChronoUnit.HOURS), loaded.getNextCheckAt());
+            assertEquals(40, store.findByProviderAndWindowKeyIn(provider,
+                    checks.stream().map(WindowCheck::getWindowKey).toList()).size());
+
+            store.flush();
+
+            assertEquals(0, store.dirtyCount());
+            assertEquals(40, rows(provider));
+            WindowCheck persisted = new JdbcWindowCheckStore(jdbcTemplate, 10)
+                    .findByProviderAndWindowKeyIn(provider, List.of(lis.getWindowKey())).get(0);
+            assertEquals(420.0, persisted.getPriceEwma());
+            assertEquals(now.plus(24, ChronoUnit.HOURS), persisted.getNextCheckAt());
+        }
+    }
+
+    @Test
+    void shouldFlushDirtyRecordsLeftInFileOnOpen() throws Exception {
+        String provider = "crashed-" + System.nanoTime();
+        Path file = dir.resolve("state.bin");
+        MappedWindowCheckStore crashed = open(file, 16);
+        crashed.saveAll(List.of(check(provider, "OPO", 0), check(provider, "OPO", 1)));
+
+        try (MappedWindowCheckStore reopened = open(file, 16)) {
+            assertFalse(reopened.rebuiltOnOpen());
+            assertEquals(0, reopened.dirtyCount());
+            assertEquals(2, rows(provider));
+            assertEquals(2, reopened.findByProviderAndWindowKeyIn(provider,
+                    List.of(key("OPO", 0), key("OPO", 1))).size());
+        }
+        crashed.close();
+    }
+
+    @Test
+    void shouldRebuildWhenWindowCheckChangedBehindTheFile() throws Exception {
+        String provider = "rebuild-" + System.nanoTime();
+        Path file = dir.resolve("state.bin");
+        try (MappedWindowCheckStore store = open(file, 16)) {
+            store.saveAll(List.of(check(provider, "MAD", 0)));
+        }
+
+        jdbcTemplate.update("UPDATE window_check SET check_count = 7, updated_at = ? WHERE provider = ?",
+                java.sql.Timestamp.from(now.plus(1, ChronoUnit.HOURS)), provider);
+
+        try (MappedWindowCheckStore reopened = open(file, 16)) {
+            assertTrue(reopened.rebuiltOnOpen());
+            assertEquals(7, reopened.findByProviderAndWindowKeyIn(provider, List.of(key("MAD", 0))).get(0).getCheckCount());
+        }
+    }
+
+    @Test
+    void shouldRebuildFileOfUnknownFormat() throws Exception {
+        Path file = dir.resolve("state.bin");
+        Files.write(file, new byte[]{1, 2, 3});
+
+        try (MappedWindowCheckStore store = open(file, 16)) {
+            assertTrue(store.rebuiltOnOpen());
+        }
+        try (MappedWindowCheckStore store = open(file, 16)) {
+            assertFalse(store.rebuiltOnOpen());
+        }
+    }
+
+    private MappedWindowCheckStore open(Path file, int capacity) throws Exception {
+        return MappedWindowCheckStore.open(file, capacity, new JdbcWindowCheckStore(jdbcTemplate, 10), Clock.systemUTC());
+    }
+
+    private WindowCheck check(String provider, String destination, int week) {
+        LocalDate depart = LocalDate.of(2099, 1, 15).plusWeeks(week);
+        WindowCheck check = new WindowCheck();
+        check.setProvider(provider);
+        check.setOrigin("WAW");
+        check.setDestination(destination);
+        check.setDepartDate(depart);
+        check.setReturnDate(depart.plusDays(4));
+        check.setWindowKey(key(destination, week));
+        check.setLastCheckedAt(now);
+        check.setCheckCount(1);
+        check.setPriceSamples(0);
+        check.setCreatedAt(now);
+        check.setUpdatedAt(now);
+        return check;
+    }
+
+    private static String key(String destination, int week) {
+        LocalDate depart = LocalDate.of(2099, 1, 15).plusWeeks(week);
+        return "WAW-" + destination + "-" + depart + "-" + depart.plusDays(4);
+    }
+
+    private int rows(String provider) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM window_check WHERE provider = ?", Integer.class, provider);
+    }
+}
@@ -0,0 +1,81 @@
+package pl.weekendflyer.weekendFlightAgent.domain.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import pl.weekendflyer.weekendFlightAgent.domain.model.Deal;
+import pl.weekendflyer.weekendFlightAgent.domain.model.DealStatus;
+import pl.weekendflyer.weekendFlightAgent.domain.model.NotificationLogEntry;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class NotificationLogRepositoryIntegrationTest {
+
+    @Autowired
+    private NotificationLogRepository notificationLogRepository;
+
+    @Autowired
+    private DealRepository dealRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldBatchInsertOutcomesAndSkipDuplicates() {
+        String channel = "TEST-" + System.nanoTime();
+        Instant sentAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        Deal deal = dealRepository.save(deal(channel + "-offer"));
+
+        NotificationLogEntry sent = new NotificationLogEntry(sentAt, channel, deal.getOfferKey(), deal.getId(), "LIS", true, null);
+        NotificationLogEntry failed = new NotificationLogEntry(sentAt, channel, "other-offer", null, "BCN", false, "timeout");
+
+        notificationLogRepository.insertAll(List.of(sent, failed));
+        notificationLogRepository.insertAll(List.of(sent));
+
+        Integer rows = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM notification_log WHERE channel = ?", Integer.class, channel);
+        assertEquals(2, rows);
+
+        List<NotificationLogEntry> successful = notificationLogRepository.findSuccessfulSince(sentAt).stream()
+                .filter(entry -> entry.channel().equals(channel))
+                .toList();
+        assertEquals(1, successful.size());
+        assertEquals(deal.getId(), successful.get(0).dealId());
+        assertEquals(sentAt, successful.get(0).sentAt());
+    }
+
+    @Test
+    void shouldUpdateDealStatusInBulk() {
+        Deal first = dealRepository.save(deal("bulk-a-" + System.nanoTime()));
+        Deal second = dealRepository.save(deal("bulk-b-" + System.nanoTime()));
+
+        dealRepository.updateStatus(List.of(first.getId(), second.getId()), DealStatus.SUPPRESSED);
+
+        assertEquals(DealStatus.SUPPRESSED, dealRepository.findById(first.getId()).orElseThrow().getStatus());
+        assertEquals(DealStatus.SUPPRESSED, dealRepository.findById(second.getId()).orElseThrow().getStatus());
+    }
+
+    private Deal deal(String offerKey) {
+        Deal deal = new Deal();
+        deal.setCreatedAt(Instant.now());
+        deal.setStatus(DealStatus.NOTIFIED);
+        deal.setProvider("test");
+        deal.setOrigin("WAW");
+        deal.setDestination("LIS");
+        deal.setDepartDate(LocalDate.of(2099, 1, 16));
+        deal.setReturnDate(LocalDate.of(2099, 1, 18));
+        deal.setFullDays((short) 1);
+        deal.setDepartureMonth(LocalDate.of(2099, 1, 1));
+        deal.setWindowKey("WAW-LIS-2099-01-16-2099-01-18");
+        deal.setOfferKey(offerKey);
+        deal.setPricePln(399);
+        return deal;
+    }
+}
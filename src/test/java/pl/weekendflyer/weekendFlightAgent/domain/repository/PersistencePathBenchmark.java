@@ -0,0 +1,177 @@
+package pl.weekendflyer.weekendFlightAgent.domain.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.weekendflyer.weekendFlightAgent.domain.model.CandidateWindow;
+import pl.weekendflyer.weekendFlightAgent.domain.model.PriceObservation;
+import pl.weekendflyer.weekendFlightAgent.domain.model.WindowCheck;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ścieżka JPA kontra JDBC (i lokalny plik mapowany) dla cyklu planera (odczyt + zapis window_check) i dopisywania price_observation.
+ * Uruchamianie: {@code ./mvnw test -Pbenchmark -Dtest=PersistencePathBenchmark}
+ */
+@Tag("benchmark")
+@SpringBootTest
+class PersistencePathBenchmark {
+
+    private static final String PROVIDER_PREFIX = "bench-persistence-";
+    private static final String[] DESTINATIONS = {"LIS", "BCN", "MAD", "FCO", "VCE", "MLA", "ATH", "OPO", "NAP", "PMO"};
+    private static final int WINDOWS = 2_000;
+    private static final int OBSERVATIONS = 10_000;
+    private static final int WARMUP_ITERATIONS = 2;
+    private static final int MEASURED_ITERATIONS = 7;
+
+    @Autowired
+    private WindowCheckRepository windowCheckRepository;
+
+    @Autowired
+    private PriceObservationRepository priceObservationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM window_check WHERE provider LIKE ?", PROVIDER_PREFIX + "%");
+        jdbcTemplate.update("DELETE FROM price_observation WHERE provider LIKE ?", PROVIDER_PREFIX + "%");
+    }
+
+    @Test
+    void jpaVersusJdbc() throws IOException {
+        double jpaPlanner = measure("jpa", new JpaWindowCheckStore(windowCheckRepository), this::plannerCycle);
+        double jdbcPlanner = measure("jdbc", new JdbcWindowCheckStore(jdbcTemplate, 500), this::plannerCycle);
+        double mappedPlanner;
+        Path stateFile = Files.createTempFile("window-state", ".bin");
+        try (MappedWindowCheckStore mapped = MappedWindowCheckStore.open(
+                stateFile, WINDOWS, new JdbcWindowCheckStore(jdbcTemplate, 500), Clock.systemUTC())) {
+            mappedPlanner = measure("mapped", mapped, this::plannerCycle);
+        } finally {
+            Files.deleteIfExists(stateFile);
+        }
+        double jpaAppend = measure("jpa", new JpaPriceObservationStore(priceObservationRepository), this::appendCycle);
+        double jdbcAppend = measure("jdbc", new JdbcPriceObservationStore(jdbcTemplate, 500), this::appendCycle);
+
+        System.out.printf("window_check load+save %d : jpa median %7.1f ms, jdbc median %7.1f ms, mapped median %7.1f ms%n",
+                WINDOWS, jpaPlanner, jdbcPlanner, mappedPlanner);
+        System.out.printf("price_observation append %d: jpa median %7.1f ms, jdbc median %7.1f ms%n", OBSERVATIONS, jpaAppend, jdbcAppend);
+
+        assertTrue(jdbcPlanner < jpaPlanner, "JDBC planner path should be faster than JPA");
+        assertTrue(mappedPlanner < jdbcPlanner, "Memory-mapped planner path should be faster than JDBC");
+        assertTrue(jdbcAppend < jpaAppend, "JDBC append path should be faster than JPA");
+    }
+
+    private interface Cycle<S> {
+        void run(S store, String provider);
+    }
+
+    private <S> double measure(String label, S store, Cycle<S> cycle) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            cycle.run(store, PROVIDER_PREFIX + label + "-warmup-" + i);
+        }
+
+        long[] nanos = new long[MEASURED_ITERATIONS];
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            String provider = PROVIDER_PREFIX + label + "-" + i;
+            long start = System.nanoTime();
+            cycle.run(store, provider);
+            nanos[i] = System.nanoTime() - start;
+        }
+
+        Arrays.sort(nanos);
+        return nanos[MEASURED_ITERATIONS / 2] / 1_000_000.0;
+    }
+
+    /**
+     * Jak recordChecked: pierwszy przebieg wstawia okna, drugi je wczytuje, aktualizuje i zapisuje.
+     */
+    private void plannerCycle(WindowCheckStore store, String provider) {
+        List<WindowCheck> checks = windowChecks(provider);
+        List<String> keys = checks.stream().map(WindowCheck::getWindowKey).toList();
+        transactionTemplate.executeWithoutResult(status -> store.saveAll(checks));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Instant now = Instant.now();
+            List<WindowCheck> loaded = store.findByProviderAndWindowKeyIn(provider, keys);
+            for (WindowCheck check : loaded) {
+                check.markChecked(now, now);
+                check.recordPrice(300 + check.getWindowKey().length(), 0.3);
+                check.scheduleNextCheck(now, 24);
+            }
+            store.saveAll(loaded);
+        });
+    }
+
+    private void appendCycle(PriceObservationStore store, String provider) {
+        List<PriceObservation> observations = observations(provider);
+        transactionTemplate.executeWithoutResult(status -> store.saveAll(observations));
+    }
+
+    private List<WindowCheck> windowChecks(String provider) {
+        Instant now = Instant.now();
+        List<WindowCheck> checks = new ArrayList<>(WINDOWS);
+        for (int i = 0; i < WINDOWS; i++) {
+            CandidateWindow window = window(i);
+            WindowCheck check = new WindowCheck();
+            check.setProvider(provider);
+            check.setOrigin(window.origin());
+            check.setDestination(window.destination());
+            check.setDepartDate(window.departDate());
+            check.setReturnDate(window.returnDate());
+            check.setWindowKey(window.windowKey());
+            check.setLastCheckedAt(now);
+            check.setCheckCount(1);
+            check.setPriceSamples(0);
+            check.setCreatedAt(now);
+            check.setUpdatedAt(now);
+            checks.add(check);
+        }
+        return checks;
+    }
+
+    private List<PriceObservation> observations(String provider) {
+        Instant now = Instant.now();
+        List<PriceObservation> observations = new ArrayList<>(OBSERVATIONS);
+        for (int i = 0; i < OBSERVATIONS; i++) {
+            CandidateWindow window = window(i % WINDOWS);
+            PriceObservation observation = new PriceObservation();
+            observation.setObservedAt(now);
+            observation.setProvider(provider);
+            observation.setOrigin(window.origin());
+            observation.setDestination(window.destination());
+            observation.setDepartDate(window.departDate());
+            observation.setReturnDate(window.returnDate());
+            observation.setFullDays((short) window.fullDays());
+            observation.setDepartureMonth(window.departDate().withDayOfMonth(1));
+            observation.setWindowKey(window.windowKey());
+            observation.setOfferKey("offer-" + i);
+            observation.setPricePln(200 + i % 2000);
+            observations.add(observation);
+        }
+        return observations;
+    }
+
+    private CandidateWindow window(int index) {
+        LocalDate friday = LocalDate.of(2099, 1, 2).plusWeeks(index / DESTINATIONS.length);
+        return new CandidateWindow("WAW", DESTINATIONS[index % DESTINATIONS.length], friday, friday.plusDays(3));
+    }
+}
@@ -0,0 +1,102 @@
+package pl.weekendflyer.weekendFlightAgent.domain.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.weekendflyer.weekendFlightAgent.domain.deal.BaselineRefresher;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Replika to ten sam serwer co primary, ale osobna pula z innym {@code ApplicationName} - po nim widać,
+ * z której puli przyszło połączenie.
+ */
+@SpringBootTest(properties = {
+        "agent.datasource.replica.url=jdbc:postgresql://localhost:5432/flight_agent?ApplicationName=" + ReadReplicaRoutingIntegrationTest.REPLICA,
+        "agent.datasource.replica.maximum-pool-size=2"
+})
+class ReadReplicaRoutingIntegrationTest {
+
+    static final String REPLICA = "flight-agent-replica";
+
+    private static final String APPLICATION_NAME_SQL = "SELECT current_setting('application_name')";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private HikariDataSource primaryDataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    @Qualifier("readOnlyTransactionTemplate")
+    private TransactionTemplate readOnlyTransactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private BaselineRefresher baselineRefresher;
+
+    @Test
+    void shouldRouteReadOnlyTransactionsToReplica() {
+        assertInstanceOf(ReadReplicaRoutingDataSource.class, dataSource);
+
+        assertEquals(REPLICA, readOnlyTransactionTemplate.execute(
+                status -> jdbcTemplate.queryForObject(APPLICATION_NAME_SQL, String.class)));
+        assertEquals("on", readOnlyTransactionTemplate.execute(
+                status -> jdbcTemplate.queryForObject("SHOW transaction_read_only", String.class)));
+        assertNotEquals(REPLICA, transactionTemplate.execute(
+                status -> jdbcTemplate.queryForObject(APPLICATION_NAME_SQL, String.class)));
+        assertNotEquals(REPLICA, jdbcTemplate.queryForObject(APPLICATION_NAME_SQL, String.class));
+        assertNotNull(meterRegistry.find("hikaricp.connections").tag("pool", "replica").gauge());
+    }
+
+    @Test
+    void shouldRefreshBaselineWithReadOnlyAggregationAndPrimaryUpsert() {
+        assertTrue(baselineRefresher.refresh() >= 0);
+    }
+
+    @Test
+    void shouldFallBackToPrimaryWhenReplicaIsDown() {
+        HikariDataSource deadReplica = new HikariDataSource();
+        deadReplica.setJdbcUrl("jdbc:postgresql://localhost:1/flight_agent");
+        deadReplica.setUsername("flight_agent");
+        deadReplica.setPassword("flight_agent");
+        deadReplica.setConnectionTimeout(250);
+        deadReplica.setInitializationFailTimeout(-1);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        try (ReadReplicaRoutingDataSource routing = new ReadReplicaRoutingDataSource(
+                primaryDataSource, deadReplica, Clock.systemUTC(), Duration.ofMinutes(1), registry)) {
+            JdbcTemplate routedJdbc = new JdbcTemplate(routing);
+            TransactionTemplate readOnly = new TransactionTemplate(new DataSourceTransactionManager(routing));
+            readOnly.setReadOnly(true);
+
+            assertEquals(Integer.valueOf(1), readOnly.execute(status -> routedJdbc.queryForObject("SELECT 1", Integer.class)));
+            assertFalse(routing.replicaAvailable());
+
+            long start = System.nanoTime();
+            assertEquals(Integer.valueOf(1), readOnly.execute(status -> routedJdbc.queryForObject("SELECT 1", Integer.class)));
+            assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 250,
+                    "replica marked down must not be retried within retryAfter");
+            assertEquals(2.0, registry.get("agent.datasource.replica.fallback").counter().count());
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package pl.weekendflyer.weekendFlightAgent.domain.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import pl.weekendflyer.weekendFlightAgent.domain.model.ScanRunWindow;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class ScanWorkQueueRepositoryIntegrationTest {
+
+    private static final Instant NOW = Instant.parse("2199-07-01T12:00:00Z");
+    private static final Instant LEASE_EXPIRED_BEFORE = NOW.minus(Duration.ofMinutes(30));
+    private static final String NODE = "node-self";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ScanWorkQueueRepository scanWorkQueueRepository;
+
+    private final String provider = "work-queue-" + System.nanoTime();
+    private long runId;
+
+    @BeforeEach
+    void setUp() {
+        runId = jdbcTemplate.queryForObject(
+                "INSERT INTO scan_run (provider, status, started_at) VALUES (?, 'RUNNING', ?) RETURNING id",
+                Long.class, provider, Timestamp.from(NOW));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM scan_run_window WHERE scan_run_id = ?", runId);
+        jdbcTemplate.update("DELETE FROM scan_run WHERE id = ?", runId);
+    }
+
+    @Test
+    void shouldNotReclaimOwnWindowWithActiveLease() {
+        window("WAW-LIS-own", NODE, NOW.minus(Duration.ofMinutes(1)));
+        window("WAW-LIS-expired", "node-other", NOW.minus(Duration.ofHours(1)));
+
+        List<ScanRunWindow> claimed = scanWorkQueueRepository.claim(runId, NODE, 10, NOW, LEASE_EXPIRED_BEFORE, LEASE_EXPIRED_BEFORE);
+
+        assertEquals(List.of("WAW-LIS-expired"), claimed.stream().map(ScanRunWindow::getWindowKey).toList());
+    }
+
+    @Test
+    void shouldRecoverOwnWindowsClaimedBeforeProcessStart() {
+        Instant processStartedAt = NOW.minus(Duration.ofMinutes(2));
+        window("WAW-LIS-previous-process", NODE, NOW.minus(Duration.ofMinutes(5)));
+        window("WAW-LIS-this-process", NODE, NOW.minus(Duration.ofMinutes(1)));
+        window("WAW-LIS-other-node", "node-other", NOW.minus(Duration.ofMinutes(5)));
+
+        List<ScanRunWindow> claimed = scanWorkQueueRepository.claim(runId, NODE, 10, NOW, LEASE_EXPIRED_BEFORE, processStartedAt);
+
+        assertEquals(List.of("WAW-LIS-previous-process"), claimed.stream().map(ScanRunWindow::getWindowKey).toList());
+    }
+
+    private void window(String windowKey, String claimedBy, Instant updatedAt) {
+        jdbcTemplate.update("""
+                INSERT INTO scan_run_window (scan_run_id, origin, destination, depart_date, return_date, window_key,
+                                             status, claimed_by, updated_at)
+                VALUES (?, 'WAW', 'LIS', DATE '2199-07-12', DATE '2199-07-16', ?, 'IN_FLIGHT', ?, ?)
+                """, runId, windowKey, claimedBy, Timestamp.from(updatedAt));
+    }
+}
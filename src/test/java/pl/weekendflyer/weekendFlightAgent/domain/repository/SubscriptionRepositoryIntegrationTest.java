@@ -0,0 +1,49 @@
+package pl.weekendflyer.weekendFlightAgent.domain.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import pl.weekendflyer.weekendFlightAgent.domain.model.Subscription;
+import pl.weekendflyer.weekendFlightAgent.domain.model.SubscriptionMatch;
+
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class SubscriptionRepositoryIntegrationTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+
+    @Test
+    void shouldLoadActiveSubscriptionsAndRecordEachMatchOnce() {
+        String userId = "user-" + System.nanoTime();
+        long id = jdbcTemplate.queryForObject("""
+                INSERT INTO subscription (user_id, destinations, full_days, max_price_pln, latest_arrival_on_friday_local)
+                VALUES (?, '{LIS,BCN}', '{2,3}', 900, '21:00') RETURNING id
+                """, Long.class, userId);
+        jdbcTemplate.update("INSERT INTO subscription (user_id, destinations, full_days, active) VALUES (?, '{FCO}', '{2}', FALSE)", userId);
+
+        List<Subscription> active = subscriptionRepository.findActive().stream()
+                .filter(subscription -> subscription.userId().equals(userId))
+                .toList();
+
+        assertEquals(List.of(new Subscription(id, userId, Set.of("LIS", "BCN"), Set.of(2, 3), 900, true,
+                LocalTime.of(21, 0), LocalTime.of(6, 0))), active);
+
+        SubscriptionMatch match = new SubscriptionMatch(id, userId, "WAW-LIS-2099-01-16-2099-01-18", "offer-" + userId, 850);
+        subscriptionRepository.recordMatches(List.of(match), Instant.now());
+        subscriptionRepository.recordMatches(List.of(match), Instant.now());
+
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM subscription_match WHERE subscription_id = ?", Integer.class, id));
+    }
+}
@@ -0,0 +1,148 @@
+package pl.weekendflyer.weekendFlightAgent.domain.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import pl.weekendflyer.weekendFlightAgent.domain.model.CandidateWindow;
+import pl.weekendflyer.weekendFlightAgent.domain.model.FlightOffer;
+import pl.weekendflyer.weekendFlightAgent.domain.model.PriceObservation;
+import pl.weekendflyer.weekendFlightAgent.domain.model.WindowLatestPrice;
+import pl.weekendflyer.weekendFlightAgent.domain.scan.PriceObservationMapper;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class WindowLatestPriceStoreIntegrationTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final CandidateWindow window = new CandidateWindow("WAW", "LIS", LocalDate.of(2099, 4, 9), LocalDate.of(2099, 4, 13));
+    private final Instant t0 = Instant.now().truncatedTo(ChronoUnit.MICROS);
+
+    @Test
+    void shouldKeepCurrentPreviousAndFirstObservedPrice() {
+        WindowLatestPriceStore store = new WindowLatestPriceStore(jdbcTemplate, Clock.systemUTC());
+        String provider = "latest-" + System.nanoTime();
+
+        store.record(List.of(observation(provider, 500, t0)));
+        store.record(List.of(observation(provider, 450, t0.plus(1, ChronoUnit.HOURS))));
+        store.record(List.of(observation(provider, 450, t0.plus(2, ChronoUnit.HOURS))));
+
+        WindowLatestPrice latest = store.find(provider, window.windowKey()).orElseThrow();
+        assertEquals(450, latest.pricePln());
+        assertEquals(500, latest.previousPricePln());
+        assertEquals(t0, latest.firstObservedAt());
+        assertEquals(t0.plus(2, ChronoUnit.HOURS), latest.lastObservedAt());
+
+        WindowLatestPrice reloaded = new WindowLatestPriceStore(jdbcTemplate, Clock.systemUTC())
+                .find(provider, window.windowKey()).orElseThrow();
+        assertEquals(latest, reloaded);
+    }
+
+    @Test
+    void shouldIgnoreObservationOlderThanCurrent() {
+        WindowLatestPriceStore store = new WindowLatestPriceStore(jdbcTemplate, Clock.systemUTC());
+        String provider = "stale-" + System.nanoTime();
+
+        store.record(List.of(observation(provider, 500, t0.plus(1, ChronoUnit.HOURS))));
+        store.record(List.of(observation(provider, 300, t0)));
+
+        assertEquals(500, store.find(provider, window.windowKey()).orElseThrow().pricePln());
+        Integer stored = jdbcTemplate.queryForObject(
+                "SELECT price_pln FROM window_latest_price WHERE provider = ? AND window_key = ?",
+                Integer.class, provider, window.windowKey());
+        assertEquals(500, stored);
+    }
+
+    @Test
+    void shouldReturnCheapestAcrossProvidersAndCollapseDuplicates() {
+        String cheap = "cheap-" + System.nanoTime();
+        String expensive = "expensive-" + System.nanoTime();
+        CandidateWindow own = new CandidateWindow("WAW", "OPO", LocalDate.of(2099, 5, 14), LocalDate.of(2099, 5, 18));
+        jdbcTemplate.update("DELETE FROM window_latest_price WHERE window_key = ?", own.windowKey());
+        WindowLatestPriceStore store = new WindowLatestPriceStore(jdbcTemplate, Clock.systemUTC());
+
+        store.record(List.of(
+                observation(own, expensive, 700, t0),
+                observation(own, cheap, 640, t0),
+                observation(own, cheap, 610, t0)
+        ));
+
+        assertEquals(2, store.findAll(own.windowKey()).size());
+        WindowLatestPrice cheapest = store.cheapest(own.windowKey()).orElseThrow();
+        assertEquals(cheap, cheapest.provider());
+        assertEquals(610, cheapest.pricePln());
+        assertNull(cheapest.previousPricePln());
+    }
+
+    @Test
+    void shouldPickUpRowsWrittenByOtherNodeOnRefresh() {
+        String provider = "remote-" + System.nanoTime();
+        WindowLatestPriceStore local = new WindowLatestPriceStore(jdbcTemplate, Clock.systemUTC());
+        WindowLatestPriceStore remote = new WindowLatestPriceStore(jdbcTemplate, Clock.systemUTC());
+        local.find(provider, window.windowKey());
+
+        remote.record(List.of(observation(provider, 520, t0)));
+        assertTrue(local.find(provider, window.windowKey()).isEmpty(), "Mirror is only updated by refresh");
+
+        local.refresh();
+        assertEquals(520, local.find(provider, window.windowKey()).orElseThrow().pricePln());
+
+        remote.record(List.of(observation(provider, 480, t0.plus(1, ChronoUnit.HOURS))));
+        local.refresh();
+        WindowLatestPrice refreshed = local.find(provider, window.windowKey()).orElseThrow();
+        assertEquals(480, refreshed.pricePln());
+        assertEquals(520, refreshed.previousPricePln());
+    }
+
+    @Test
+    void shouldEvictDepartedWindowsOnRefresh() {
+        String provider = "departed-" + System.nanoTime();
+        CandidateWindow soon = new CandidateWindow("WAW", "NAP", LocalDate.of(2099, 6, 11), LocalDate.of(2099, 6, 15));
+        AtomicReference<Instant> now = new AtomicReference<>(Instant.parse("2099-06-01T08:00:00Z"));
+        WindowLatestPriceStore store = new WindowLatestPriceStore(jdbcTemplate, new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return now.get();
+            }
+        });
+
+        store.record(List.of(observation(soon, provider, 330, t0)));
+        assertTrue(store.find(provider, soon.windowKey()).isPresent());
+
+        now.set(Instant.parse("2099-06-12T08:00:00Z"));
+        store.refresh();
+
+        assertTrue(store.findAll(soon.windowKey()).isEmpty(), "Window departed yesterday must leave the mirror");
+    }
+
+    private PriceObservation observation(String provider, int price, Instant observedAt) {
+        return observation(window, provider, price, observedAt);
+    }
+
+    private PriceObservation observation(CandidateWindow window, String provider, int price, Instant observedAt) {
+        FlightOffer offer = new FlightOffer(window.origin(), window.destination(), List.of(), List.of(), price, provider, "https://provider.test/latest");
+        return PriceObservationMapper.toObservation(window, offer, observedAt);
+    }
+}
@@ -0,0 +1,118 @@
+package pl.weekendflyer.weekendFlightAgent.domain.scan;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.weekendflyer.weekendFlightAgent.config.AgentPropertiesHolder;
+import pl.weekendflyer.weekendFlightAgent.config.AgentPropertiesLoader;
+import pl.weekendflyer.weekendFlightAgent.domain.model.CandidateWindow;
+import pl.weekendflyer.weekendFlightAgent.domain.planner.WindowCheckPlanner;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.ProviderBudgetRepository;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.ScanWorkQueueRepository;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.WindowCheckStore;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ScanRunCoordinatorTest {
+
+    private static final String PROVIDER = "TestProvider";
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private ScanRunExecutor scanRunExecutor;
+    @Mock
+    private ScanWorkQueueRepository scanWorkQueueRepository;
+    @Mock
+    private ProviderBudgetRepository providerBudgetRepository;
+    @Mock
+    private WindowCheckStore windowCheckStore;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private Path configFile;
+    private String baseConfig;
+    private AgentPropertiesHolder holder;
+    private SimpleMeterRegistry meterRegistry;
+    private ScanRunCoordinator coordinator;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        try (InputStream inputStream = new ClassPathResource("config.yaml").getInputStream()) {
+            baseConfig = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        configFile = tempDir.resolve("config.yaml");
+        Files.writeString(configFile, baseConfig);
+        holder = new AgentPropertiesLoader("file:" + configFile, new DefaultResourceLoader()).agentPropertiesHolder();
+
+        Clock clock = Clock.fixed(Instant.parse("2026-01-14T10:00:00Z"), ZoneOffset.UTC);
+        WindowCheckPlanner planner = new WindowCheckPlanner(clock, () -> holder.current().planner(), windowCheckStore, ScanMetrics.noop());
+        meterRegistry = new SimpleMeterRegistry();
+        coordinator = new ScanRunCoordinator(clock, planner::dailyBudgetPerProvider, scanRunExecutor,
+                scanWorkQueueRepository, providerBudgetRepository, transactionTemplate,
+                new ProviderBudgetGauges(meterRegistry, planner::dailyBudgetPerProvider));
+
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(scanRunExecutor.findUnfinished(PROVIDER)).thenReturn(Optional.empty());
+        when(providerBudgetRepository.used(eq(PROVIDER), any())).thenReturn(10);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        holder.close();
+    }
+
+    @Test
+    void shouldCapWithDailyBudgetFromCurrentConfigSnapshot() throws IOException {
+        List<Integer> offeredBudgets = new ArrayList<>();
+
+        coordinator.joinOrPlan(PROVIDER, Integer.MAX_VALUE, remaining -> record(offeredBudgets, remaining));
+        assertEquals(List.of(90), offeredBudgets);
+        assertEquals(90.0, remainingGauge());
+
+        Files.writeString(configFile, baseConfig.replace("dailyBudgetPerProvider: 100", "dailyBudgetPerProvider: 250"));
+        assertTrue(holder.reload());
+
+        coordinator.joinOrPlan(PROVIDER, Integer.MAX_VALUE, remaining -> record(offeredBudgets, remaining));
+        coordinator.joinOrPlan(PROVIDER, remaining -> record(offeredBudgets, remaining));
+        assertEquals(List.of(90, 240, 240), offeredBudgets);
+        assertEquals(240.0, remainingGauge());
+        assertEquals(250.0, meterRegistry.get("agent.provider.budget.paced.target").tag("provider", PROVIDER).gauge().value());
+    }
+
+    private static List<CandidateWindow> record(List<Integer> offeredBudgets, int remaining) {
+        offeredBudgets.add(remaining);
+        return List.of();
+    }
+
+    private double remainingGauge() {
+        return meterRegistry.get("agent.provider.budget.remaining").tag("provider", PROVIDER).gauge().value();
+    }
+}
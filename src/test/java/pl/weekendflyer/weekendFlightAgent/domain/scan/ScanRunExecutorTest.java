@@ -0,0 +1,318 @@
+package pl.weekendflyer.weekendFlightAgent.domain.scan;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import pl.weekendflyer.weekendFlightAgent.config.AgentProperties;
+import pl.weekendflyer.weekendFlightAgent.domain.deal.DealDetector;
+import pl.weekendflyer.weekendFlightAgent.domain.deal.DealRecorder;
+import pl.weekendflyer.weekendFlightAgent.domain.eval.TripConstraintsFactory;
+import pl.weekendflyer.weekendFlightAgent.domain.model.CandidateWindow;
+import pl.weekendflyer.weekendFlightAgent.domain.model.Deal;
+import pl.weekendflyer.weekendFlightAgent.domain.model.FlightOffer;
+import pl.weekendflyer.weekendFlightAgent.domain.model.FlightSegment;
+import pl.weekendflyer.weekendFlightAgent.domain.model.PriceObservation;
+import pl.weekendflyer.weekendFlightAgent.domain.model.ScanRun;
+import pl.weekendflyer.weekendFlightAgent.domain.model.ScanRunStatus;
+import pl.weekendflyer.weekendFlightAgent.domain.model.ScanRunSummary;
+import pl.weekendflyer.weekendFlightAgent.domain.model.ScanRunWindow;
+import pl.weekendflyer.weekendFlightAgent.domain.model.TripConstraints;
+import pl.weekendflyer.weekendFlightAgent.domain.model.WindowScanStatus;
+import pl.weekendflyer.weekendFlightAgent.domain.planner.WindowCheckPlanner;
+import pl.weekendflyer.weekendFlightAgent.domain.provider.FlightSearchService;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.PriceObservationStore;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.ScanRunRepository;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.ScanRunWindowRepository;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.ScanWorkQueueRepository;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.WindowLatestPriceStore;
+import pl.weekendflyer.weekendFlightAgent.domain.subscription.SubscriptionMatcher;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ScanRunExecutorTest {
+
+    private static final ZoneId WARSAW_ZONE = ZoneId.of("Europe/Warsaw");
+    private static final String PROVIDER = "TestProvider";
+    private static final Long RUN_ID = 7L;
+    private static final String NODE_ID = "node-a";
+
+    @Mock
+    private ScanRunRepository scanRunRepository;
+    @Mock
+    private ScanRunWindowRepository scanRunWindowRepository;
+    @Mock
+    private ScanWorkQueueRepository scanWorkQueueRepository;
+    @Mock
+    private PriceObservationStore priceObservationStore;
+    @Mock
+    private WindowLatestPriceStore windowLatestPriceStore;
+    @Mock
+    private WindowCheckPlanner windowCheckPlanner;
+    @Mock
+    private SubscriptionMatcher subscriptionMatcher;
+    @Mock
+    private FlightSearchService flightSearchService;
+    @Mock
+    private TripConstraintsFactory tripConstraintsFactory;
+    @Mock
+    private DealDetector dealDetector;
+    @Mock
+    private DealRecorder dealRecorder;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Captor
+    private ArgumentCaptor<List<CandidateWindow>> checkedCaptor;
+    @Captor
+    private ArgumentCaptor<List<Long>> idsCaptor;
+
+    private Instant fixedNow;
+    private LocalDate today;
+    private ScanRunExecutor executor;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        today = LocalDate.of(2026, 1, 14);
+        fixedNow = today.atStartOfDay(WARSAW_ZONE).toInstant();
+        Clock fixedClock = Clock.fixed(fixedNow, WARSAW_ZONE);
+
+        meterRegistry = new SimpleMeterRegistry();
+        executor = new ScanRunExecutor(fixedClock, () -> new AgentProperties.Scan(2, true, 30), NODE_ID,
+                scanRunRepository, scanRunWindowRepository, scanWorkQueueRepository, priceObservationStore, windowLatestPriceStore, windowCheckPlanner, flightSearchService, tripConstraintsFactory,
+                dealDetector, dealRecorder, subscriptionMatcher, transactionTemplate, new ScanMetrics(meterRegistry));
+
+        lenient().when(tripConstraintsFactory.current()).thenReturn(
+                new TripConstraints(1, 480, 2000, LocalTime.of(22, 0), LocalTime.of(6, 0), true));
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        lenient().doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    void shouldStartRunWithPlannedWindows() {
+        when(scanRunRepository.save(any(ScanRun.class))).thenAnswer(invocation -> {
+            ScanRun run = invocation.getArgument(0);
+            run.setId(RUN_ID);
+            return run;
+        });
+
+        CandidateWindow window = candidate("LIS", 2);
+        ScanRun run = executor.start(PROVIDER, List.of(window));
+
+        assertEquals(ScanRunStatus.RUNNING, run.getStatus());
+        assertEquals(1, run.getPlannedCount());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ScanRunWindow>> plannedCaptor = ArgumentCaptor.forClass(List.class);
+        verify(scanRunWindowRepository).saveAll(plannedCaptor.capture());
+        ScanRunWindow planned = plannedCaptor.getValue().get(0);
+        assertEquals(RUN_ID, planned.getScanRunId());
+        assertEquals(WindowScanStatus.PLANNED, planned.getStatus());
+        assertEquals(window.windowKey(), planned.getWindowKey());
+    }
+
+    @Test
+    void shouldCheckpointEveryBatchAndCompleteRun() throws IOException {
+        ScanRun run = runningRun();
+        when(scanWorkQueueRepository.claim(eq(RUN_ID), eq(NODE_ID), eq(2), eq(fixedNow), any(), any()))
+                .thenReturn(List.of(runWindow(1L, candidate("LIS", 2)), runWindow(2L, candidate("BCN", 3))))
+                .thenReturn(List.of(runWindow(3L, candidate("MAD", 4))))
+                .thenReturn(List.of());
+        when(flightSearchService.search(any(), any())).thenReturn(List.of());
+        when(scanRunWindowRepository.countByScanRunIdAndStatusIn(eq(RUN_ID), anyCollection())).thenReturn(0L);
+
+        ScanRunSummary summary = executor.execute(run);
+
+        Instant leaseExpiredBefore = fixedNow.minus(Duration.ofMinutes(30));
+        verify(scanWorkQueueRepository, times(3)).claim(RUN_ID, NODE_ID, 2, fixedNow, leaseExpiredBefore, leaseExpiredBefore);
+        verify(scanRunWindowRepository, times(2)).markDone(idsCaptor.capture(), eq(fixedNow));
+        assertEquals(List.of(List.of(1L, 2L), List.of(3L)), idsCaptor.getAllValues());
+        verify(windowCheckPlanner, times(2)).recordChecked(eq(PROVIDER), anyList(), eq(Map.of()));
+
+        assertEquals(3, summary.processed());
+        assertEquals(3, summary.done());
+        assertTrue(summary.completed());
+        assertEquals(ScanRunStatus.COMPLETED, run.getStatus());
+        assertEquals(fixedNow, run.getFinishedAt());
+    }
+
+    @Test
+    void shouldMarkFailedWindowsWithoutRecordingThemAsChecked() throws IOException {
+        ScanRun run = runningRun();
+        CandidateWindow ok = candidate("LIS", 2);
+        CandidateWindow broken = candidate("BCN", 3);
+        when(scanWorkQueueRepository.claim(eq(RUN_ID), eq(NODE_ID), anyInt(), any(), any(), any()))
+                .thenReturn(List.of(runWindow(1L, ok), runWindow(2L, broken)))
+                .thenReturn(List.of());
+        when(flightSearchService.search(eq(ok), any())).thenReturn(List.of());
+        when(flightSearchService.search(eq(broken), any())).thenThrow(new IOException("provider timeout"));
+        when(scanRunWindowRepository.countByScanRunIdAndStatusIn(eq(RUN_ID), anyCollection())).thenReturn(0L);
+
+        ScanRunSummary summary = executor.execute(run);
+
+        verify(scanRunWindowRepository).markFailed(2L, "provider timeout", fixedNow);
+        verify(windowCheckPlanner).recordChecked(eq(PROVIDER), checkedCaptor.capture(), any());
+        assertEquals(List.of(ok), checkedCaptor.getValue());
+        assertEquals(1, summary.done());
+        assertEquals(1, summary.failed());
+    }
+
+    @Test
+    void shouldRecordObservationsForAcceptedOffers() throws IOException {
+        ScanRun run = runningRun();
+        CandidateWindow window = candidate("LIS", 2);
+        when(scanWorkQueueRepository.claim(eq(RUN_ID), eq(NODE_ID), anyInt(), any(), any(), any()))
+                .thenReturn(List.of(runWindow(1L, window)))
+                .thenReturn(List.of());
+        when(flightSearchService.search(eq(window), any())).thenReturn(List.of(offer(900), offer(750)));
+        when(scanRunWindowRepository.countByScanRunIdAndStatusIn(eq(RUN_ID), anyCollection())).thenReturn(0L);
+
+        ScanRunSummary summary = executor.execute(run);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<PriceObservation>> observationCaptor = ArgumentCaptor.forClass(List.class);
+        verify(priceObservationStore).saveAll(observationCaptor.capture());
+        PriceObservation observation = observationCaptor.getValue().get(0);
+        assertEquals(window.windowKey(), observation.getWindowKey());
+        assertEquals(900, observation.getPricePln());
+        assertEquals(today.plusDays(2).withDayOfMonth(1), observation.getDepartureMonth());
+        assertEquals(2, summary.observationsRecorded());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<PriceObservation>> latestCaptor = ArgumentCaptor.forClass(Collection.class);
+        verify(windowLatestPriceStore).record(latestCaptor.capture());
+        assertEquals(List.of(750), latestCaptor.getValue().stream().map(PriceObservation::getPricePln).toList());
+        verify(windowCheckPlanner).recordChecked(PROVIDER, List.of(window), Map.of(window.windowKey(), 750));
+        verify(subscriptionMatcher).match(eq(window), eq(List.of(offer(900), offer(750))), any());
+        verify(subscriptionMatcher).record(List.of(), fixedNow);
+    }
+
+    @Test
+    void shouldRecordDetectedDealForCheapestOfferInBatchTransaction() throws IOException {
+        ScanRun run = runningRun();
+        CandidateWindow window = candidate("LIS", 2);
+        when(scanWorkQueueRepository.claim(eq(RUN_ID), eq(NODE_ID), anyInt(), any(), any(), any()))
+                .thenReturn(List.of(runWindow(1L, window)))
+                .thenReturn(List.of());
+        when(flightSearchService.search(eq(window), any())).thenReturn(List.of(offer(900), offer(450)));
+        Deal deal = new Deal();
+        when(dealDetector.detect(any())).thenReturn(Optional.of(deal));
+
+        executor.execute(run);
+
+        ArgumentCaptor<PriceObservation> cheapestCaptor = ArgumentCaptor.forClass(PriceObservation.class);
+        verify(dealDetector).detect(cheapestCaptor.capture());
+        assertEquals(450, cheapestCaptor.getValue().getPricePln());
+        verify(dealRecorder).record(List.of(deal), fixedNow);
+    }
+
+    @Test
+    void shouldTimeSearchDealDetectionAndObservationSaveStages() throws IOException {
+        ScanRun run = runningRun();
+        CandidateWindow ok = candidate("LIS", 2);
+        CandidateWindow broken = candidate("BCN", 3);
+        when(scanWorkQueueRepository.claim(eq(RUN_ID), eq(NODE_ID), anyInt(), any(), any(), any()))
+                .thenReturn(List.of(runWindow(1L, ok), runWindow(2L, broken)))
+                .thenReturn(List.of());
+        when(flightSearchService.search(eq(ok), any())).thenReturn(List.of(offer(900)));
+        when(flightSearchService.search(eq(broken), any())).thenThrow(new IOException("provider timeout"));
+
+        executor.execute(run);
+
+        assertEquals(1, stageCount("provider.search"), "only successful searches are timed");
+        assertEquals(1, stageCount("deal.detect"));
+        assertEquals(1, stageCount("observation.save"));
+    }
+
+    @Test
+    void shouldKeepRunOpenWhileOtherNodesHoldClaims() {
+        ScanRun run = runningRun();
+        when(scanWorkQueueRepository.claim(eq(RUN_ID), eq(NODE_ID), anyInt(), any(), any(), any())).thenReturn(List.of());
+        when(scanRunWindowRepository.countByScanRunIdAndStatusIn(eq(RUN_ID), anyCollection())).thenReturn(3L);
+
+        ScanRunSummary summary = executor.execute(run);
+
+        assertFalse(summary.completed());
+        assertEquals(0, summary.processed());
+        assertEquals(ScanRunStatus.RUNNING, run.getStatus());
+        verify(scanRunRepository, never()).save(any());
+        verify(scanRunWindowRepository, never()).markFailed(anyLong(), any(), any());
+    }
+
+    @Test
+    void shouldRecoverOwnClaimsFromBeforeProcessStartOnlyOnResume() {
+        ScanRun run = runningRun();
+        when(scanWorkQueueRepository.claim(eq(RUN_ID), eq(NODE_ID), anyInt(), any(), any(), any())).thenReturn(List.of());
+        when(scanRunWindowRepository.countByScanRunIdAndStatusIn(eq(RUN_ID), anyCollection())).thenReturn(0L);
+
+        executor.recover(run);
+
+        verify(scanWorkQueueRepository).claim(RUN_ID, NODE_ID, 2, fixedNow, fixedNow.minus(Duration.ofMinutes(30)), fixedNow);
+    }
+
+    private long stageCount(String stage) {
+        return meterRegistry.get("agent.scan.stage").tag("stage", stage).timer().count();
+    }
+
+    private ScanRun runningRun() {
+        ScanRun run = new ScanRun();
+        run.setId(RUN_ID);
+        run.setProvider(PROVIDER);
+        run.setStatus(ScanRunStatus.RUNNING);
+        run.setPlannedCount(3);
+        run.setStartedAt(fixedNow);
+        return run;
+    }
+
+    private CandidateWindow candidate(String destination, int fullDays) {
+        LocalDate departDate = today.plusDays(2);
+        return new CandidateWindow("WAW", destination, departDate, departDate.plusDays(fullDays + 1));
+    }
+
+    private ScanRunWindow runWindow(Long id, CandidateWindow window) {
+        ScanRunWindow runWindow = ScanRunWindow.planned(RUN_ID, window, fixedNow);
+        runWindow.setId(id);
+        return runWindow;
+    }
+
+    private FlightOffer offer(int price) {
+        ZonedDateTime outbound = ZonedDateTime.of(2026, 1, 16, 18, 0, 0, 0, WARSAW_ZONE);
+        ZonedDateTime inbound = ZonedDateTime.of(2026, 1, 18, 10, 0, 0, 0, WARSAW_ZONE);
+        return new FlightOffer("WAW", "LIS",
+                List.of(new FlightSegment("WAW", "LIS", outbound, outbound.plusHours(4))),
+                List.of(new FlightSegment("LIS", "WAW", inbound, inbound.plusHours(4))),
+                price, PROVIDER, "https://test.com");
+    }
+}
@@ -0,0 +1,170 @@
+package pl.weekendflyer.weekendFlightAgent.domain.scan;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.weekendflyer.weekendFlightAgent.domain.eval.TripEvaluator;
+import pl.weekendflyer.weekendFlightAgent.domain.model.CandidateWindow;
+import pl.weekendflyer.weekendFlightAgent.domain.model.TripConstraints;
+import pl.weekendflyer.weekendFlightAgent.domain.provider.FlightOfferStreamDecoder;
+import pl.weekendflyer.weekendFlightAgent.domain.provider.FlightProviderClient;
+import pl.weekendflyer.weekendFlightAgent.domain.provider.FlightSearchService;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScanTraceTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final CandidateWindow WINDOW = new CandidateWindow("WAW", "LIS", LocalDate.of(2026, 3, 13), LocalDate.of(2026, 3, 16));
+    private static final TripConstraints CONSTRAINTS = new TripConstraints(1, 480, 2000, LocalTime.of(22, 0), LocalTime.of(6, 0), true);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldKeepNewestSpansWhenBufferWrapsAround() {
+        ScanTrace trace = new ScanTrace(3, null);
+
+        for (int i = 0; i < 6; i++) {
+            trace.stage("stage-" + i, System.nanoTime());
+        }
+
+        assertEquals(4, trace.capacity(), "capacity is rounded up to a power of two");
+        assertEquals(4, trace.size());
+        assertEquals(2, trace.dropped());
+
+        JsonNode dump = dump(trace);
+        assertEquals(List.of("stage-2", "stage-3", "stage-4", "stage-5"), spanNames(dump));
+        assertEquals(2, dump.get("droppedSpans").asInt());
+    }
+
+    @Test
+    void shouldRecordProviderCallWithWindowProviderStatusAndBytes() throws IOException {
+        byte[] payload = "{\"offers\":[]}".getBytes(StandardCharsets.UTF_8);
+        ScanTrace trace = new ScanTrace(16, null);
+        FlightSearchService service = new FlightSearchService(
+                new FixedProvider(payload), new FlightOfferStreamDecoder(), new TripEvaluator(), trace);
+
+        service.search(WINDOW, CONSTRAINTS);
+
+        JsonNode span = dump(trace).get("traceEvents").get(0);
+        assertEquals("provider.fetch", span.get("name").asString());
+        assertEquals("X", span.get("ph").asString());
+        assertEquals(WINDOW.windowKey(), span.get("args").get("window").asString());
+        assertEquals("fixed", span.get("args").get("provider").asString());
+        assertEquals("ok", span.get("args").get("status").asString());
+        assertEquals(payload.length, span.get("args").get("bytes").asInt());
+    }
+
+    @Test
+    void shouldRecordFailedProviderCallWithExceptionAsStatus() {
+        ScanTrace trace = new ScanTrace(16, null);
+        FlightSearchService service = new FlightSearchService(
+                new FailingProvider(), new FlightOfferStreamDecoder(), new TripEvaluator(), trace);
+
+        assertThrows(IOException.class, () -> service.search(WINDOW, CONSTRAINTS));
+
+        JsonNode span = dump(trace).get("traceEvents").get(0);
+        assertEquals("IOException", span.get("args").get("status").asString());
+    }
+
+    @Test
+    void shouldTraceTimedStagesAndNameThreads() {
+        ScanTrace trace = new ScanTrace(16, null);
+        ScanMetrics metrics = new ScanMetrics(new SimpleMeterRegistry(), trace);
+
+        metrics.time(ScanMetrics.Stage.PLAN, () -> {
+        });
+
+        JsonNode events = dump(trace).get("traceEvents");
+        assertEquals("plan", events.get(0).get("name").asString());
+        assertEquals("stage", events.get(0).get("cat").asString());
+        assertEquals("thread_name", events.get(1).get("name").asString());
+        assertEquals(Thread.currentThread().getName(), events.get(1).get("args").get("name").asString());
+    }
+
+    @Test
+    void shouldIgnoreSpansWhenDisabled() {
+        ScanTrace trace = ScanTrace.disabled();
+
+        trace.stage("plan", System.nanoTime());
+
+        assertFalse(trace.enabled());
+        assertEquals(0, trace.size());
+        assertTrue(dump(trace).get("traceEvents").isEmpty());
+    }
+
+    @Test
+    void shouldOverwriteTraceFileAfterEachCycle() throws IOException {
+        Path file = directory.resolve("scan-trace.json");
+        ScanTrace trace = new ScanTrace(16, file);
+
+        trace.stage("cycle", System.nanoTime());
+        trace.cycleFinished();
+        trace.stage("cycle", System.nanoTime());
+        trace.cycleFinished();
+
+        JsonNode dump = OBJECT_MAPPER.readTree(Files.readString(file));
+        assertEquals(List.of("cycle", "cycle"), spanNames(dump));
+        assertFalse(Files.exists(directory.resolve("scan-trace.json.tmp")));
+    }
+
+    private static JsonNode dump(ScanTrace trace) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        trace.writeChromeTrace(out);
+        return OBJECT_MAPPER.readTree(out.toByteArray());
+    }
+
+    private static List<String> spanNames(JsonNode dump) {
+        List<String> names = new ArrayList<>();
+        for (JsonNode event : dump.get("traceEvents")) {
+            if ("X".equals(event.get("ph").asString())) {
+                names.add(event.get("name").asString());
+            }
+        }
+        return names;
+    }
+
+    private record FixedProvider(byte[] payload) implements FlightProviderClient {
+
+        @Override
+        public String name() {
+            return "fixed";
+        }
+
+        @Override
+        public InputStream search(CandidateWindow window) {
+            return new ByteArrayInputStream(payload);
+        }
+    }
+
+    private static class FailingProvider implements FlightProviderClient {
+
+        @Override
+        public String name() {
+            return "failing";
+        }
+
+        @Override
+        public InputStream search(CandidateWindow window) throws IOException {
+            throw new IOException("connection reset");
+        }
+    }
+}
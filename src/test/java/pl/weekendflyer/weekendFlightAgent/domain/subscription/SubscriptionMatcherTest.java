@@ -0,0 +1,116 @@
+package pl.weekendflyer.weekendFlightAgent.domain.subscription;
+
+import org.junit.jupiter.api.Test;
+import pl.weekendflyer.weekendFlightAgent.domain.eval.TripEvaluator;
+import pl.weekendflyer.weekendFlightAgent.domain.model.CandidateWindow;
+import pl.weekendflyer.weekendFlightAgent.domain.model.FlightOffer;
+import pl.weekendflyer.weekendFlightAgent.domain.model.FlightSegment;
+import pl.weekendflyer.weekendFlightAgent.domain.model.Subscription;
+import pl.weekendflyer.weekendFlightAgent.domain.model.SubscriptionMatch;
+import pl.weekendflyer.weekendFlightAgent.domain.model.TripConstraints;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.SubscriptionRepository;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class SubscriptionMatcherTest {
+
+    private static final ZoneId WARSAW = ZoneId.of("Europe/Warsaw");
+    private static final ZoneId LISBON = ZoneId.of("Europe/Lisbon");
+    private static final LocalDate FRIDAY = LocalDate.of(2026, 1, 16);
+
+    private final TripConstraints shared = new TripConstraints(1, 480, 2000, LocalTime.of(22, 0), LocalTime.of(6, 0), true);
+    private final CandidateWindow window = new CandidateWindow("WAW", "LIS", FRIDAY, FRIDAY.plusDays(2));
+    private final SubscriptionRepository repository = mock(SubscriptionRepository.class);
+
+    @Test
+    void shouldIndexByDestinationFullDaysAndPriceThreshold() {
+        SubscriptionIndex index = SubscriptionIndex.of(List.of(
+                subscription(1, Set.of("LIS", "BCN"), Set.of(1, 2), null),
+                subscription(2, Set.of("LIS"), Set.of(2), 500),
+                subscription(3, Set.of("BCN"), Set.of(1), 300),
+                subscription(4, Set.of("LIS"), Set.of(1), 800)
+        ));
+
+        assertEquals(List.of(4L, 1L), ids(index, index.candidates("LIS", 1)));
+        assertEquals(List.of(3L, 1L), ids(index, index.candidates("BCN", 1)));
+        assertTrue(index.candidates("FCO", 1).isEmpty());
+        assertTrue(index.candidates("LIS", 3).isEmpty());
+        assertEquals(0, index.firstAffording(300));
+        assertEquals(2, index.firstAffording(501));
+        assertEquals(3, index.firstAffording(801));
+        assertEquals(Set.of("LIS", "BCN"), index.destinations());
+        assertEquals(Set.of(1, 2), index.fullDays());
+    }
+
+    @Test
+    void shouldGiveEachSubscriptionItsCheapestMatchingOffer() {
+        when(repository.findActive()).thenReturn(List.of(
+                subscription(1, Set.of("LIS"), Set.of(1), null),
+                subscription(2, Set.of("LIS"), Set.of(1), 450),
+                // przylot najpóźniej o 20:00 - najtańsza oferta ląduje o 21:00
+                new Subscription(3, "user-3", Set.of("LIS"), Set.of(1), null, true, LocalTime.of(20, 0), LocalTime.of(6, 0)),
+                subscription(4, Set.of("LIS"), Set.of(1), 300),
+                subscription(5, Set.of("BCN"), Set.of(1), null),
+                subscription(6, Set.of("LIS"), Set.of(2), null)
+        ));
+        SubscriptionMatcher matcher = new SubscriptionMatcher(repository, new TripEvaluator());
+
+        List<SubscriptionMatch> matches = matcher.match(window, List.of(
+                offer(600, 14), offer(400, 17), offer(500, 15)), shared);
+
+        assertEquals(List.of(
+                new SubscriptionMatch(2, "user-2", window.windowKey(), matches.get(0).offerKey(), 400),
+                new SubscriptionMatch(1, "user-1", window.windowKey(), matches.get(0).offerKey(), 400),
+                new SubscriptionMatch(3, "user-3", window.windowKey(), matches.get(2).offerKey(), 500)
+        ), matches);
+        assertNotEquals(matches.get(0).offerKey(), matches.get(2).offerKey());
+    }
+
+    @Test
+    void shouldEvaluateOnlySubscriptionsOfWindowRoute() {
+        List<Subscription> subscriptions = new ArrayList<>();
+        String[] destinations = {"LIS", "BCN", "MAD", "FCO", "VCE", "MLA", "ATH", "CPH", "OSL", "DUB"};
+        for (int i = 0; i < 1000; i++) {
+            subscriptions.add(subscription(i, Set.of(destinations[i % destinations.length]), Set.of(1 + i % 3), 300 + i));
+        }
+        when(repository.findActive()).thenReturn(subscriptions);
+        TripEvaluator evaluator = spy(new TripEvaluator());
+        SubscriptionMatcher matcher = new SubscriptionMatcher(repository, evaluator);
+
+        List<SubscriptionMatch> matches = matcher.match(window, List.of(offer(900, 17)), shared);
+
+        long expected = subscriptions.stream()
+                .filter(s -> s.destinations().contains("LIS") && s.fullDays().contains(1) && s.maxPricePln() >= 900)
+                .count();
+        assertEquals(expected, matches.size());
+        verify(evaluator, times((int) expected)).meetsHardConstraints(any(), any());
+    }
+
+    private static List<Long> ids(SubscriptionIndex index, BitSet bits) {
+        return bits.stream().mapToObj(index::get).map(Subscription::id).toList();
+    }
+
+    private static Subscription subscription(long id, Set<String> destinations, Set<Integer> fullDays, Integer maxPrice) {
+        return new Subscription(id, "user-" + id, destinations, fullDays, maxPrice, true, LocalTime.of(22, 0), LocalTime.of(6, 0));
+    }
+
+    private static FlightOffer offer(int price, int departureHour) {
+        ZonedDateTime outbound = FRIDAY.atTime(departureHour, 0).atZone(WARSAW);
+        ZonedDateTime inbound = FRIDAY.plusDays(2).atTime(10, 0).atZone(LISBON);
+        return new FlightOffer("WAW", "LIS",
+                List.of(new FlightSegment("WAW", "LIS", outbound, outbound.plusHours(5).withZoneSameInstant(LISBON))),
+                List.of(new FlightSegment("LIS", "WAW", inbound, inbound.plusHours(4).withZoneSameInstant(WARSAW))),
+                price, "TestProvider", "https://test.com/" + price);
+    }
+}
@@ -0,0 +1,88 @@
+package pl.weekendflyer.weekendFlightAgent.domain.timetable;
+
+import org.junit.jupiter.api.Test;
+import pl.weekendflyer.weekendFlightAgent.domain.eval.TripEvaluator;
+import pl.weekendflyer.weekendFlightAgent.domain.model.FlightSegment;
+import pl.weekendflyer.weekendFlightAgent.domain.model.TripConstraints;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionScannerTest {
+
+    private static final ZoneId WARSAW = ZoneId.of("Europe/Warsaw");
+    private static final ZoneId LISBON = ZoneId.of("Europe/Lisbon");
+    private static final ZoneId MADRID = ZoneId.of("Europe/Madrid");
+    private static final LocalDate FRIDAY = LocalDate.of(2026, 1, 16);
+    private static final LocalDate SUNDAY = FRIDAY.plusDays(2);
+
+    private final ConnectionScanner scanner = new ConnectionScanner(new TripEvaluator(), Duration.ofMinutes(60));
+    private final TripConstraints constraints = new TripConstraints(1, 600, null, LocalTime.of(22, 0), LocalTime.of(6, 0), true);
+
+    @Test
+    void shouldFindDirectAndOneStopOutboundToAllDestinationsInOnePass() {
+        FlightSegment direct = flight("WAW", WARSAW, "LIS", LISBON, FRIDAY.atTime(9, 0), 270);
+        FlightSegment toHub = flight("WAW", WARSAW, "MAD", MADRID, FRIDAY.atTime(8, 0), 225);
+        FlightSegment hubToLis = flight("MAD", MADRID, "LIS", LISBON, FRIDAY.atTime(13, 0), 80);
+        FlightSegment hubToOpo = flight("MAD", MADRID, "OPO", LISBON, FRIDAY.atTime(14, 30), 75);
+        FlightTimetable timetable = FlightTimetable.of(List.of(hubToLis, hubToOpo, direct, toHub));
+
+        List<List<FlightSegment>> chains = scanner.outbound(timetable, Set.of("WAW"), Set.of("LIS", "OPO"), constraints);
+
+        assertEquals(3, chains.size());
+        assertTrue(chains.contains(List.of(direct)));
+        assertTrue(chains.contains(List.of(toHub, hubToLis)));
+        assertTrue(chains.contains(List.of(toHub, hubToOpo)));
+    }
+
+    @Test
+    void shouldRejectConnectionShorterThanMinimum() {
+        FlightSegment toHub = flight("WAW", WARSAW, "MAD", MADRID, FRIDAY.atTime(8, 0), 225);
+        // przylot 11:45, wylot 12:30 - 45 minut na przesiadkę
+        FlightSegment tight = flight("MAD", MADRID, "LIS", LISBON, FRIDAY.atTime(12, 30), 80);
+
+        assertTrue(scanner.outbound(FlightTimetable.of(List.of(toHub, tight)), Set.of("WAW"), Set.of("LIS"), constraints).isEmpty());
+    }
+
+    @Test
+    void shouldRejectChainsBreakingDurationStopsOrWeekendRules() {
+        FlightSegment toHub = flight("WAW", WARSAW, "MAD", MADRID, FRIDAY.atTime(6, 0), 225);
+        // 12,5 h od wylotu do przylotu
+        FlightSegment lateConnection = flight("MAD", MADRID, "LIS", LISBON, FRIDAY.atTime(17, 30), 80);
+        // przylot w sobotę
+        FlightSegment saturdayArrival = flight("WAW", WARSAW, "LIS", LISBON, FRIDAY.atTime(22, 30), 270);
+        FlightTimetable timetable = FlightTimetable.of(List.of(toHub, lateConnection, saturdayArrival));
+
+        assertTrue(scanner.outbound(timetable, Set.of("WAW"), Set.of("LIS"), constraints).isEmpty());
+
+        FlightSegment onTime = flight("MAD", MADRID, "LIS", LISBON, FRIDAY.atTime(11, 0), 80);
+        TripConstraints direct = new TripConstraints(0, 600, null, LocalTime.of(22, 0), LocalTime.of(6, 0), true);
+        assertTrue(scanner.outbound(FlightTimetable.of(List.of(toHub, onTime)), Set.of("WAW"), Set.of("LIS"), direct).isEmpty());
+    }
+
+    @Test
+    void shouldFindInboundOnSundayOnly() {
+        FlightSegment early = flight("LIS", LISBON, "WAW", WARSAW, SUNDAY.atTime(5, 0), 240);
+        FlightSegment sunday = flight("LIS", LISBON, "MAD", MADRID, SUNDAY.atTime(10, 0), 80);
+        FlightSegment hubHome = flight("MAD", MADRID, "WAW", WARSAW, SUNDAY.atTime(14, 0), 225);
+        FlightSegment monday = flight("LIS", LISBON, "WAW", WARSAW, SUNDAY.plusDays(1).atTime(10, 0), 240);
+        FlightTimetable timetable = FlightTimetable.of(List.of(early, sunday, hubHome, monday));
+
+        List<List<FlightSegment>> chains = scanner.inbound(timetable, Set.of("LIS"), Set.of("WAW"), constraints);
+
+        assertEquals(List.of(List.of(sunday, hubHome)), chains);
+    }
+
+    static FlightSegment flight(String from, ZoneId fromZone, String to, ZoneId toZone,
+                                java.time.LocalDateTime departureLocal, int minutes) {
+        ZonedDateTime departure = departureLocal.atZone(fromZone);
+        return new FlightSegment(from, to, departure, departure.plusMinutes(minutes).withZoneSameInstant(toZone));
+    }
+}
@@ -0,0 +1,79 @@
+package pl.weekendflyer.weekendFlightAgent.domain.timetable;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.weekendflyer.weekendFlightAgent.domain.eval.TripEvaluator;
+import pl.weekendflyer.weekendFlightAgent.domain.model.CandidateWindow;
+import pl.weekendflyer.weekendFlightAgent.domain.model.TripConstraints;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeekendPrescreenTest {
+
+    private static final String TIMETABLE = """
+            # WAW -> LIS w piątek bezpośrednio, WAW -> FCO przez MUC
+            WAW,LIS,2026-01-16T09:00+01:00[Europe/Warsaw],2026-01-16T12:30Z[Europe/Lisbon]
+            WAW,MUC,2026-01-16T07:00+01:00[Europe/Warsaw],2026-01-16T08:30+01:00[Europe/Berlin]
+
+            MUC,FCO,2026-01-16T10:00+01:00[Europe/Berlin],2026-01-16T11:30+01:00[Europe/Rome]
+            LIS,WAW,2026-01-18T15:00Z[Europe/Lisbon],2026-01-18T20:30+01:00[Europe/Warsaw]
+            FCO,WAW,2026-01-18T18:00+01:00[Europe/Rome],2026-01-18T20:15+01:00[Europe/Warsaw]
+            BCN,WAW,2026-01-23T18:00+01:00[Europe/Madrid],2026-01-23T21:15+01:00[Europe/Warsaw]
+            """;
+
+    @TempDir
+    Path tempDir;
+
+    private final TripConstraints constraints = new TripConstraints(1, 480, null, LocalTime.of(22, 0), LocalTime.of(6, 0), true);
+
+    @Test
+    void shouldKeepOnlyWindowsWithConnectionsBothWays() throws IOException {
+        Path file = tempDir.resolve("timetable.csv");
+        Files.writeString(file, TIMETABLE);
+        FlightTimetable timetable = FlightTimetable.load(file);
+        WeekendPrescreen prescreen = new WeekendPrescreen(timetable, new ConnectionScanner(new TripEvaluator(), Duration.ofMinutes(45)));
+
+        CandidateWindow lisbon = window("LIS", 16, 2);
+        CandidateWindow rome = window("FCO", 16, 2);
+        CandidateWindow barcelona = window("BCN", 16, 2);
+        CandidateWindow lisbonUntilMonday = window("LIS", 16, 3);
+        CandidateWindow beyondTimetable = window("BCN", 30, 2);
+
+        List<CandidateWindow> feasible = prescreen.filter(
+                List.of(lisbon, rome, barcelona, lisbonUntilMonday, beyondTimetable), constraints);
+
+        assertEquals(6, timetable.size());
+        assertEquals(List.of(lisbon, rome, beyondTimetable), feasible);
+    }
+
+    @Test
+    void shouldPassEverythingWithoutTimetable() {
+        WeekendPrescreen prescreen = new WeekendPrescreen(FlightTimetable.empty(),
+                new ConnectionScanner(new TripEvaluator(), Duration.ofMinutes(45)));
+        List<CandidateWindow> windows = List.of(window("LIS", 16, 2));
+
+        assertEquals(windows, prescreen.filter(windows, constraints));
+    }
+
+    @Test
+    void shouldReportLineOfMalformedEntry() throws IOException {
+        Path file = tempDir.resolve("broken.csv");
+        Files.writeString(file, "WAW,LIS,2026-01-16T09:00+01:00,2026-01-16T12:30Z\nWAW,LIS,tomorrow,2026-01-16T12:30Z\n");
+
+        IOException e = assertThrows(IOException.class, () -> FlightTimetable.load(file));
+        assertTrue(e.getMessage().contains("broken.csv:2"), e.getMessage());
+    }
+
+    private static CandidateWindow window(String destination, int departDayOfJanuary, int days) {
+        LocalDate departDate = LocalDate.of(2026, 1, departDayOfJanuary);
+        return new CandidateWindow("WAW", destination, departDate, departDate.plusDays(days));
+    }
+}
@@ -0,0 +1,126 @@
+package pl.weekendflyer.weekendFlightAgent.scheduler;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import pl.weekendflyer.weekendFlightAgent.WeekendFlightAgentApplication;
+import pl.weekendflyer.weekendFlightAgent.domain.model.CandidateWindow;
+import pl.weekendflyer.weekendFlightAgent.domain.provider.FlightProviderClient;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Dwa konteksty aplikacji (dwa "węzły") na jednej bazie: jeden planuje, oba pobierają okna
+ * z tej samej kolejki scan_run_window i żadne okno nie jest sprawdzane dwukrotnie.
+ */
+class ClusterScanIntegrationTest {
+
+    private static final String PROVIDER = "cluster-" + System.nanoTime();
+
+    private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+
+    @AfterEach
+    void stopNodes() {
+        nodes.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    void shouldShareOneScanRunAcrossNodesWithoutDuplicateChecks() {
+        ConfigurableApplicationContext nodeA = startNode("node-a");
+        ConfigurableApplicationContext nodeB = startNode("node-b");
+
+        CompletableFuture.allOf(
+                CompletableFuture.runAsync(() -> nodeA.getBean(DailyScanJob.class).runDailyScan()),
+                CompletableFuture.runAsync(() -> nodeB.getBean(DailyScanJob.class).runDailyScan())
+        ).join();
+
+        Queue<String> checkedByA = nodeA.getBean(RecordingProviderClient.class).checked;
+        Queue<String> checkedByB = nodeB.getBean(RecordingProviderClient.class).checked;
+        JdbcTemplate jdbcTemplate = nodeA.getBean(JdbcTemplate.class);
+
+        Integer runs = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM scan_run WHERE provider = ?", Integer.class, PROVIDER);
+        assertEquals(1, runs, "Only one node may plan the daily scan");
+
+        Integer planned = jdbcTemplate.queryForObject(
+                "SELECT planned_count FROM scan_run WHERE provider = ?", Integer.class, PROVIDER);
+        String status = jdbcTemplate.queryForObject(
+                "SELECT status FROM scan_run WHERE provider = ?", String.class, PROVIDER);
+        Integer budgetUsed = jdbcTemplate.queryForObject(
+                "SELECT used FROM provider_budget WHERE provider = ?", Integer.class, PROVIDER);
+
+        Set<String> distinct = new HashSet<>(checkedByA);
+        distinct.addAll(checkedByB);
+
+        assertEquals(planned, checkedByA.size() + checkedByB.size(), "Every planned window is checked exactly once");
+        assertEquals(planned, distinct.size());
+        assertFalse(checkedByA.isEmpty(), "node-a should claim part of the work");
+        assertFalse(checkedByB.isEmpty(), "node-b should claim part of the work");
+        assertEquals("COMPLETED", status);
+        assertEquals(planned, budgetUsed);
+        assertTrue(budgetUsed <= 100, "Shared daily budget must not be exceeded");
+    }
+
+    private ConfigurableApplicationContext startNode(String nodeId) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(
+                WeekendFlightAgentApplication.class, NodeTestConfig.class)
+                .properties("spring.main.banner-mode=off")
+                .run("--server.port=0", "--agent.cluster.node-id=" + nodeId);
+        nodes.add(context);
+        return context;
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class NodeTestConfig {
+
+        @Bean
+        @Primary
+        RecordingProviderClient recordingProviderClient() {
+            return new RecordingProviderClient();
+        }
+    }
+
+    static class RecordingProviderClient implements FlightProviderClient {
+
+        private static final byte[] EMPTY_RESPONSE = "{\"offers\":[]}".getBytes(StandardCharsets.UTF_8);
+
+        private final Queue<String> checked = new ConcurrentLinkedQueue<>();
+
+        @Override
+        public String name() {
+            return PROVIDER;
+        }
+
+        @Override
+        public InputStream search(CandidateWindow window) throws IOException {
+            checked.add(window.windowKey());
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("search interrupted");
+            }
+            return new ByteArrayInputStream(EMPTY_RESPONSE);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package pl.weekendflyer.weekendFlightAgent.scheduler;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.mock.env.MockEnvironment;
+import pl.weekendflyer.weekendFlightAgent.config.AgentPropertiesHolder;
+import pl.weekendflyer.weekendFlightAgent.config.AgentPropertiesLoader;
+import pl.weekendflyer.weekendFlightAgent.domain.planner.WindowCheckPlanner;
+import pl.weekendflyer.weekendFlightAgent.domain.provider.FlightSearchService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ContinuousScanJobTest {
+
+    private static final String PROVIDER = "TestProvider";
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private WindowCheckPlanner windowCheckPlanner;
+    @Mock
+    private FlightSearchService flightSearchService;
+    @Mock
+    private ScanCycle scanCycle;
+
+    private Path configFile;
+    private String baseConfig;
+    private AgentPropertiesHolder holder;
+    private ContinuousScanJob job;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        try (InputStream inputStream = new ClassPathResource("config.yaml").getInputStream()) {
+            baseConfig = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        configFile = tempDir.resolve("config.yaml");
+        Files.writeString(configFile, baseConfig.replace("mode: CRON", "mode: CONTINUOUS"));
+        holder = new AgentPropertiesLoader("file:" + configFile, new DefaultResourceLoader()).agentPropertiesHolder();
+
+        Clock clock = Clock.fixed(Instant.parse("2026-01-14T10:00:00Z"), ZoneOffset.UTC);
+        job = new ContinuousScanJob(clock, holder, windowCheckPlanner, flightSearchService, scanCycle, new MockEnvironment());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        holder.close();
+    }
+
+    @Test
+    void shouldStopTickingAfterReloadSwitchesToCron() throws IOException {
+        when(windowCheckPlanner.dailyBudgetPerProvider()).thenReturn(100);
+        when(flightSearchService.provider()).thenReturn(PROVIDER);
+
+        job.tick();
+        verify(scanCycle).run(eq(PROVIDER), anyInt());
+
+        Files.writeString(configFile, baseConfig);
+        assertTrue(holder.reload());
+
+        job.tick();
+        verifyNoMoreInteractions(scanCycle);
+    }
+}
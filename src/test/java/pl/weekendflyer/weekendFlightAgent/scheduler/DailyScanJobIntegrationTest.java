@@ -4,7 +4,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
-import pl.weekendflyer.weekendFlightAgent.domain.repository.WindowCheckRepository;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.WindowCheckStore;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.mockito.ArgumentMatchers.anyList;
@@ -18,7 +18,7 @@ class DailyScanJobIntegrationTest {
     private DailyScanJob dailyScanJob;
 
     @MockitoSpyBean
-    private WindowCheckRepository windowCheckRepository;
+    private WindowCheckStore windowCheckStore;
 
     @Test
     void shouldRunDailyScanWithoutExceptions() {
@@ -29,7 +29,7 @@ class DailyScanJobIntegrationTest {
     void shouldUseRepositoryDuringDailyScan() {
         dailyScanJob.runDailyScan();
 
-        verify(windowCheckRepository, atLeastOnce()).findByProviderAndWindowKeyIn(
+        verify(windowCheckStore, atLeastOnce()).findByProviderAndWindowKeyIn(
                 org.mockito.ArgumentMatchers.eq("default"),
                 anyList()
         );
@@ -0,0 +1,111 @@
+package pl.weekendflyer.weekendFlightAgent.scheduler;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import pl.weekendflyer.weekendFlightAgent.domain.model.CandidateWindow;
+import pl.weekendflyer.weekendFlightAgent.domain.model.ScanRun;
+import pl.weekendflyer.weekendFlightAgent.domain.model.ScanRunStatus;
+import pl.weekendflyer.weekendFlightAgent.domain.model.ScanRunWindow;
+import pl.weekendflyer.weekendFlightAgent.domain.model.WindowScanStatus;
+import pl.weekendflyer.weekendFlightAgent.domain.provider.EmptyFlightProviderClient;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.ScanRunRepository;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.ScanRunWindowRepository;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@SpringBootTest
+class DailyScanJobResumeIntegrationTest {
+
+    private static final String PROVIDER = EmptyFlightProviderClient.NAME;
+
+    @Autowired
+    private DailyScanJob dailyScanJob;
+
+    @Autowired
+    private ScanRunRepository scanRunRepository;
+
+    @Autowired
+    private ScanRunWindowRepository scanRunWindowRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // najstarszy RUNNING dla providera - wznowienie wybierze ten run niezależnie od pozostałości innych testów
+    private static final Instant STARTED_AT = Instant.parse("2000-01-14T06:10:00Z");
+
+    private final CandidateWindow planned = new CandidateWindow("WAW", "LIS", LocalDate.of(2099, 1, 15), LocalDate.of(2099, 1, 19));
+    private final CandidateWindow inFlight = new CandidateWindow("WAW", "BCN", LocalDate.of(2099, 1, 15), LocalDate.of(2099, 1, 19));
+    private final CandidateWindow done = new CandidateWindow("WAW", "MAD", LocalDate.of(2099, 1, 15), LocalDate.of(2099, 1, 19));
+
+    private Long runId;
+
+    @BeforeEach
+    void setUp() {
+        deleteWindowChecks();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (runId != null) {
+            jdbcTemplate.update("DELETE FROM scan_run_window WHERE scan_run_id = ?", runId);
+            jdbcTemplate.update("DELETE FROM scan_run WHERE id = ?", runId);
+        }
+        deleteWindowChecks();
+    }
+
+    @Test
+    void shouldResumeUnfinishedRunInsteadOfReplanning() {
+        ScanRun run = new ScanRun();
+        run.setProvider(PROVIDER);
+        run.setStatus(ScanRunStatus.RUNNING);
+        run.setPlannedCount(3);
+        run.setStartedAt(STARTED_AT);
+        scanRunRepository.save(run);
+        runId = run.getId();
+
+        ScanRunWindow inFlightWindow = ScanRunWindow.planned(run.getId(), inFlight, STARTED_AT);
+        inFlightWindow.setStatus(WindowScanStatus.IN_FLIGHT);
+        inFlightWindow.setAttempts(1);
+        ScanRunWindow doneWindow = ScanRunWindow.planned(run.getId(), done, STARTED_AT);
+        doneWindow.setStatus(WindowScanStatus.DONE);
+        doneWindow.setAttempts(1);
+        scanRunWindowRepository.saveAll(List.of(
+                ScanRunWindow.planned(run.getId(), planned, STARTED_AT),
+                inFlightWindow,
+                doneWindow
+        ));
+
+        Integer runsBefore = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM scan_run WHERE provider = ?", Integer.class, PROVIDER);
+
+        dailyScanJob.runDailyScan();
+
+        Integer runsAfter = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM scan_run WHERE provider = ?", Integer.class, PROVIDER);
+        assertEquals(runsBefore, runsAfter, "Resumed scan must not plan a new run");
+
+        ScanRun resumed = scanRunRepository.findById(run.getId()).orElseThrow();
+        assertEquals(ScanRunStatus.COMPLETED, resumed.getStatus());
+        assertNotNull(resumed.getFinishedAt());
+
+        assertEquals(0, scanRunWindowRepository.countByScanRunIdAndStatusIn(
+                run.getId(), List.of(WindowScanStatus.PLANNED, WindowScanStatus.IN_FLIGHT, WindowScanStatus.FAILED)));
+
+        Integer checkedWindows = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM window_check WHERE provider = ? AND window_key IN (?, ?) AND last_checked_at IS NOT NULL",
+                Integer.class, PROVIDER, planned.windowKey(), inFlight.windowKey());
+        assertEquals(2, checkedWindows);
+    }
+
+    private void deleteWindowChecks() {
+        jdbcTemplate.update("DELETE FROM window_check WHERE provider = ? AND window_key IN (?, ?, ?)",
+                PROVIDER, planned.windowKey(), inFlight.windowKey(), done.windowKey());
+    }
+}
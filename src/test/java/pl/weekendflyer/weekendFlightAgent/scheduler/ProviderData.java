@@ -0,0 +1,23 @@
+package pl.weekendflyer.weekendFlightAgent.scheduler;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Sprzątanie danych benchmarków uruchamianych na wspólnej bazie z docker-compose - wszystko po nazwie providera.
+ */
+final class ProviderData {
+
+    private ProviderData() {
+    }
+
+    static void delete(JdbcTemplate jdbcTemplate, String provider) {
+        jdbcTemplate.update("DELETE FROM deal_outbox WHERE deal_id IN (SELECT id FROM deal WHERE provider = ?)", provider);
+        jdbcTemplate.update("DELETE FROM notification_log WHERE deal_id IN (SELECT id FROM deal WHERE provider = ?)", provider);
+        jdbcTemplate.update("DELETE FROM deal WHERE provider = ?", provider);
+        jdbcTemplate.update("DELETE FROM price_observation WHERE provider = ?", provider);
+        jdbcTemplate.update("DELETE FROM window_check WHERE provider = ?", provider);
+        jdbcTemplate.update("DELETE FROM scan_run_window WHERE scan_run_id IN (SELECT id FROM scan_run WHERE provider = ?)", provider);
+        jdbcTemplate.update("DELETE FROM scan_run WHERE provider = ?", provider);
+        jdbcTemplate.update("DELETE FROM provider_budget WHERE provider = ?", provider);
+    }
+}
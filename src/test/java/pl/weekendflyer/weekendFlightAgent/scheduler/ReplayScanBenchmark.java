@@ -0,0 +1,126 @@
+package pl.weekendflyer.weekendFlightAgent.scheduler;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import pl.weekendflyer.weekendFlightAgent.WeekendFlightAgentApplication;
+import pl.weekendflyer.weekendFlightAgent.config.AgentProperties;
+import pl.weekendflyer.weekendFlightAgent.config.AgentPropertiesLoader;
+import pl.weekendflyer.weekendFlightAgent.domain.model.CandidateWindow;
+import pl.weekendflyer.weekendFlightAgent.domain.planner.TripWindowGenerator;
+import pl.weekendflyer.weekendFlightAgent.domain.provider.FlightProviderClient;
+import pl.weekendflyer.weekendFlightAgent.domain.provider.ProviderResponseLog;
+import pl.weekendflyer.weekendFlightAgent.domain.provider.RecordedResponse;
+import pl.weekendflyer.weekendFlightAgent.domain.provider.ReplayFlightProviderClient;
+import pl.weekendflyer.weekendFlightAgent.domain.provider.SyntheticOfferGenerator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cały pipeline generator → planner → ewaluacja → obserwacje → deal na nagranym dniu ruchu, bez prawdziwego providera.
+ * Nagranie jest syntetyczne ({@link SyntheticOfferGenerator}, jedna odpowiedź per okno), odtwarzanie idzie przez {@code agent.provider.replay}.
+ * Uruchamianie: {@code ./mvnw test -Pbenchmark -Dtest=ReplayScanBenchmark [-Dreplay.speed=0] [-Dreplay.offers=40]}
+ */
+@Tag("benchmark")
+class ReplayScanBenchmark {
+
+    private static final String PROVIDER = "replay-bench";
+    private static final ZoneId ZONE = ZoneId.of("Europe/Warsaw");
+    private static final Instant RECORDED_FROM = ZonedDateTime.of(2090, 3, 2, 7, 10, 0, 0, ZONE).toInstant();
+    private static final int ITERATIONS = 3;
+
+    @TempDir
+    Path directory;
+
+    private ConfigurableApplicationContext context;
+
+    @AfterEach
+    void stop() {
+        if (context != null) {
+            ProviderData.delete(context.getBean(JdbcTemplate.class), PROVIDER);
+            context.close();
+        }
+    }
+
+    @Test
+    void dailyScanOverRecordedDay() throws IOException {
+        double speed = Double.parseDouble(System.getProperty("replay.speed", "0"));
+        int offersPerWindow = Integer.getInteger("replay.offers", 40);
+
+        Path recording = directory.resolve("day.prr");
+        int recordedWindows = recordDay(recording, offersPerWindow);
+        System.out.printf("recorded %d windows, %.1f MB%n", recordedWindows, Files.size(recording) / 1e6);
+
+        context = new SpringApplicationBuilder(WeekendFlightAgentApplication.class)
+                .properties("spring.main.banner-mode=off")
+                .run("--server.port=0", "--agent.provider.replay=" + recording, "--agent.provider.replay-speed=" + speed);
+
+        DailyScanJob dailyScanJob = context.getBean(DailyScanJob.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        ReplayFlightProviderClient replay = (ReplayFlightProviderClient) context.getBean(FlightProviderClient.class);
+
+        List<Integer> observationCounts = new ArrayList<>();
+        for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+            ProviderData.delete(jdbcTemplate, PROVIDER);
+            long servedBefore = replay.served();
+
+            long start = System.nanoTime();
+            dailyScanJob.runDailyScan();
+            double millis = (System.nanoTime() - start) / 1e6;
+
+            long windows = replay.served() - servedBefore;
+            Integer observations = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM price_observation WHERE provider = ?", Integer.class, PROVIDER);
+            observationCounts.add(observations);
+
+            System.out.printf("iteration %d: windows %d, observations %d, %.0f ms (%.1f windows/s, speed %.1f)%n",
+                    iteration, windows, observations, millis, windows * 1000 / millis, speed);
+            assertTrue(windows > 0, "Replay should serve the planned windows");
+        }
+
+        assertEquals(0, replay.misses(), "Every planned window should have a recording");
+        assertTrue(observationCounts.stream().distinct().count() == 1, "Replay should be reproducible: " + observationCounts);
+    }
+
+    private static int recordDay(Path file, int offersPerWindow) throws IOException {
+        AgentProperties props = new AgentPropertiesLoader().agentProperties();
+        TripWindowGenerator generator = new TripWindowGenerator(Clock.fixed(RECORDED_FROM, ZONE), props.planner());
+        List<CandidateWindow> windows = generator.generate(
+                props.origins(), props.destinations(), props.search().horizonDays(), props.search().fullDaysAllowed());
+
+        SyntheticOfferGenerator offers = new SyntheticOfferGenerator(42, offersPerWindow, PROVIDER);
+        LocalDate recordedDay = LocalDate.ofInstant(RECORDED_FROM, ZONE);
+        Random random = new Random(42);
+        try (ProviderResponseLog log = ProviderResponseLog.openForAppend(file)) {
+            for (int i = 0; i < windows.size(); i++) {
+                CandidateWindow window = windows.get(i);
+                log.append(new RecordedResponse(
+                        RECORDED_FROM.plusSeconds(2L * i),
+                        Duration.ofMillis(80 + random.nextInt(320)),
+                        PROVIDER,
+                        window.windowKey(),
+                        offers.payload(window, recordedDay)
+                ));
+            }
+        }
+        return windows.size();
+    }
+}
@@ -0,0 +1,337 @@
+package pl.weekendflyer.weekendFlightAgent.scheduler;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.yaml.snakeyaml.Yaml;
+import pl.weekendflyer.weekendFlightAgent.WeekendFlightAgentApplication;
+import pl.weekendflyer.weekendFlightAgent.domain.alert.AlertDispatcher;
+import pl.weekendflyer.weekendFlightAgent.domain.deal.BaselineRefresher;
+import pl.weekendflyer.weekendFlightAgent.domain.model.CandidateWindow;
+import pl.weekendflyer.weekendFlightAgent.domain.model.WindowCheck;
+import pl.weekendflyer.weekendFlightAgent.domain.provider.FlightProviderClient;
+import pl.weekendflyer.weekendFlightAgent.domain.provider.SyntheticOfferGenerator;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.PriceObservationStore;
+import pl.weekendflyer.weekendFlightAgent.domain.repository.WindowCheckStore;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Symulowany miesiąc pracy agenta na lokalnym Postgresie: każdy dzień to odświeżenie baseline, dzienny skan
+ * (generator → planner → provider → ewaluacja → obserwacje → deal) i wysyłka alertów. Oferty pochodzą
+ * z {@link SyntheticOfferGenerator}, zegar przesuwa się o dzień między przebiegami.
+ * Raportuje przepustowość, p50/p99 etapów oraz przyrost heapu i bazy dzień po dniu.
+ * Uruchamianie: {@code ./mvnw test -Pbenchmark -Dtest=SoakBenchmark [-Dsoak.origins=2 -Dsoak.destinations=20
+ * -Dsoak.days=30 -Dsoak.budget=1000 -Dsoak.offers=30]}
+ */
+@Tag("benchmark")
+class SoakBenchmark {
+
+    private static final String PROVIDER = "soak";
+    private static final ZoneId ZONE = ZoneId.of("Europe/Warsaw");
+    private static final ZonedDateTime FIRST_DAY = ZonedDateTime.of(2087, 3, 1, 7, 10, 0, 0, ZONE);
+    private static final long MAX_HEAP_GROWTH_BYTES = 128L * 1024 * 1024;
+
+    private static final StageTimer TIMER = new StageTimer();
+    private static final SimulatedClock CLOCK = new SimulatedClock(ZONE);
+
+    @TempDir
+    Path directory;
+
+    private ConfigurableApplicationContext context;
+
+    @AfterEach
+    void stop() {
+        if (context != null) {
+            cleanUp(context.getBean(JdbcTemplate.class));
+            context.close();
+        }
+    }
+
+    @Test
+    void simulatedMonthOfDailyScans() throws IOException {
+        int origins = Integer.getInteger("soak.origins", 2);
+        int destinations = Integer.getInteger("soak.destinations", 20);
+        int days = Integer.getInteger("soak.days", 30);
+        int budget = Integer.getInteger("soak.budget", 1000);
+        int offers = Integer.getInteger("soak.offers", 30);
+
+        CLOCK.set(FIRST_DAY.toInstant());
+        Path config = writeConfig(origins, destinations, budget);
+        context = new SpringApplicationBuilder(WeekendFlightAgentApplication.class, SoakTestConfig.class)
+                .properties("spring.main.banner-mode=off", "soak.offers=" + offers)
+                .run("--server.port=0", "--agent.configPath=file:" + config.toAbsolutePath());
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        DailyScanJob dailyScanJob = context.getBean(DailyScanJob.class);
+        BaselineRefresher baselineRefresher = context.getBean(BaselineRefresher.class);
+        AlertDispatcher alertDispatcher = context.getBean(AlertDispatcher.class);
+        SyntheticProviderClient provider = context.getBean(SyntheticProviderClient.class);
+        cleanUp(jdbcTemplate);
+        TIMER.reset();
+
+        System.out.printf("soak: %d origins x %d destinations, %d days, budget %d/day, %d offers/window%n",
+                origins, destinations, days, budget, offers);
+        System.out.println("day        windows  observations  scan ms  windows/s  deals  heap MB  db MB");
+
+        long firstHeap = 0;
+        long lastHeap = 0;
+        long firstDatabase = databaseBytes(jdbcTemplate);
+        for (int day = 0; day < days; day++) {
+            CLOCK.set(FIRST_DAY.plusDays(day).toInstant());
+            long windowsBefore = provider.searches.get();
+            int observationsBefore = count(jdbcTemplate, "price_observation");
+
+            TIMER.time("baseline refresh", baselineRefresher::refresh);
+            long start = System.nanoTime();
+            TIMER.time("daily scan", dailyScanJob::runDailyScan);
+            double scanMillis = (System.nanoTime() - start) / 1e6;
+            TIMER.time("alert dispatch", alertDispatcher::dispatchPending);
+
+            long windows = provider.searches.get() - windowsBefore;
+            long heap = heapAfterGc();
+            long database = databaseBytes(jdbcTemplate);
+            if (day == 0) {
+                firstHeap = heap;
+            }
+            lastHeap = heap;
+
+            System.out.printf("%s  %7d  %12d  %7.0f  %9.1f  %5d  %7.1f  %5.1f%n",
+                    CLOCK.today(), windows, count(jdbcTemplate, "price_observation") - observationsBefore, scanMillis,
+                    windows * 1000 / scanMillis, count(jdbcTemplate, "deal"), heap / 1e6, (database - firstDatabase) / 1e6);
+            assertTrue(windows > 0, "Every simulated day should check some windows");
+        }
+
+        System.out.println();
+        System.out.println("stage                     count      p50 ms      p99 ms      max ms");
+        TIMER.report();
+        System.out.printf("heap after GC: day 1 %.1f MB, day %d %.1f MB%n", firstHeap / 1e6, days, lastHeap / 1e6);
+
+        assertTrue(lastHeap - firstHeap < MAX_HEAP_GROWTH_BYTES,
+                "Heap should not grow with accumulated history, grew by " + (lastHeap - firstHeap) / 1e6 + " MB");
+    }
+
+    private Path writeConfig(int origins, int destinations, int budget) throws IOException {
+        Yaml yaml = new Yaml();
+        Map<String, Object> root;
+        try (InputStream in = getClass().getResourceAsStream("/config.yaml")) {
+            root = yaml.load(in);
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, Object> agent = (Map<String, Object>) root.get("agent");
+        agent.put("origins", SyntheticOfferGenerator.origins(origins));
+        agent.put("destinations", SyntheticOfferGenerator.destinations(destinations));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> planner = (Map<String, Object>) agent.get("planner");
+        planner.put("dailyBudgetPerProvider", budget);
+        planner.put("maxWindowsGlobal", 100_000);
+
+        Path file = directory.resolve("config.yaml");
+        try (Writer writer = Files.newBufferedWriter(file)) {
+            yaml.dump(root, writer);
+        }
+        return file;
+    }
+
+    private static void cleanUp(JdbcTemplate jdbcTemplate) {
+        ProviderData.delete(jdbcTemplate, PROVIDER);
+        jdbcTemplate.update("DELETE FROM baseline WHERE departure_month >= ?", FIRST_DAY.toLocalDate().withDayOfMonth(1));
+    }
+
+    private static int count(JdbcTemplate jdbcTemplate, String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table + " WHERE provider = ?", Integer.class, PROVIDER);
+    }
+
+    private static long databaseBytes(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForObject("SELECT pg_database_size(current_database())", Long.class);
+    }
+
+    private static long heapAfterGc() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class SoakTestConfig {
+
+        @Bean
+        @Primary
+        Clock simulatedClock() {
+            return CLOCK;
+        }
+
+        @Bean
+        @Primary
+        SyntheticProviderClient syntheticProviderClient(@Value("${soak.offers}") int offers) {
+            return new SyntheticProviderClient(new SyntheticOfferGenerator(7, offers, PROVIDER));
+        }
+
+        @Bean
+        @Primary
+        WindowCheckStore timedWindowCheckStore(@Qualifier("windowCheckStore") WindowCheckStore delegate) {
+            return new WindowCheckStore() {
+                @Override
+                public List<WindowCheck> findByProviderAndWindowKeyIn(String provider, List<String> windowKeys) {
+                    return TIMER.time("window_check read", () -> delegate.findByProviderAndWindowKeyIn(provider, windowKeys));
+                }
+
+                @Override
+                public void saveAll(List<WindowCheck> checks) {
+                    TIMER.time("window_check write", () -> delegate.saveAll(checks));
+                }
+            };
+        }
+
+        @Bean
+        @Primary
+        PriceObservationStore timedPriceObservationStore(@Qualifier("priceObservationStore") PriceObservationStore delegate) {
+            return observations -> TIMER.time("observation write", () -> delegate.saveAll(observations));
+        }
+    }
+
+    static class SyntheticProviderClient implements FlightProviderClient {
+
+        private final SyntheticOfferGenerator generator;
+        private final AtomicLong searches = new AtomicLong();
+
+        SyntheticProviderClient(SyntheticOfferGenerator generator) {
+            this.generator = generator;
+        }
+
+        @Override
+        public String name() {
+            return PROVIDER;
+        }
+
+        /**
+         * Czas etapu liczony od zapytania do pierwszego zamknięcia strumienia - obejmuje dekodowanie i ewaluację ofert.
+         */
+        @Override
+        public InputStream search(CandidateWindow window) {
+            searches.incrementAndGet();
+            long start = System.nanoTime();
+            return new FilterInputStream(new ByteArrayInputStream(generator.payload(window, CLOCK.today()))) {
+                private boolean closed;
+
+                @Override
+                public void close() throws IOException {
+                    super.close();
+                    if (!closed) {
+                        closed = true;
+                        TIMER.record("fetch + decode + evaluate", System.nanoTime() - start);
+                    }
+                }
+            };
+        }
+    }
+
+    /**
+     * Zegar symulacji: ustawiony na początek dnia, dalej płynie razem z czasem rzeczywistym.
+     */
+    static class SimulatedClock extends Clock {
+
+        private final ZoneId zone;
+        private volatile Instant base = Instant.EPOCH;
+        private volatile long baseNanos = System.nanoTime();
+
+        SimulatedClock(ZoneId zone) {
+            this.zone = zone;
+        }
+
+        void set(Instant instant) {
+            baseNanos = System.nanoTime();
+            base = instant;
+        }
+
+        LocalDate today() {
+            return LocalDate.ofInstant(instant(), zone);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return zone;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return Clock.offset(Clock.system(zone), Duration.between(Instant.now(), instant()));
+        }
+
+        @Override
+        public Instant instant() {
+            return base.plusNanos(System.nanoTime() - baseNanos);
+        }
+    }
+
+    static class StageTimer {
+
+        private final Map<String, List<Long>> samples = new TreeMap<>();
+
+        synchronized void record(String stage, long nanos) {
+            samples.computeIfAbsent(stage, key -> new ArrayList<>()).add(nanos);
+        }
+
+        void time(String stage, Runnable action) {
+            time(stage, () -> {
+                action.run();
+                return null;
+            });
+        }
+
+        <T> T time(String stage, Supplier<T> action) {
+            long start = System.nanoTime();
+            try {
+                return action.get();
+            } finally {
+                record(stage, System.nanoTime() - start);
+            }
+        }
+
+        synchronized void reset() {
+            samples.clear();
+        }
+
+        synchronized void report() {
+            samples.forEach((stage, values) -> {
+                List<Long> sorted = values.stream().sorted().toList();
+                System.out.printf("%-24s %6d  %10.2f  %10.2f  %10.2f%n", stage, sorted.size(),
+                        percentile(sorted, 0.50) / 1e6, percentile(sorted, 0.99) / 1e6, sorted.get(sorted.size() - 1) / 1e6);
+            });
+        }
+
+        private static long percentile(List<Long> sorted, double quantile) {
+            int index = (int) Math.ceil(quantile * sorted.size()) - 1;
+            return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+        }
+    }
+}